@@ -1,12 +1,36 @@
 package com.orgatex.vp.sphinx;
 
+import com.orgatex.vp.sphinx.generator.JsonExporter;
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
 import com.vp.plugin.VPPlugin;
 import com.vp.plugin.VPPluginInfo;
 
 /** Visual Paradigm plugin for exporting use case diagrams to Sphinx-Needs RST format. */
 public class VPSphinxPlugin implements VPPlugin {
 
-  public void loaded(VPPluginInfo vpPluginInfo) {}
+  private static final PluginLogger log = PluginLogger.getLogger(VPSphinxPlugin.class);
 
-  public void unloaded() {}
+  public void loaded(VPPluginInfo vpPluginInfo) {
+    PluginMetrics metrics = PluginMetrics.getInstance();
+    metrics.registerCache("logBuffer", PluginLogger::getPendingEventCount);
+    try {
+      PluginMetrics.register();
+    } catch (Exception e) {
+      // Metrics are diagnostic only; the plugin keeps working without JMX
+      log.warn("Could not register JMX metrics: " + e.getMessage());
+    }
+  }
+
+  public void unloaded() {
+    try {
+      PluginMetrics.unregister();
+    } catch (Exception e) {
+      log.warn("Could not unregister JMX metrics: " + e.getMessage());
+    }
+    JsonExporter.shutdown();
+    // Make sure buffered log output reaches the console before the plugin goes away
+    PluginLogger.flush(2000);
+    PluginLogger.shutdown();
+  }
 }
@@ -0,0 +1,59 @@
+package com.orgatex.vp.sphinx.action;
+
+import com.orgatex.vp.sphinx.generator.ValidationResult;
+import com.orgatex.vp.sphinx.model.SphinxNeedsExportOption;
+import com.orgatex.vp.sphinx.service.SphinxNeedsExporter;
+import com.vp.plugin.ApplicationManager;
+import com.vp.plugin.ViewManager;
+import com.vp.plugin.action.VPAction;
+import com.vp.plugin.action.VPActionController;
+import com.vp.plugin.diagram.IDiagramUIModel;
+import com.vp.plugin.model.IProject;
+import java.io.File;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+
+/** Action controller for exporting every diagram of the project to its own needs file. */
+public class ExportAllDiagramsToSphinxActionController implements VPActionController {
+
+  @Override
+  public void performAction(VPAction vpAction) {
+    ViewManager viewManager = ApplicationManager.instance().getViewManager();
+    IProject project = ApplicationManager.instance().getProjectManager().getProject();
+    IDiagramUIModel[] diagrams = project != null ? project.toDiagramArray() : null;
+    if (diagrams == null || diagrams.length == 0) {
+      viewManager.showMessage("The project has no diagrams to export.");
+      return;
+    }
+
+    JFileChooser fileChooser = viewManager.createJFileChooser();
+    fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+    fileChooser.setDialogTitle("Select output directory for " + diagrams.length + " diagram(s)");
+    if (fileChooser.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) {
+      return;
+    }
+    File outputDirectory = fileChooser.getSelectedFile();
+
+    try {
+      ValidationResult result =
+          new SphinxNeedsExporter()
+              .exportEach(SphinxNeedsExportOption.toExportDiagrams(diagrams), outputDirectory);
+      String message =
+          "Exported " + diagrams.length + " diagram(s) to: " + outputDirectory.getAbsolutePath();
+      if (!result.isValid()) {
+        message +=
+            "\n" + result.getViolations().size() + " schema violation(s), see the message pane.";
+      }
+      viewManager.showMessageDialog(
+          null, message, "Export Successful", JOptionPane.INFORMATION_MESSAGE);
+    } catch (Exception e) {
+      viewManager.showMessageDialog(
+          null, "Export failed: " + e.getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
+    }
+  }
+
+  @Override
+  public void update(VPAction vpAction) {
+    vpAction.setEnabled(true);
+  }
+}
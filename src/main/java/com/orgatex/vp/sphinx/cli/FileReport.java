@@ -0,0 +1,61 @@
+package com.orgatex.vp.sphinx.cli;
+
+import java.util.List;
+
+/**
+ * Validation outcome of one needs.json file.
+ *
+ * @param path the validated file
+ * @param durationMillis time spent validating the file
+ * @param needCount number of needs across all versions, 0 if the file could not be read
+ * @param fatal true if the file could not be read or parsed at all
+ * @param errors violations that make the file invalid
+ * @param warnings problems that do not make the file invalid
+ */
+public record FileReport(
+    String path,
+    long durationMillis,
+    int needCount,
+    boolean fatal,
+    List<Issue> errors,
+    List<Issue> warnings) {
+
+  /**
+   * A single problem in a file.
+   *
+   * @param rule schema keyword or rule that failed
+   * @param message human readable description
+   * @param path JSONPath of the offending value
+   * @param needId id of the affected need, or null
+   * @param line 1-based line number, or 0 if unknown
+   * @param column 1-based column number, or 0 if unknown
+   */
+  public record Issue(
+      String rule, String message, String path, String needId, int line, int column) {
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder();
+      if (line > 0) {
+        text.append("line ").append(line).append(", column ").append(column).append(": ");
+      }
+      if (needId != null) {
+        text.append("need ").append(needId).append(": ");
+      }
+      text.append(message);
+      if (path != null) {
+        text.append(" at ").append(path);
+      }
+      return text.toString();
+    }
+  }
+
+  /**
+   * Check whether the file passes.
+   *
+   * @param failOnWarnings true if warnings should count as failures
+   * @return true if the file has no errors (and no warnings, if requested)
+   */
+  public boolean passed(boolean failOnWarnings) {
+    return !fatal && errors.isEmpty() && (!failOnWarnings || warnings.isEmpty());
+  }
+}
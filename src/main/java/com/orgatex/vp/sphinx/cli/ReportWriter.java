@@ -0,0 +1,159 @@
+package com.orgatex.vp.sphinx.cli;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/** Writes validation reports as JUnit XML, JSON or plain text. */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ReportWriter {
+
+  private static final String SUITE_NAME = "sphinx-needs-validation";
+
+  /** Write a JUnit XML report, one test case per file, as understood by common CI servers. */
+  static void writeJUnit(List<FileReport> reports, boolean failOnWarnings, OutputStream out)
+      throws IOException {
+    int failures = 0;
+    int errors = 0;
+    long totalMillis = 0;
+    for (FileReport report : reports) {
+      if (report.fatal()) {
+        errors++;
+      } else if (!report.passed(failOnWarnings)) {
+        failures++;
+      }
+      totalMillis += report.durationMillis();
+    }
+
+    try {
+      XMLStreamWriter xml = XMLOutputFactory.newFactory().createXMLStreamWriter(out, "UTF-8");
+      xml.writeStartDocument("UTF-8", "1.0");
+      xml.writeCharacters("\n");
+      xml.writeStartElement("testsuite");
+      xml.writeAttribute("name", SUITE_NAME);
+      xml.writeAttribute("tests", String.valueOf(reports.size()));
+      xml.writeAttribute("failures", String.valueOf(failures));
+      xml.writeAttribute("errors", String.valueOf(errors));
+      xml.writeAttribute("skipped", "0");
+      xml.writeAttribute("time", seconds(totalMillis));
+      xml.writeCharacters("\n");
+
+      for (FileReport report : reports) {
+        xml.writeCharacters("  ");
+        xml.writeStartElement("testcase");
+        xml.writeAttribute("classname", SUITE_NAME);
+        xml.writeAttribute("name", report.path());
+        xml.writeAttribute("time", seconds(report.durationMillis()));
+
+        if (report.fatal()) {
+          writeProblem(xml, "error", "File could not be read", "format", report.errors());
+        } else if (!report.errors().isEmpty()) {
+          String message = report.errors().size() + " schema violation(s)";
+          writeProblem(xml, "failure", message, "schema", report.errors());
+        } else if (failOnWarnings && !report.warnings().isEmpty()) {
+          String message = report.warnings().size() + " warning(s)";
+          writeProblem(xml, "failure", message, "warning", report.warnings());
+        }
+        if (!report.warnings().isEmpty()) {
+          xml.writeStartElement("system-out");
+          xml.writeCharacters(lines(report.warnings()));
+          xml.writeEndElement();
+        }
+
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+      }
+
+      xml.writeEndElement();
+      xml.writeCharacters("\n");
+      xml.writeEndDocument();
+      xml.flush();
+      xml.close();
+    } catch (XMLStreamException e) {
+      throw new IOException("Failed to write JUnit report: " + e.getMessage(), e);
+    }
+  }
+
+  /** Write a JSON report with a summary and the issues of every file. */
+  static void writeJson(List<FileReport> reports, boolean failOnWarnings, OutputStream out)
+      throws IOException {
+    int passed = 0;
+    for (FileReport report : reports) {
+      if (report.passed(failOnWarnings)) {
+        passed++;
+      }
+    }
+
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("files", reports.size());
+    summary.put("passed", passed);
+    summary.put("failed", reports.size() - passed);
+
+    Map<String, Object> root = new LinkedHashMap<>();
+    root.put("summary", summary);
+    root.put("files", reports);
+
+    ObjectMapper mapper =
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // never close System.out
+    mapper.writeValue(out, root);
+  }
+
+  /** Print a human readable line per file, followed by its issues. */
+  static void writeText(List<FileReport> reports, boolean failOnWarnings, PrintStream out) {
+    int passed = 0;
+    for (FileReport report : reports) {
+      boolean ok = report.passed(failOnWarnings);
+      if (ok) {
+        passed++;
+      }
+      out.println((ok ? "OK   " : "FAIL ") + report.path() + " (" + report.needCount() + " needs)");
+      for (FileReport.Issue issue : report.errors()) {
+        out.println("  error:   " + issue);
+      }
+      for (FileReport.Issue issue : report.warnings()) {
+        out.println("  warning: " + issue);
+      }
+    }
+    out.println(passed + " of " + reports.size() + " file(s) passed");
+  }
+
+  private static void writeProblem(
+      XMLStreamWriter xml,
+      String element,
+      String message,
+      String type,
+      List<FileReport.Issue> issues)
+      throws XMLStreamException {
+    xml.writeStartElement(element);
+    xml.writeAttribute("message", message);
+    xml.writeAttribute("type", type);
+    xml.writeCharacters(lines(issues));
+    xml.writeEndElement();
+  }
+
+  private static String lines(List<FileReport.Issue> issues) {
+    StringBuilder text = new StringBuilder();
+    for (FileReport.Issue issue : issues) {
+      text.append(issue).append('\n');
+    }
+    return text.toString();
+  }
+
+  private static String seconds(long millis) {
+    return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+  }
+}
@@ -0,0 +1,337 @@
+package com.orgatex.vp.sphinx.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.generator.AtomicFileWriter;
+import com.orgatex.vp.sphinx.generator.JsonExporter;
+import com.orgatex.vp.sphinx.generator.NeedsFileCodec;
+import com.orgatex.vp.sphinx.generator.ValidationResult;
+import com.orgatex.vp.sphinx.importer.NeedsDirectoryReader;
+import com.orgatex.vp.sphinx.importer.NeedsFileReader;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command line validator for sphinx-needs JSON files.
+ *
+ * <p>Validates any number of needs files, or every {@code *needs.json} below a directory such as a
+ * Sphinx build tree, in parallel. Each file is checked with the streaming {@link NeedsFileReader},
+ * so no JSON tree is built and memory per file stays close to the size of the bound needs; the
+ * number of files in flight is limited by {@code --threads}. {@code --strict} additionally runs
+ * the generic JSON schema validator used by {@link JsonExporter}'s strict mode, which does build
+ * a tree.
+ *
+ * <p>Run it from the plugin's {@code lib} directory with {@code java -jar
+ * visual-paradigm-sphinx-plugin.jar [options] <file-or-directory>...}.
+ */
+public final class ValidateNeedsCli {
+
+  /** Link fields whose targets must exist in the same version. */
+  private static final String[] LINK_FIELDS = {
+    "links", "extends", "includes", "associates", "derive", "contains", "refines"
+  };
+
+  private static final String USAGE =
+      String.join(
+          System.lineSeparator(),
+          "Usage: java -jar visual-paradigm-sphinx-plugin.jar [options] <file-or-directory>...",
+          "",
+          "Validates sphinx-needs JSON files against the sphinx-needs 5.1.0 schema.",
+          "Directories are searched recursively for files ending in 'needs.json'.",
+          "",
+          "Options:",
+          "  --format <text|junit|json>  report format (default: text)",
+          "  --output <file>             write the report to a file instead of stdout",
+          "  --threads <n>               files validated in parallel (default: CPU cores)",
+          "  --strict                    also run the generic JSON schema validator",
+          "  --fail-on-warnings          treat warnings as failures",
+          "  --help                      show this help",
+          "",
+          "Exit status: 0 if all files pass, 1 if any file fails, 2 on usage errors.");
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final NeedsFileReader reader = new NeedsFileReader(objectMapper);
+
+  private String format = "text";
+  private Path output;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private boolean strict;
+  private boolean failOnWarnings;
+  private final List<Path> inputs = new ArrayList<>();
+
+  private ValidateNeedsCli() {}
+
+  public static void main(String[] args) {
+    System.exit(run(args, System.out, System.err));
+  }
+
+  /**
+   * Run the validator.
+   *
+   * @param args command line arguments
+   * @param out stream for the report and results
+   * @param err stream for usage and error messages
+   * @return process exit status
+   */
+  static int run(String[] args, PrintStream out, PrintStream err) {
+    ValidateNeedsCli cli = new ValidateNeedsCli();
+    try {
+      if (!cli.parseArguments(args)) {
+        out.println(USAGE);
+        return 0;
+      }
+      List<Path> files = cli.collectFiles();
+      if (files.isEmpty()) {
+        err.println("No needs.json files found");
+        return 2;
+      }
+
+      List<FileReport> reports = cli.validateAll(files);
+      cli.writeReport(reports, out);
+
+      for (FileReport report : reports) {
+        if (!report.passed(cli.failOnWarnings)) {
+          return 1;
+        }
+      }
+      return 0;
+    } catch (IllegalArgumentException e) {
+      err.println("Error: " + e.getMessage());
+      err.println(USAGE);
+      return 2;
+    } catch (IOException e) {
+      err.println("Error: " + e.getMessage());
+      return 2;
+    }
+  }
+
+  /** Parse the arguments; returns false if only help was requested. */
+  private boolean parseArguments(String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      switch (arg) {
+        case "--help", "-h" -> {
+          return false;
+        }
+        case "--format" -> {
+          format = value(args, ++i, arg);
+          if (!Set.of("text", "junit", "json").contains(format)) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+          }
+        }
+        case "--output" -> output = Paths.get(value(args, ++i, arg));
+        case "--threads" -> {
+          try {
+            threads = Integer.parseInt(value(args, ++i, arg));
+          } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--threads needs a number");
+          }
+          if (threads < 1) {
+            throw new IllegalArgumentException("--threads must be at least 1");
+          }
+        }
+        case "--strict" -> strict = true;
+        case "--fail-on-warnings" -> failOnWarnings = true;
+        default -> {
+          if (arg.startsWith("--")) {
+            throw new IllegalArgumentException("Unknown option: " + arg);
+          }
+          inputs.add(Paths.get(arg));
+        }
+      }
+    }
+    if (inputs.isEmpty()) {
+      throw new IllegalArgumentException("No input files given");
+    }
+    return true;
+  }
+
+  private static String value(String[] args, int index, String option) {
+    if (index >= args.length) {
+      throw new IllegalArgumentException(option + " needs a value");
+    }
+    return args[index];
+  }
+
+  /** Expand directories to the needs files they contain, in a stable order. */
+  private List<Path> collectFiles() throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (Path input : inputs) {
+      if (Files.isDirectory(input)) {
+        files.addAll(NeedsDirectoryReader.discover(input));
+      } else {
+        files.add(input);
+      }
+    }
+    return files;
+  }
+
+  private List<FileReport> validateAll(List<Path> files) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+    try {
+      List<Future<FileReport>> futures = new ArrayList<>();
+      for (Path file : files) {
+        futures.add(executor.submit(() -> validate(file)));
+      }
+      List<FileReport> reports = new ArrayList<>();
+      for (Future<FileReport> future : futures) {
+        reports.add(future.get());
+      }
+      return reports;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Validation interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Validation failed: " + e.getCause().getMessage(), e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Validate a single file; never throws, problems are reported in the result. */
+  FileReport validate(Path file) {
+    long start = System.nanoTime();
+    List<FileReport.Issue> errors = new ArrayList<>();
+    List<FileReport.Issue> warnings = new ArrayList<>();
+    int needCount = 0;
+    boolean fatal = false;
+
+    try {
+      NeedsFileReader.Result result = reader.read(file.toFile());
+      for (NeedsFileReader.Diagnostic diagnostic : result.warnings()) {
+        // needs_amount is informational, like in sphinx-needs itself
+        List<FileReport.Issue> target =
+            "needs_amount".equals(diagnostic.keyword()) ? warnings : errors;
+        target.add(toIssue(diagnostic));
+      }
+      if (result.suppressedWarnings() > 0) {
+        errors.add(
+            new FileReport.Issue(
+                "limit",
+                result.suppressedWarnings() + " further problems not listed",
+                null,
+                null,
+                0,
+                0));
+      }
+      needCount = checkLinks(result.needsFile(), errors);
+
+      if (strict) {
+        ValidationResult strictResult =
+            JsonExporter.validateJson(objectMapper.readTree(NeedsFileCodec.open(file)));
+        for (ValidationResult.Violation violation : strictResult.getViolations()) {
+          errors.add(
+              new FileReport.Issue(
+                  violation.keyword(), violation.message(), violation.path(), null, 0, 0));
+        }
+      }
+    } catch (NeedsFileReader.NeedsFormatException e) {
+      fatal = true;
+      errors.add(toIssue(e.getDiagnostic()));
+    } catch (IOException e) {
+      fatal = true;
+      String message = "Cannot read file: " + e.getMessage();
+      errors.add(new FileReport.Issue("io", message, null, null, 0, 0));
+    }
+
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    return new FileReport(file.toString(), millis, needCount, fatal, errors, warnings);
+  }
+
+  /** Report links to needs that do not exist in the same version; returns the need count. */
+  private static int checkLinks(NeedsFile needsFile, List<FileReport.Issue> errors) {
+    int needCount = 0;
+    for (var version : needsFile.getVersions().entrySet()) {
+      var needs = version.getValue().getNeeds();
+      needCount += needs.size();
+      Set<String> ids = new HashSet<>(needs.keySet());
+      for (NeedsFile.Need need : needs.values()) {
+        for (String field : LINK_FIELDS) {
+          for (String target : linksOf(need, field)) {
+            if (!ids.contains(target)) {
+              errors.add(
+                  new FileReport.Issue(
+                      "link",
+                      field + " references non-existent need '" + target + "'",
+                      "$.versions['" + version.getKey() + "']",
+                      need.getId(),
+                      0,
+                      0));
+            }
+          }
+        }
+      }
+    }
+    return needCount;
+  }
+
+  private static List<String> linksOf(NeedsFile.Need need, String field) {
+    List<String> links =
+        switch (field) {
+          case "links" -> need.getLinks();
+          case "extends" -> need.getExtendsLinks();
+          case "includes" -> need.getIncludesLinks();
+          case "associates" -> need.getAssociatesLinks();
+          case "derive" -> need.getDeriveLinks();
+          case "contains" -> need.getContainsLinks();
+          case "refines" -> need.getRefinesLinks();
+          default -> null;
+        };
+    return links != null ? links : List.of();
+  }
+
+  private static FileReport.Issue toIssue(NeedsFileReader.Diagnostic diagnostic) {
+    return new FileReport.Issue(
+        diagnostic.keyword(),
+        diagnostic.message(),
+        diagnostic.path(),
+        diagnostic.needId(),
+        diagnostic.line(),
+        diagnostic.column());
+  }
+
+  private void writeReport(List<FileReport> reports, PrintStream console) throws IOException {
+    if ("text".equals(format) && output == null) {
+      ReportWriter.writeText(reports, failOnWarnings, console);
+      return;
+    }
+
+    if (output == null) {
+      writeFormatted(reports, console);
+    } else {
+      // Report consumers in CI must never pick up a half written file
+      try (AtomicFileWriter writer = AtomicFileWriter.open(output)) {
+        writeFormatted(reports, writer.stream());
+        writer.commit();
+      }
+    }
+    if (output != null && !"text".equals(format)) {
+      // Keep a short human readable summary on the console
+      ReportWriter.writeText(reports, failOnWarnings, console);
+    }
+  }
+
+  private void writeFormatted(List<FileReport> reports, OutputStream target) throws IOException {
+    switch (format) {
+      case "junit" -> ReportWriter.writeJUnit(reports, failOnWarnings, target);
+      case "json" -> ReportWriter.writeJson(reports, failOnWarnings, target);
+      default -> {
+        PrintStream text = new PrintStream(target, true, "UTF-8");
+        ReportWriter.writeText(reports, failOnWarnings, text);
+        text.flush();
+      }
+    }
+  }
+}
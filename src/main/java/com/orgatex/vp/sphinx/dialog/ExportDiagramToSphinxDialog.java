@@ -1,5 +1,7 @@
 package com.orgatex.vp.sphinx.dialog;
 
+import com.orgatex.vp.sphinx.generator.ValidationResult;
+import com.orgatex.vp.sphinx.model.NeedsFile;
 import com.orgatex.vp.sphinx.model.SphinxNeedsExportOption;
 import com.orgatex.vp.sphinx.service.SphinxNeedsExporter;
 import com.vp.plugin.ApplicationManager;
@@ -14,20 +16,25 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 
 /** Simple dialog for exporting use case diagrams to sphinx-needs JSON format. */
 public class ExportDiagramToSphinxDialog extends JDialog {
 
   private static final String USER_PATH_NAME = "sphinx_needs_export_destination";
+  private static final int MAX_LISTED_VIOLATIONS = 10;
 
   private final IDiagramUIModel diagram;
   private final SphinxNeedsExporter exporter;
@@ -42,6 +49,11 @@ public class ExportDiagramToSphinxDialog extends JDialog {
   private JCheckBox includeConnectionsCheckBox;
   private JCheckBox includeActorsCheckBox;
   private JCheckBox includeUseCasesCheckBox;
+  private JCheckBox validateInBackgroundCheckBox;
+  private JTextField versionField;
+  private JCheckBox appendToExistingCheckBox;
+  private JComboBox<String> shardModeComboBox;
+  private JCheckBox captureLayoutCheckBox;
 
   public ExportDiagramToSphinxDialog(IDiagramUIModel diagram) {
     super((Frame) null, "Export to Sphinx-Needs", true);
@@ -67,6 +79,23 @@ public class ExportDiagramToSphinxDialog extends JDialog {
     includeConnectionsCheckBox = new JCheckBox("Include connections between elements", true);
     includeActorsCheckBox = new JCheckBox("Include actors", true);
     includeUseCasesCheckBox = new JCheckBox("Include use cases", true);
+    validateInBackgroundCheckBox =
+        new JCheckBox("Validate schema in the background after writing", false);
+    versionField = new JTextField(NeedsFile.DEFAULT_VERSION, 10);
+    shardModeComboBox =
+        new JComboBox<>(
+            new String[] {
+              "Single file",
+              "One file per need type",
+              "One file per package",
+              "Files of at most "
+                  + SphinxNeedsExportOption.DEFAULT_MAX_NEEDS_PER_SHARD
+                  + " needs"
+            });
+    appendToExistingCheckBox =
+        new JCheckBox("Add as new version to an existing file (keep earlier versions)", false);
+    captureLayoutCheckBox =
+        new JCheckBox("Save diagram layout next to the file for re-import", false);
 
     // Set output file path from saved preference or default
     String savedPath = getSavedExportDestination();
@@ -141,9 +170,32 @@ public class ExportDiagramToSphinxDialog extends JDialog {
     mainPanel.add(includeActorsCheckBox, gbc);
 
     gbc.gridy = 5;
-    gbc.insets = new Insets(5, 20, 15, 10);
     mainPanel.add(includeUseCasesCheckBox, gbc);
 
+    gbc.gridy = 6;
+    mainPanel.add(validateInBackgroundCheckBox, gbc);
+
+    // Version row
+    JPanel versionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    versionPanel.add(new JLabel("Version: "));
+    versionPanel.add(versionField);
+    gbc.gridy = 7;
+    mainPanel.add(versionPanel, gbc);
+
+    gbc.gridy = 8;
+    mainPanel.add(appendToExistingCheckBox, gbc);
+
+    // Sharding row
+    JPanel shardPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    shardPanel.add(new JLabel("Split output: "));
+    shardPanel.add(shardModeComboBox);
+    gbc.gridy = 9;
+    mainPanel.add(shardPanel, gbc);
+
+    gbc.gridy = 10;
+    gbc.insets = new Insets(5, 20, 15, 10);
+    mainPanel.add(captureLayoutCheckBox, gbc);
+
     add(mainPanel, BorderLayout.CENTER);
 
     // Button panel
@@ -184,15 +236,22 @@ public class ExportDiagramToSphinxDialog extends JDialog {
       SphinxNeedsExportOption exportOption = buildExportOption();
 
       // Perform export using the new service
-      exporter.export(exportOption, outputFile);
+      CompletableFuture<ValidationResult> validation = exporter.export(exportOption, outputFile);
 
       // Save the export destination for future use
       saveExportDestination(outputFile.getAbsolutePath());
 
       // Show success message
-      showSuccess("Successfully exported to: " + outputFile.getAbsolutePath());
+      String message = "Successfully exported to: " + outputFile.getAbsolutePath();
+      if (exportOption.isValidateInBackground() && !validation.isDone()) {
+        message += "\nSchema validation is running in the background.";
+      }
+      showSuccess(message);
       dispose();
 
+      validation.thenAccept(
+          result -> SwingUtilities.invokeLater(() -> showValidationWarnings(result)));
+
     } catch (Exception ex) {
       showError("Export failed: " + ex.getMessage());
     }
@@ -206,10 +265,48 @@ public class ExportDiagramToSphinxDialog extends JDialog {
     option.setIncludeConnections(includeConnectionsCheckBox.isSelected());
     option.setIncludeActors(includeActorsCheckBox.isSelected());
     option.setIncludeUseCases(includeUseCasesCheckBox.isSelected());
+    option.setValidateInBackground(validateInBackgroundCheckBox.isSelected());
+    option.setVersion(versionField.getText());
+    option.setAppendToExisting(appendToExistingCheckBox.isSelected());
+    option.setShardMode(
+        SphinxNeedsExportOption.ShardMode.values()[shardModeComboBox.getSelectedIndex()]);
+    option.setCaptureLayout(captureLayoutCheckBox.isSelected());
 
     return option;
   }
 
+  /** Summarise schema violations; the full list is in the message pane. */
+  private void showValidationWarnings(ValidationResult result) {
+    if (result.isValid()) {
+      return;
+    }
+
+    List<ValidationResult.Violation> violations = result.getViolations();
+    StringBuilder message =
+        new StringBuilder("The exported file has ")
+            .append(violations.size())
+            .append(" schema violation(s):\n");
+    for (int i = 0; i < Math.min(violations.size(), MAX_LISTED_VIOLATIONS); i++) {
+      ValidationResult.Violation violation = violations.get(i);
+      message.append("\n- ");
+      if (violation.needId() != null) {
+        message.append(violation.needId()).append(": ");
+      }
+      message.append(violation.message());
+    }
+    if (violations.size() > MAX_LISTED_VIOLATIONS) {
+      message
+          .append("\n... and ")
+          .append(violations.size() - MAX_LISTED_VIOLATIONS)
+          .append(" more, see the message pane.");
+    }
+
+    ApplicationManager.instance()
+        .getViewManager()
+        .showMessageDialog(
+            null, message.toString(), "Schema Validation", JOptionPane.WARNING_MESSAGE);
+  }
+
   private void showError(String message) {
     ApplicationManager.instance()
         .getViewManager()
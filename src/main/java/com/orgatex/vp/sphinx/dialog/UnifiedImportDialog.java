@@ -1,7 +1,14 @@
 package com.orgatex.vp.sphinx.dialog;
 
+import com.orgatex.vp.sphinx.generator.NeedsFileCodec;
+import com.orgatex.vp.sphinx.importer.ChunkedImportRunner;
+import com.orgatex.vp.sphinx.importer.ImportPlan;
+import com.orgatex.vp.sphinx.importer.NeedsDirectoryReader;
 import com.orgatex.vp.sphinx.importer.NeedsFileImporter;
+import com.orgatex.vp.sphinx.importer.NeedsFileReader;
+import com.orgatex.vp.sphinx.importer.NeedsFilter;
 import com.orgatex.vp.sphinx.importer.RequirementsDiagramBuilder;
+import com.orgatex.vp.sphinx.logging.PluginLogger;
 import com.orgatex.vp.sphinx.model.NeedsFile;
 import com.vp.plugin.ApplicationManager;
 import com.vp.plugin.diagram.IDiagramUIModel;
@@ -16,7 +23,16 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
@@ -28,8 +44,10 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JRadioButton;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.Timer;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -40,9 +58,13 @@ import javax.swing.filechooser.FileNameExtensionFilter;
  */
 public class UnifiedImportDialog extends JDialog {
 
+  private static final PluginLogger log = PluginLogger.getLogger(UnifiedImportDialog.class);
+
   private static final String USER_PATH_NAME = "sphinx_needs_import_source";
+  private static final int MAX_LISTED_UNRESOLVED_LINKS = 10;
 
   private JTextField filePathField;
+  private JTextField idPrefixField;
   private JButton browseButton;
   private JButton importButton;
   private JButton cancelButton;
@@ -55,8 +77,15 @@ public class UnifiedImportDialog extends JDialog {
   private JCheckBox importActorsCheckBox;
   private JCheckBox importRequirementsCheckBox;
 
+  private JTextField filterField;
+  private JCheckBox linkedNeedsCheckBox;
+
   private JComboBox<String> layoutComboBox;
   private JLabel statusLabel;
+  private JProgressBar progressBar;
+
+  // Runner of the import in progress, or null
+  private volatile ChunkedImportRunner currentImport;
 
   public UnifiedImportDialog() {
     super((JFrame) null, "Import from Sphinx-Needs", true);
@@ -70,6 +99,13 @@ public class UnifiedImportDialog extends JDialog {
 
   private void initializeComponents() {
     filePathField = new JTextField(40);
+    idPrefixField = new JTextField(20);
+    idPrefixField.setToolTipText(
+        "Prefix added to the need IDs of each file when importing a directory, e.g. "
+            + NeedsDirectoryReader.PROJECT_PLACEHOLDER
+            + "_ or "
+            + NeedsDirectoryReader.DIRECTORY_PLACEHOLDER
+            + "_");
     browseButton = new JButton("Browse...");
     importButton = new JButton("Import");
     cancelButton = new JButton("Cancel");
@@ -84,6 +120,12 @@ public class UnifiedImportDialog extends JDialog {
     importActorsCheckBox = new JCheckBox("Actors", true);
     importRequirementsCheckBox = new JCheckBox("Requirements", true);
 
+    filterField = new JTextField(30);
+    filterField.setToolTipText(
+        "sphinx-needs filter, e.g. type == 'req' and 'safety' in tags; empty imports all needs");
+    linkedNeedsCheckBox = new JCheckBox("Include linked needs", false);
+    linkedNeedsCheckBox.setToolTipText("Also import the needs that the selected needs link to");
+
     layoutComboBox =
         new JComboBox<>(
             new String[] {
@@ -94,6 +136,10 @@ public class UnifiedImportDialog extends JDialog {
     statusLabel = new JLabel(" ");
     statusLabel.setForeground(Color.BLUE);
 
+    progressBar = new JProgressBar(0, 100);
+    progressBar.setStringPainted(true);
+    progressBar.setVisible(false);
+
     // Set input file path from saved preference or default
     String savedPath = getSavedImportSource();
     if (savedPath != null && !savedPath.isEmpty()) {
@@ -124,7 +170,7 @@ public class UnifiedImportDialog extends JDialog {
     gbc.gridy = 0;
     gbc.anchor = GridBagConstraints.WEST;
     gbc.insets = new Insets(0, 0, 10, 0);
-    contentPanel.add(new JLabel("Input JSON file:"), gbc);
+    contentPanel.add(new JLabel("Input JSON file or directory of needs files:"), gbc);
 
     JPanel filePanel = new JPanel(new BorderLayout(5, 0));
     filePanel.add(filePathField, BorderLayout.CENTER);
@@ -134,9 +180,19 @@ public class UnifiedImportDialog extends JDialog {
     gbc.gridy = 1;
     gbc.fill = GridBagConstraints.HORIZONTAL;
     gbc.weightx = 1.0;
-    gbc.insets = new Insets(0, 0, 20, 0);
+    gbc.insets = new Insets(0, 0, 10, 0);
     contentPanel.add(filePanel, gbc);
 
+    // ID prefix for directory imports, as sphinx-needs' id_prefix
+    JPanel prefixPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+    prefixPanel.add(new JLabel("ID prefix (directories only):"));
+    prefixPanel.add(idPrefixField);
+
+    gbc.gridx = 0;
+    gbc.gridy = 2;
+    gbc.insets = new Insets(0, 0, 20, 0);
+    contentPanel.add(prefixPanel, gbc);
+
     // Diagram type section
     JPanel diagramTypePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
     diagramTypePanel.setBorder(BorderFactory.createTitledBorder("Diagram Type"));
@@ -144,7 +200,7 @@ public class UnifiedImportDialog extends JDialog {
     diagramTypePanel.add(requirementsDiagramRadio);
 
     gbc.gridx = 0;
-    gbc.gridy = 2;
+    gbc.gridy = 3;
     gbc.fill = GridBagConstraints.HORIZONTAL;
     gbc.insets = new Insets(0, 0, 15, 0);
     contentPanel.add(diagramTypePanel, gbc);
@@ -157,26 +213,42 @@ public class UnifiedImportDialog extends JDialog {
     elementPanel.add(importRequirementsCheckBox);
 
     gbc.gridx = 0;
-    gbc.gridy = 3;
+    gbc.gridy = 4;
     gbc.insets = new Insets(0, 0, 15, 0);
     contentPanel.add(elementPanel, gbc);
 
+    // Filter section
+    JPanel filterPanel = new JPanel(new BorderLayout(5, 0));
+    filterPanel.setBorder(BorderFactory.createTitledBorder("Filter"));
+    filterPanel.add(filterField, BorderLayout.CENTER);
+    filterPanel.add(linkedNeedsCheckBox, BorderLayout.EAST);
+
+    gbc.gridx = 0;
+    gbc.gridy = 5;
+    gbc.insets = new Insets(0, 0, 15, 0);
+    contentPanel.add(filterPanel, gbc);
+
     // Layout selection section
     JPanel layoutPanel = new JPanel(new BorderLayout());
     layoutPanel.setBorder(BorderFactory.createTitledBorder("Layout"));
     layoutPanel.add(layoutComboBox, BorderLayout.CENTER);
 
     gbc.gridx = 0;
-    gbc.gridy = 4;
+    gbc.gridy = 6;
     gbc.insets = new Insets(0, 0, 15, 0);
     contentPanel.add(layoutPanel, gbc);
 
     // Status label
     gbc.gridx = 0;
-    gbc.gridy = 5;
+    gbc.gridy = 7;
     gbc.insets = new Insets(10, 0, 0, 0);
     contentPanel.add(statusLabel, gbc);
 
+    gbc.gridx = 0;
+    gbc.gridy = 8;
+    gbc.insets = new Insets(5, 0, 0, 0);
+    contentPanel.add(progressBar, gbc);
+
     add(contentPanel, BorderLayout.CENTER);
 
     // Button panel
@@ -192,6 +264,18 @@ public class UnifiedImportDialog extends JDialog {
     importButton.addActionListener(this::onImportClicked);
     cancelButton.addActionListener(this::onCancelClicked);
 
+    // Closing the dialog during an import cancels and rolls it back
+    addWindowListener(
+        new WindowAdapter() {
+          @Override
+          public void windowClosing(WindowEvent e) {
+            ChunkedImportRunner runner = currentImport;
+            if (runner != null) {
+              runner.cancel();
+            }
+          }
+        });
+
     // Update UI based on diagram type selection
     useCaseDiagramRadio.addActionListener(e -> updateElementCheckboxes());
     requirementsDiagramRadio.addActionListener(e -> updateElementCheckboxes());
@@ -236,8 +320,11 @@ public class UnifiedImportDialog extends JDialog {
 
   private void onBrowseClicked(ActionEvent e) {
     JFileChooser fileChooser = new JFileChooser();
-    fileChooser.setDialogTitle("Select Sphinx-Needs JSON file");
-    fileChooser.setFileFilter(new FileNameExtensionFilter("JSON files (*.json)", "json"));
+    fileChooser.setDialogTitle("Select Sphinx-Needs JSON file or directory");
+    fileChooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+    fileChooser.setFileFilter(
+        new FileNameExtensionFilter(
+            "JSON files (*.json, *.json.gz, *.json.zst)", "json", "gz", "zst"));
 
     String currentPath = filePathField.getText().trim();
     if (!currentPath.isEmpty()) {
@@ -271,8 +358,8 @@ public class UnifiedImportDialog extends JDialog {
       return;
     }
 
-    if (!inputFile.isFile()) {
-      showError("Input path is not a file: " + inputPath);
+    if (!inputFile.isFile() && !inputFile.isDirectory()) {
+      showError("Input path is not a file or directory: " + inputPath);
       return;
     }
 
@@ -283,38 +370,159 @@ public class UnifiedImportDialog extends JDialog {
       return;
     }
 
+    NeedsFilter filter;
+    try {
+      filter =
+          NeedsFilter.compile(filterField.getText())
+              .withLinkClosure(linkedNeedsCheckBox.isSelected());
+    } catch (NeedsFilter.FilterSyntaxException ex) {
+      showError("Invalid filter, " + ex.getMessage());
+      return;
+    }
+
     saveImportSource(inputPath);
-    performImport(inputFile);
+    performImport(inputFile, filter);
   }
 
   private void onCancelClicked(ActionEvent e) {
+    ChunkedImportRunner runner = currentImport;
+    if (runner != null) {
+      runner.cancel();
+      cancelButton.setEnabled(false);
+      statusLabel.setText("Cancelling import...");
+      statusLabel.setForeground(Color.BLUE);
+      return;
+    }
     dispose();
   }
 
-  private void performImport(File inputFile) {
+  /** One import, run on a worker thread with model mutations scheduled through the runner. */
+  @FunctionalInterface
+  private interface ImportTask {
+    IDiagramUIModel run(
+        ChunkedImportRunner runner, Consumer<ChunkedImportRunner.Progress> listener)
+        throws Exception;
+  }
+
+  private void performImport(File inputFile, NeedsFilter filter) {
+    if (requirementsDiagramRadio.isSelected()) {
+      String idPrefix = idPrefixField.getText().trim();
+      runImport(
+          inputFile.isDirectory() ? "Reading needs files..." : "Reading JSON file...",
+          (runner, listener) ->
+              importToRequirementsDiagram(inputFile, idPrefix, filter, runner, listener));
+    } else {
+      // Requirements are not offered here, but use cases link to them
+      Set<ImportPlan.ElementKind> kinds = EnumSet.of(ImportPlan.ElementKind.REQUIREMENT);
+      if (importUseCasesCheckBox.isSelected()) {
+        kinds.add(ImportPlan.ElementKind.USE_CASE);
+      }
+      if (importActorsCheckBox.isSelected()) {
+        kinds.add(ImportPlan.ElementKind.ACTOR);
+      }
+      planImport(inputFile, kinds, filter);
+    }
+  }
+
+  /** Plan a use case import off the EDT, show the plan and apply it once confirmed. */
+  private void planImport(File inputFile, Set<ImportPlan.ElementKind> kinds, NeedsFilter filter) {
     setControlsEnabled(false);
-    statusLabel.setText("Importing from JSON file...");
+    statusLabel.setText("Planning import...");
     statusLabel.setForeground(Color.BLUE);
 
-    SwingWorker<IDiagramUIModel, Void> worker =
-        new SwingWorker<IDiagramUIModel, Void>() {
+    NeedsFileImporter importer = new NeedsFileImporter();
+    String idPrefix = idPrefixField.getText().trim();
+    // Reads of the project run on the EDT, the planning itself in the background
+    ChunkedImportRunner planRunner = new ChunkedImportRunner(SwingUtilities::invokeLater);
+    SwingWorker<NeedsFileImporter.PreparedImport, Void> worker =
+        new SwingWorker<NeedsFileImporter.PreparedImport, Void>() {
+          @Override
+          protected NeedsFileImporter.PreparedImport doInBackground() throws Exception {
+            return inputFile.isDirectory()
+                ? importer.prepareDirectory(inputFile, idPrefix, kinds, filter, planRunner)
+                : importer.prepare(inputFile, kinds, filter, planRunner);
+          }
+
+          @Override
+          protected void done() {
+            NeedsFileImporter.PreparedImport prepared;
+            try {
+              prepared = get();
+            } catch (Exception e) {
+              Throwable cause = e.getCause() != null ? e.getCause() : e;
+              showError("Import failed: " + cause.getMessage());
+              statusLabel.setText("Import failed. No changes were made.");
+              statusLabel.setForeground(Color.RED);
+              setControlsEnabled(true);
+              return;
+            }
+
+            int choice =
+                JOptionPane.showConfirmDialog(
+                    UnifiedImportDialog.this,
+                    "Import plan:\n\n"
+                        + prepared.plan().summary(MAX_LISTED_UNRESOLVED_LINKS)
+                        + "\n\nContinue?",
+                    "Import Plan",
+                    JOptionPane.OK_CANCEL_OPTION,
+                    JOptionPane.INFORMATION_MESSAGE);
+            if (choice != JOptionPane.OK_OPTION) {
+              statusLabel.setText("Import cancelled. No changes were made.");
+              setControlsEnabled(true);
+              return;
+            }
+            // A restored layout is kept as it was saved instead of being laid out again
+            runImport(
+                "Applying import plan...",
+                !prepared.isLayoutRestored(),
+                (runner, listener) -> importer.apply(prepared, runner, listener));
+          }
+        };
+
+    worker.execute();
+  }
+
+  private void runImport(String status, ImportTask task) {
+    runImport(status, true, task);
+  }
+
+  private void runImport(String status, boolean autoLayout, ImportTask task) {
+    setControlsEnabled(false);
+    cancelButton.setEnabled(true);
+    statusLabel.setText(status);
+    statusLabel.setForeground(Color.BLUE);
+    progressBar.setValue(0);
+    progressBar.setVisible(true);
+    pack();
+
+    // Model mutations run in chunks on the EDT; everything else runs on the worker thread
+    ChunkedImportRunner runner = new ChunkedImportRunner(SwingUtilities::invokeLater);
+    currentImport = runner;
+
+    SwingWorker<IDiagramUIModel, ChunkedImportRunner.Progress> worker =
+        new SwingWorker<IDiagramUIModel, ChunkedImportRunner.Progress>() {
           @Override
           protected IDiagramUIModel doInBackground() throws Exception {
-            if (requirementsDiagramRadio.isSelected()) {
-              return importToRequirementsDiagram(inputFile);
-            } else {
-              return importToUseCaseDiagram(inputFile);
+            return task.run(runner, this::publish);
+          }
+
+          @Override
+          protected void process(List<ChunkedImportRunner.Progress> chunks) {
+            if (!runner.isCancelled()) {
+              showProgress(chunks.get(chunks.size() - 1));
             }
           }
 
           @Override
           protected void done() {
+            currentImport = null;
+            progressBar.setVisible(false);
             try {
               IDiagramUIModel diagram = get();
               statusLabel.setText("Import completed successfully!");
               statusLabel.setForeground(new Color(0, 128, 0));
 
-              if (layoutComboBox.getSelectedIndex() < 3) {
+              if (autoLayout && layoutComboBox.getSelectedIndex() < 3) {
                 applyLayout(diagram, layoutComboBox.getSelectedIndex());
               }
 
@@ -331,11 +539,15 @@ public class UnifiedImportDialog extends JDialog {
               timer.start();
 
             } catch (Exception e) {
-              String errorMessage =
-                  e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
-              showError("Import failed: " + errorMessage);
-              statusLabel.setText("Import failed.");
-              statusLabel.setForeground(Color.RED);
+              Throwable cause = e.getCause() != null ? e.getCause() : e;
+              if (cause instanceof CancellationException) {
+                statusLabel.setText("Import cancelled. No changes were made.");
+                statusLabel.setForeground(Color.BLUE);
+              } else {
+                showError("Import failed: " + cause.getMessage());
+                statusLabel.setText("Import failed. No changes were made.");
+                statusLabel.setForeground(Color.RED);
+              }
             } finally {
               setControlsEnabled(true);
             }
@@ -345,20 +557,35 @@ public class UnifiedImportDialog extends JDialog {
     worker.execute();
   }
 
-  private IDiagramUIModel importToUseCaseDiagram(File jsonFile) throws Exception {
-    NeedsFileImporter importer = new NeedsFileImporter();
-    return importer.importFromFile(jsonFile);
+  /** Show import progress with need counts and the estimated time left. */
+  private void showProgress(ChunkedImportRunner.Progress progress) {
+    progressBar.setValue(progress.percent());
+    StringBuilder text =
+        new StringBuilder(progress.phase())
+            .append(": ")
+            .append(progress.phaseCompleted())
+            .append(" of ")
+            .append(progress.phaseTotal());
+    if (progress.etaMillis() >= 0) {
+      long seconds = (progress.etaMillis() + 999) / 1000;
+      text.append(seconds < 60 ? ", " + seconds + " s left" : ", " + seconds / 60 + " min left");
+    }
+    statusLabel.setText(text.toString());
   }
 
-  private IDiagramUIModel importToRequirementsDiagram(File jsonFile) throws Exception {
-    RequirementsDiagramBuilder builder = new RequirementsDiagramBuilder();
-
-    String diagramName = createDiagramName(jsonFile.getName());
-    IDiagramUIModel diagram = builder.createRequirementsDiagram(diagramName);
-
-    com.fasterxml.jackson.databind.ObjectMapper objectMapper =
-        new com.fasterxml.jackson.databind.ObjectMapper();
-    NeedsFile needsFile = objectMapper.readValue(jsonFile, NeedsFile.class);
+  private IDiagramUIModel importToRequirementsDiagram(
+      File jsonFile,
+      String idPrefix,
+      NeedsFilter filter,
+      ChunkedImportRunner runner,
+      Consumer<ChunkedImportRunner.Progress> listener)
+      throws Exception {
+    // Parse and validate first, so a broken file fails before any diagram is created
+    NeedsFile needsFile =
+        jsonFile.isDirectory()
+            ? filter.apply(new NeedsDirectoryReader().read(jsonFile.toPath(), idPrefix).merged())
+            : new NeedsFileImporter()
+                .parseNeedsFile(jsonFile, new NeedsFileReader.Binding(Set.of(), true, filter));
 
     String currentVersion = needsFile.getCurrentVersion();
     NeedsFile.VersionData versionData = needsFile.getVersions().get(currentVersion);
@@ -367,16 +594,43 @@ public class UnifiedImportDialog extends JDialog {
       throw new Exception("No requirements found in JSON file");
     }
 
-    builder.createRequirementElements(diagram, versionData.getNeeds());
-    builder.createRequirementRelationships(diagram, versionData.getNeeds());
-
-    ApplicationManager.instance().getDiagramManager().openDiagram(diagram);
-    return diagram;
+    RequirementsDiagramBuilder builder = new RequirementsDiagramBuilder();
+    Map<String, NeedsFile.Need> needs = versionData.getNeeds();
+    String diagramName = createDiagramName(jsonFile.getName());
+    runner.expectSteps(needs.size() + 3);
+
+    IDiagramUIModel[] diagram = new IDiagramUIModel[1];
+    runner.runPhase(
+        "Creating diagram",
+        List.of(
+            () -> {
+              diagram[0] = builder.createRequirementsDiagram(diagramName);
+              runner.onRollback(() -> diagram[0].delete());
+              runner.onRollback(builder::deleteCreatedModels);
+            }),
+        listener);
+
+    List<ChunkedImportRunner.Step> elementSteps = new ArrayList<>(needs.size());
+    for (NeedsFile.Need need : needs.values()) {
+      elementSteps.add(() -> builder.createElement(diagram[0], need));
+    }
+    runner.runPhase("Creating elements", elementSteps, listener);
+
+    runner.runPhase(
+        "Creating relationships",
+        List.of(() -> builder.createRequirementRelationships(diagram[0], needs)),
+        listener);
+    runner.runPhase(
+        "Opening diagram",
+        List.of(() -> ApplicationManager.instance().getDiagramManager().openDiagram(diagram[0])),
+        listener);
+    return diagram[0];
   }
 
   private String createDiagramName(String fileName) {
     String baseName =
         requirementsDiagramRadio.isSelected() ? "Imported Requirements" : "Imported Use Cases";
+    fileName = NeedsFileCodec.stripExtension(fileName);
     if (fileName.toLowerCase().endsWith(".json")) {
       fileName = fileName.substring(0, fileName.length() - 5);
     }
@@ -402,7 +656,7 @@ public class UnifiedImportDialog extends JDialog {
           break;
       }
     } catch (Exception e) {
-      System.err.println("Error applying layout: " + e.getMessage());
+      log.warn("Error applying layout: " + e.getMessage());
     }
   }
 
@@ -424,13 +678,13 @@ public class UnifiedImportDialog extends JDialog {
             ApplicationManager.instance().getDiagramManager(), diagram, layoutConstant);
       }
     } catch (Exception e) {
-      System.err.println("Layout " + layoutConstantName + " not available, using organic layout");
+      log.warn("Layout " + layoutConstantName + " not available, using organic layout");
       try {
         ApplicationManager.instance()
             .getDiagramManager()
             .layout(diagram, ApplicationManager.instance().getDiagramManager().LAYOUT_ORGANIC);
       } catch (Exception e2) {
-        System.err.println("Error applying fallback layout: " + e2.getMessage());
+        log.warn("Error applying fallback layout: " + e2.getMessage());
       }
     }
   }
@@ -442,6 +696,7 @@ public class UnifiedImportDialog extends JDialog {
 
   private void setControlsEnabled(boolean enabled) {
     filePathField.setEnabled(enabled);
+    idPrefixField.setEnabled(enabled);
     browseButton.setEnabled(enabled);
     importButton.setEnabled(enabled && !filePathField.getText().trim().isEmpty());
     cancelButton.setEnabled(enabled);
@@ -450,6 +705,8 @@ public class UnifiedImportDialog extends JDialog {
     importUseCasesCheckBox.setEnabled(enabled);
     importActorsCheckBox.setEnabled(enabled);
     importRequirementsCheckBox.setEnabled(enabled);
+    filterField.setEnabled(enabled);
+    linkedNeedsCheckBox.setEnabled(enabled);
     layoutComboBox.setEnabled(enabled);
   }
 
@@ -0,0 +1,131 @@
+package com.orgatex.vp.sphinx.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** Differences between the needs of two needs.json versions, ordered by need id. */
+public final class NeedsDiff {
+
+  /** Kind of change to a need. */
+  public enum Kind {
+    ADDED,
+    REMOVED,
+    MODIFIED
+  }
+
+  /**
+   * A change to one field of a need.
+   *
+   * <p>For array fields such as links and tags the arrays are compared as sets, and {@code added}
+   * and {@code removed} list the individual values that changed. For other fields both lists are
+   * empty and {@code oldValue}/{@code newValue} hold the complete values.
+   *
+   * @param field the JSON field name, e.g. {@code title} or {@code links}
+   * @param oldValue value in the left version, null if the field was absent
+   * @param newValue value in the right version, null if the field was absent
+   * @param added values present only in the right array
+   * @param removed values present only in the left array
+   */
+  public record FieldChange(
+      String field, Object oldValue, Object newValue, List<Object> added, List<Object> removed) {}
+
+  /**
+   * A need that differs between the two versions.
+   *
+   * @param kind whether the need was added, removed or modified
+   * @param needId the id of the need
+   * @param left the need in the left version, null if added
+   * @param right the need in the right version, null if removed
+   * @param fieldChanges field level changes, empty unless modified
+   */
+  public record NeedChange(
+      Kind kind,
+      String needId,
+      Map<String, Object> left,
+      Map<String, Object> right,
+      List<FieldChange> fieldChanges) {}
+
+  private final List<NeedChange> changes;
+  private final int leftCount;
+  private final int rightCount;
+
+  NeedsDiff(List<NeedChange> changes, int leftCount, int rightCount) {
+    this.changes = Collections.unmodifiableList(new ArrayList<>(changes));
+    this.leftCount = leftCount;
+    this.rightCount = rightCount;
+  }
+
+  /** All changes, ordered by need id. */
+  public List<NeedChange> getChanges() {
+    return changes;
+  }
+
+  /** Number of needs in the left version. */
+  public int getLeftCount() {
+    return leftCount;
+  }
+
+  /** Number of needs in the right version. */
+  public int getRightCount() {
+    return rightCount;
+  }
+
+  public boolean isEmpty() {
+    return changes.isEmpty();
+  }
+
+  public List<NeedChange> getAdded() {
+    return ofKind(Kind.ADDED);
+  }
+
+  public List<NeedChange> getRemoved() {
+    return ofKind(Kind.REMOVED);
+  }
+
+  public List<NeedChange> getModified() {
+    return ofKind(Kind.MODIFIED);
+  }
+
+  private List<NeedChange> ofKind(Kind kind) {
+    List<NeedChange> result = new ArrayList<>();
+    for (NeedChange change : changes) {
+      if (change.kind() == kind) {
+        result.add(change);
+      }
+    }
+    return result;
+  }
+
+  /** One line per added, removed or modified need, with indented field changes. */
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder();
+    for (NeedChange change : changes) {
+      char marker =
+          switch (change.kind()) {
+            case ADDED -> '+';
+            case REMOVED -> '-';
+            case MODIFIED -> '~';
+          };
+      text.append(marker).append(' ').append(change.needId()).append('\n');
+      for (FieldChange field : change.fieldChanges()) {
+        text.append("    ").append(field.field()).append(": ");
+        if (field.added().isEmpty() && field.removed().isEmpty()) {
+          text.append(field.oldValue()).append(" -> ").append(field.newValue());
+        } else {
+          text.append("+").append(field.added()).append(" -").append(field.removed());
+        }
+        text.append('\n');
+      }
+    }
+    text.append(getAdded().size())
+        .append(" added, ")
+        .append(getRemoved().size())
+        .append(" removed, ")
+        .append(getModified().size())
+        .append(" modified");
+    return text.toString();
+  }
+}
@@ -0,0 +1,363 @@
+package com.orgatex.vp.sphinx.diff;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.generator.NeedsFileCodec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Structural diff of the needs in two needs.json files, or two versions of one file.
+ *
+ * <p>The diff runs in two streaming passes per input. The first pass reduces every need to its id
+ * and a 64-bit fingerprint of its content; the fingerprints are sorted by id and merge-joined to
+ * find added, removed and modified needs. The second pass materializes only those needs to compute
+ * field and link level changes. Memory therefore grows with the number of needs (one id and one
+ * long each) and the size of the changed needs, but never with the size of unchanged content.
+ *
+ * <p>Object keys and array elements are compared without regard to order, so reordered links or
+ * re-serialized files do not show up as changes.
+ */
+public class NeedsDiffEngine {
+
+  private final ObjectMapper objectMapper;
+  private final JsonFactory jsonFactory;
+  private final Set<String> ignoredFields;
+
+  public NeedsDiffEngine() {
+    this(Set.of());
+  }
+
+  /**
+   * Create an engine that ignores some need fields, e.g. {@code vp_model_id} when comparing
+   * exports from different Visual Paradigm projects.
+   *
+   * @param ignoredFields need fields excluded from the comparison
+   */
+  public NeedsDiffEngine(Set<String> ignoredFields) {
+    this.objectMapper = new ObjectMapper();
+    this.jsonFactory = objectMapper.getFactory();
+    this.ignoredFields = Set.copyOf(ignoredFields);
+  }
+
+  /**
+   * Compare the current versions of two needs files.
+   *
+   * @param left the old file
+   * @param right the new file
+   * @return the differences
+   * @throws IOException if a file cannot be read or has no current version
+   */
+  public NeedsDiff diff(Path left, Path right) throws IOException {
+    return diff(left, null, right, null);
+  }
+
+  /**
+   * Compare two versions inside one needs file.
+   *
+   * @param file the needs file
+   * @param fromVersion the old version
+   * @param toVersion the new version
+   * @return the differences
+   * @throws IOException if the file cannot be read or a version does not exist
+   */
+  public NeedsDiff diffVersions(Path file, String fromVersion, String toVersion)
+      throws IOException {
+    return diff(file, fromVersion, file, toVersion);
+  }
+
+  /**
+   * Compare a version of one needs file with a version of another.
+   *
+   * @param left the old file
+   * @param leftVersion version in the old file, or null for its current version
+   * @param right the new file
+   * @param rightVersion version in the new file, or null for its current version
+   * @return the differences
+   * @throws IOException if a file cannot be read or a version does not exist
+   */
+  public NeedsDiff diff(Path left, String leftVersion, Path right, String rightVersion)
+      throws IOException {
+    String leftResolved = leftVersion != null ? leftVersion : currentVersion(left);
+    String rightResolved = rightVersion != null ? rightVersion : currentVersion(right);
+
+    // Pass 1: fingerprints, sorted by id, then merge-join
+    Fingerprints leftPrints = fingerprint(left, leftResolved);
+    Fingerprints rightPrints = fingerprint(right, rightResolved);
+    Map<String, NeedsDiff.Kind> changed = mergeJoin(leftPrints, rightPrints);
+
+    // Pass 2: materialize only the needs that changed
+    Map<String, Map<String, Object>> leftNeeds = materialize(left, leftResolved, changed.keySet());
+    Map<String, Map<String, Object>> rightNeeds =
+        materialize(right, rightResolved, changed.keySet());
+
+    List<NeedsDiff.NeedChange> changes = new ArrayList<>(changed.size());
+    for (Map.Entry<String, NeedsDiff.Kind> entry : changed.entrySet()) {
+      String id = entry.getKey();
+      Map<String, Object> before = leftNeeds.get(id);
+      Map<String, Object> after = rightNeeds.get(id);
+      List<NeedsDiff.FieldChange> fieldChanges =
+          entry.getValue() == NeedsDiff.Kind.MODIFIED ? compareFields(before, after) : List.of();
+      changes.add(new NeedsDiff.NeedChange(entry.getValue(), id, before, after, fieldChanges));
+    }
+    return new NeedsDiff(changes, leftPrints.ids.length, rightPrints.ids.length);
+  }
+
+  /** Need ids with their fingerprints, both sorted by id. */
+  private record Fingerprints(String[] ids, long[] hashes) {}
+
+  private Fingerprints fingerprint(Path file, String version) throws IOException {
+    Map<String, Long> hashes = new HashMap<>();
+    forEachNeed(file, version, (id, parser) -> hashes.put(id, hashNeed(parser)));
+
+    String[] ids = hashes.keySet().toArray(new String[0]);
+    Arrays.sort(ids);
+    long[] sortedHashes = new long[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      sortedHashes[i] = hashes.get(ids[i]);
+    }
+    return new Fingerprints(ids, sortedHashes);
+  }
+
+  /** Merge-join two sorted fingerprint lists; the result is ordered by id. */
+  private static Map<String, NeedsDiff.Kind> mergeJoin(Fingerprints left, Fingerprints right) {
+    Map<String, NeedsDiff.Kind> changed = new LinkedHashMap<>();
+    int i = 0;
+    int j = 0;
+    while (i < left.ids.length || j < right.ids.length) {
+      int order;
+      if (i == left.ids.length) {
+        order = 1;
+      } else if (j == right.ids.length) {
+        order = -1;
+      } else {
+        order = left.ids[i].compareTo(right.ids[j]);
+      }
+
+      if (order < 0) {
+        changed.put(left.ids[i++], NeedsDiff.Kind.REMOVED);
+      } else if (order > 0) {
+        changed.put(right.ids[j++], NeedsDiff.Kind.ADDED);
+      } else {
+        if (left.hashes[i] != right.hashes[j]) {
+          changed.put(left.ids[i], NeedsDiff.Kind.MODIFIED);
+        }
+        i++;
+        j++;
+      }
+    }
+    return changed;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Map<String, Object>> materialize(Path file, String version, Set<String> ids)
+      throws IOException {
+    Map<String, Map<String, Object>> needs = new HashMap<>();
+    if (ids.isEmpty()) {
+      return needs;
+    }
+    forEachNeed(
+        file,
+        version,
+        (id, parser) -> {
+          if (ids.contains(id)) {
+            Map<String, Object> need = objectMapper.readValue(parser, LinkedHashMap.class);
+            need.keySet().removeAll(ignoredFields);
+            needs.put(id, need);
+          } else {
+            parser.skipChildren();
+          }
+        });
+    return needs;
+  }
+
+  private static List<NeedsDiff.FieldChange> compareFields(
+      Map<String, Object> before, Map<String, Object> after) {
+    List<NeedsDiff.FieldChange> changes = new ArrayList<>();
+    Set<String> fields = new TreeSet<>(before.keySet());
+    fields.addAll(after.keySet());
+    for (String field : fields) {
+      Object oldValue = before.get(field);
+      Object newValue = after.get(field);
+      if (oldValue instanceof List<?> oldList && newValue instanceof List<?> newList) {
+        List<Object> added = difference(newList, oldList);
+        List<Object> removed = difference(oldList, newList);
+        if (!added.isEmpty() || !removed.isEmpty()) {
+          changes.add(new NeedsDiff.FieldChange(field, oldValue, newValue, added, removed));
+        }
+      } else if (!Objects.equals(oldValue, newValue)) {
+        changes.add(new NeedsDiff.FieldChange(field, oldValue, newValue, List.of(), List.of()));
+      }
+    }
+    return changes;
+  }
+
+  /** Elements of {@code values} that are not in {@code other}, in their original order. */
+  private static List<Object> difference(List<?> values, List<?> other) {
+    Set<Object> result = new LinkedHashSet<>(values);
+    other.forEach(result::remove);
+    return new ArrayList<>(result);
+  }
+
+  // --- Streaming access ---------------------------------------------------------------------
+
+  @FunctionalInterface
+  private interface NeedVisitor {
+    /** Called with the parser on the need's START_OBJECT; must consume the whole object. */
+    void visit(String id, JsonParser parser) throws IOException;
+  }
+
+  /** Read {@code current_version}; stops as soon as it is found, which is usually at once. */
+  private String currentVersion(Path file) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(NeedsFileCodec.open(file))) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException(file + " is not a needs file: root is not an object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("current_version".equals(field) && value == JsonToken.VALUE_STRING) {
+          return parser.getText();
+        }
+        parser.skipChildren();
+      }
+    }
+    throw new IOException(file + " has no current_version");
+  }
+
+  private void forEachNeed(Path file, String version, NeedVisitor visitor) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(NeedsFileCodec.open(file))) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException(file + " is not a needs file: root is not an object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        if ("versions".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (version.equals(name) && parser.currentToken() == JsonToken.START_OBJECT) {
+              visitVersion(parser, visitor);
+              return;
+            }
+            parser.skipChildren();
+          }
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    throw new IOException("Version '" + version + "' not found in " + file);
+  }
+
+  private static void visitVersion(JsonParser parser, NeedVisitor visitor) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      if ("needs".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String id = parser.currentName();
+          if (parser.nextToken() == JsonToken.START_OBJECT) {
+            visitor.visit(id, parser);
+          } else {
+            parser.skipChildren();
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  // --- Fingerprinting -----------------------------------------------------------------------
+
+  private static final long OBJECT_SEED = 0x9E3779B97F4A7C15L;
+  private static final long ARRAY_SEED = 0xC2B2AE3D27D4EB4FL;
+  private static final long STRING_TAG = 0x165667B19E3779F9L;
+  private static final long NUMBER_TAG = 0x27D4EB2F165667C5L;
+
+  /** Order-independent hash of a need object, skipping ignored top-level fields. */
+  private long hashNeed(JsonParser parser) throws IOException {
+    long hash = OBJECT_SEED;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      parser.nextToken();
+      if (ignoredFields.contains(name)) {
+        parser.skipChildren();
+        continue;
+      }
+      hash += mix(hashString(name) * 31 + hashValue(parser));
+    }
+    return mix(hash);
+  }
+
+  private static long hashValue(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    switch (token) {
+      case START_OBJECT -> {
+        long hash = OBJECT_SEED;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          long key = hashString(parser.currentName());
+          parser.nextToken();
+          hash += mix(key * 31 + hashValue(parser));
+        }
+        return mix(hash);
+      }
+      case START_ARRAY -> {
+        // Sum of element hashes: arrays are compared as multisets
+        long hash = ARRAY_SEED;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          hash += mix(hashValue(parser));
+        }
+        return mix(hash);
+      }
+      case VALUE_STRING -> {
+        return mix(hashString(parser.getText()) ^ STRING_TAG);
+      }
+      case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+        return mix(hashString(parser.getText()) ^ NUMBER_TAG);
+      }
+      case VALUE_TRUE -> {
+        return 1;
+      }
+      case VALUE_FALSE -> {
+        return 2;
+      }
+      default -> {
+        return 3; // null
+      }
+    }
+  }
+
+  /** 64-bit FNV-1a over the UTF-8 bytes of a string. */
+  private static long hashString(String value) {
+    long hash = 0xCBF29CE484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xFF;
+      hash *= 0x100000001B3L;
+    }
+    return hash;
+  }
+
+  /** SplitMix64 finalizer, spreads bits so that sums of hashes stay well distributed. */
+  private static long mix(long value) {
+    long z = value;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,63 @@
+package com.orgatex.vp.sphinx.extractor;
+
+import com.orgatex.vp.sphinx.generator.NeedsLayout;
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import com.vp.plugin.diagram.IDiagramElement;
+import com.vp.plugin.diagram.IDiagramUIModel;
+import com.vp.plugin.diagram.IShapeUIModel;
+import com.vp.plugin.model.IModelElement;
+import java.util.*;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/** Captures the shape bounds of exported needs from Visual Paradigm diagrams. */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class LayoutExtractor {
+
+  private static final PluginLogger log = PluginLogger.getLogger(LayoutExtractor.class);
+
+  /**
+   * Capture the bounds of the shapes showing the needs of a needs file.
+   *
+   * <p>Shapes are matched to needs by the model element id recorded in each need. If a need is
+   * shown on several of the diagrams, the shape on the first of them wins.
+   *
+   * @param diagrams the exported diagrams
+   * @param needsFile the exported needs
+   * @return the layout of the current version's needs
+   */
+  public static NeedsLayout capture(IDiagramUIModel[] diagrams, NeedsFile needsFile) {
+    Map<String, String> needIdsByModelId = new HashMap<>();
+    NeedsFile.VersionData versionData = needsFile.getVersions().get(needsFile.getCurrentVersion());
+    if (versionData != null && versionData.getNeeds() != null) {
+      for (NeedsFile.Need need : versionData.getNeeds().values()) {
+        if (need.getVpModelId() != null) {
+          needIdsByModelId.put(need.getVpModelId(), need.getId());
+        }
+      }
+    }
+
+    Map<String, NeedsLayout.Bounds> shapes = new TreeMap<>();
+    for (IDiagramUIModel diagram : diagrams) {
+      for (IDiagramElement element : diagram.toDiagramElementArray()) {
+        if (!(element instanceof IShapeUIModel shape)) {
+          continue;
+        }
+        IModelElement modelElement = shape.getModelElement();
+        String needId = modelElement != null ? needIdsByModelId.get(modelElement.getId()) : null;
+        if (needId != null) {
+          shapes.putIfAbsent(
+              needId,
+              new NeedsLayout.Bounds(
+                  shape.getX(), shape.getY(), shape.getWidth(), shape.getHeight()));
+        }
+      }
+    }
+
+    log.info(
+        () -> "Captured layout of " + shapes.size() + " of " + needIdsByModelId.size() + " needs");
+    String diagramName = diagrams.length > 0 ? diagrams[0].getName() : null;
+    return new NeedsLayout(NeedsLayout.FORMAT, diagramName, shapes);
+  }
+}
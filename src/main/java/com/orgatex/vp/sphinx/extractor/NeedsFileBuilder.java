@@ -1,5 +1,7 @@
 package com.orgatex.vp.sphinx.extractor;
 
+import com.orgatex.vp.sphinx.generator.NeedsFileSharder;
+import com.orgatex.vp.sphinx.logging.PluginLogger;
 import com.orgatex.vp.sphinx.model.NeedsFile;
 import com.vp.plugin.diagram.IDiagramUIModel;
 import java.time.LocalDateTime;
@@ -12,8 +14,15 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class NeedsFileBuilder {
 
+  private static final PluginLogger log = PluginLogger.getLogger(NeedsFileBuilder.class);
+
   /** Build a complete NeedsFile from a diagram context. */
   public static NeedsFile buildFromDiagram(IDiagramUIModel diagram) {
+    return buildFromDiagram(diagram, NeedsFile.DEFAULT_VERSION);
+  }
+
+  /** Build a complete NeedsFile from a diagram context, with the needs under the given version. */
+  public static NeedsFile buildFromDiagram(IDiagramUIModel diagram, String version) {
     if (diagram == null) {
       throw new IllegalArgumentException("Diagram cannot be null");
     }
@@ -30,11 +39,17 @@ public class NeedsFileBuilder {
         VpModelProcessor.sanitizeName(diagram.getName()),
         modelResult.getNeeds(),
         modelResult.getVpIdToUserId(),
-        relationshipMaps);
+        relationshipMaps,
+        version);
   }
 
   /** Build a complete NeedsFile directly (for project-level extraction). */
   public static NeedsFile buildFromProject(String projectName) {
+    return buildFromProject(projectName, NeedsFile.DEFAULT_VERSION);
+  }
+
+  /** Build a complete NeedsFile for the project, with the needs under the given version. */
+  public static NeedsFile buildFromProject(String projectName, String version) {
     if (projectName == null) {
       throw new IllegalArgumentException("Project name cannot be null");
     }
@@ -50,7 +65,53 @@ public class NeedsFileBuilder {
         VpModelProcessor.sanitizeName(projectName),
         modelResult.getNeeds(),
         modelResult.getVpIdToUserId(),
-        relationshipMaps);
+        relationshipMaps,
+        version);
+  }
+
+  /**
+   * Build one NeedsFile per diagram from a single walk over the project.
+   *
+   * <p>Models and relationships are extracted once for all diagrams, and each need is routed to
+   * the files of the diagrams that show its model element. Links are kept only between needs of
+   * the same file.
+   *
+   * @param diagrams the diagrams to build files for
+   * @param version the version to put the needs under
+   * @return one NeedsFile per diagram, in the order of {@code diagrams}
+   */
+  public static Map<IDiagramUIModel, NeedsFile> buildPerDiagram(
+      IDiagramUIModel[] diagrams, String version) {
+    if (diagrams == null || diagrams.length == 0) {
+      throw new IllegalArgumentException("At least one diagram is required");
+    }
+
+    Map<String, Set<String>> members = new LinkedHashMap<>();
+    for (IDiagramUIModel diagram : diagrams) {
+      members.put(diagram.getId(), new HashSet<>());
+    }
+
+    NeedsModelExtractor.ExtractionResult modelResult = NeedsModelExtractor.extractAllModels();
+    NeedsRelationshipExtractor.RelationshipMaps relationshipMaps =
+        NeedsRelationshipExtractor.extractAllRelationships(members);
+    NeedsFile projectNeeds =
+        buildNeedsFile(
+            VpModelProcessor.sanitizeName(diagrams[0].getName()),
+            modelResult.getNeeds(),
+            modelResult.getVpIdToUserId(),
+            relationshipMaps,
+            version);
+
+    Map<String, NeedsFile> routed = NeedsFileSharder.route(projectNeeds, members);
+    Map<IDiagramUIModel, NeedsFile> result = new LinkedHashMap<>();
+    for (IDiagramUIModel diagram : diagrams) {
+      NeedsFile needsFile = routed.get(diagram.getId());
+      needsFile.setProject(VpModelProcessor.sanitizeName(diagram.getName()));
+      result.put(diagram, needsFile);
+    }
+    log.info(
+        () -> "Built " + result.size() + " per-diagram needs file(s) from one project walk");
+    return result;
   }
 
   /** Build the final NeedsFile by combining extracted elements and relationships. */
@@ -58,15 +119,19 @@ public class NeedsFileBuilder {
       String projectName,
       List<NeedsFile.Need> needs,
       Map<String, String> vpIdToUserId,
-      NeedsRelationshipExtractor.RelationshipMaps relationshipMaps) {
+      NeedsRelationshipExtractor.RelationshipMaps relationshipMaps,
+      String version) {
 
+    if (version == null || version.isBlank()) {
+      throw new IllegalArgumentException("Version cannot be empty");
+    }
     String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
 
     // Create the NeedsFile structure
     NeedsFile needsFile = new NeedsFile();
     needsFile.setCreated(timestamp);
     needsFile.setProject(projectName);
-    needsFile.setCurrentVersion("1.0");
+    needsFile.setCurrentVersion(version);
 
     // Create version data
     NeedsFile.VersionData versionData = new NeedsFile.VersionData();
@@ -79,18 +144,18 @@ public class NeedsFileBuilder {
       if (!versionData.getNeeds().containsKey(need.getId())) {
         versionData.addNeed(need);
       } else {
-        System.out.println("Warning: Skipping duplicate need with ID: " + need.getId());
+        log.warn("Skipping duplicate need with ID: " + need.getId());
       }
     }
 
     // Apply relationships to the needs
     applyRelationshipsToNeeds(versionData, relationshipMaps, vpIdToUserId);
 
-    needsFile.addVersion("1.0", versionData);
+    needsFile.addVersion(version, versionData);
     return needsFile;
   }
 
-  /** Apply extracted relationships to the needs in the version data. */
+  /** Apply extracted relationships to the needs; links are sorted so repeated exports match. */
   private static void applyRelationshipsToNeeds(
       NeedsFile.VersionData versionData,
       NeedsRelationshipExtractor.RelationshipMaps relationshipMaps,
@@ -102,7 +167,7 @@ public class NeedsFileBuilder {
       String fromUserId = vpIdToUserId.get(entry.getKey());
       if (fromUserId != null && versionData.getNeeds().containsKey(fromUserId)) {
         NeedsFile.Need fromNeed = versionData.getNeeds().get(fromUserId);
-        Set<String> includeLinks = new HashSet<>();
+        Set<String> includeLinks = new TreeSet<>();
 
         for (String toVpId : entry.getValue()) {
           String toUserId = vpIdToUserId.get(toVpId);
@@ -121,7 +186,7 @@ public class NeedsFileBuilder {
       String fromUserId = vpIdToUserId.get(entry.getKey());
       if (fromUserId != null && versionData.getNeeds().containsKey(fromUserId)) {
         NeedsFile.Need fromNeed = versionData.getNeeds().get(fromUserId);
-        Set<String> extendLinks = new HashSet<>();
+        Set<String> extendLinks = new TreeSet<>();
 
         for (String toVpId : entry.getValue()) {
           String toUserId = vpIdToUserId.get(toVpId);
@@ -140,7 +205,7 @@ public class NeedsFileBuilder {
       String fromUserId = vpIdToUserId.get(entry.getKey());
       if (fromUserId != null && versionData.getNeeds().containsKey(fromUserId)) {
         NeedsFile.Need fromNeed = versionData.getNeeds().get(fromUserId);
-        Set<String> associateLinks = new HashSet<>();
+        Set<String> associateLinks = new TreeSet<>();
 
         for (String toVpId : entry.getValue()) {
           String toUserId = vpIdToUserId.get(toVpId);
@@ -159,7 +224,7 @@ public class NeedsFileBuilder {
       String fromUserId = vpIdToUserId.get(entry.getKey());
       if (fromUserId != null && versionData.getNeeds().containsKey(fromUserId)) {
         NeedsFile.Need fromNeed = versionData.getNeeds().get(fromUserId);
-        Set<String> containsLinks = new HashSet<>();
+        Set<String> containsLinks = new TreeSet<>();
 
         for (String toVpId : entry.getValue()) {
           String toUserId = vpIdToUserId.get(toVpId);
@@ -178,7 +243,7 @@ public class NeedsFileBuilder {
       String fromUserId = vpIdToUserId.get(entry.getKey());
       if (fromUserId != null && versionData.getNeeds().containsKey(fromUserId)) {
         NeedsFile.Need fromNeed = versionData.getNeeds().get(fromUserId);
-        Set<String> deriveLinks = new HashSet<>();
+        Set<String> deriveLinks = new TreeSet<>();
 
         for (String toVpId : entry.getValue()) {
           String toUserId = vpIdToUserId.get(toVpId);
@@ -197,7 +262,7 @@ public class NeedsFileBuilder {
       String fromUserId = vpIdToUserId.get(entry.getKey());
       if (fromUserId != null && versionData.getNeeds().containsKey(fromUserId)) {
         NeedsFile.Need fromNeed = versionData.getNeeds().get(fromUserId);
-        Set<String> refinesLinks = new HashSet<>();
+        Set<String> refinesLinks = new TreeSet<>();
 
         for (String toVpId : entry.getValue()) {
           String toUserId = vpIdToUserId.get(toVpId);
@@ -1,5 +1,6 @@
 package com.orgatex.vp.sphinx.extractor;
 
+import com.orgatex.vp.sphinx.logging.PluginLogger;
 import com.orgatex.vp.sphinx.model.NeedsFile;
 import com.vp.plugin.ApplicationManager;
 import com.vp.plugin.ProjectManager;
@@ -16,24 +17,26 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class NeedsModelExtractor {
 
+  private static final PluginLogger log = PluginLogger.getLogger(NeedsModelExtractor.class);
+
   /** Extract all model elements from the current VP project and convert to Needs. */
   public static ExtractionResult extractAllModels() {
     try {
       ApplicationManager appManager = ApplicationManager.instance();
       if (appManager == null) {
-        System.err.println("ApplicationManager not available (test environment)");
+        log.warn("ApplicationManager not available (test environment)");
         return new ExtractionResult(new ArrayList<>(), new HashMap<>());
       }
 
       ProjectManager projectManager = appManager.getProjectManager();
       if (projectManager == null) {
-        System.err.println("ProjectManager not available");
+        log.warn("ProjectManager not available");
         return new ExtractionResult(new ArrayList<>(), new HashMap<>());
       }
 
       IProject project = projectManager.getProject();
       if (project == null) {
-        System.err.println("No project found, cannot extract models");
+        log.warn("No project found, cannot extract models");
         return new ExtractionResult(new ArrayList<>(), new HashMap<>());
       }
 
@@ -63,12 +66,11 @@ public class NeedsModelExtractor {
         }
       }
 
-      System.out.println("Extracted " + needs.size() + " total elements from project");
+      log.info(() -> "Extracted " + needs.size() + " total elements from project");
       return new ExtractionResult(needs, vpIdToUserId);
 
     } catch (Exception e) {
-      System.err.println("Error extracting project models: " + e.getMessage());
-      e.printStackTrace();
+      log.error("Error extracting project models: " + e.getMessage(), e);
       return new ExtractionResult(new ArrayList<>(), new HashMap<>());
     }
   }
@@ -86,7 +88,7 @@ public class NeedsModelExtractor {
       if (id == null || id.trim().isEmpty()) {
         // Fallback: use VP internal ID with UC prefix for use cases
         id = "UC_" + useCase.getId();
-        System.out.println("Using fallback ID for use case '" + name + "': " + id);
+        logFallbackId("use case", name, id);
       }
 
       // Track VP internal ID to User ID mapping for relationship resolution
@@ -105,7 +107,7 @@ public class NeedsModelExtractor {
       String vpModelId = useCase.getId();
       if (vpModelId == null || vpModelId.trim().isEmpty()) {
         vpModelId = "uc_" + System.nanoTime(); // Generate fallback ID
-        System.out.println("Warning: Generated fallback VP model ID for use case: " + vpModelId);
+        log.warn("Generated fallback VP model ID for use case: " + vpModelId);
       }
       need.setVpModelId(vpModelId);
 
@@ -115,11 +117,11 @@ public class NeedsModelExtractor {
       tags.add("functional");
       need.setTags(tags);
 
-      System.out.println("Processed use case: " + id + " - " + name);
+      log.debug(() -> "Processed use case: " + need.getId() + " - " + need.getTitle());
       return need;
 
     } catch (Exception e) {
-      System.err.println("Error processing use case " + useCase.getName() + ": " + e.getMessage());
+      log.warn("Error processing use case " + useCase.getName() + ": " + e.getMessage());
       return null;
     }
   }
@@ -137,7 +139,7 @@ public class NeedsModelExtractor {
       if (id == null || id.trim().isEmpty()) {
         // Fallback: use VP internal ID with AC prefix for actors
         id = "AC_" + actor.getId();
-        System.out.println("Using fallback ID for actor '" + name + "': " + id);
+        logFallbackId("actor", name, id);
       }
 
       // Track VP internal ID to User ID mapping for relationship resolution
@@ -152,7 +154,7 @@ public class NeedsModelExtractor {
       String vpModelId = actor.getId();
       if (vpModelId == null || vpModelId.trim().isEmpty()) {
         vpModelId = "ac_" + System.nanoTime(); // Generate fallback ID
-        System.out.println("Warning: Generated fallback VP model ID for actor: " + vpModelId);
+        log.warn("Generated fallback VP model ID for actor: " + vpModelId);
       }
       need.setVpModelId(vpModelId);
 
@@ -162,11 +164,11 @@ public class NeedsModelExtractor {
       tags.add("stakeholder");
       need.setTags(tags);
 
-      System.out.println("Processed actor: " + id + " - " + name);
+      log.debug(() -> "Processed actor: " + need.getId() + " - " + need.getTitle());
       return need;
 
     } catch (Exception e) {
-      System.err.println("Error processing actor " + actor.getName() + ": " + e.getMessage());
+      log.warn("Error processing actor " + actor.getName() + ": " + e.getMessage());
       return null;
     }
   }
@@ -186,7 +188,7 @@ public class NeedsModelExtractor {
       // Generate ID if not set
       if (id == null || id.trim().isEmpty()) {
         id = "REQ_" + requirement.getId();
-        System.out.println("Using fallback ID for requirement '" + name + "': " + id);
+        logFallbackId("requirement", name, id);
       }
 
       // Track VP internal ID to User ID mapping
@@ -200,7 +202,7 @@ public class NeedsModelExtractor {
       String vpModelId = requirement.getId();
       if (vpModelId == null || vpModelId.trim().isEmpty()) {
         vpModelId = "req_" + System.nanoTime(); // Generate fallback ID
-        System.out.println("Warning: Generated fallback VP model ID for requirement: " + vpModelId);
+        log.warn("Generated fallback VP model ID for requirement: " + vpModelId);
       }
       need.setVpModelId(vpModelId);
 
@@ -231,16 +233,20 @@ public class NeedsModelExtractor {
       tags.add("functional");
       need.setTags(tags);
 
-      System.out.println("Processed requirement: " + id + " - " + name);
+      log.debug(() -> "Processed requirement: " + need.getId() + " - " + need.getTitle());
       return need;
 
     } catch (Exception e) {
-      System.err.println(
-          "Error processing requirement " + requirement.getName() + ": " + e.getMessage());
+      log.warn("Error processing requirement " + requirement.getName() + ": " + e.getMessage());
       return null;
     }
   }
 
+  /** Log that an element without User ID falls back to an ID derived from its VP model ID. */
+  private static void logFallbackId(String kind, String name, String id) {
+    log.debug(() -> "Using fallback ID for " + kind + " '" + name + "': " + id);
+  }
+
   /** Result container for model extraction operation. */
   public static class ExtractionResult {
     private final List<NeedsFile.Need> needs;
@@ -1,5 +1,7 @@
 package com.orgatex.vp.sphinx.extractor;
 
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import com.orgatex.vp.sphinx.monitoring.RelationshipExtractionEvent;
 import com.vp.plugin.ApplicationManager;
 import com.vp.plugin.ProjectManager;
 import com.vp.plugin.diagram.IDiagramElement;
@@ -25,24 +27,40 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class NeedsRelationshipExtractor {
 
+  private static final PluginLogger log = PluginLogger.getLogger(NeedsRelationshipExtractor.class);
+
   /** Extract all relationships from the current VP project's diagrams. */
   public static RelationshipMaps extractAllRelationships() {
+    return extractAllRelationships(Map.of());
+  }
+
+  /**
+   * Extract all relationships and, in the same walk over the project's diagrams, collect the model
+   * elements shown on selected diagrams.
+   *
+   * @param diagramMembers sets keyed by diagram id; the set of each diagram found in the project
+   *     receives the ids of the model elements of its shapes and connectors
+   */
+  public static RelationshipMaps extractAllRelationships(
+      Map<String, Set<String>> diagramMembers) {
+    RelationshipExtractionEvent event = new RelationshipExtractionEvent();
+    event.begin();
     try {
       ApplicationManager appManager = ApplicationManager.instance();
       if (appManager == null) {
-        System.err.println("ApplicationManager not available (test environment)");
+        log.warn("ApplicationManager not available (test environment)");
         return new RelationshipMaps();
       }
 
       ProjectManager projectManager = appManager.getProjectManager();
       if (projectManager == null) {
-        System.err.println("ProjectManager not available");
+        log.warn("ProjectManager not available");
         return new RelationshipMaps();
       }
 
       IProject project = projectManager.getProject();
       if (project == null) {
-        System.err.println("No project found, cannot extract relationships");
+        log.warn("No project found, cannot extract relationships");
         return new RelationshipMaps();
       }
 
@@ -58,31 +76,49 @@ public class NeedsRelationshipExtractor {
       @SuppressWarnings("unchecked")
       Iterator<IDiagramUIModel> diagrams = project.diagramIterator();
       int diagramCount = 0;
+      int elementsScanned = 0;
       while (diagrams.hasNext()) {
         IDiagramUIModel diagram = diagrams.next();
         diagramCount++;
 
         // Extract relationships from this diagram and add to global maps
-        extractRelationshipsFromDiagram(
-            diagram,
-            allIncludeRelationships,
-            allExtendRelationships,
-            allAssociateRelationships,
-            allContainsRelationships,
-            allDeriveRelationships,
-            allRefinesRelationships);
+        elementsScanned +=
+            extractRelationshipsFromDiagram(
+                diagram,
+                diagramMembers.get(diagram.getId()),
+                allIncludeRelationships,
+                allExtendRelationships,
+                allAssociateRelationships,
+                allContainsRelationships,
+                allDeriveRelationships,
+                allRefinesRelationships);
       }
 
+      event.diagramCount = diagramCount;
+      event.elementsScanned = elementsScanned;
+      event.relationshipCount =
+          countRelationships(allIncludeRelationships)
+              + countRelationships(allExtendRelationships)
+              + countRelationships(allAssociateRelationships)
+              + countRelationships(allContainsRelationships)
+              + countRelationships(allDeriveRelationships)
+              + countRelationships(allRefinesRelationships);
+
       // Print summary of extracted relationships
-      System.out.println("Relationship extraction summary:");
-      System.out.println("  Include: " + allIncludeRelationships.size());
-      System.out.println("  Extend: " + allExtendRelationships.size());
-      System.out.println("  Associate: " + allAssociateRelationships.size());
-      System.out.println("  Contains: " + allContainsRelationships.size());
-      System.out.println("  Derive: " + allDeriveRelationships.size());
-      System.out.println("  Refines: " + allRefinesRelationships.size());
-
-      System.out.println("Extracted relationships from all diagrams in project");
+      log.info(
+          () ->
+              "Relationship extraction summary: Include: "
+                  + allIncludeRelationships.size()
+                  + ", Extend: "
+                  + allExtendRelationships.size()
+                  + ", Associate: "
+                  + allAssociateRelationships.size()
+                  + ", Contains: "
+                  + allContainsRelationships.size()
+                  + ", Derive: "
+                  + allDeriveRelationships.size()
+                  + ", Refines: "
+                  + allRefinesRelationships.size());
       return new RelationshipMaps(
           allIncludeRelationships,
           allExtendRelationships,
@@ -92,15 +128,31 @@ public class NeedsRelationshipExtractor {
           allRefinesRelationships);
 
     } catch (Exception e) {
-      System.err.println("Error extracting project relationships: " + e.getMessage());
-      e.printStackTrace();
+      log.error("Error extracting project relationships: " + e.getMessage(), e);
       return new RelationshipMaps();
+    } finally {
+      event.commit();
     }
   }
 
-  /** Extract relationships from a single diagram and add to global relationship maps. */
-  private static void extractRelationshipsFromDiagram(
+  /** Count the individual links held in a relationship map. */
+  private static int countRelationships(Map<String, Set<String>> relationships) {
+    int count = 0;
+    for (Set<String> targets : relationships.values()) {
+      count += targets.size();
+    }
+    return count;
+  }
+
+  /**
+   * Extract relationships from a single diagram and add to global relationship maps.
+   *
+   * @param members receives the model element ids of the diagram's elements, or null
+   * @return the number of diagram elements scanned
+   */
+  private static int extractRelationshipsFromDiagram(
       IDiagramUIModel diagram,
+      Set<String> members,
       Map<String, Set<String>> allIncludeRelationships,
       Map<String, Set<String>> allExtendRelationships,
       Map<String, Set<String>> allAssociateRelationships,
@@ -110,8 +162,14 @@ public class NeedsRelationshipExtractor {
     try {
       // Get all diagram elements to find connectors
       IDiagramElement[] diagramElements = diagram.toDiagramElementArray();
+      if (diagramElements == null) {
+        return 0;
+      }
 
       for (IDiagramElement element : diagramElements) {
+        if (members != null && element.getModelElement() != null) {
+          members.add(element.getModelElement().getId());
+        }
         if (element instanceof IIncludeUIModel includeUI) {
           processIncludeRelationship(includeUI, allIncludeRelationships);
         } else if (element instanceof IExtendUIModel extendUI) {
@@ -123,25 +181,26 @@ public class NeedsRelationshipExtractor {
         } else if (element instanceof IRQRefineUIModel refineUI) {
           processRequirementRefineRelationship(refineUI, allRefinesRelationships);
         } else if (element instanceof IRQTraceUIModel traceUI) {
-          System.out.println("Found TRACE relationship: " + element.getClass().getSimpleName());
+          log.debug(() -> "Found TRACE relationship: " + element.getClass().getSimpleName());
           processRequirementTraceRelationship(traceUI, allContainsRelationships);
         } else if (element instanceof ISatisfyUIModel satisfyUI) {
-          System.out.println("Found SATISFY relationship: " + element.getClass().getSimpleName());
+          log.debug(() -> "Found SATISFY relationship: " + element.getClass().getSimpleName());
           processRequirementSatisfyRelationship(satisfyUI, allContainsRelationships);
         } else if (element instanceof IContainmentUIModel containmentUI) {
-          System.out.println(
-              "Found CONTAINMENT relationship: " + element.getClass().getSimpleName());
+          log.debug(
+              () -> "Found CONTAINMENT relationship: " + element.getClass().getSimpleName());
           processContainmentRelationship(containmentUI, allContainsRelationships);
-        } else if (element.getClass().getSimpleName().toLowerCase().contains("connector")
-            || element.getClass().getSimpleName().toLowerCase().contains("ui")) {
-          System.out.println(
-              "DEBUG: Unknown connector type: " + element.getClass().getSimpleName());
+        } else if (log.isDebugEnabled()
+            && (element.getClass().getSimpleName().toLowerCase().contains("connector")
+                || element.getClass().getSimpleName().toLowerCase().contains("ui"))) {
+          log.debug("Unknown connector type: " + element.getClass().getSimpleName());
         }
       }
+      return diagramElements.length;
     } catch (Exception e) {
-      System.err.println("Error extracting relationships from diagram: " + e.getMessage());
-      e.printStackTrace();
+      log.error("Error extracting relationships from diagram: " + e.getMessage(), e);
     }
+    return 0;
   }
 
   /** Process include relationship and add to global map. */
@@ -155,7 +214,7 @@ public class NeedsRelationshipExtractor {
         includeRelationships.computeIfAbsent(fromId, k -> new HashSet<>()).add(toId);
       }
     } catch (Exception e) {
-      System.err.println("Error processing include relationship: " + e.getMessage());
+      log.warn("Error processing include relationship: " + e.getMessage());
     }
   }
 
@@ -174,7 +233,7 @@ public class NeedsRelationshipExtractor {
         extendRelationships.computeIfAbsent(toId, k -> new HashSet<>()).add(fromId);
       }
     } catch (Exception e) {
-      System.err.println("Error processing extend relationship: " + e.getMessage());
+      log.warn("Error processing extend relationship: " + e.getMessage());
     }
   }
 
@@ -191,7 +250,7 @@ public class NeedsRelationshipExtractor {
         associateRelationships.computeIfAbsent(toId, k -> new HashSet<>()).add(fromId);
       }
     } catch (Exception e) {
-      System.err.println("Error processing associate relationship: " + e.getMessage());
+      log.warn("Error processing associate relationship: " + e.getMessage());
     }
   }
 
@@ -278,7 +337,7 @@ public class NeedsRelationshipExtractor {
         deriveRelationships.computeIfAbsent(fromId, k -> new HashSet<>()).add(toId);
       }
     } catch (Exception e) {
-      System.err.println("Error processing derive relationship: " + e.getMessage());
+      log.warn("Error processing derive relationship: " + e.getMessage());
     }
   }
 
@@ -293,7 +352,7 @@ public class NeedsRelationshipExtractor {
         refinesRelationships.computeIfAbsent(fromId, k -> new HashSet<>()).add(toId);
       }
     } catch (Exception e) {
-      System.err.println("Error processing refine relationship: " + e.getMessage());
+      log.warn("Error processing refine relationship: " + e.getMessage());
     }
   }
 
@@ -308,7 +367,7 @@ public class NeedsRelationshipExtractor {
         containsRelationships.computeIfAbsent(fromId, k -> new HashSet<>()).add(toId);
       }
     } catch (Exception e) {
-      System.err.println("Error processing trace relationship: " + e.getMessage());
+      log.warn("Error processing trace relationship: " + e.getMessage());
     }
   }
 
@@ -323,7 +382,7 @@ public class NeedsRelationshipExtractor {
         containsRelationships.computeIfAbsent(fromId, k -> new HashSet<>()).add(toId);
       }
     } catch (Exception e) {
-      System.err.println("Error processing satisfy relationship: " + e.getMessage());
+      log.warn("Error processing satisfy relationship: " + e.getMessage());
     }
   }
 
@@ -338,7 +397,7 @@ public class NeedsRelationshipExtractor {
         containsRelationships.computeIfAbsent(fromId, k -> new HashSet<>()).add(toId);
       }
     } catch (Exception e) {
-      System.err.println("Error processing containment relationship: " + e.getMessage());
+      log.warn("Error processing containment relationship: " + e.getMessage());
     }
   }
 
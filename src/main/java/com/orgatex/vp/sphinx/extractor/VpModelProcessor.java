@@ -1,6 +1,7 @@
 package com.orgatex.vp.sphinx.extractor;
 
 import com.vp.plugin.model.IModelElement;
+import com.vp.plugin.model.IPackage;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
@@ -147,6 +148,15 @@ public class VpModelProcessor {
     };
   }
 
+  /** Get the name of the innermost package containing an element, or null if there is none. */
+  public static String getPackageName(IModelElement element) {
+    IModelElement parent = element.getParent();
+    while (parent != null && !(parent instanceof IPackage)) {
+      parent = parent.getParent();
+    }
+    return parent != null ? parent.getName() : null;
+  }
+
   /** Sanitize a name for use as project name. */
   public static String sanitizeName(String input) {
     if (input == null || input.trim().isEmpty()) {
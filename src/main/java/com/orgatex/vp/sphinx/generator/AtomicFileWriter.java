@@ -0,0 +1,211 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes a file so that readers never see it half written.
+ *
+ * <p>Content goes to a temporary file in the target's directory through a {@link FileChannel} with
+ * a large buffer. {@link #commit()} optionally forces it to disk and then renames it over the
+ * target in one atomic step. If the writer is closed without a commit, for example because
+ * serialization failed, the temporary file is deleted and the target is left as it was.
+ *
+ * <p>The written file keeps the POSIX permissions of the target it replaces; a new file gets the
+ * default permissions of the process' umask, like a file written in place.
+ *
+ * <pre>{@code
+ * try (AtomicFileWriter writer = AtomicFileWriter.open(target)) {
+ *   mapper.writeValue(writer.stream(), value);
+ *   writer.commit();
+ * }
+ * }</pre>
+ */
+public final class AtomicFileWriter implements Closeable {
+
+  private static final PluginLogger log = PluginLogger.getLogger(AtomicFileWriter.class);
+
+  /** System property that makes every commit force the file to the storage device. */
+  public static final String FORCE_PROPERTY = "vp.sphinx.write.force";
+
+  static final int BUFFER_SIZE = 1 << 20;
+
+  private final Path target;
+  private final Path temp;
+  private final FileChannel channel;
+  private final boolean force;
+  private OutputStream stream;
+  private boolean committed;
+
+  private AtomicFileWriter(Path target, boolean force) throws IOException {
+    this.target = target.toAbsolutePath();
+    this.force = force;
+    Path directory = this.target.getParent();
+    Files.createDirectories(directory);
+    this.temp = createTemporaryFile(directory, "." + this.target.getFileName());
+    this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+  }
+
+  /**
+   * Create an empty file with a unique name. Unlike {@link Files#createTempFile}, which restricts
+   * the file to its owner, this leaves the permissions to the umask.
+   */
+  private static Path createTemporaryFile(Path directory, String prefix) throws IOException {
+    while (true) {
+      String suffix = Long.toHexString(ThreadLocalRandom.current().nextLong());
+      Path candidate = directory.resolve(prefix + "." + suffix + ".tmp");
+      try {
+        return Files.createFile(candidate);
+      } catch (FileAlreadyExistsException e) {
+        // Try another name
+      }
+    }
+  }
+
+  /**
+   * Start writing a file, forcing it to disk on commit if {@value #FORCE_PROPERTY} is set.
+   *
+   * @param target the file to replace; its directory is created if needed
+   * @return the writer
+   * @throws IOException if the temporary file cannot be created
+   */
+  public static AtomicFileWriter open(Path target) throws IOException {
+    return open(target, Boolean.getBoolean(FORCE_PROPERTY));
+  }
+
+  /**
+   * Start writing a file.
+   *
+   * @param target the file to replace; its directory is created if needed
+   * @param force true to force the content to the storage device before renaming
+   * @return the writer
+   * @throws IOException if the temporary file cannot be created
+   */
+  public static AtomicFileWriter open(Path target, boolean force) throws IOException {
+    return new AtomicFileWriter(target, force);
+  }
+
+  /**
+   * Atomically replace a file with the given content.
+   *
+   * @param target the file to replace
+   * @param content the new content
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(Path target, byte[] content) throws IOException {
+    try (AtomicFileWriter writer = open(target)) {
+      writer.write(content);
+      writer.commit();
+    }
+  }
+
+  /** Buffered stream into the temporary file. Closing it does not commit. */
+  public OutputStream stream() {
+    if (stream == null) {
+      stream =
+          new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+              flush(); // The channel is closed by the writer
+            }
+          };
+    }
+    return stream;
+  }
+
+  /** Write bytes straight to the channel, bypassing the stream buffer. */
+  public void write(byte[] content) throws IOException {
+    if (stream != null) {
+      stream.flush();
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(content);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /** The temporary file, complete once everything has been written and before commit. */
+  public Path getTemporaryFile() throws IOException {
+    if (stream != null) {
+      stream.flush();
+    }
+    return temp;
+  }
+
+  /**
+   * Flush, optionally force, and rename the temporary file over the target.
+   *
+   * @throws IOException if the file cannot be flushed or moved
+   */
+  public void commit() throws IOException {
+    if (committed) {
+      return;
+    }
+    if (stream != null) {
+      stream.flush();
+    }
+    if (force) {
+      channel.force(true);
+    }
+    channel.close();
+    copyPermissions(target, temp);
+
+    try {
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      log.debug("Atomic move not supported for " + target + ", replacing instead");
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+    committed = true;
+
+    if (force) {
+      forceDirectory(target.getParent());
+    }
+  }
+
+  /** Give the temporary file the POSIX permissions of an existing target. */
+  private static void copyPermissions(Path target, Path temp) throws IOException {
+    PosixFileAttributeView targetView =
+        Files.getFileAttributeView(target, PosixFileAttributeView.class);
+    if (targetView == null || !Files.exists(target)) {
+      return;
+    }
+    Files.getFileAttributeView(temp, PosixFileAttributeView.class)
+        .setPermissions(targetView.readAttributes().permissions());
+  }
+
+  /** Persist the rename itself; not possible on every platform, so failures are ignored. */
+  private static void forceDirectory(Path directory) {
+    try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+      dir.force(true);
+    } catch (IOException e) {
+      log.debug("Could not force directory " + directory + ": " + e.getMessage());
+    }
+  }
+
+  /** Discard the temporary file unless {@link #commit()} succeeded. */
+  @Override
+  public void close() throws IOException {
+    if (!committed) {
+      try {
+        channel.close();
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hash of the meaningful content of a needs file.
+ *
+ * <p>The hash covers the token stream rather than the bytes, so whitespace, indentation and
+ * compression do not matter, and it leaves out the {@code created} timestamps of the file and of
+ * each version, which change on every export. Two exports of the same model therefore hash equal,
+ * and the second one need not be written.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ContentHash {
+
+  private static final JsonFactory jsonFactory = new JsonFactory();
+
+  static byte[] of(byte[] content) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(content)) {
+      return digest(parser);
+    }
+  }
+
+  static byte[] of(File file) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(NeedsFileCodec.open(file.toPath()))) {
+      return digest(parser);
+    }
+  }
+
+  /**
+   * Check whether an existing file has the same content as newly serialized bytes.
+   *
+   * @return true if the file exists and only differs in timestamps or formatting
+   */
+  static boolean matches(File existing, byte[] content) {
+    if (!existing.isFile()) {
+      return false;
+    }
+    try {
+      return MessageDigest.isEqual(of(existing), of(content));
+    } catch (IOException e) {
+      return false; // Unreadable or not JSON: overwrite it
+    }
+  }
+
+  /** Check whether an existing file has the same content as a newly written one. */
+  static boolean matches(File existing, File written) {
+    if (!existing.isFile()) {
+      return false;
+    }
+    try {
+      return MessageDigest.isEqual(of(existing), of(written));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static byte[] digest(JsonParser parser) throws IOException {
+    MessageDigest digest = newDigest();
+    JsonToken token;
+    while ((token = parser.nextToken()) != null) {
+      if (token == JsonToken.FIELD_NAME
+          && "created".equals(parser.currentName())
+          && isFileOrVersion(parser.getParsingContext())) {
+        parser.nextToken();
+        parser.skipChildren();
+        continue;
+      }
+      digest.update((byte) token.id());
+      if (token == JsonToken.FIELD_NAME || token.isScalarValue()) {
+        byte[] text = parser.getText().getBytes(StandardCharsets.UTF_8);
+        digest.update(
+            new byte[] {
+              (byte) (text.length >>> 24),
+              (byte) (text.length >>> 16),
+              (byte) (text.length >>> 8),
+              (byte) text.length
+            });
+        digest.update(text);
+      }
+    }
+    return digest.digest();
+  }
+
+  /** True for the root object and for the objects directly under {@code versions}. */
+  static boolean isFileOrVersion(JsonStreamContext object) {
+    JsonStreamContext parent = object.getParent();
+    if (parent == null || parent.inRoot()) {
+      return true;
+    }
+    JsonStreamContext root = parent.getParent();
+    return root != null
+        && root.getParent() != null
+        && root.getParent().inRoot()
+        && "versions".equals(root.getCurrentName());
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
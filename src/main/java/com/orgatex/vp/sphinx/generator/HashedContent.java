@@ -0,0 +1,120 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * A needs file serialized to JSON, with a hash of the content that its schema validation depends
+ * on.
+ *
+ * <p>The hash is a CRC32C and CRC32 of the serialized bytes, both hardware accelerated, leaving out
+ * the values of the {@code created} timestamps of the file and of each version, which change on
+ * every export. Where these values are is recorded while they are written, so the content is never
+ * parsed again. The first byte of each value is kept, which tells a string from null, the only
+ * thing the schema checks about them.
+ *
+ * @param bytes the serialized needs file
+ * @param hash hash and length of the bytes without the timestamp values
+ */
+record HashedContent(byte[] bytes, String hash) {
+
+  /**
+   * Serialize a needs file and hash it.
+   *
+   * @param mapper mapper to serialize with
+   * @param needsFile the needs file
+   * @return the bytes, as {@link ObjectMapper#writeValueAsBytes} writes them, and their hash
+   * @throws IOException if the needs file cannot be serialized
+   */
+  static HashedContent serialize(ObjectMapper mapper, Object needsFile) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    List<int[]> timestamps = new ArrayList<>();
+    try (JsonGenerator generator = mapper.createGenerator(output)) {
+      mapper.writeValue(new TimestampLocator(generator, output, timestamps), needsFile);
+    }
+    byte[] bytes = output.toByteArray();
+
+    CRC32C crc32c = new CRC32C();
+    CRC32 crc32 = new CRC32();
+    int from = 0;
+    int length = 0;
+    for (int[] timestamp : timestamps) {
+      // Keep the separator in front of the value and its first byte
+      int value = timestamp[0];
+      while (bytes[value] == ' ' || bytes[value] == ':') {
+        value++;
+      }
+      crc32c.update(bytes, from, value + 1 - from);
+      crc32.update(bytes, from, value + 1 - from);
+      length += value + 1 - from;
+      from = timestamp[1];
+    }
+    crc32c.update(bytes, from, bytes.length - from);
+    crc32.update(bytes, from, bytes.length - from);
+    length += bytes.length - from;
+    long hash = (crc32c.getValue() << 32) | crc32.getValue();
+    return new HashedContent(bytes, String.format("%016x-%x", hash, length));
+  }
+
+  /**
+   * Records where each {@code created} value of the file and its versions is in the output, from
+   * the end of its name, so including the separator, to where the next field or the end of its
+   * object begins. The output is flushed at both ends, so it holds exactly the bytes written so
+   * far.
+   */
+  private static final class TimestampLocator extends JsonGeneratorDelegate {
+    private final ByteArrayOutputStream output;
+    private final List<int[]> timestamps;
+    private int start = -1;
+
+    TimestampLocator(
+        JsonGenerator generator, ByteArrayOutputStream output, List<int[]> timestamps) {
+      super(generator, false);
+      this.output = output;
+      this.timestamps = timestamps;
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+      endTimestamp();
+      super.writeFieldName(name);
+      startTimestamp(name);
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+      endTimestamp();
+      super.writeFieldName(name);
+      startTimestamp(name.getValue());
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+      endTimestamp();
+      super.writeEndObject();
+    }
+
+    private void startTimestamp(String name) throws IOException {
+      if ("created".equals(name) && ContentHash.isFileOrVersion(getOutputContext())) {
+        flush();
+        start = output.size();
+      }
+    }
+
+    private void endTimestamp() throws IOException {
+      if (start >= 0) {
+        flush();
+        timestamps.add(new int[] {start, output.size()});
+        start = -1;
+      }
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package com.orgatex.vp.sphinx.generator;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -8,11 +10,31 @@ import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
 import com.networknt.schema.ValidationMessage;
+import com.orgatex.vp.sphinx.logging.PluginLogger;
 import com.orgatex.vp.sphinx.model.NeedsFile;
+import com.orgatex.vp.sphinx.monitoring.FileWriteEvent;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
+import com.orgatex.vp.sphinx.monitoring.SchemaValidationEvent;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
@@ -20,17 +42,42 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class JsonExporter {
 
+  private static final PluginLogger log = PluginLogger.getLogger(JsonExporter.class);
+
+  /** System property that enables strict validation with the generic JSON schema validator. */
+  public static final String STRICT_VALIDATION_PROPERTY = "vp.sphinx.validation.strict";
+
   private static final ObjectMapper objectMapper = createObjectMapper();
-  private static final JsonSchema schema = loadSchema();
+
+  private static volatile boolean strictValidation =
+      Boolean.getBoolean(STRICT_VALIDATION_PROPERTY);
 
   private static ObjectMapper createObjectMapper() {
     ObjectMapper mapper = new ObjectMapper();
     mapper.registerModule(new JavaTimeModule());
     mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     mapper.enable(SerializationFeature.INDENT_OUTPUT);
+    // Stable output: unchanged models must produce byte-identical files
+    mapper.enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
     return mapper;
   }
 
+  /** Loaded on first use, so loading this class never reads the cache directory. */
+  private static final class ResultCache {
+    private static final ValidationCache CACHE = createValidationCache();
+  }
+
+  private static ValidationCache createValidationCache() {
+    ValidationCache cache = ValidationCache.createDefault();
+    PluginMetrics.getInstance().registerCache("validationCache", cache::size);
+    return cache;
+  }
+
+  /** Loaded on first use, so the default fast path never pays for compiling the schema. */
+  private static final class StrictSchema {
+    private static final JsonSchema SCHEMA = loadSchema();
+  }
+
   private static JsonSchema loadSchema() {
     try {
       JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
@@ -38,44 +85,470 @@ public class JsonExporter {
           JsonExporter.class.getClassLoader().getResourceAsStream("sphinx-needs-5.1.0-schema.json");
 
       if (schemaStream == null) {
-        System.err.println("Warning: Schema file not found, skipping validation");
+        log.warn("Schema file not found, skipping validation");
         return null;
       }
 
       return factory.getSchema(schemaStream);
     } catch (Exception e) {
-      System.err.println("Warning: Failed to load schema, skipping validation: " + e.getMessage());
+      log.warn("Failed to load schema, skipping validation: " + e.getMessage());
       return null;
     }
   }
 
-  private static void validateAgainstSchema(NeedsFile needsFile) {
+  /**
+   * Enable or disable strict validation. Strict mode runs the generic networknt JSON schema
+   * validator on a serialized tree instead of the specialised {@link NeedsFileValidator}; it is
+   * slower but follows the schema file exactly.
+   *
+   * @param strict true to use the generic validator
+   */
+  public static void setStrictValidation(boolean strict) {
+    strictValidation = strict;
+  }
+
+  public static boolean isStrictValidation() {
+    return strictValidation;
+  }
+
+  /**
+   * Validate a needs file against the sphinx-needs schema without writing it.
+   *
+   * @param needsFile the needs file to validate
+   * @return the validation result
+   */
+  public static ValidationResult validate(NeedsFile needsFile) {
+    if (needsFile == null) {
+      throw new IllegalArgumentException("NeedsFile cannot be null");
+    }
+
+    SchemaValidationEvent event = new SchemaValidationEvent();
+    event.begin();
+    long start = System.nanoTime();
+    try {
+      ValidationResult result =
+          strictValidation ? validateStrict(needsFile) : NeedsFileValidator.validate(needsFile);
+      event.validator = result.getValidator();
+      event.needCount = countNeeds(needsFile);
+      event.violationCount = result.getViolations().size();
+      return result;
+    } finally {
+      event.commit();
+      PluginMetrics.getInstance().recordValidation(System.nanoTime() - start);
+    }
+  }
+
+  /** Validate with the generic networknt validator against the bundled schema file. */
+  static ValidationResult validateStrict(NeedsFile needsFile) {
+    if (StrictSchema.SCHEMA == null) {
+      return ValidationResult.skipped(); // Skip validation if schema not available
+    }
+
+    // Convert NeedsFile to JsonNode for validation
+    return validateJson(objectMapper.valueToTree(needsFile));
+  }
+
+  /**
+   * Validate a parsed JSON document with the generic networknt validator against the bundled
+   * sphinx-needs schema.
+   *
+   * @param jsonNode the document to validate
+   * @return the validation result, or a skipped result if the schema could not be loaded
+   */
+  public static ValidationResult validateJson(JsonNode jsonNode) {
+    JsonSchema schema = StrictSchema.SCHEMA;
     if (schema == null) {
-      return; // Skip validation if schema not available
+      return ValidationResult.skipped(); // Skip validation if schema not available
+    }
+
+    List<ValidationResult.Violation> violations = new ArrayList<>();
+    for (ValidationMessage message : schema.validate(jsonNode)) {
+      violations.add(
+          new ValidationResult.Violation(
+              String.valueOf(message.getInstanceLocation()),
+              message.getType(),
+              message.getMessage(),
+              null));
+    }
+    return new ValidationResult("networknt", violations);
+  }
+
+  /** Key under which validation results for the given content are cached. */
+  private static String cacheKey(HashedContent content) {
+    String schemaId =
+        NeedsFileValidator.SCHEMA_VERSION
+            + (strictValidation ? "-networknt" : "-" + NeedsFileValidator.NAME);
+    return ValidationCache.key(content, schemaId);
+  }
+
+  /** Look up a cached result for serialized content, or null if it must be validated. */
+  private static ValidationResult cachedResult(String key) {
+    ValidationResult cached = ResultCache.CACHE.get(key);
+    if (cached != null) {
+      log.debug("Content unchanged since last validation, skipping schema validation");
+      PluginMetrics.getInstance().recordValidationCacheHit();
+      logValidationResult(cached);
     }
+    return cached;
+  }
 
+  /** Validate a needs file and cache the result under the key of its serialized content. */
+  private static ValidationResult validateAndCache(NeedsFile needsFile, String key) {
     try {
-      // Convert NeedsFile to JsonNode for validation
-      JsonNode jsonNode = objectMapper.valueToTree(needsFile);
+      ValidationResult result = validate(needsFile);
+      ResultCache.CACHE.put(key, result);
+      logValidationResult(result);
+      return result;
+    } catch (Exception e) {
+      log.warn("Schema validation failed: " + e.getMessage());
+      return ValidationResult.skipped();
+    }
+  }
 
-      // Validate against schema
-      Set<ValidationMessage> validationMessages = schema.validate(jsonNode);
+  /**
+   * Validate serialized content, unless identical content has been validated before.
+   *
+   * @return the validation result
+   */
+  private static ValidationResult validateCached(NeedsFile needsFile, HashedContent content) {
+    String key = cacheKey(content);
+    ValidationResult cached = cachedResult(key);
+    return cached != null ? cached : validateAndCache(needsFile, key);
+  }
 
-      if (!validationMessages.isEmpty()) {
-        System.err.println("Schema validation warnings:");
-        for (ValidationMessage message : validationMessages) {
-          System.err.println(
-              "  - " + message.getMessage() + " at " + message.getInstanceLocation());
+  private static void logValidationResult(ValidationResult result) {
+    if (!result.isValid()) {
+      log.warn("Schema validation warnings:");
+      for (ValidationResult.Violation violation : result.getViolations()) {
+        log.warn("  - " + violation);
+      }
+    } else {
+      log.info("Schema validation passed");
+    }
+  }
+
+  /** Count the needs across all versions of a needs file. */
+  private static int countNeeds(NeedsFile needsFile) {
+    int count = 0;
+    if (needsFile.getVersions() != null) {
+      for (NeedsFile.VersionData versionData : needsFile.getVersions().values()) {
+        if (versionData != null && versionData.getNeeds() != null) {
+          count += versionData.getNeeds().size();
         }
-      } else {
-        System.out.println("✅ Schema validation passed");
       }
-    } catch (Exception e) {
-      System.err.println("Warning: Schema validation failed: " + e.getMessage());
     }
+    return count;
+  }
+
+  /**
+   * Validate a needs file and write it as JSON.
+   *
+   * <p>Maps are written sorted by key, so the same model always produces the same bytes. If the
+   * output file already has the same content apart from its {@code created} timestamps it is not
+   * rewritten. The file is compressed if its name ends in {@code .gz} or {@code .zst}, see {@link
+   * NeedsFileCodec}.
+   *
+   * @param needsFile the needs file to export
+   * @param outputFile the target file; parent directories are created as needed
+   * @return the schema validation result; violations do not prevent the write
+   * @throws IOException if the file cannot be written
+   */
+  public static ValidationResult exportToFile(NeedsFile needsFile, File outputFile)
+      throws IOException {
+    HashedContent content = serialize(needsFile, outputFile);
+
+    // Validate against schema before writing
+    ValidationResult result = validateCached(needsFile, content);
+
+    writeContent(needsFile, outputFile, content);
+    return result;
+  }
+
+  /**
+   * Write a needs file as JSON and validate it afterwards on a background thread.
+   *
+   * <p>The file is on disk when this method returns. The needs file must not be modified until the
+   * returned future has completed.
+   *
+   * @param needsFile the needs file to export
+   * @param outputFile the target file; parent directories are created as needed
+   * @return future completed with the schema validation result
+   * @throws IOException if the file cannot be written
+   */
+  public static CompletableFuture<ValidationResult> exportToFileAsync(
+      NeedsFile needsFile, File outputFile) throws IOException {
+    HashedContent content = serialize(needsFile, outputFile);
+    writeContent(needsFile, outputFile, content);
+
+    String key = cacheKey(content);
+    ValidationResult cached = cachedResult(key);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    return CompletableFuture.supplyAsync(
+        () -> validateAndCache(needsFile, key), BackgroundValidation.EXECUTOR);
+  }
+
+  /**
+   * Add the current version of a needs file to an existing needs file and make it the current
+   * version there.
+   *
+   * <p>The existing file is streamed through without binding it, so earlier versions cost only the
+   * time to copy their bytes, and only the new version is validated. A version with the same name
+   * is replaced. If the output file does not exist yet this is the same as {@link #exportToFile}.
+   *
+   * @param needsFile needs file whose current version is appended
+   * @param outputFile the existing needs file to append to
+   * @return the schema validation result of the appended version
+   * @throws IOException if the existing file is not a needs file or cannot be rewritten
+   */
+  public static ValidationResult appendToFile(NeedsFile needsFile, File outputFile)
+      throws IOException {
+    HashedContent content = serialize(needsFile, outputFile);
+    if (!outputFile.exists()) {
+      ValidationResult result = validateCached(needsFile, content);
+      writeContent(needsFile, outputFile, content);
+      return result;
+    }
+
+    String version = needsFile.getCurrentVersion();
+    NeedsFile.VersionData versionData = needsFile.getVersions().get(version);
+    if (versionData == null) {
+      throw new IllegalArgumentException("NeedsFile has no data for version " + version);
+    }
+
+    ValidationResult result = validateCached(needsFile, content);
+
+    FileWriteEvent writeEvent = new FileWriteEvent();
+    writeEvent.begin();
+    Path target = outputFile.toPath().toAbsolutePath();
+    try (AtomicFileWriter writer = AtomicFileWriter.open(target)) {
+      NeedsFileCodec codec = NeedsFileCodec.forFileName(target.getFileName().toString());
+      try (JsonParser existing = objectMapper.createParser(NeedsFileCodec.open(target));
+          JsonGenerator out = objectMapper.createGenerator(codec.compress(writer.stream()))) {
+        NeedsFileAppender.append(
+            objectMapper, existing, out, version, needsFile.getCreated(), versionData);
+      }
+      if (ContentHash.matches(target.toFile(), writer.getTemporaryFile().toFile())) {
+        skipUnchanged(target.toFile());
+        return result;
+      }
+      writer.commit();
+    }
+
+    long bytesWritten = Files.size(target);
+    PluginMetrics.getInstance().recordWrite(bytesWritten);
+    if (writeEvent.shouldCommit()) {
+      writeEvent.path = target.toString();
+      writeEvent.needCount = versionData.getNeeds().size();
+      writeEvent.bytesWritten = bytesWritten;
+      writeEvent.commit();
+    }
+    log.debug("Appended version " + version + " to " + target);
+    return result;
+  }
+
+  /**
+   * Write shards of a needs file in parallel, plus an index file listing them.
+   *
+   * <p>Shard files are named after the index file with the shard key inserted before the
+   * extension, e.g. {@code project_needs.uc.json} for index {@code project_needs.json}, and use the
+   * same compression. Shards whose content is unchanged are not rewritten, and shard files listed
+   * in a previous index that no longer exist as shards are deleted.
+   *
+   * @param shards shards by key, see {@link NeedsFileSharder}
+   * @param indexFile the index file to write
+   * @return the combined validation result; violation paths are prefixed with the shard file name
+   * @throws IOException if a shard or the index cannot be written
+   */
+  public static ValidationResult exportSharded(Map<String, NeedsFile> shards, File indexFile)
+      throws IOException {
+    if (shards == null || shards.isEmpty()) {
+      throw new IllegalArgumentException("At least one shard is required");
+    }
+    if (indexFile == null) {
+      throw new IllegalArgumentException("Index file cannot be null");
+    }
+
+    String indexName = indexFile.getName();
+    NeedsFileCodec codec = NeedsFileCodec.forFileName(indexName);
+    String baseName = NeedsFileCodec.stripExtension(indexName);
+    if (baseName.toLowerCase(Locale.ROOT).endsWith(".json")) {
+      baseName = baseName.substring(0, baseName.length() - ".json".length());
+    }
+    String suffix = ".json" + (codec.getExtension() != null ? codec.getExtension() : "");
+    File directory = indexFile.getAbsoluteFile().getParentFile();
+
+    List<ShardIndex.Shard> entries = new ArrayList<>();
+    List<Callable<ValidationResult>> tasks = new ArrayList<>();
+    AtomicInteger rewritten = new AtomicInteger();
+    for (Map.Entry<String, NeedsFile> shard : shards.entrySet()) {
+      String fileName = baseName + "." + shard.getKey() + suffix;
+      NeedsFile needsFile = shard.getValue();
+      entries.add(new ShardIndex.Shard(shard.getKey(), fileName, countNeeds(needsFile)));
+      tasks.add(
+          () -> {
+            File shardFile = new File(directory, fileName);
+            HashedContent content = serialize(needsFile, shardFile);
+            ValidationResult result = validateCached(needsFile, content);
+            if (writeContent(needsFile, shardFile, content)) {
+              rewritten.incrementAndGet();
+            }
+            return result;
+          });
+    }
+
+    List<ValidationResult.Violation> violations = new ArrayList<>();
+    List<String> fileNames = entries.stream().map(ShardIndex.Shard::file).toList();
+    String validator = runWriteTasks(tasks, fileNames, violations);
+    deleteStaleShards(indexFile, directory, entries);
+
+    NeedsFile first = shards.values().iterator().next();
+    ShardIndex index =
+        new ShardIndex(first.getCreated(), first.getProject(), first.getCurrentVersion(), entries);
+    byte[] indexContent = objectMapper.writeValueAsBytes(index);
+    if (ContentHash.matches(indexFile, indexContent)) {
+      skipUnchanged(indexFile);
+    } else {
+      PluginMetrics.getInstance().recordWrite(writeBytes(indexFile, indexContent));
+    }
+
+    log.info(
+        "Sharded export: " + rewritten.get() + " of " + shards.size() + " shard(s) rewritten");
+    return new ValidationResult(validator, violations);
+  }
+
+  /**
+   * Write several needs files in parallel, e.g. one per diagram.
+   *
+   * <p>Each file is serialized, validated and written like {@link #exportToFile}, including the
+   * check for unchanged content, on a pool sized to the machine.
+   *
+   * @param needsFiles needs files by target file
+   * @return the combined validation result; violation paths are prefixed with the file name
+   * @throws IOException if a file cannot be written
+   */
+  public static ValidationResult exportAll(Map<File, NeedsFile> needsFiles) throws IOException {
+    if (needsFiles == null || needsFiles.isEmpty()) {
+      throw new IllegalArgumentException("At least one needs file is required");
+    }
+
+    List<String> fileNames = new ArrayList<>();
+    List<Callable<ValidationResult>> tasks = new ArrayList<>();
+    AtomicInteger rewritten = new AtomicInteger();
+    for (Map.Entry<File, NeedsFile> entry : needsFiles.entrySet()) {
+      File outputFile = entry.getKey();
+      NeedsFile needsFile = entry.getValue();
+      fileNames.add(outputFile.getName());
+      tasks.add(
+          () -> {
+            HashedContent content = serialize(needsFile, outputFile);
+            ValidationResult result = validateCached(needsFile, content);
+            if (writeContent(needsFile, outputFile, content)) {
+              rewritten.incrementAndGet();
+            }
+            return result;
+          });
+    }
+
+    List<ValidationResult.Violation> violations = new ArrayList<>();
+    String validator = runWriteTasks(tasks, fileNames, violations);
+    log.info(
+        "Multi-file export: "
+            + rewritten.get()
+            + " of "
+            + needsFiles.size()
+            + " file(s) rewritten");
+    return new ValidationResult(validator, violations);
+  }
+
+  /** Run file writes on a pool sized to the machine; returns the validator name. */
+  private static String runWriteTasks(
+      List<Callable<ValidationResult>> tasks,
+      List<String> fileNames,
+      List<ValidationResult.Violation> violations)
+      throws IOException {
+    int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService pool =
+        Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              Thread thread = new Thread(runnable, "sphinx-needs-file-writer");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      List<Future<ValidationResult>> futures = pool.invokeAll(tasks);
+      String validator = ValidationResult.skipped().getValidator();
+      for (int i = 0; i < futures.size(); i++) {
+        ValidationResult result = futures.get(i).get();
+        validator = result.getValidator();
+        String fileName = fileNames.get(i);
+        for (ValidationResult.Violation violation : result.getViolations()) {
+          violations.add(
+              new ValidationResult.Violation(
+                  fileName + " " + violation.path(),
+                  violation.keyword(),
+                  violation.message(),
+                  violation.needId()));
+        }
+      }
+      return validator;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Multi-file export interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException ioException) {
+        throw ioException;
+      }
+      throw new IOException("Failed to write file: " + e.getCause().getMessage(), e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** Delete shard files listed in the previous index that are not part of this export. */
+  private static void deleteStaleShards(
+      File indexFile, File directory, List<ShardIndex.Shard> entries) {
+    if (!indexFile.isFile()) {
+      return;
+    }
+    try (InputStream in = NeedsFileCodec.open(indexFile.toPath())) {
+      ShardIndex previous = objectMapper.readValue(in, ShardIndex.class);
+      Set<String> current = new HashSet<>();
+      entries.forEach(entry -> current.add(entry.file()));
+      for (ShardIndex.Shard shard : previous.shards()) {
+        // Only plain file names: never follow a path out of the export directory
+        if (!current.contains(shard.file()) && new File(shard.file()).getParent() == null) {
+          Files.deleteIfExists(new File(directory, shard.file()).toPath());
+          log.info("Deleted stale shard " + shard.file());
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Could not read previous shard index " + indexFile + ": " + e.getMessage());
+    }
+  }
+
+  /** Single daemon thread, so background validation never competes with the UI for many cores. */
+  private static final class BackgroundValidation {
+    private static final ExecutorService EXECUTOR =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "sphinx-needs-validation");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Stop the background validation thread. Validations already submitted still complete;
+   * asynchronous exports are rejected afterwards. Call this when the plugin is unloaded.
+   */
+  public static void shutdown() {
+    BackgroundValidation.EXECUTOR.shutdown();
   }
 
-  public static void exportToFile(NeedsFile needsFile, File outputFile) throws IOException {
+  private static HashedContent serialize(NeedsFile needsFile, File outputFile) throws IOException {
     if (needsFile == null) {
       throw new IllegalArgumentException("NeedsFile cannot be null");
     }
@@ -83,36 +556,77 @@ public class JsonExporter {
       throw new IllegalArgumentException("Output file cannot be null");
     }
 
-    System.out.println("=== DEBUG: JsonExporter.exportToFile ===");
-    System.out.println("Output file: " + outputFile.getAbsolutePath());
-    System.out.println("NeedsFile project: " + needsFile.getProject());
-    System.out.println("NeedsFile current_version: " + needsFile.getCurrentVersion());
-    System.out.println(
-        "NeedsFile versions count: "
-            + (needsFile.getVersions() != null ? needsFile.getVersions().size() : "null"));
-
-    if (needsFile.getVersions() != null && !needsFile.getVersions().isEmpty()) {
-      for (String version : needsFile.getVersions().keySet()) {
-        var versionData = needsFile.getVersions().get(version);
-        System.out.println(
-            "Version '"
-                + version
-                + "' needs count: "
-                + (versionData.getNeeds() != null ? versionData.getNeeds().size() : "null"));
+    if (log.isDebugEnabled()) {
+      log.debug("Output file: " + outputFile.getAbsolutePath());
+      log.debug("NeedsFile project: " + needsFile.getProject());
+      log.debug("NeedsFile current_version: " + needsFile.getCurrentVersion());
+      log.debug(
+          "NeedsFile versions count: "
+              + (needsFile.getVersions() != null ? needsFile.getVersions().size() : "null"));
+
+      if (needsFile.getVersions() != null && !needsFile.getVersions().isEmpty()) {
+        for (String version : needsFile.getVersions().keySet()) {
+          var versionData = needsFile.getVersions().get(version);
+          log.debug(
+              "Version '"
+                  + version
+                  + "' needs count: "
+                  + (versionData.getNeeds() != null ? versionData.getNeeds().size() : "null"));
+        }
       }
     }
 
-    // Ensure parent directory exists
-    File parentDir = outputFile.getParentFile();
-    if (parentDir != null && !parentDir.exists()) {
-      parentDir.mkdirs();
+    return HashedContent.serialize(objectMapper, needsFile);
+  }
+
+  /**
+   * Write serialized content unless the file already has the same content.
+   *
+   * @return true if the file was written, false if it was unchanged
+   */
+  private static boolean writeContent(NeedsFile needsFile, File outputFile, HashedContent content)
+      throws IOException {
+    if (ContentHash.matches(outputFile, content.bytes())) {
+      skipUnchanged(outputFile);
+      return false;
     }
 
-    // Validate against schema before writing
-    validateAgainstSchema(needsFile);
+    FileWriteEvent writeEvent = new FileWriteEvent();
+    writeEvent.begin();
+    long bytesWritten = writeBytes(outputFile, content.bytes());
+    PluginMetrics.getInstance().recordWrite(bytesWritten);
+    if (writeEvent.shouldCommit()) {
+      writeEvent.path = outputFile.getAbsolutePath();
+      writeEvent.needCount = countNeeds(needsFile);
+      writeEvent.bytesWritten = bytesWritten;
+      writeEvent.commit();
+    }
+    log.debug("JSON export completed");
+    return true;
+  }
 
-    objectMapper.writeValue(outputFile, needsFile);
-    System.out.println("=== DEBUG: JSON export completed ===");
+  /** Write content atomically, compressed according to the file name; returns the file size. */
+  private static long writeBytes(File outputFile, byte[] content) throws IOException {
+    // Never leave a truncated file behind: write a temporary file and rename it over the target
+    NeedsFileCodec codec = NeedsFileCodec.forFileName(outputFile.getName());
+    if (codec == NeedsFileCodec.PLAIN) {
+      AtomicFileWriter.write(outputFile.toPath(), content);
+      return content.length;
+    }
+    try (AtomicFileWriter writer = AtomicFileWriter.open(outputFile.toPath())) {
+      try (OutputStream out = codec.compress(writer.stream())) {
+        out.write(content);
+      }
+      long bytesWritten = Files.size(writer.getTemporaryFile());
+      writer.commit();
+      return bytesWritten;
+    }
+  }
+
+  /** Leave a file untouched so that timestamp-based tools such as Sphinx see no change. */
+  private static void skipUnchanged(File outputFile) {
+    log.info("Content unchanged, not rewriting " + outputFile.getName());
+    PluginMetrics.getInstance().recordUnchangedWrite();
   }
 
   public static String exportToString(NeedsFile needsFile) throws IOException {
@@ -120,9 +634,10 @@ public class JsonExporter {
       throw new IllegalArgumentException("NeedsFile cannot be null");
     }
 
-    // Validate against schema before converting to string
-    validateAgainstSchema(needsFile);
+    HashedContent content = HashedContent.serialize(objectMapper, needsFile);
 
-    return objectMapper.writeValueAsString(needsFile);
+    // Validate against schema before converting to string
+    validateCached(needsFile, content);
+    return new String(content.bytes(), StandardCharsets.UTF_8);
   }
 }
@@ -0,0 +1,65 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reads and writes the {@link NeedsLayout} file next to a needs file.
+ *
+ * <p>The layout of {@code login_needs.json}, also when compressed, is {@code
+ * login_needs.layout.json} in the same directory. It is plain JSON with need IDs as keys, so it
+ * can be kept under version control next to the needs file and diffs readably.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LayoutSidecar {
+
+  private static final String SUFFIX = ".layout.json";
+
+  private static final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .enable(SerializationFeature.INDENT_OUTPUT)
+          .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+  /** Path of the layout file of a needs file. */
+  public static Path pathFor(Path needsFile) {
+    String name = NeedsFileCodec.stripExtension(needsFile.getFileName().toString());
+    if (name.endsWith(".json")) {
+      name = name.substring(0, name.length() - ".json".length());
+    }
+    return needsFile.resolveSibling(name + SUFFIX);
+  }
+
+  /**
+   * Write the layout file of a needs file, replacing it atomically.
+   *
+   * @param layout the layout
+   * @param needsFile the needs file the layout belongs to
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(NeedsLayout layout, Path needsFile) throws IOException {
+    AtomicFileWriter.write(pathFor(needsFile), objectMapper.writeValueAsBytes(layout));
+  }
+
+  /**
+   * Read the layout file of a needs file.
+   *
+   * @param needsFile the needs file the layout belongs to
+   * @return the layout, or null if there is no layout file or it has another format
+   * @throws IOException if the layout file exists but cannot be read
+   */
+  public static NeedsLayout read(Path needsFile) throws IOException {
+    Path path = pathFor(needsFile);
+    if (!Files.isRegularFile(path)) {
+      return null;
+    }
+    NeedsLayout layout = objectMapper.readValue(path.toFile(), NeedsLayout.class);
+    return layout != null && layout.format() == NeedsLayout.FORMAT && layout.shapes() != null
+        ? layout
+        : null;
+  }
+}
@@ -0,0 +1,136 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.io.IOException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Appends a version to an existing needs file by streaming it token by token.
+ *
+ * <p>Existing versions are copied through unchanged without binding them to the model, so memory
+ * use does not depend on the number or size of earlier versions. A version with the same name as
+ * the appended one is replaced. The new version is merged in at its place in key order, the order
+ * in which exports write versions, so appending a version gives the same file as exporting all of
+ * them.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class NeedsFileAppender {
+
+  /**
+   * Copy an existing needs file to {@code out}, adding {@code versionData} under {@code version}
+   * and making it the current version.
+   *
+   * @param mapper mapper used to write the new version
+   * @param existing parser positioned before the root object of the existing file
+   * @param out generator for the new file
+   * @param version name of the version to add
+   * @param created new root {@code created} timestamp, or null to keep the existing one
+   * @param versionData the needs of the new version
+   * @throws IOException if the existing file is not a needs file or cannot be copied
+   */
+  static void append(
+      ObjectMapper mapper,
+      JsonParser existing,
+      JsonGenerator out,
+      String version,
+      String created,
+      NeedsFile.VersionData versionData)
+      throws IOException {
+    if (existing.nextToken() != JsonToken.START_OBJECT) {
+      throw new IOException("Existing file is not a needs file: root is not an object");
+    }
+
+    boolean wroteCurrentVersion = false;
+    boolean wroteCreated = created == null;
+    boolean wroteVersions = false;
+
+    out.writeStartObject();
+    while (existing.nextToken() == JsonToken.FIELD_NAME) {
+      String field = existing.currentName();
+      JsonToken value = existing.nextToken();
+      switch (field) {
+        case "current_version" -> {
+          existing.skipChildren();
+          out.writeStringField(field, version);
+          wroteCurrentVersion = true;
+        }
+        case "created" -> {
+          if (created != null) {
+            existing.skipChildren();
+            out.writeStringField(field, created);
+            wroteCreated = true;
+          } else {
+            out.writeFieldName(field);
+            out.copyCurrentStructure(existing);
+          }
+        }
+        case "versions" -> {
+          if (value != JsonToken.START_OBJECT) {
+            throw new IOException(
+                "Existing file is not a needs file: versions is not an object at "
+                    + existing.currentTokenLocation());
+          }
+          out.writeFieldName(field);
+          copyVersions(mapper, existing, out, version, versionData);
+          wroteVersions = true;
+        }
+        default -> {
+          out.writeFieldName(field);
+          out.copyCurrentStructure(existing);
+        }
+      }
+    }
+
+    if (!wroteCreated) {
+      out.writeStringField("created", created);
+    }
+    if (!wroteCurrentVersion) {
+      out.writeStringField("current_version", version);
+    }
+    if (!wroteVersions) {
+      out.writeFieldName("versions");
+      out.writeStartObject();
+      out.writeFieldName(version);
+      mapper.writeValue(out, versionData);
+      out.writeEndObject();
+    }
+    out.writeEndObject();
+  }
+
+  /** Copy the versions object, replacing or adding {@code version} before the first later name. */
+  private static void copyVersions(
+      ObjectMapper mapper,
+      JsonParser existing,
+      JsonGenerator out,
+      String version,
+      NeedsFile.VersionData versionData)
+      throws IOException {
+    boolean wroteVersion = false;
+    out.writeStartObject();
+    while (existing.nextToken() == JsonToken.FIELD_NAME) {
+      String name = existing.currentName();
+      existing.nextToken();
+      if (!wroteVersion && name.compareTo(version) >= 0) {
+        out.writeFieldName(version);
+        mapper.writeValue(out, versionData);
+        wroteVersion = true;
+      }
+      if (name.equals(version)) {
+        existing.skipChildren(); // Re-export of the same version replaces it
+      } else {
+        out.writeFieldName(name);
+        out.copyCurrentStructure(existing);
+      }
+    }
+    if (!wroteVersion) {
+      out.writeFieldName(version);
+      mapper.writeValue(out, versionData);
+    }
+    out.writeEndObject();
+  }
+}
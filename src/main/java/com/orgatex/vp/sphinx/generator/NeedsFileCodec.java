@@ -0,0 +1,164 @@
+package com.orgatex.vp.sphinx.generator;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+import io.airlift.compress.zstd.ZstdOutputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression of needs files.
+ *
+ * <p>Exports choose the codec from the file extension ({@code .gz} or {@code .zst}); imports detect
+ * it from the magic bytes at the start of the file, so a compressed file is read correctly whatever
+ * its name. Both directions stream, so a file is never held in memory in compressed form.
+ */
+public enum NeedsFileCodec {
+  PLAIN(null),
+  GZIP(".gz", 0x1f, 0x8b),
+  ZSTD(".zst", 0x28, 0xb5, 0x2f, 0xfd);
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_MAGIC_LENGTH = 4;
+
+  private final String extension;
+  private final byte[] magic;
+
+  NeedsFileCodec(String extension, int... magic) {
+    this.extension = extension;
+    this.magic = new byte[magic.length];
+    for (int i = 0; i < magic.length; i++) {
+      this.magic[i] = (byte) magic[i];
+    }
+  }
+
+  /** File name extension including the dot, or null for uncompressed files. */
+  public String getExtension() {
+    return extension;
+  }
+
+  /**
+   * Choose the codec for an output file from its extension.
+   *
+   * @param fileName the file name, e.g. {@code needs.json.gz}
+   * @return the matching codec, {@link #PLAIN} if the name has no compression extension
+   */
+  public static NeedsFileCodec forFileName(String fileName) {
+    String name = fileName.toLowerCase(Locale.ROOT);
+    for (NeedsFileCodec codec : values()) {
+      if (codec.extension != null && name.endsWith(codec.extension)) {
+        return codec;
+      }
+    }
+    return PLAIN;
+  }
+
+  /**
+   * Detect the codec from the first bytes of a file.
+   *
+   * @param header the first bytes of the content; may be shorter than the magic numbers
+   * @return the matching codec, {@link #PLAIN} if no magic number matches
+   */
+  public static NeedsFileCodec detect(byte[] header) {
+    for (NeedsFileCodec codec : values()) {
+      if (codec.magic.length > 0
+          && header.length >= codec.magic.length
+          && Arrays.equals(header, 0, codec.magic.length, codec.magic, 0, codec.magic.length)) {
+        return codec;
+      }
+    }
+    return PLAIN;
+  }
+
+  /**
+   * Detect the codec from the start of content in memory. The position of {@code content} is not
+   * changed.
+   *
+   * @param content the content
+   * @return the matching codec, {@link #PLAIN} if no magic number matches
+   */
+  public static NeedsFileCodec detect(ByteBuffer content) {
+    byte[] header = new byte[Math.min(MAX_MAGIC_LENGTH, content.remaining())];
+    content.get(content.position(), header);
+    return detect(header);
+  }
+
+  /** Strip a compression extension, e.g. {@code needs.json.gz} becomes {@code needs.json}. */
+  public static String stripExtension(String fileName) {
+    NeedsFileCodec codec = forFileName(fileName);
+    return codec == PLAIN
+        ? fileName
+        : fileName.substring(0, fileName.length() - codec.extension.length());
+  }
+
+  /**
+   * Wrap a stream so that everything written to it is compressed. Closing the returned stream
+   * finishes the compressed format and closes {@code out}.
+   */
+  public OutputStream compress(OutputStream out) throws IOException {
+    return switch (this) {
+      case PLAIN -> out;
+      case GZIP -> new GZIPOutputStream(out, BUFFER_SIZE);
+      case ZSTD -> new ZstdOutputStream(out);
+    };
+  }
+
+  /** Wrap a stream of content compressed with this codec. */
+  public InputStream decompress(InputStream in) throws IOException {
+    return switch (this) {
+      case PLAIN -> in;
+      case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+      case ZSTD -> new ZstdInputStream(in);
+    };
+  }
+
+  /**
+   * Wrap a stream of possibly compressed content, detecting the codec from its magic bytes.
+   *
+   * @param in the raw content
+   * @return a stream of uncompressed content
+   * @throws IOException if the header cannot be read
+   */
+  public static InputStream decompressDetected(InputStream in) throws IOException {
+    InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in, BUFFER_SIZE);
+    buffered.mark(MAX_MAGIC_LENGTH);
+    byte[] header = buffered.readNBytes(MAX_MAGIC_LENGTH);
+    buffered.reset();
+    return detect(header).decompress(buffered);
+  }
+
+  /**
+   * Open a needs file for reading, decompressing it if it starts with a known magic number.
+   *
+   * @param file the file
+   * @return a stream of uncompressed content; the caller closes it
+   * @throws IOException if the file cannot be opened
+   */
+  public static InputStream open(Path file) throws IOException {
+    InputStream in = Files.newInputStream(file);
+    try {
+      return decompressDetected(in);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Check whether a file name is a needs file, compressed or not.
+   *
+   * @param fileName the file name
+   * @param suffix the uncompressed suffix to look for, e.g. {@code needs.json}
+   */
+  public static boolean hasSuffix(String fileName, String suffix) {
+    return stripExtension(fileName).endsWith(suffix);
+  }
+}
@@ -0,0 +1,175 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Splits the current version of a needs file into shards.
+ *
+ * <p>Every shard is a complete needs file with the project, version and creator of the original
+ * and a subset of its needs. {@link #route} instead distributes needs to outputs that may overlap,
+ * such as one file per diagram. Shard keys are used in file names, so they are reduced to lower
+ * case letters, digits, {@code -} and {@code _}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class NeedsFileSharder {
+
+  /** Key of the shard for needs whose key function returns null or blank. */
+  public static final String DEFAULT_SHARD = "other";
+
+  /**
+   * Group needs by a key such as their type or package.
+   *
+   * @param needsFile the needs file to split
+   * @param key function returning the shard key of a need
+   * @return shards ordered by key
+   */
+  public static SortedMap<String, NeedsFile> byKey(
+      NeedsFile needsFile, Function<NeedsFile.Need, String> key) {
+    NeedsFile.VersionData versionData = currentVersion(needsFile);
+    SortedMap<String, NeedsFile> shards = new TreeMap<>();
+    for (NeedsFile.Need need : versionData.getNeeds().values()) {
+      String shardKey = sanitizeKey(key.apply(need));
+      NeedsFile shard = shards.computeIfAbsent(shardKey, k -> emptyCopy(needsFile));
+      shard.getVersions().get(shard.getCurrentVersion()).addNeed(need);
+    }
+    return shards;
+  }
+
+  /**
+   * Split needs into shards of at most {@code maxNeeds} needs each, in id order.
+   *
+   * @param needsFile the needs file to split
+   * @param maxNeeds maximum number of needs per shard
+   * @return shards keyed {@code part-001}, {@code part-002}, ...
+   */
+  public static SortedMap<String, NeedsFile> bySize(NeedsFile needsFile, int maxNeeds) {
+    if (maxNeeds < 1) {
+      throw new IllegalArgumentException("Shard size must be at least 1");
+    }
+    NeedsFile.VersionData versionData = currentVersion(needsFile);
+    List<NeedsFile.Need> needs = new ArrayList<>(versionData.getNeeds().values()); // id order
+
+    SortedMap<String, NeedsFile> shards = new TreeMap<>();
+    for (int start = 0; start < needs.size(); start += maxNeeds) {
+      NeedsFile shard = emptyCopy(needsFile);
+      NeedsFile.VersionData shardVersion = shard.getVersions().get(shard.getCurrentVersion());
+      for (NeedsFile.Need need : needs.subList(start, Math.min(start + maxNeeds, needs.size()))) {
+        shardVersion.addNeed(need);
+      }
+      shards.put(String.format(Locale.ROOT, "part-%03d", start / maxNeeds + 1), shard);
+    }
+    return shards;
+  }
+
+  /**
+   * Route needs to outputs by the Visual Paradigm model elements each output contains.
+   *
+   * <p>A need goes to every output whose member set contains its {@code vp_model_id}, so a need
+   * shown on several diagrams appears in each of their files. Links are kept only if their target
+   * is part of the same output, so every output is self-contained. The original needs are not
+   * modified.
+   *
+   * @param needsFile the needs file to route
+   * @param members model element ids of each output, by output key
+   * @return one needs file per output key, in the iteration order of {@code members}
+   */
+  public static Map<String, NeedsFile> route(
+      NeedsFile needsFile, Map<String, Set<String>> members) {
+    NeedsFile.VersionData versionData = currentVersion(needsFile);
+    Map<String, NeedsFile> outputs = new LinkedHashMap<>();
+    for (Map.Entry<String, Set<String>> output : members.entrySet()) {
+      Set<String> needIds = new HashSet<>();
+      for (NeedsFile.Need need : versionData.getNeeds().values()) {
+        if (need.getVpModelId() != null && output.getValue().contains(need.getVpModelId())) {
+          needIds.add(need.getId());
+        }
+      }
+
+      NeedsFile routed = emptyCopy(needsFile);
+      NeedsFile.VersionData routedVersion = routed.getVersions().get(routed.getCurrentVersion());
+      for (String needId : needIds) {
+        routedVersion.addNeed(copyWithLinksTo(versionData.getNeeds().get(needId), needIds));
+      }
+      outputs.put(output.getKey(), routed);
+    }
+    return outputs;
+  }
+
+  /** Reduce a key to characters that are safe in file names on every platform. */
+  static String sanitizeKey(String key) {
+    if (key == null || key.isBlank()) {
+      return DEFAULT_SHARD;
+    }
+    String sanitized =
+        key.trim()
+            .toLowerCase(Locale.ROOT)
+            .replaceAll("[^a-z0-9_-]", "_")
+            .replaceAll("_{2,}", "_")
+            .replaceAll("^_+|_+$", "");
+    return sanitized.isEmpty() ? DEFAULT_SHARD : sanitized;
+  }
+
+  private static NeedsFile.VersionData currentVersion(NeedsFile needsFile) {
+    NeedsFile.VersionData versionData = needsFile.getVersions().get(needsFile.getCurrentVersion());
+    if (versionData == null) {
+      throw new IllegalArgumentException(
+          "NeedsFile has no data for version " + needsFile.getCurrentVersion());
+    }
+    return versionData;
+  }
+
+  /** Copy a need, keeping only links whose target is in {@code needIds}. */
+  private static NeedsFile.Need copyWithLinksTo(NeedsFile.Need need, Set<String> needIds) {
+    NeedsFile.Need copy = new NeedsFile.Need(need.getId(), need.getTitle(), need.getType());
+    copy.setContent(need.getContent());
+    copy.setStatus(need.getStatus());
+    copy.setTags(new ArrayList<>(need.getTags()));
+    copy.setPriority(need.getPriority());
+    copy.setElementType(need.getElementType());
+    copy.setVpModelId(need.getVpModelId());
+    copy.setLinks(linksTo(need.getLinks(), needIds));
+    copy.setExtendsLinks(linksTo(need.getExtendsLinks(), needIds));
+    copy.setIncludesLinks(linksTo(need.getIncludesLinks(), needIds));
+    copy.setAssociatesLinks(linksTo(need.getAssociatesLinks(), needIds));
+    copy.setDeriveLinks(linksTo(need.getDeriveLinks(), needIds));
+    copy.setContainsLinks(linksTo(need.getContainsLinks(), needIds));
+    copy.setRefinesLinks(linksTo(need.getRefinesLinks(), needIds));
+    return copy;
+  }
+
+  private static List<String> linksTo(List<String> links, Set<String> needIds) {
+    List<String> kept = new ArrayList<>(links.size());
+    for (String link : links) {
+      if (needIds.contains(link)) {
+        kept.add(link);
+      }
+    }
+    return kept;
+  }
+
+  /** A needs file with the metadata of {@code source} and an empty current version. */
+  private static NeedsFile emptyCopy(NeedsFile source) {
+    NeedsFile.VersionData sourceVersion = currentVersion(source);
+    NeedsFile copy = new NeedsFile();
+    copy.setCreated(source.getCreated());
+    copy.setProject(source.getProject());
+    copy.setCurrentVersion(source.getCurrentVersion());
+    NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+    versionData.setCreated(sourceVersion.getCreated());
+    versionData.setCreator(sourceVersion.getCreator());
+    copy.addVersion(source.getCurrentVersion(), versionData);
+    return copy;
+  }
+}
@@ -0,0 +1,156 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Validator specialised for the bundled {@code sphinx-needs-5.1.0-schema.json}.
+ *
+ * <p>Checks the typed {@link NeedsFile} object graph directly instead of serializing it to a JSON
+ * tree first. The rules mirror what the generic schema validator reports for the JSON that {@link
+ * JsonExporter} writes: fields that are always serialized fail the {@code type} check when null,
+ * fields annotated {@code NON_EMPTY} are only checked when present. Keep this class in sync with
+ * the schema file; {@code NeedsFileValidatorTest} compares both validators.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class NeedsFileValidator {
+
+  /** Name of the schema this validator implements. */
+  public static final String SCHEMA_VERSION = "sphinx-needs-5.1.0";
+
+  static final String NAME = "fast";
+
+  private static final Set<String> NEED_TYPES = Set.of("req", "spec", "impl", "test", "uc", "act");
+
+  private static final Pattern SIMPLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+  /**
+   * Validate a needs file against the sphinx-needs 5.1.0 schema.
+   *
+   * @param needsFile the needs file to validate
+   * @return the validation result, listing every violation found
+   */
+  public static ValidationResult validate(NeedsFile needsFile) {
+    List<ValidationResult.Violation> violations = new ArrayList<>();
+
+    checkString(violations, "$.created", needsFile.getCreated(), null);
+    checkString(violations, "$.current_version", needsFile.getCurrentVersion(), null);
+    checkString(violations, "$.project", needsFile.getProject(), null);
+
+    Map<String, NeedsFile.VersionData> versions = needsFile.getVersions();
+    if (versions == null) {
+      violations.add(typeViolation("$.versions", "object", null));
+    } else {
+      for (Map.Entry<String, NeedsFile.VersionData> entry : versions.entrySet()) {
+        validateVersion(violations, child("$.versions", entry.getKey()), entry.getValue());
+      }
+    }
+
+    return new ValidationResult(NAME, violations);
+  }
+
+  private static void validateVersion(
+      List<ValidationResult.Violation> violations, String path, NeedsFile.VersionData version) {
+    if (version == null) {
+      violations.add(typeViolation(path, "object", null));
+      return;
+    }
+
+    checkString(violations, path + ".created", version.getCreated(), null);
+    if (version.getCreator() == null) {
+      violations.add(typeViolation(path + ".creator", "object", null));
+    }
+
+    // "needs" has no type constraint of its own, so a null map is accepted
+    if (version.getNeeds() != null) {
+      String needsPath = path + ".needs";
+      for (Map.Entry<String, NeedsFile.Need> entry : version.getNeeds().entrySet()) {
+        String needPath = child(needsPath, entry.getKey());
+        validateNeed(violations, needPath, entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private static void validateNeed(
+      List<ValidationResult.Violation> violations, String path, String key, NeedsFile.Need need) {
+    if (need == null) {
+      violations.add(typeViolation(path, "object", key));
+      return;
+    }
+
+    String needId = need.getId() != null ? need.getId() : key;
+
+    // Always serialized, so null values are written as JSON null
+    checkString(violations, path + ".id", need.getId(), needId);
+    checkString(violations, path + ".title", need.getTitle(), needId);
+    checkString(violations, path + ".content", need.getContent(), needId);
+    checkString(violations, path + ".type", need.getType(), needId);
+    checkString(violations, path + ".element_type", need.getElementType(), needId);
+    checkString(violations, path + ".vp_model_id", need.getVpModelId(), needId);
+
+    if (need.getType() == null || !NEED_TYPES.contains(need.getType())) {
+      violations.add(
+          new ValidationResult.Violation(
+              path + ".type",
+              "enum",
+              path + ".type: does not have a value in the enumeration " + NEED_TYPES,
+              needId));
+    }
+
+    // NON_EMPTY fields are omitted when null or empty, so only their contents can be invalid
+    checkStringArray(violations, path + ".tags", need.getTags(), needId);
+    checkStringArray(violations, path + ".links", need.getLinks(), needId);
+    checkStringArray(violations, path + ".extends", need.getExtendsLinks(), needId);
+    checkStringArray(violations, path + ".includes", need.getIncludesLinks(), needId);
+    checkStringArray(violations, path + ".associates", need.getAssociatesLinks(), needId);
+  }
+
+  private static void checkString(
+      List<ValidationResult.Violation> violations, String path, String value, String needId) {
+    if (value == null) {
+      violations.add(typeViolation(path, "string", needId));
+    }
+  }
+
+  private static void checkStringArray(
+      List<ValidationResult.Violation> violations,
+      String path,
+      List<String> values,
+      String needId) {
+    if (values == null) {
+      return;
+    }
+    for (int i = 0; i < values.size(); i++) {
+      if (values.get(i) == null) {
+        violations.add(typeViolation(path + "[" + i + "]", "string", needId));
+      }
+    }
+  }
+
+  private static ValidationResult.Violation typeViolation(
+      String path, String expected, String needId) {
+    return new ValidationResult.Violation(
+        path, "type", path + ": null found, " + expected + " expected", needId);
+  }
+
+  /**
+   * Append a property to a JSONPath, quoting names that are not plain identifiers.
+   *
+   * @param parent path of the containing object
+   * @param name property name
+   * @return path of the property
+   */
+  public static String child(String parent, String name) {
+    if (name != null && SIMPLE_NAME.matcher(name).matches()) {
+      return parent + "." + name;
+    }
+    String escaped = String.valueOf(name).replace("\\", "\\\\").replace("'", "\\'");
+    return parent + "['" + escaped + "']";
+  }
+}
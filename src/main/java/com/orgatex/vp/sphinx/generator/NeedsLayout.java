@@ -0,0 +1,38 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+
+/**
+ * Layout file written next to a needs file by an export, holding the bounds of the shape of each
+ * exported need so that an import can put it back where it was.
+ *
+ * @param format {@link #FORMAT} of the file
+ * @param diagram name of the diagram the bounds were captured from, the first one if several
+ * @param shapes shape bounds by need ID
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record NeedsLayout(
+    @JsonProperty("format") int format,
+    @JsonProperty("diagram") String diagram,
+    @JsonProperty("shapes") Map<String, Bounds> shapes) {
+
+  /** Version of the layout file; files of other versions are ignored. */
+  public static final int FORMAT = 1;
+
+  /**
+   * Bounds of a shape in diagram coordinates.
+   *
+   * @param x left edge
+   * @param y top edge
+   * @param width width
+   * @param height height
+   */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record Bounds(
+      @JsonProperty("x") int x,
+      @JsonProperty("y") int y,
+      @JsonProperty("width") int width,
+      @JsonProperty("height") int height) {}
+}
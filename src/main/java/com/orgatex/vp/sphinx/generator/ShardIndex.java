@@ -0,0 +1,34 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Index file written by a sharded export, listing the shard files in key order.
+ *
+ * @param created timestamp of the export
+ * @param project the project name
+ * @param currentVersion the version contained in every shard
+ * @param shards the shard files
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ShardIndex(
+    @JsonProperty("created") String created,
+    @JsonProperty("project") String project,
+    @JsonProperty("current_version") String currentVersion,
+    @JsonProperty("shards") List<Shard> shards) {
+
+  /**
+   * One shard file.
+   *
+   * @param key the shard key, e.g. a need type or package name
+   * @param file file name relative to the index file
+   * @param needs number of needs in the shard
+   */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record Shard(
+      @JsonProperty("key") String key,
+      @JsonProperty("file") String file,
+      @JsonProperty("needs") int needs) {}
+}
@@ -0,0 +1,143 @@
+package com.orgatex.vp.sphinx.generator;
+
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of validation results keyed by the {@link HashedContent hash} of the serialized needs file.
+ *
+ * <p>Results are held in a small in-memory LRU map. Keys of files that passed validation are also
+ * appended to a plain text file, so an unchanged export is not validated again after Visual
+ * Paradigm restarts or when the same file is checked by another process. Failed results are kept
+ * in memory only; they are cheap to recompute and their messages are needed for reporting.
+ */
+final class ValidationCache {
+
+  private static final PluginLogger log = PluginLogger.getLogger(ValidationCache.class);
+
+  /** System property overriding the directory of the on-disk cache. */
+  static final String CACHE_DIR_PROPERTY = "vp.sphinx.cache.dir";
+
+  static final int DEFAULT_CAPACITY = 1024;
+
+  private static final String CACHE_FILE_NAME = "validation-cache.txt";
+
+  private static final ValidationResult CACHED_VALID =
+      new ValidationResult("cache", List.of());
+
+  private final Path file;
+  private final int capacity;
+  private final LinkedHashMap<String, ValidationResult> entries;
+
+  ValidationCache(Path file, int capacity) {
+    this.file = file;
+    this.capacity = capacity;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, ValidationResult> eldest) {
+            return size() > ValidationCache.this.capacity;
+          }
+        };
+    load();
+  }
+
+  /** Create the cache backed by the per-user cache directory. */
+  static ValidationCache createDefault() {
+    return new ValidationCache(defaultDirectory().resolve(CACHE_FILE_NAME), DEFAULT_CAPACITY);
+  }
+
+  /** Directory holding the plugin's on-disk caches, {@code ~/.vp-sphinx-needs} by default. */
+  static Path defaultDirectory() {
+    String override = System.getProperty(CACHE_DIR_PROPERTY);
+    if (override != null && !override.isBlank()) {
+      return Paths.get(override);
+    }
+    return Paths.get(System.getProperty("user.home"), ".vp-sphinx-needs");
+  }
+
+  /**
+   * Compute the cache key for serialized content.
+   *
+   * <p>The hash of the content leaves out the values of the {@code created} timestamps, which
+   * every export sets anew, so exporting an unchanged model hits the cache.
+   *
+   * @param content serialized needs file
+   * @param schemaId identifies the schema and validator the result was produced with
+   * @return the cache key
+   */
+  static String key(HashedContent content, String schemaId) {
+    return content.hash() + "-" + schemaId;
+  }
+
+  /**
+   * Look up a cached result.
+   *
+   * @param key key from {@link #key(HashedContent, String)}
+   * @return the cached result, or null if the content has not been validated before
+   */
+  synchronized ValidationResult get(String key) {
+    return entries.get(key);
+  }
+
+  /**
+   * Store a validation result. Passing results are also persisted to disk.
+   *
+   * @param key key from {@link #key(HashedContent, String)}
+   * @param result result of validating the content
+   */
+  synchronized void put(String key, ValidationResult result) {
+    ValidationResult previous = entries.put(key, result);
+    if (result.isValid() && (previous == null || !previous.isValid())) {
+      append(key);
+    }
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private void load() {
+    if (!Files.isRegularFile(file)) {
+      return;
+    }
+    try {
+      List<String> keys = Files.readAllLines(file, StandardCharsets.UTF_8);
+      for (String key : keys) {
+        if (!key.isBlank()) {
+          entries.put(key, CACHED_VALID);
+        }
+      }
+      if (keys.size() > capacity) {
+        // Compact the file so it does not grow without bound
+        String compacted = String.join(System.lineSeparator(), entries.keySet());
+        AtomicFileWriter.write(
+            file, (compacted + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+      }
+    } catch (IOException e) {
+      log.debug(() -> "Could not read validation cache " + file + ": " + e.getMessage());
+    }
+  }
+
+  private void append(String key) {
+    try {
+      Files.createDirectories(file.getParent());
+      Files.writeString(
+          file,
+          key + System.lineSeparator(),
+          StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      log.debug(() -> "Could not update validation cache " + file + ": " + e.getMessage());
+    }
+  }
+}
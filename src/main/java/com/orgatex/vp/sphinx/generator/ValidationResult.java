@@ -0,0 +1,52 @@
+package com.orgatex.vp.sphinx.generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Outcome of validating a needs file against the sphinx-needs schema. */
+public final class ValidationResult {
+
+  /**
+   * A single schema violation.
+   *
+   * @param path JSONPath of the offending value, e.g. {@code $.versions['1.0'].needs.UC_1.type}
+   * @param keyword schema keyword that failed, e.g. {@code type} or {@code enum}
+   * @param message human readable description
+   * @param needId id of the need the violation belongs to, or null for file-level violations
+   */
+  public record Violation(String path, String keyword, String message, String needId) {
+    @Override
+    public String toString() {
+      return message + " at " + path;
+    }
+  }
+
+  private static final ValidationResult VALID = new ValidationResult("none", List.of());
+
+  private final String validator;
+  private final List<Violation> violations;
+
+  public ValidationResult(String validator, List<Violation> violations) {
+    this.validator = validator;
+    this.violations = Collections.unmodifiableList(new ArrayList<>(violations));
+  }
+
+  /** Result for a file that was not validated at all, e.g. because the schema is unavailable. */
+  public static ValidationResult skipped() {
+    return VALID;
+  }
+
+  /** Name of the validator that produced this result. */
+  public String getValidator() {
+    return validator;
+  }
+
+  public boolean isValid() {
+    return violations.isEmpty();
+  }
+
+  public List<Violation> getViolations() {
+    return violations;
+  }
+}
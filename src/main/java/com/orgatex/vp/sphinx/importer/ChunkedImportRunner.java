@@ -0,0 +1,281 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the model and diagram mutations of an import in bounded chunks on the thread Visual
+ * Paradigm requires, usually the event dispatch thread.
+ *
+ * <p>The import itself runs on a background thread and hands the mutations to this runner as
+ * steps, one per need. Each chunk runs at most {@code chunkSize} steps and stops early once its
+ * time budget is used, so the UI stays responsive between chunks. Between chunks the runner checks
+ * for {@link #cancel() cancellation} and reports progress with an estimated time to completion.
+ *
+ * <p>Steps register undo actions with {@link #onRollback}. If the import is cancelled or a step
+ * fails, the registered actions run in reverse order on the UI thread before the cancellation or
+ * failure is rethrown, so no half-imported diagram is left behind.
+ */
+public class ChunkedImportRunner {
+
+  private static final PluginLogger log = PluginLogger.getLogger(ChunkedImportRunner.class);
+
+  /** Default maximum number of steps per chunk. */
+  public static final int DEFAULT_CHUNK_SIZE = 25;
+
+  /** Default time budget of a chunk in milliseconds, a few frames at most. */
+  public static final long DEFAULT_CHUNK_MILLIS = 50;
+
+  /** A single model or diagram mutation, run on the UI thread. */
+  @FunctionalInterface
+  public interface Step {
+    void run() throws Exception;
+  }
+
+  /**
+   * Progress of an import.
+   *
+   * @param phase description of the current phase
+   * @param phaseCompleted steps of the current phase completed so far, usually needs
+   * @param phaseTotal steps of the current phase
+   * @param completed steps of all phases completed so far
+   * @param total steps expected in all phases
+   * @param etaMillis estimated milliseconds until completion, or -1 if not known yet
+   */
+  public record Progress(
+      String phase, int phaseCompleted, int phaseTotal, int completed, int total, long etaMillis) {
+
+    /** Completion in percent, 0 to 100. */
+    public int percent() {
+      return total > 0 ? (int) Math.min(100, completed * 100L / total) : 0;
+    }
+  }
+
+  private final Executor uiExecutor;
+  private final int chunkSize;
+  private final long chunkNanos;
+  private final List<Step> rollbackActions = new ArrayList<>();
+
+  private volatile boolean cancelled;
+  private int completed;
+  private int total;
+  private long startNanos;
+
+  /** Create a runner with the default chunk size and time budget. */
+  public ChunkedImportRunner(Executor uiExecutor) {
+    this(uiExecutor, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_MILLIS);
+  }
+
+  /**
+   * Create a runner.
+   *
+   * @param uiExecutor executor running tasks on the thread model mutations must happen on
+   * @param chunkSize maximum number of steps per chunk
+   * @param chunkMillis time budget per chunk; a chunk always runs at least one step
+   */
+  public ChunkedImportRunner(Executor uiExecutor, int chunkSize, long chunkMillis) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be at least 1");
+    }
+    this.uiExecutor = uiExecutor;
+    this.chunkSize = chunkSize;
+    this.chunkNanos = TimeUnit.MILLISECONDS.toNanos(chunkMillis);
+  }
+
+  /**
+   * Set the number of steps expected across all phases, used for progress and ETA.
+   *
+   * @param total expected number of steps
+   */
+  public void expectSteps(int total) {
+    this.total = total;
+    this.completed = 0;
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Register an action that undoes a mutation if the import is cancelled or fails.
+   *
+   * <p>Actions run in reverse order of registration, on the UI thread.
+   */
+  public void onRollback(Step action) {
+    synchronized (rollbackActions) {
+      rollbackActions.add(action);
+    }
+  }
+
+  /** Request cancellation; the import stops and rolls back after the current chunk. */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Run the steps of one phase in chunks on the UI thread.
+   *
+   * <p>Must be called from a background thread unless the UI executor runs tasks directly.
+   *
+   * @param phase description of the phase for progress reports
+   * @param steps the steps to run, in order
+   * @param listener receives progress after every chunk, on the calling thread
+   * @throws CancellationException if the import was cancelled; changes are rolled back
+   * @throws Exception the failure of a step; changes are rolled back
+   */
+  public void runPhase(String phase, List<Step> steps, Consumer<Progress> listener)
+      throws Exception {
+    if (startNanos == 0) {
+      expectSteps(steps.size());
+    }
+    int next = 0;
+    while (next < steps.size()) {
+      checkCancelled();
+      int from = next;
+      int done;
+      try {
+        done = CompletableFuture.supplyAsync(() -> runChunk(steps, from), uiExecutor).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        cancelled = true;
+        rollback();
+        throw new CancellationException("Import interrupted");
+      } catch (ExecutionException e) {
+        rollback();
+        Throwable cause = e.getCause() instanceof StepFailure failure ? failure.getCause() : e;
+        if (cause instanceof Exception exception) {
+          throw exception;
+        }
+        throw e;
+      }
+      next += done;
+      completed += done;
+      listener.accept(
+          new Progress(
+              phase, next, steps.size(), completed, Math.max(total, completed), eta()));
+    }
+    checkCancelled();
+  }
+
+  /**
+   * Run a task on the UI thread and wait for its result, for reads of the model that must not
+   * race with Visual Paradigm. Nothing is rolled back and no progress is reported.
+   *
+   * <p>Must be called from a background thread unless the UI executor runs tasks directly.
+   *
+   * @param task the task, for example taking a snapshot of the project's models
+   * @return the result of the task
+   * @throws CancellationException if the calling thread was interrupted
+   * @throws Exception the failure of the task
+   */
+  public <T> T callOnUiThread(Callable<T> task) throws Exception {
+    try {
+      return CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return task.call();
+                } catch (Exception e) {
+                  throw new StepFailure(e);
+                }
+              },
+              uiExecutor)
+          .get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Import interrupted");
+    } catch (ExecutionException e) {
+      Throwable cause =
+          e.getCause() instanceof StepFailure failure ? failure.getCause() : e.getCause();
+      if (cause instanceof Exception exception) {
+        throw exception;
+      }
+      throw e;
+    }
+  }
+
+  /** Run steps from {@code from} until the chunk size or time budget is reached. */
+  private int runChunk(List<Step> steps, int from) {
+    long deadline = System.nanoTime() + chunkNanos;
+    int end = Math.min(steps.size(), from + chunkSize);
+    int index = from;
+    while (index < end) {
+      try {
+        steps.get(index).run();
+      } catch (Exception e) {
+        throw new StepFailure(e);
+      }
+      index++;
+      if (System.nanoTime() - deadline >= 0) {
+        break;
+      }
+    }
+    return index - from;
+  }
+
+  private void checkCancelled() {
+    if (cancelled) {
+      rollback();
+      throw new CancellationException("Import cancelled");
+    }
+  }
+
+  /** Estimated remaining time from the average time per completed step. */
+  private long eta() {
+    if (completed == 0 || total <= completed) {
+      return completed == 0 ? -1 : 0;
+    }
+    long elapsed = System.nanoTime() - startNanos;
+    return TimeUnit.NANOSECONDS.toMillis(elapsed / completed * (total - completed));
+  }
+
+  /**
+   * Undo all registered mutations in reverse order on the UI thread.
+   *
+   * <p>Failures of individual actions are logged and do not stop the remaining ones.
+   */
+  public void rollback() {
+    List<Step> actions;
+    synchronized (rollbackActions) {
+      actions = new ArrayList<>(rollbackActions);
+      rollbackActions.clear();
+    }
+    if (actions.isEmpty()) {
+      return;
+    }
+    Runnable undo =
+        () -> {
+          for (int i = actions.size() - 1; i >= 0; i--) {
+            try {
+              actions.get(i).run();
+            } catch (Exception e) {
+              log.warn("Rollback action failed: " + e.getMessage());
+            }
+          }
+        };
+    try {
+      CompletableFuture.runAsync(undo, uiExecutor).get();
+      log.info(() -> "Rolled back " + actions.size() + " import change(s)");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("Rollback interrupted");
+    } catch (ExecutionException e) {
+      log.warn("Rollback failed: " + e.getCause().getMessage());
+    }
+  }
+
+  /** Carries a checked step failure out of the UI executor. */
+  private static final class StepFailure extends RuntimeException {
+    StepFailure(Exception cause) {
+      super(cause);
+    }
+  }
+}
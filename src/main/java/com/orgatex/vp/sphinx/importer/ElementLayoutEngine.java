@@ -1,11 +1,21 @@
 package com.orgatex.vp.sphinx.importer;
 
+import com.orgatex.vp.sphinx.generator.NeedsLayout;
 import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.awt.Dimension;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 /** Layout engine for positioning elements in a use case diagram. */
 public class ElementLayoutEngine {
@@ -54,6 +64,196 @@ public class ElementLayoutEngine {
     return positions;
   }
 
+  /**
+   * Calculate bounds for all needs, restoring the bounds of needs a saved layout knows.
+   *
+   * <p>If any bounds are restored, only the needs the saved layout does not know are placed, by
+   * {@link #placeIncrementally}, so the time taken grows with the number of new needs and the
+   * saved arrangement is kept. Otherwise all needs are laid out by {@link #calculateLayout(Map)}.
+   *
+   * @param needs Map of needs to position
+   * @param saved Layout saved by an earlier export, or null to place all needs
+   * @return Map of need IDs to bounds
+   */
+  public Map<String, Rectangle> calculateBounds(
+      Map<String, NeedsFile.Need> needs, NeedsLayout saved) {
+    Map<String, Rectangle> bounds = new HashMap<>();
+    if (saved != null) {
+      for (String needId : needs.keySet()) {
+        NeedsLayout.Bounds savedBounds = saved.shapes().get(needId);
+        if (savedBounds != null) {
+          bounds.put(
+              needId,
+              new Rectangle(
+                  savedBounds.x(), savedBounds.y(), savedBounds.width(), savedBounds.height()));
+        }
+      }
+    }
+
+    if (!bounds.isEmpty()) {
+      placeIncrementally(needs, bounds);
+      return bounds;
+    }
+    for (Map.Entry<String, Point> entry : calculateLayout(needs).entrySet()) {
+      Dimension size = defaultSize(needs.get(entry.getKey()));
+      Point position = entry.getValue();
+      bounds.put(entry.getKey(), new Rectangle(position.x, position.y, size.width, size.height));
+    }
+    return bounds;
+  }
+
+  /**
+   * Place the needs that have no bounds yet among shapes that are already there.
+   *
+   * <p>Each new shape goes to the free spot closest to the centre of the shapes of the needs it
+   * links to or is linked from; needs linked to nothing placed go below all shapes. Free spots are
+   * found in rings of shape-sized steps around that point and tested against a {@link ShapeIndex}
+   * of all shapes, so no shape overlaps another and each placement only looks at nearby shapes.
+   * Spots above or left of the diagram margin are passed over, so shapes at the edge of the
+   * diagram get their new neighbours below or to the right.
+   * Needs linked to placed ones are placed first, so chains of new needs grow from the existing
+   * shapes outwards.
+   *
+   * @param needs Map of needs to position
+   * @param bounds Bounds of the shapes already there by need ID; receives the new bounds
+   */
+  public void placeIncrementally(Map<String, NeedsFile.Need> needs, Map<String, Rectangle> bounds) {
+    ShapeIndex index = new ShapeIndex(ELEMENT_WIDTH + HORIZONTAL_SPACING);
+    bounds.values().forEach(index::add);
+    Map<String, Set<String>> neighbours = neighbours(needs);
+
+    // Breadth-first from the placed shapes, then from each remaining need in order
+    Deque<String> queue = new ArrayDeque<>();
+    Set<String> queued = new HashSet<>(bounds.keySet());
+    for (String needId : needs.keySet()) {
+      if (!queued.contains(needId)
+          && neighbours.get(needId).stream().anyMatch(bounds::containsKey)) {
+        queue.add(needId);
+      }
+    }
+    queued.addAll(queue);
+    Iterator<String> remaining = needs.keySet().iterator();
+    while (!queue.isEmpty() || remaining.hasNext()) {
+      if (queue.isEmpty()) {
+        String needId = remaining.next();
+        if (queued.add(needId)) {
+          queue.add(needId);
+        }
+        continue;
+      }
+      String needId = queue.poll();
+      Dimension size = defaultSize(needs.get(needId));
+      Rectangle placed = placeNear(anchorFor(needId, size, neighbours, bounds, index), size, index);
+      bounds.put(needId, placed);
+      index.add(placed);
+      for (String neighbour : neighbours.get(needId)) {
+        if (queued.add(neighbour)) {
+          queue.add(neighbour);
+        }
+      }
+    }
+  }
+
+  /** Centre of the placed shapes a need is linked with, or a point below all shapes. */
+  private Point anchorFor(
+      String needId,
+      Dimension size,
+      Map<String, Set<String>> neighbours,
+      Map<String, Rectangle> bounds,
+      ShapeIndex index) {
+    long sumX = 0;
+    long sumY = 0;
+    int count = 0;
+    for (String neighbour : neighbours.get(needId)) {
+      Rectangle shape = bounds.get(neighbour);
+      if (shape != null) {
+        sumX += shape.x + shape.width / 2;
+        sumY += shape.y + shape.height / 2;
+        count++;
+      }
+    }
+    if (count > 0) {
+      return new Point((int) (sumX / count), (int) (sumY / count));
+    }
+    Rectangle extent = index.getExtent();
+    if (extent == null) {
+      return new Point(MARGIN + size.width / 2, MARGIN + size.height / 2);
+    }
+    return new Point(
+        extent.x + size.width / 2, extent.y + extent.height + VERTICAL_SPACING + size.height / 2);
+  }
+
+  /** The free bounds of the given size closest to an anchor point, inside the margin. */
+  private Rectangle placeNear(Point anchor, Dimension size, ShapeIndex index) {
+    int stepX = size.width + HORIZONTAL_SPACING;
+    int stepY = size.height + VERTICAL_SPACING;
+    for (int ring = 0; ; ring++) {
+      Rectangle best = null;
+      long bestDistance = Long.MAX_VALUE;
+      for (int dy = -ring; dy <= ring; dy++) {
+        for (int dx = -ring; dx <= ring; dx++) {
+          if (Math.max(Math.abs(dx), Math.abs(dy)) != ring) {
+            continue;
+          }
+          Rectangle candidate =
+              new Rectangle(
+                  anchor.x - size.width / 2 + dx * stepX,
+                  anchor.y - size.height / 2 + dy * stepY,
+                  size.width,
+                  size.height);
+          // Keep half the spacing clear on each side, so neighbours keep the full spacing
+          Rectangle clearance = new Rectangle(candidate);
+          clearance.grow(HORIZONTAL_SPACING / 2, VERTICAL_SPACING / 2);
+          long distance = (long) dx * dx * stepX * stepX + (long) dy * dy * stepY * stepY;
+          if (distance < bestDistance
+              && candidate.x >= MARGIN
+              && candidate.y >= MARGIN
+              && !index.intersects(clearance)) {
+            best = candidate;
+            bestDistance = distance;
+          }
+        }
+      }
+      if (best != null) {
+        return best;
+      }
+    }
+  }
+
+  /** IDs of the needs each need links to or is linked from, among the given needs. */
+  private static Map<String, Set<String>> neighbours(Map<String, NeedsFile.Need> needs) {
+    Map<String, Set<String>> neighbours = new HashMap<>();
+    for (String needId : needs.keySet()) {
+      neighbours.put(needId, new LinkedHashSet<>());
+    }
+    for (Map.Entry<String, NeedsFile.Need> entry : needs.entrySet()) {
+      for (Function<NeedsFile.Need, List<String>> linkField : NeedsFilter.LINK_FIELDS) {
+        List<String> links = linkField.apply(entry.getValue());
+        if (links == null) {
+          continue;
+        }
+        for (String link : links) {
+          String target = link != null ? link.trim() : null;
+          if (target != null && needs.containsKey(target) && !target.equals(entry.getKey())) {
+            neighbours.get(entry.getKey()).add(target);
+            neighbours.get(target).add(entry.getKey());
+          }
+        }
+      }
+    }
+    return neighbours;
+  }
+
+  /**
+   * Size of a newly created shape for a need.
+   *
+   * @param need the need
+   * @return the shape size
+   */
+  public static Dimension defaultSize(NeedsFile.Need need) {
+    return isActorNeed(need) ? new Dimension(60, 80) : new Dimension(120, 60);
+  }
+
   /** Position use cases in a grid layout. */
   private void positionUseCasesInGrid(
       Map<String, Point> positions, List<String> useCaseIds, GridDimensions grid) {
@@ -164,12 +364,12 @@ public class ElementLayoutEngine {
 
   /** Check if a need represents a use case. */
   private boolean isUseCaseNeed(NeedsFile.Need need) {
-    return "uc".equals(need.getType()) || "UseCase".equals(need.getElementType());
+    return ImportPlan.ElementKind.of(need) == ImportPlan.ElementKind.USE_CASE;
   }
 
   /** Check if a need represents an actor. */
-  private boolean isActorNeed(NeedsFile.Need need) {
-    return "actor".equals(need.getType()) || "Actor".equals(need.getElementType());
+  private static boolean isActorNeed(NeedsFile.Need need) {
+    return ImportPlan.ElementKind.of(need) == ImportPlan.ElementKind.ACTOR;
   }
 
   /** Simple class to hold grid dimensions. */
@@ -0,0 +1,173 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.util.List;
+
+/**
+ * What an import will do, computed before the project is changed.
+ *
+ * <p>Every importable need is either created as a new model or reuses an existing one, which the
+ * plan holds so that applying it needs no further lookups. Relationships are listed with both ends
+ * resolved; links whose target is not imported are listed separately.
+ *
+ * @param <M> type of the existing models, {@code IModelElement} in Visual Paradigm
+ */
+public final class ImportPlan<M> {
+
+  /** Whether a need gets a new model or reuses an existing one. */
+  public enum Action {
+    CREATE,
+    REUSE
+  }
+
+  /** Kind of model element a need is imported as, with the need type and element type. */
+  public enum ElementKind {
+    USE_CASE("uc", "UseCase"),
+    ACTOR("act", "Actor"),
+    REQUIREMENT("req", "Requirement");
+
+    private final String needType;
+    private final String elementType;
+
+    ElementKind(String needType, String elementType) {
+      this.needType = needType;
+      this.elementType = elementType;
+    }
+
+    /** The sphinx-needs type of needs of this kind. */
+    public String getNeedType() {
+      return needType;
+    }
+
+    /** The kind of a need, or null if it is not imported. */
+    public static ElementKind of(NeedsFile.Need need) {
+      for (ElementKind kind : values()) {
+        if (kind.needType.equals(need.getType())
+            || kind.elementType.equals(need.getElementType())) {
+          return kind;
+        }
+      }
+      return null;
+    }
+  }
+
+  /** Relationship kinds created by the use case import, with their needs field. */
+  public enum RelationshipKind {
+    INCLUDE("includes"),
+    EXTEND("extends"),
+    ASSOCIATION("associates");
+
+    private final String field;
+
+    RelationshipKind(String field) {
+      this.field = field;
+    }
+
+    /** Name of the needs field holding links of this kind. */
+    public String getField() {
+      return field;
+    }
+  }
+
+  /**
+   * Planned import of one need.
+   *
+   * @param need the need
+   * @param kind the kind of model element it becomes
+   * @param action whether a model is created or reused
+   * @param existingModel the reused model, null when a model is created
+   */
+  public record NeedPlan<M>(
+      NeedsFile.Need need, ElementKind kind, Action action, M existingModel) {}
+
+  /** A relationship between two imported needs. */
+  public record Relationship(String sourceId, String targetId, RelationshipKind kind) {}
+
+  /**
+   * A link that cannot be created because its target is not imported.
+   *
+   * @param reason why the target is missing, e.g. not in the file or not an importable type
+   */
+  public record UnresolvedLink(
+      String sourceId, String targetId, RelationshipKind kind, String reason) {
+
+    @Override
+    public String toString() {
+      return sourceId + " " + kind.getField() + " " + targetId + " (" + reason + ")";
+    }
+  }
+
+  private final List<NeedPlan<M>> needs;
+  private final List<Relationship> relationships;
+  private final List<UnresolvedLink> unresolvedLinks;
+  private final List<NeedsFile.Need> skippedNeeds;
+
+  ImportPlan(
+      List<NeedPlan<M>> needs,
+      List<Relationship> relationships,
+      List<UnresolvedLink> unresolvedLinks,
+      List<NeedsFile.Need> skippedNeeds) {
+    this.needs = List.copyOf(needs);
+    this.relationships = List.copyOf(relationships);
+    this.unresolvedLinks = List.copyOf(unresolvedLinks);
+    this.skippedNeeds = List.copyOf(skippedNeeds);
+  }
+
+  /** Planned needs in file order. */
+  public List<NeedPlan<M>> getNeeds() {
+    return needs;
+  }
+
+  /** Relationships to create, after all needs. */
+  public List<Relationship> getRelationships() {
+    return relationships;
+  }
+
+  public List<UnresolvedLink> getUnresolvedLinks() {
+    return unresolvedLinks;
+  }
+
+  /** Needs of a type the import does not handle. */
+  public List<NeedsFile.Need> getSkippedNeeds() {
+    return skippedNeeds;
+  }
+
+  /** Number of models that will be created. */
+  public int getCreateCount() {
+    return (int) needs.stream().filter(plan -> plan.action() == Action.CREATE).count();
+  }
+
+  /** Number of existing models that will be reused. */
+  public int getReuseCount() {
+    return (int) needs.stream().filter(plan -> plan.action() == Action.REUSE).count();
+  }
+
+  /**
+   * Human-readable summary listing at most {@code maxLinks} unresolved links.
+   *
+   * @param maxLinks maximum number of unresolved links to list
+   */
+  public String summary(int maxLinks) {
+    StringBuilder summary =
+        new StringBuilder()
+            .append(getCreateCount())
+            .append(" new model(s), ")
+            .append(getReuseCount())
+            .append(" reused model(s)\n")
+            .append(relationships.size())
+            .append(" relationship(s)");
+    if (!skippedNeeds.isEmpty()) {
+      summary.append("\n").append(skippedNeeds.size()).append(" need(s) of other types skipped");
+    }
+    if (!unresolvedLinks.isEmpty()) {
+      summary.append("\n").append(unresolvedLinks.size()).append(" unresolved link(s):");
+      for (int i = 0; i < Math.min(maxLinks, unresolvedLinks.size()); i++) {
+        summary.append("\n- ").append(unresolvedLinks.get(i));
+      }
+      if (unresolvedLinks.size() > maxLinks) {
+        summary.append("\n... and ").append(unresolvedLinks.size() - maxLinks).append(" more");
+      }
+    }
+    return summary.toString();
+  }
+}
@@ -0,0 +1,132 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Computes the {@link ImportPlan} of a use case import without changing the project.
+ *
+ * <p>Planning only reads the needs and a snapshot of the existing models, so it can run on any
+ * thread and doubles as a dry run.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ImportPlanner {
+
+  /**
+   * Plan the import of needs.
+   *
+   * @param needs the needs to import, by ID
+   * @param existingModel returns the existing model a need can reuse, or null; only called for
+   *     needs with a VP model ID
+   * @return the plan
+   */
+  public static <M> ImportPlan<M> plan(
+      Map<String, NeedsFile.Need> needs, Function<NeedsFile.Need, M> existingModel) {
+    return plan(needs, EnumSet.allOf(ImportPlan.ElementKind.class), existingModel);
+  }
+
+  /**
+   * Plan the import of the needs of some kinds.
+   *
+   * @param needs the needs to import, by ID
+   * @param kinds the kinds of needs to import; needs of other kinds are skipped
+   * @param existingModel returns the existing model a need can reuse, or null; only called for
+   *     needs with a VP model ID
+   * @return the plan
+   */
+  public static <M> ImportPlan<M> plan(
+      Map<String, NeedsFile.Need> needs,
+      Set<ImportPlan.ElementKind> kinds,
+      Function<NeedsFile.Need, M> existingModel) {
+    return plan(needs, kinds, false, existingModel);
+  }
+
+  /**
+   * Plan the import of the needs of some kinds that were read with a filter.
+   *
+   * @param needs the needs to import, by ID
+   * @param kinds the kinds of needs to import; needs of other kinds are skipped
+   * @param filtered whether needs the filter did not select were left out while reading
+   * @param existingModel returns the existing model a need can reuse, or null; only called for
+   *     needs with a VP model ID
+   * @return the plan
+   */
+  public static <M> ImportPlan<M> plan(
+      Map<String, NeedsFile.Need> needs,
+      Set<ImportPlan.ElementKind> kinds,
+      boolean filtered,
+      Function<NeedsFile.Need, M> existingModel) {
+    // Needs of kinds that are not imported may have been skipped while reading
+    String missingReason =
+        filtered
+            ? "not in file or not selected by filter"
+            : kinds.containsAll(EnumSet.allOf(ImportPlan.ElementKind.class))
+                ? "not in file"
+                : "not in file or type not selected";
+    List<ImportPlan.NeedPlan<M>> needPlans = new ArrayList<>(needs.size());
+    List<NeedsFile.Need> skipped = new ArrayList<>();
+    Set<String> imported = new HashSet<>();
+
+    for (Map.Entry<String, NeedsFile.Need> entry : needs.entrySet()) {
+      NeedsFile.Need need = entry.getValue();
+      ImportPlan.ElementKind kind = ImportPlan.ElementKind.of(need);
+      if (kind == null || !kinds.contains(kind)) {
+        skipped.add(need);
+        continue;
+      }
+      M model =
+          need.getVpModelId() != null && !need.getVpModelId().isBlank()
+              ? existingModel.apply(need)
+              : null;
+      ImportPlan.Action action = model != null ? ImportPlan.Action.REUSE : ImportPlan.Action.CREATE;
+      needPlans.add(new ImportPlan.NeedPlan<>(need, kind, action, model));
+      imported.add(entry.getKey());
+    }
+
+    List<ImportPlan.Relationship> relationships = new ArrayList<>();
+    List<ImportPlan.UnresolvedLink> unresolved = new ArrayList<>();
+    for (ImportPlan.NeedPlan<M> plan : needPlans) {
+      String sourceId = plan.need().getId();
+      for (ImportPlan.RelationshipKind kind : ImportPlan.RelationshipKind.values()) {
+        for (String link : linksOf(plan.need(), kind)) {
+          if (link == null || link.isBlank()) {
+            continue;
+          }
+          String targetId = link.trim();
+          if (imported.contains(targetId)) {
+            relationships.add(new ImportPlan.Relationship(sourceId, targetId, kind));
+          } else {
+            NeedsFile.Need target = needs.get(targetId);
+            String reason =
+                target == null
+                    ? missingReason
+                    : ImportPlan.ElementKind.of(target) == null
+                        ? "not an importable type"
+                        : "type not selected";
+            unresolved.add(new ImportPlan.UnresolvedLink(sourceId, targetId, kind, reason));
+          }
+        }
+      }
+    }
+    return new ImportPlan<>(needPlans, relationships, unresolved, skipped);
+  }
+
+  /** The links of a need that create relationships of the given kind. */
+  private static List<String> linksOf(NeedsFile.Need need, ImportPlan.RelationshipKind kind) {
+    List<String> links =
+        switch (kind) {
+          case INCLUDE -> need.getIncludesLinks();
+          case EXTEND -> need.getExtendsLinks();
+          case ASSOCIATION -> need.getAssociatesLinks();
+        };
+    return links != null ? links : List.of();
+  }
+}
@@ -1,5 +1,8 @@
 package com.orgatex.vp.sphinx.importer;
 
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import com.orgatex.vp.sphinx.monitoring.ModelLookupEvent;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
 import com.vp.plugin.ApplicationManager;
 import com.vp.plugin.DiagramManager;
 import com.vp.plugin.ProjectManager;
@@ -12,6 +15,8 @@ import java.util.Iterator;
 /** Utility class for finding existing Visual Paradigm models by ID. */
 public class ModelLookup {
 
+  private static final PluginLogger log = PluginLogger.getLogger(ModelLookup.class);
+
   private final ProjectManager projectManager;
 
   public ModelLookup() {
@@ -26,193 +31,177 @@ public class ModelLookup {
    * @return The model element if found, null otherwise
    */
   public IModelElement findModelById(String modelId) {
-    System.out.println("=== DEBUG: ModelLookup.findModelById ===");
-    System.out.println("Searching for model ID: " + modelId);
+    log.debug(() -> "Searching for model ID: " + modelId);
 
     if (modelId == null || modelId.trim().isEmpty()) {
-      System.out.println("DEBUG: ModelId is null or empty, returning null");
+      log.debug("ModelId is null or empty, returning null");
       return null;
     }
 
+    ModelLookupEvent event = new ModelLookupEvent();
+    event.begin();
+    event.modelId = modelId;
+    long start = System.nanoTime();
     try {
       if (projectManager == null) {
-        System.out.println("DEBUG: ProjectManager is null (test environment), returning null");
+        log.debug("ProjectManager is null (test environment), returning null");
         return null;
       }
 
       IProject project = projectManager.getProject();
       if (project == null) {
-        System.out.println("DEBUG: Project is null, returning null");
+        log.debug("Project is null, returning null");
         return null;
       }
 
-      System.out.println("DEBUG: Project found, searching through project models...");
-
       // First try: Search through all project-level model elements
-      IModelElement found = searchInProjectModels(project, modelId);
+      IModelElement found = searchInProjectModels(project, modelId, event);
       if (found != null) {
+        event.found = true;
         return found;
       }
 
       // Second try: Search through all diagrams for models
-      System.out.println("DEBUG: Not found in project models, searching in diagrams...");
-      found = searchInDiagramModels(project, modelId);
+      log.debug("Not found in project models, searching in diagrams...");
+      found = searchInDiagramModels(project, modelId, event);
       if (found != null) {
+        event.found = true;
         return found;
       }
 
-      System.out.println("DEBUG: Model not found in project or diagrams");
+      log.debug(() -> "Model not found in project or diagrams: " + modelId);
     } catch (Exception e) {
-      System.err.println(
-          "ERROR: Exception during model search for ID " + modelId + ": " + e.getMessage());
-      e.printStackTrace();
+      log.error("Exception during model search for ID " + modelId + ": " + e.getMessage(), e);
+    } finally {
+      event.commit();
+      PluginMetrics.getInstance().recordLookup(event.found, System.nanoTime() - start);
     }
 
-    System.out.println("DEBUG: Returning null - model not found");
     return null;
   }
 
   /** Search for model in project-level models. */
-  private IModelElement searchInProjectModels(IProject project, String modelId) {
+  private IModelElement searchInProjectModels(
+      IProject project, String modelId, ModelLookupEvent event) {
     try {
+      boolean trace = log.isTraceEnabled();
       Iterator<IModelElement> allModels = project.allLevelModelElementIterator();
       int modelCount = 0;
       while (allModels.hasNext()) {
         IModelElement element = allModels.next();
         modelCount++;
-        String elementId = element.getId();
-        String elementName = element.getName();
-        String elementType = element.getClass().getSimpleName();
-
-        if (modelCount <= 10) { // Log first 10 models to see what's available
-          System.out.println(
-              "DEBUG: Project Model "
-                  + modelCount
-                  + " - ID: "
-                  + elementId
-                  + ", Name: "
-                  + elementName
-                  + ", Type: "
-                  + elementType);
+        event.elementsScanned++;
+
+        if (trace && modelCount <= 10) { // Log first 10 models to see what's available
+          log.trace(() -> describe("Project model", element));
         }
 
-        if (modelId.equals(elementId)) {
-          System.out.println(
-              "DEBUG: ✓ FOUND MATCH in project models! ID: "
-                  + elementId
-                  + ", Name: "
-                  + elementName
-                  + ", Type: "
-                  + elementType);
+        if (modelId.equals(element.getId())) {
+          log.debug(() -> describe("Found match in project models", element));
           return element;
         }
       }
 
-      System.out.println(
-          "DEBUG: Searched through " + modelCount + " project models, no match found");
+      int searched = modelCount;
+      log.debug(() -> "Searched through " + searched + " project models, no match found");
     } catch (Exception e) {
-      System.err.println("ERROR: Exception searching project models: " + e.getMessage());
+      log.error("Exception searching project models: " + e.getMessage());
     }
     return null;
   }
 
   /** Search for model in all diagrams. */
-  private IModelElement searchInDiagramModels(IProject project, String modelId) {
+  private IModelElement searchInDiagramModels(
+      IProject project, String modelId, ModelLookupEvent event) {
     try {
       ApplicationManager appManager = ApplicationManager.instance();
       if (appManager == null) {
-        System.err.println("DEBUG: ApplicationManager not available in test environment");
+        log.debug("ApplicationManager not available in test environment");
         return null;
       }
 
       DiagramManager diagramManager = appManager.getDiagramManager();
       if (diagramManager == null) {
-        System.err.println("DEBUG: DiagramManager not available");
+        log.debug("DiagramManager not available");
         return null;
       }
 
       Iterator<IDiagramUIModel> diagrams = project.diagramIterator();
       if (diagrams == null) {
-        System.err.println("DEBUG: No diagrams available");
+        log.debug("No diagrams available");
         return null;
       }
+      boolean trace = log.isTraceEnabled();
       int diagramCount = 0;
       int totalElementsSearched = 0;
 
       while (diagrams.hasNext()) {
         IDiagramUIModel diagram = diagrams.next();
         diagramCount++;
-        String diagramName = diagram.getName();
-        String diagramType = diagram.getType();
-
-        System.out.println(
-            "DEBUG: Searching diagram "
-                + diagramCount
-                + " - "
-                + diagramName
-                + " ("
-                + diagramType
-                + ")");
+
+        if (trace) {
+          int index = diagramCount;
+          log.trace(
+              () ->
+                  "Searching diagram "
+                      + index
+                      + " - "
+                      + diagram.getName()
+                      + " ("
+                      + diagram.getType()
+                      + ")");
+        }
 
         // Search through all elements in this diagram
         Iterator<IDiagramElement> diagramElements = diagram.diagramElementIterator();
-        int elementsInDiagram = 0;
 
         while (diagramElements.hasNext()) {
           IDiagramElement diagramElement = diagramElements.next();
-          elementsInDiagram++;
           totalElementsSearched++;
+          event.elementsScanned++;
 
           IModelElement modelElement = diagramElement.getModelElement();
           if (modelElement != null) {
-            String elementId = modelElement.getId();
-            String elementName = modelElement.getName();
-            String elementType = modelElement.getClass().getSimpleName();
-
-            if (totalElementsSearched <= 20) { // Log first 20 diagram elements
-              System.out.println(
-                  "DEBUG: Diagram Element "
-                      + totalElementsSearched
-                      + " - ID: "
-                      + elementId
-                      + ", Name: "
-                      + elementName
-                      + ", Type: "
-                      + elementType);
+            if (trace && totalElementsSearched <= 20) { // Log first 20 diagram elements
+              log.trace(() -> describe("Diagram element", modelElement));
             }
 
-            if (modelId.equals(elementId)) {
-              System.out.println(
-                  "DEBUG: ✓ FOUND MATCH in diagram '"
-                      + diagramName
-                      + "'! ID: "
-                      + elementId
-                      + ", Name: "
-                      + elementName
-                      + ", Type: "
-                      + elementType);
+            if (modelId.equals(modelElement.getId())) {
+              log.debug(
+                  () ->
+                      describe("Found match in diagram '" + diagram.getName() + "'", modelElement));
               return modelElement;
             }
           }
         }
-
-        System.out.println(
-            "DEBUG: Searched " + elementsInDiagram + " elements in diagram " + diagramName);
       }
 
-      System.out.println(
-          "DEBUG: Searched through "
-              + diagramCount
-              + " diagrams with "
-              + totalElementsSearched
-              + " total elements, no match found");
+      int diagramsSearched = diagramCount;
+      int elementsSearched = totalElementsSearched;
+      log.debug(
+          () ->
+              "Searched through "
+                  + diagramsSearched
+                  + " diagrams with "
+                  + elementsSearched
+                  + " total elements, no match found");
     } catch (Exception e) {
-      System.err.println("ERROR: Exception searching diagram models: " + e.getMessage());
-      e.printStackTrace();
+      log.error("Exception searching diagram models: " + e.getMessage(), e);
     }
     return null;
   }
 
+  /** Build a one-line description of a model element for debug output. */
+  private static String describe(String prefix, IModelElement element) {
+    return prefix
+        + " - ID: "
+        + element.getId()
+        + ", Name: "
+        + element.getName()
+        + ", Type: "
+        + element.getClass().getSimpleName();
+  }
+
   /**
    * Check if a model with the given Visual Paradigm ID already exists in the project.
    *
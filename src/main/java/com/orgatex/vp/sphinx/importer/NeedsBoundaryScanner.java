@@ -0,0 +1,274 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the {@code needs} objects of the versions in a needs file, and the byte range of every need
+ * in them, without tokenizing the values.
+ *
+ * <p>The scanner only follows strings, brackets and separators, which is much cheaper than parsing.
+ * It counts lines and columns the way Jackson's byte-based parsers do (1-based, columns in bytes),
+ * so positions reported while parsing a single need can be mapped back to the file. Content that is
+ * not well-formed enough to split is not diagnosed here; {@link #scan()} returns null and the
+ * caller parses sequentially, which reports the problem.
+ */
+final class NeedsBoundaryScanner {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /** Position of a byte: absolute buffer index, 1-based line and column. */
+  record Position(int offset, int line, int column) {}
+
+  /**
+   * One need of a {@code needs} object.
+   *
+   * @param id the key of the need
+   * @param start position of the first byte of its value
+   * @param end buffer index after the last byte of its value
+   */
+  record Member(String id, Position start, int end) {}
+
+  /**
+   * The {@code needs} object of a version.
+   *
+   * @param open position of the opening brace
+   * @param close position of the closing brace
+   * @param needs the needs in document order
+   */
+  record NeedsObject(Position open, Position close, List<Member> needs) {}
+
+  /** Thrown when the content cannot be split; never escapes {@link #scan()}. */
+  private static final class Malformed extends Exception {
+    Malformed() {
+      super(null, null, false, false);
+    }
+  }
+
+  @FunctionalInterface
+  private interface ValueHandler {
+    /** Consume the value of the member {@code name}, the cursor is on its first byte. */
+    void value(String name) throws Malformed;
+  }
+
+  private final ByteBuffer content;
+  private final int limit;
+  private int pos;
+  private int line = 1;
+  private int lineStart;
+
+  /** Scan {@code content} from its position to its limit; the buffer itself is not changed. */
+  NeedsBoundaryScanner(ByteBuffer content) {
+    this.content = content;
+    this.pos = content.position();
+    this.limit = content.limit();
+    this.lineStart = pos;
+  }
+
+  /**
+   * Scan the content.
+   *
+   * @return the {@code needs} objects of all versions in document order, or null if the content is
+   *     not a well-formed JSON object
+   */
+  List<NeedsObject> scan() {
+    List<NeedsObject> needsObjects = new ArrayList<>();
+    try {
+      skipWhitespace();
+      scanObject(
+          field -> {
+            if ("versions".equals(field) && peek() == '{') {
+              scanObject(version -> scanVersion(needsObjects));
+            } else {
+              skipValue();
+            }
+          });
+      skipWhitespace();
+      return pos == limit ? needsObjects : null;
+    } catch (Malformed e) {
+      return null;
+    }
+  }
+
+  private void scanVersion(List<NeedsObject> needsObjects) throws Malformed {
+    if (peek() != '{') {
+      skipValue();
+      return;
+    }
+    scanObject(
+        field -> {
+          if ("needs".equals(field) && peek() == '{') {
+            Position open = position();
+            List<Member> needs = new ArrayList<>();
+            Position close =
+                scanObject(
+                    id -> {
+                      Position start = position();
+                      skipValue();
+                      needs.add(new Member(id, start, pos));
+                    });
+            needsObjects.add(new NeedsObject(open, close, needs));
+          } else {
+            skipValue();
+          }
+        });
+  }
+
+  /**
+   * Scan an object, handing each member's value to {@code handler}.
+   *
+   * @return position of the closing brace
+   */
+  private Position scanObject(ValueHandler handler) throws Malformed {
+    expect('{');
+    skipWhitespace();
+    if (peek() == '}') {
+      return closeObject();
+    }
+    while (true) {
+      String name = readString();
+      skipWhitespace();
+      expect(':');
+      skipWhitespace();
+      handler.value(name);
+      skipWhitespace();
+      if (peek() == '}') {
+        return closeObject();
+      }
+      expect(',');
+      skipWhitespace();
+    }
+  }
+
+  private Position closeObject() {
+    Position close = position();
+    pos++;
+    return close;
+  }
+
+  /** Skip any value; containers are skipped by bracket depth, ignoring brackets in strings. */
+  private void skipValue() throws Malformed {
+    byte first = peek();
+    if (first == '"') {
+      skipString();
+      return;
+    }
+    if (first == '{' || first == '[') {
+      int depth = 0;
+      while (pos < limit) {
+        byte b = content.get(pos);
+        if (b == '"') {
+          skipString();
+          continue;
+        }
+        pos++;
+        if (b == '{' || b == '[') {
+          depth++;
+        } else if (b == '}' || b == ']') {
+          if (--depth == 0) {
+            return;
+          }
+        } else if (b == '\n' || b == '\r') {
+          lineBreak(b);
+        }
+      }
+      throw new Malformed();
+    }
+    // Number, true, false or null
+    int start = pos;
+    while (pos < limit && !isDelimiter(content.get(pos))) {
+      pos++;
+    }
+    if (pos == start) {
+      throw new Malformed();
+    }
+  }
+
+  private void skipString() throws Malformed {
+    expect('"');
+    while (pos < limit) {
+      byte b = content.get(pos++);
+      if (b == '"') {
+        return;
+      }
+      if (b == '\\') {
+        pos++;
+      } else if (b >= 0 && b < 0x20) {
+        // Unescaped control characters, including line breaks, are not allowed in strings
+        throw new Malformed();
+      }
+    }
+    throw new Malformed();
+  }
+
+  /** Read a string, decoding escapes with Jackson in the rare case that there are any. */
+  private String readString() throws Malformed {
+    int start = pos;
+    skipString();
+    byte[] bytes = new byte[pos - start];
+    content.get(start, bytes);
+    boolean escaped = false;
+    for (byte b : bytes) {
+      escaped |= b == '\\';
+    }
+    if (!escaped) {
+      return new String(bytes, 1, bytes.length - 2, StandardCharsets.UTF_8);
+    }
+    try (JsonParser parser = JSON_FACTORY.createParser(bytes)) {
+      parser.nextToken();
+      return parser.getText();
+    } catch (IOException e) {
+      throw new Malformed();
+    }
+  }
+
+  private void skipWhitespace() {
+    while (pos < limit) {
+      byte b = content.get(pos);
+      if (b == ' ' || b == '\t') {
+        pos++;
+      } else if (b == '\n' || b == '\r') {
+        pos++;
+        lineBreak(b);
+      } else {
+        return;
+      }
+    }
+  }
+
+  /** Count a line break whose first byte was just consumed; CR LF counts once, as in Jackson. */
+  private void lineBreak(byte b) {
+    if (b == '\r' && pos < limit && content.get(pos) == '\n') {
+      pos++;
+    }
+    line++;
+    lineStart = pos;
+  }
+
+  private byte peek() throws Malformed {
+    if (pos >= limit) {
+      throw new Malformed();
+    }
+    return content.get(pos);
+  }
+
+  private void expect(char expected) throws Malformed {
+    if (peek() != expected) {
+      throw new Malformed();
+    }
+    pos++;
+  }
+
+  private Position position() {
+    return new Position(pos, line, pos - lineStart + 1);
+  }
+
+  private static boolean isDelimiter(byte b) {
+    return b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+}
@@ -0,0 +1,175 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.orgatex.vp.sphinx.generator.NeedsFileCodec;
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Reads every needs file below a directory, such as the builds of several Sphinx projects, and
+ * merges them with {@link NeedsFileMerger}.
+ *
+ * <p>Files are parsed in parallel, one virtual thread per file, since parsing a file is mostly
+ * waiting for I/O and the number of files is not known in advance.
+ */
+public class NeedsDirectoryReader {
+
+  private static final PluginLogger log = PluginLogger.getLogger(NeedsDirectoryReader.class);
+
+  /** Placeholder for the project name of a file in an ID prefix template. */
+  public static final String PROJECT_PLACEHOLDER = "{project}";
+
+  /** Placeholder for the name of the directory containing a file in an ID prefix template. */
+  public static final String DIRECTORY_PLACEHOLDER = "{dir}";
+
+  private final NeedsFileCache cache;
+
+  public NeedsDirectoryReader() {
+    this(NeedsFileCache.createDefault(new NeedsFileReader()));
+  }
+
+  public NeedsDirectoryReader(NeedsFileCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Find the needs files below a directory, in a stable order.
+   *
+   * @param directory the directory to search recursively
+   * @return files whose name ends in {@code needs.json}, optionally compressed
+   * @throws IOException if the directory cannot be read
+   */
+  public static List<Path> discover(Path directory) throws IOException {
+    try (Stream<Path> walk = Files.walk(directory)) {
+      return walk.filter(Files::isRegularFile)
+          .filter(path -> NeedsFileCodec.hasSuffix(path.getFileName().toString(), "needs.json"))
+          .sorted()
+          .toList();
+    }
+  }
+
+  /**
+   * Read and merge every needs file below a directory.
+   *
+   * @param directory the directory to search recursively
+   * @param idPrefixTemplate ID prefix of each file, may contain {@value #PROJECT_PLACEHOLDER} and
+   *     {@value #DIRECTORY_PLACEHOLDER}; empty for no prefix
+   * @return the merged needs
+   * @throws IOException if there is no needs file or one cannot be read
+   */
+  public NeedsFileMerger.Result read(Path directory, String idPrefixTemplate) throws IOException {
+    long start = System.nanoTime();
+    List<Path> files = discover(directory);
+    if (files.isEmpty()) {
+      throw new IOException("No needs.json files found in " + directory);
+    }
+    List<NeedsFileMerger.Source> sources = readAll(directory, files, idPrefixTemplate);
+
+    // A project split across files keeps its name, several projects take the directory name
+    List<String> projects =
+        sources.stream().map(source -> source.needsFile().getProject()).distinct().toList();
+    String projectName =
+        projects.size() == 1 && projects.get(0) != null
+            ? projects.get(0)
+            : String.valueOf(directory.toAbsolutePath().getFileName());
+    NeedsFileMerger.Result result = NeedsFileMerger.merge(sources, projectName);
+    for (String problem : result.problems()) {
+      log.warn(problem);
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    log.info(
+        () ->
+            "Merged "
+                + files.size()
+                + " needs files from "
+                + directory
+                + " with "
+                + result.crossFileLinks()
+                + " cross-file links in "
+                + millis
+                + " ms");
+    return result;
+  }
+
+  /**
+   * Parse files in parallel.
+   *
+   * @param root directory the files are below, for source names and prefixes
+   * @param files the files to read
+   * @param idPrefixTemplate ID prefix template, see {@link #read}
+   * @return one source per file, in the order of {@code files}
+   * @throws IOException if a file cannot be read; its path is part of the message
+   */
+  public List<NeedsFileMerger.Source> readAll(Path root, List<Path> files, String idPrefixTemplate)
+      throws IOException {
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<NeedsFileMerger.Source>> futures = new ArrayList<>(files.size());
+      for (Path file : files) {
+        futures.add(executor.submit(() -> readSource(root, file, idPrefixTemplate)));
+      }
+      List<NeedsFileMerger.Source> sources = new ArrayList<>(files.size());
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          sources.add(futures.get(i).get());
+        } catch (ExecutionException e) {
+          futures.forEach(future -> future.cancel(true));
+          throw new IOException(files.get(i) + ": " + e.getCause().getMessage(), e.getCause());
+        }
+      }
+      return sources;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Reading " + root + " interrupted", e);
+    }
+  }
+
+  private NeedsFileMerger.Source readSource(Path root, Path file, String idPrefixTemplate)
+      throws IOException {
+    long start = System.nanoTime();
+    NeedsFileReader.Result result = cache.read(file.toFile());
+    PluginMetrics.getInstance().recordParse(result.contentLength(), System.nanoTime() - start);
+    String name = root.relativize(file).toString();
+    if (!result.warnings().isEmpty()) {
+      log.warn(result.warnings().size() + " schema warning(s) in " + name);
+    }
+    NeedsFile needsFile = result.needsFile();
+    return new NeedsFileMerger.Source(
+        name, idPrefix(idPrefixTemplate, needsFile.getProject(), file), needsFile);
+  }
+
+  /**
+   * The ID prefix of a file.
+   *
+   * <p>Placeholders are replaced by the project name or directory name with every character that
+   * is not a letter, digit, underscore or hyphen replaced by an underscore.
+   *
+   * @param template the prefix template, null or empty for no prefix
+   * @param projectName project name of the file, may be null
+   * @param file the file
+   */
+  static String idPrefix(String template, String projectName, Path file) {
+    if (template == null || template.isEmpty()) {
+      return "";
+    }
+    Path parent = file.toAbsolutePath().getParent();
+    String directoryName =
+        parent != null && parent.getFileName() != null ? parent.getFileName().toString() : "";
+    return template
+        .replace(PROJECT_PLACEHOLDER, idSafe(projectName))
+        .replace(DIRECTORY_PLACEHOLDER, idSafe(directoryName));
+  }
+
+  private static String idSafe(String value) {
+    return value != null ? value.trim().replaceAll("[^A-Za-z0-9_-]", "_") : "";
+  }
+}
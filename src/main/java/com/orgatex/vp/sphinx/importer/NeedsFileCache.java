@@ -0,0 +1,317 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.orgatex.vp.sphinx.generator.AtomicFileWriter;
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * Cache of read needs files, so that loading an unchanged file again does not parse its JSON.
+ *
+ * <p>After a file has been read, its {@link NeedsFileReader.Result} is stored in Smile, Jackson's
+ * binary JSON encoding, in one entry per file path below the plugin's cache directory. Smile refers
+ * back to repeated field names and short strings such as need IDs in links instead of repeating
+ * them, and binds without decoding text, so an entry is both smaller and much cheaper to load than
+ * the file.
+ *
+ * <p>An entry starts with a header holding the file's path, size, modification time and a hash of
+ * its content. It is used if size and modification time still match, or if only the modification
+ * time changed and the content hash still matches, as when a Sphinx build rewrites an unchanged
+ * file. Entries that cannot be read or written are ignored, and the file is read as usual.
+ *
+ * <p>Only complete reads are stored. Since an entry holds all content, they bind content at once
+ * even if the binding asks for lazy content. An entry serves reads that skip need types or filter
+ * needs too, by dropping those needs after loading it.
+ */
+public class NeedsFileCache {
+
+  private static final PluginLogger log = PluginLogger.getLogger(NeedsFileCache.class);
+
+  /** System property overriding the plugin's cache directory, shared with the validation cache. */
+  static final String CACHE_DIR_PROPERTY = "vp.sphinx.cache.dir";
+
+  /** Version of the entry layout; entries of other versions are ignored and replaced. */
+  static final int FORMAT = 2;
+
+  private static final String ENTRY_SUFFIX = ".smile";
+
+  private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+  private static final ObjectMapper SMILE_MAPPER = createMapper();
+
+  /**
+   * Identifies the file an entry was created from.
+   *
+   * @param format {@link #FORMAT} of the entry
+   * @param path absolute path of the file
+   * @param size size of the file in bytes
+   * @param modified modification time of the file in nanoseconds since the epoch
+   * @param contentHash hash of the file's bytes, see {@link #contentHash(Path)}
+   */
+  record Header(int format, String path, long size, long modified, String contentHash) {}
+
+  /** The cached read result, following the header. */
+  private record Body(
+      NeedsFile needsFile,
+      List<NeedsFileReader.Diagnostic> warnings,
+      int suppressedWarnings,
+      long contentLength) {}
+
+  private final Path directory;
+  private final NeedsFileReader reader;
+
+  /**
+   * Create a cache.
+   *
+   * @param directory directory holding the entries, created when the first entry is written
+   * @param reader reader for files without a valid entry
+   */
+  public NeedsFileCache(Path directory, NeedsFileReader reader) {
+    this.directory = directory;
+    this.reader = reader;
+  }
+
+  /** Create a cache in the per-user cache directory. */
+  public static NeedsFileCache createDefault(NeedsFileReader reader) {
+    return new NeedsFileCache(defaultDirectory().resolve("needs"), reader);
+  }
+
+  /** Directory holding the plugin's on-disk caches, {@code ~/.vp-sphinx-needs} by default. */
+  static Path defaultDirectory() {
+    String override = System.getProperty(CACHE_DIR_PROPERTY);
+    if (override != null && !override.isBlank()) {
+      return Paths.get(override);
+    }
+    return Paths.get(System.getProperty("user.home"), ".vp-sphinx-needs");
+  }
+
+  private static ObjectMapper createMapper() {
+    ObjectMapper mapper =
+        new ObjectMapper(
+            SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build());
+    // Exports leave out empty values, an entry must bind to exactly what was read
+    mapper.setAnnotationIntrospector(
+        new JacksonAnnotationIntrospector() {
+          @Override
+          public JsonInclude.Value findPropertyInclusion(Annotated annotated) {
+            return JsonInclude.Value.empty();
+          }
+        });
+    // The model keeps versions and needs sorted
+    mapper.registerModule(new SimpleModule().addAbstractTypeMapping(Map.class, TreeMap.class));
+    return mapper;
+  }
+
+  /**
+   * Read a needs file, from its cache entry if the file has not changed since it was stored.
+   *
+   * @param file the needs.json file, optionally compressed
+   * @return the needs file and the warnings of reading it
+   * @throws NeedsFileReader.NeedsFormatException if the file violates the schema in a way that
+   *     prevents import; such files are not cached
+   * @throws IOException if the file cannot be read
+   */
+  public NeedsFileReader.Result read(File file) throws IOException {
+    return read(file, NeedsFileReader.Binding.ALL);
+  }
+
+  /**
+   * Read a needs file, from its cache entry if the file has not changed since it was stored.
+   *
+   * @param file the needs.json file, optionally compressed
+   * @param binding what to bind of each need when the file is parsed
+   * @return the needs file and the warnings of reading it
+   * @throws NeedsFileReader.NeedsFormatException if the file violates the schema in a way that
+   *     prevents import; such files are not cached
+   * @throws IOException if the file cannot be read
+   */
+  public NeedsFileReader.Result read(File file, NeedsFileReader.Binding binding)
+      throws IOException {
+    Path path = file.toPath().toAbsolutePath().normalize();
+    Header current = header(path, null);
+    Path entry = entryPath(path);
+    NeedsFileReader.Result cached = load(entry, current);
+    if (cached != null) {
+      PluginMetrics.getInstance().recordParseCacheHit();
+      return select(cached, binding);
+    }
+    if (binding.isSelective()) {
+      return reader.read(file, binding);
+    }
+    NeedsFileReader.Result result = reader.read(file, binding.eagerContent());
+    store(entry, current, result);
+    return result;
+  }
+
+  /** Drop the needs a binding leaves out, and their warnings, from a loaded result. */
+  private static NeedsFileReader.Result select(
+      NeedsFileReader.Result result, NeedsFileReader.Binding binding) {
+    if (!binding.isSelective()) {
+      return result;
+    }
+    Set<String> skippedTypes = binding.skippedTypes();
+    Set<String> skippedIds = new HashSet<>();
+    for (NeedsFile.VersionData versionData : result.needsFile().getVersions().values()) {
+      Iterator<Map.Entry<String, NeedsFile.Need>> needs =
+          versionData.getNeeds().entrySet().iterator();
+      while (needs.hasNext()) {
+        Map.Entry<String, NeedsFile.Need> need = needs.next();
+        String type = need.getValue().getType();
+        if (type != null && skippedTypes.contains(type)) {
+          skippedIds.add(need.getKey());
+          needs.remove();
+        }
+      }
+      skippedIds.addAll(binding.filter().apply(versionData.getNeeds()));
+      versionData.setNeedsAmount(versionData.getNeeds().size());
+    }
+    List<NeedsFileReader.Diagnostic> warnings =
+        result.warnings().stream()
+            .filter(warning -> !skippedIds.contains(warning.needId()))
+            .toList();
+    return new NeedsFileReader.Result(
+        result.needsFile(), warnings, result.suppressedWarnings(), result.contentLength());
+  }
+
+  /** Path of the entry of a file, named after its path so that each file has one entry. */
+  Path entryPath(Path file) {
+    UUID name = UUID.nameUUIDFromBytes(file.toString().getBytes(StandardCharsets.UTF_8));
+    return directory.resolve(name + ENTRY_SUFFIX);
+  }
+
+  /** Header of the file as it is now, with the given content hash. */
+  private static Header header(Path path, String contentHash) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    return new Header(
+        FORMAT,
+        path.toString(),
+        attributes.size(),
+        attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+        contentHash);
+  }
+
+  /**
+   * Hash of a file's bytes.
+   *
+   * <p>CRC32C and CRC32 are both hardware accelerated; together they form a 64-bit hash that is
+   * computed at the speed the file can be read, far faster than it can be parsed.
+   */
+  static String contentHash(Path file) throws IOException {
+    CRC32C crc32c = new CRC32C();
+    CRC32 crc32 = new CRC32();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        crc32c.update(buffer.duplicate());
+        crc32.update(buffer);
+        buffer.clear();
+      }
+    }
+    return String.format("%08x%08x", crc32c.getValue(), crc32.getValue());
+  }
+
+  /** Load the entry if it matches the file, or return null. */
+  private NeedsFileReader.Result load(Path entry, Header current) {
+    if (!Files.isRegularFile(entry)) {
+      return null;
+    }
+    try (InputStream input = Files.newInputStream(entry);
+        JsonParser parser = SMILE_MAPPER.getFactory().createParser(input)) {
+      parser.nextToken();
+      Header stored = SMILE_MAPPER.readValue(parser, Header.class);
+      if (stored.format() != FORMAT
+          || !stored.path().equals(current.path())
+          || stored.size() != current.size()) {
+        return null;
+      }
+      boolean touched = stored.modified() != current.modified();
+      // Only read the whole file again if it may have changed
+      if (touched && !stored.contentHash().equals(contentHash(Path.of(current.path())))) {
+        return null;
+      }
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      Body body = SMILE_MAPPER.readValue(parser, Body.class);
+      NeedsFileReader.Result result =
+          new NeedsFileReader.Result(
+              body.needsFile(),
+              Collections.unmodifiableList(body.warnings()),
+              body.suppressedWarnings(),
+              body.contentLength());
+      if (touched) {
+        // Record the new modification time, so the next load does not hash the file
+        Header header =
+            new Header(
+                FORMAT, current.path(), current.size(), current.modified(), stored.contentHash());
+        store(entry, header, result);
+      }
+      log.debug(() -> "Loaded " + current.path() + " from cache " + entry);
+      return result;
+    } catch (IOException e) {
+      log.debug(() -> "Could not read cache entry " + entry + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /** Store a read result, unless the file changed while it was read. */
+  private void store(Path entry, Header before, NeedsFileReader.Result result) {
+    try {
+      Path path = Path.of(before.path());
+      Header header = before.contentHash() != null ? before : header(path, contentHash(path));
+      if (header.size() != before.size() || header.modified() != before.modified()) {
+        return;
+      }
+      try (AtomicFileWriter writer = AtomicFileWriter.open(entry)) {
+        try (JsonGenerator generator = SMILE_MAPPER.getFactory().createGenerator(writer.stream())) {
+          SMILE_MAPPER.writeValue(generator, header);
+          SMILE_MAPPER.writeValue(
+              generator,
+              new Body(
+                  result.needsFile(),
+                  result.warnings(),
+                  result.suppressedWarnings(),
+                  result.contentLength()));
+        }
+        writer.commit();
+      }
+    } catch (IOException e) {
+      log.debug(() -> "Could not write cache entry " + entry + ": " + e.getMessage());
+    }
+  }
+}
@@ -1,78 +1,488 @@
 package com.orgatex.vp.sphinx.importer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.generator.LayoutSidecar;
+import com.orgatex.vp.sphinx.generator.NeedsFileCodec;
+import com.orgatex.vp.sphinx.generator.NeedsLayout;
+import com.orgatex.vp.sphinx.logging.PluginLogger;
 import com.orgatex.vp.sphinx.model.NeedsFile;
+import com.orgatex.vp.sphinx.monitoring.ConnectorCreationEvent;
+import com.orgatex.vp.sphinx.monitoring.JsonParseEvent;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
 import com.vp.plugin.ApplicationManager;
+import com.vp.plugin.DiagramManager;
 import com.vp.plugin.diagram.IDiagramUIModel;
+import com.vp.plugin.model.IModelElement;
+import java.awt.Rectangle;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
 /**
  * Core importer class for importing sphinx-needs JSON files into Visual Paradigm use case diagrams.
  */
 public class NeedsFileImporter {
 
-  private final ObjectMapper objectMapper;
+  private static final PluginLogger log = PluginLogger.getLogger(NeedsFileImporter.class);
+
+  private final NeedsFileCache cache;
   private final UseCaseDiagramBuilder diagramBuilder;
 
   public NeedsFileImporter() {
-    this.objectMapper = new ObjectMapper();
+    this.cache = NeedsFileCache.createDefault(new NeedsFileReader());
     this.diagramBuilder = new UseCaseDiagramBuilder();
   }
 
   /**
    * Import a needs JSON file and create a use case diagram.
    *
+   * <p>All work runs on the calling thread. A failed import is rolled back.
+   *
    * @param jsonFile The JSON file to import
    * @return The created diagram
    * @throws ImportException if import fails
    */
   public IDiagramUIModel importFromFile(File jsonFile) throws ImportException {
+    return importFromFile(jsonFile, new ChunkedImportRunner(Runnable::run), progress -> {});
+  }
+
+  /**
+   * Import a needs JSON file and create a use case diagram, mutating the model in chunks.
+   *
+   * <p>Equivalent to {@link #prepare} followed by {@link #apply}.
+   *
+   * @param jsonFile The JSON file to import
+   * @param runner Runner scheduling model mutations
+   * @param listener Receives progress after every chunk
+   * @return The created diagram
+   * @throws CancellationException if the import was cancelled; nothing is left in the project
+   * @throws ImportException if import fails; nothing is left in the project
+   */
+  public IDiagramUIModel importFromFile(
+      File jsonFile, ChunkedImportRunner runner, Consumer<ChunkedImportRunner.Progress> listener)
+      throws ImportException {
+    return apply(
+        prepare(jsonFile, EnumSet.allOf(ImportPlan.ElementKind.class), NeedsFilter.ALL, runner),
+        runner,
+        listener);
+  }
+
+  /**
+   * Parse, validate and plan the import of a needs JSON file without changing the project.
+   *
+   * <p>Runs entirely on the calling thread, including the walk over the project. Existing models
+   * are looked up once in a {@link ProjectModelIndex} snapshot, and the layout is computed, so the
+   * result can be shown as a dry run and then applied without further lookups. To plan on a
+   * background thread, use {@link #prepare(File, Set, NeedsFilter, ChunkedImportRunner)}.
+   *
+   * @param jsonFile The JSON file to import
+   * @return The planned import
+   * @throws ImportException if the file cannot be read or is invalid
+   */
+  public PreparedImport prepare(File jsonFile) throws ImportException {
+    return prepare(jsonFile, EnumSet.allOf(ImportPlan.ElementKind.class));
+  }
+
+  /**
+   * Parse, validate and plan the import of the needs of some kinds from a needs JSON file.
+   *
+   * <p>Needs whose type belongs to another kind are skipped while the file is parsed, without
+   * being bound, and content is only decoded for the models that are created.
+   *
+   * @param jsonFile The JSON file to import
+   * @param kinds The kinds of needs to import
+   * @return The planned import
+   * @throws ImportException if the file cannot be read or is invalid
+   */
+  public PreparedImport prepare(File jsonFile, Set<ImportPlan.ElementKind> kinds)
+      throws ImportException {
+    return prepare(jsonFile, kinds, NeedsFilter.ALL);
+  }
+
+  /**
+   * Like {@link #prepare(File, Set)}, importing only the needs a filter selects.
+   *
+   * <p>The filter is tested on each need while the file is parsed, so needs it does not select are
+   * dropped as soon as they are bound. If an export left a {@link LayoutSidecar layout file} next
+   * to the file, the saved bounds are restored and only needs it does not know are placed.
+   *
+   * @param jsonFile The JSON file to import
+   * @param kinds The kinds of needs to import
+   * @param filter Selects the needs to import
+   * @return The planned import
+   * @throws ImportException if the file cannot be read or is invalid
+   */
+  public PreparedImport prepare(
+      File jsonFile, Set<ImportPlan.ElementKind> kinds, NeedsFilter filter)
+      throws ImportException {
+    return prepare(jsonFile, kinds, filter, new ChunkedImportRunner(Runnable::run));
+  }
+
+  /**
+   * Like {@link #prepare(File, Set, NeedsFilter)}, on a background thread.
+   *
+   * <p>The file is read and the import planned on the calling thread; only the snapshot of the
+   * project's models is taken on the UI thread of the runner, since the model must not be read
+   * while Visual Paradigm changes it.
+   *
+   * @param jsonFile The JSON file to import
+   * @param kinds The kinds of needs to import
+   * @param filter Selects the needs to import
+   * @param runner Runner whose UI thread reads the project
+   * @return The planned import
+   * @throws ImportException if the file cannot be read or is invalid
+   */
+  public PreparedImport prepare(
+      File jsonFile,
+      Set<ImportPlan.ElementKind> kinds,
+      NeedsFilter filter,
+      ChunkedImportRunner runner)
+      throws ImportException {
+    return prepare(
+        () -> parseNeedsFile(jsonFile, bindingFor(kinds, filter)),
+        jsonFile.getName(),
+        kinds,
+        filter,
+        readLayout(jsonFile),
+        runner);
+  }
+
+  /** The layout saved next to a needs file, or null if there is none or it cannot be read. */
+  private static NeedsLayout readLayout(File jsonFile) {
     try {
-      // Parse the JSON file
-      NeedsFile needsFile = parseNeedsFile(jsonFile);
+      return LayoutSidecar.read(jsonFile.toPath());
+    } catch (IOException e) {
+      log.warn("Ignoring unreadable layout file of " + jsonFile.getName() + ": " + e.getMessage());
+      return null;
+    }
+  }
 
-      // Validate the structure
-      validateNeedsFile(needsFile);
+  /**
+   * Parse every needs file below a directory in parallel, merge them and plan the import of the
+   * combined needs without changing the project.
+   *
+   * <p>Links between the files are resolved while merging, so relationships across files are
+   * created like any other. See {@link NeedsDirectoryReader#read} for the ID prefixes.
+   *
+   * @param directory The directory to search recursively for needs files
+   * @param idPrefixTemplate ID prefix of each file; empty for no prefix
+   * @return The planned import
+   * @throws ImportException if a file cannot be read or the merged needs are invalid
+   */
+  public PreparedImport prepareDirectory(File directory, String idPrefixTemplate)
+      throws ImportException {
+    return prepareDirectory(
+        directory, idPrefixTemplate, EnumSet.allOf(ImportPlan.ElementKind.class));
+  }
+
+  /**
+   * Like {@link #prepareDirectory(File, String)}, importing only the needs of some kinds.
+   *
+   * <p>The files are read completely, so that links between them resolve as in a full import.
+   *
+   * @param directory The directory to search recursively for needs files
+   * @param idPrefixTemplate ID prefix of each file; empty for no prefix
+   * @param kinds The kinds of needs to import
+   * @return The planned import
+   * @throws ImportException if a file cannot be read or the merged needs are invalid
+   */
+  public PreparedImport prepareDirectory(
+      File directory, String idPrefixTemplate, Set<ImportPlan.ElementKind> kinds)
+      throws ImportException {
+    return prepareDirectory(directory, idPrefixTemplate, kinds, NeedsFilter.ALL);
+  }
+
+  /**
+   * Like {@link #prepareDirectory(File, String, Set)}, importing only the needs a filter selects.
+   *
+   * <p>The filter is applied to the merged needs, so it sees prefixed IDs and can follow links
+   * across files.
+   *
+   * @param directory The directory to search recursively for needs files
+   * @param idPrefixTemplate ID prefix of each file; empty for no prefix
+   * @param kinds The kinds of needs to import
+   * @param filter Selects the needs to import
+   * @return The planned import
+   * @throws ImportException if a file cannot be read or the merged needs are invalid
+   */
+  public PreparedImport prepareDirectory(
+      File directory,
+      String idPrefixTemplate,
+      Set<ImportPlan.ElementKind> kinds,
+      NeedsFilter filter)
+      throws ImportException {
+    return prepareDirectory(
+        directory, idPrefixTemplate, kinds, filter, new ChunkedImportRunner(Runnable::run));
+  }
 
-      // Extract the version data (using the current version)
-      String currentVersion = needsFile.getCurrentVersion();
-      NeedsFile.VersionData versionData = needsFile.getVersions().get(currentVersion);
+  /**
+   * Like {@link #prepareDirectory(File, String, Set, NeedsFilter)}, on a background thread; see
+   * {@link #prepare(File, Set, NeedsFilter, ChunkedImportRunner)}.
+   *
+   * @param directory The directory to search recursively for needs files
+   * @param idPrefixTemplate ID prefix of each file; empty for no prefix
+   * @param kinds The kinds of needs to import
+   * @param filter Selects the needs to import
+   * @param runner Runner whose UI thread reads the project
+   * @return The planned import
+   * @throws ImportException if a file cannot be read or the merged needs are invalid
+   */
+  public PreparedImport prepareDirectory(
+      File directory,
+      String idPrefixTemplate,
+      Set<ImportPlan.ElementKind> kinds,
+      NeedsFilter filter,
+      ChunkedImportRunner runner)
+      throws ImportException {
+    NeedsDirectoryReader directoryReader = new NeedsDirectoryReader(cache);
+    return prepare(
+        () -> filter.apply(directoryReader.read(directory.toPath(), idPrefixTemplate).merged()),
+        directory.getName(),
+        kinds,
+        filter,
+        null,
+        runner);
+  }
 
-      if (versionData == null) {
-        throw new ImportException("No version data found for version: " + currentVersion);
+  /**
+   * Skip the types of kinds that are not imported, and needs the filter does not select, and bind
+   * content when it is used. Complete reads are cached and bind content at once; see {@link
+   * NeedsFileCache}.
+   */
+  static NeedsFileReader.Binding bindingFor(
+      Set<ImportPlan.ElementKind> kinds, NeedsFilter filter) {
+    Set<String> skippedTypes = new HashSet<>();
+    for (ImportPlan.ElementKind kind : ImportPlan.ElementKind.values()) {
+      if (!kinds.contains(kind)) {
+        skippedTypes.add(kind.getNeedType());
       }
+    }
+    return new NeedsFileReader.Binding(skippedTypes, true, filter);
+  }
 
-      // Create the diagram
-      String diagramName = createDiagramName(needsFile.getProject(), jsonFile.getName());
-      IDiagramUIModel diagram = diagramBuilder.createUseCaseDiagram(diagramName);
+  /** Supplies the needs to import. */
+  @FunctionalInterface
+  private interface NeedsSource {
+    NeedsFile load() throws IOException;
+  }
 
-      // Import needs into the diagram
-      importNeeds(diagram, versionData);
+  private PreparedImport prepare(
+      NeedsSource source,
+      String sourceName,
+      Set<ImportPlan.ElementKind> kinds,
+      NeedsFilter filter,
+      NeedsLayout layout,
+      ChunkedImportRunner runner)
+      throws ImportException {
+    long start = System.nanoTime();
+    try {
+      // Parse the JSON file(s)
+      NeedsFile needsFile = source.load();
 
-      // Apply auto-layout to organize elements nicely
-      ApplicationManager.instance()
-          .getDiagramManager()
-          .layout(diagram, ApplicationManager.instance().getDiagramManager().LAYOUT_ORGANIC);
+      // Validate the structure
+      validateNeedsFile(needsFile);
 
-      // Open the diagram
-      ApplicationManager.instance().getDiagramManager().openDiagram(diagram);
+      // Snapshot the project on the UI thread, then plan and lay out off it
+      Map<String, NeedsFile.Need> needs =
+          needsFile.getVersions().get(needsFile.getCurrentVersion()).getNeeds();
+      ProjectModelIndex index = runner.callOnUiThread(ProjectModelIndex::snapshot);
+      ImportPlan<IModelElement> plan =
+          ImportPlanner.plan(needs, kinds, !filter.selectsAll(), index::findFor);
+      log.info(
+          () ->
+              "Import plan for "
+                  + sourceName
+                  + ": "
+                  + plan.summary(0).replace('\n', ';'));
+
+      int restoredShapes = 0;
+      if (layout != null) {
+        restoredShapes = (int) needs.keySet().stream().filter(layout.shapes()::containsKey).count();
+        int restored = restoredShapes;
+        log.info(() -> "Restoring saved bounds of " + restored + " of " + needs.size() + " needs");
+      }
 
-      return diagram;
+      return new PreparedImport(
+          createDiagramName(needsFile.getProject(), sourceName),
+          plan,
+          diagramBuilder.planLayout(needs, layout),
+          restoredShapes);
 
-    } catch (IOException e) {
-      throw new ImportException("Failed to read JSON file: " + e.getMessage(), e);
+    } catch (Exception e) {
+      PluginMetrics.getInstance().recordImport(0, System.nanoTime() - start, false);
+      if (e instanceof ImportException importException) {
+        throw importException;
+      }
+      if (e instanceof IOException) {
+        throw new ImportException("Failed to read JSON file: " + e.getMessage(), e);
+      }
+      throw new ImportException("Failed to plan import: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Apply a prepared import: create the diagram, its elements and relationships in chunks.
+   *
+   * <p>Models the plan found are reused as they are; nothing is looked up again.
+   *
+   * @param prepared The planned import
+   * @param runner Runner scheduling model mutations
+   * @param listener Receives progress after every chunk
+   * @return The created diagram
+   * @throws CancellationException if the import was cancelled; nothing is left in the project
+   * @throws ImportException if import fails; nothing is left in the project
+   */
+  public IDiagramUIModel apply(
+      PreparedImport prepared,
+      ChunkedImportRunner runner,
+      Consumer<ChunkedImportRunner.Progress> listener)
+      throws ImportException {
+    long start = System.nanoTime();
+    ImportPlan<IModelElement> plan = prepared.plan();
+    int needCount = plan.getNeeds().size();
+    boolean succeeded = false;
+    try {
+      runner.expectSteps(needCount + plan.getRelationships().size() + 2);
+
+      // Create the diagram; roll back models first, then the diagram
+      IDiagramUIModel[] diagram = new IDiagramUIModel[1];
+      runner.runPhase(
+          "Creating diagram",
+          List.of(
+              () -> {
+                diagram[0] = diagramBuilder.createUseCaseDiagram(prepared.diagramName());
+                runner.onRollback(() -> diagram[0].delete());
+                runner.onRollback(diagramBuilder::deleteCreatedModels);
+              }),
+          listener);
+
+      // Import needs into the diagram
+      importNeeds(diagram[0], prepared, runner, listener);
+
+      // Apply auto-layout unless a saved layout was restored, and open the diagram
+      runner.runPhase(
+          "Opening diagram",
+          List.of(
+              () -> {
+                DiagramManager diagramManager = ApplicationManager.instance().getDiagramManager();
+                if (!prepared.isLayoutRestored()) {
+                  diagramManager.layout(diagram[0], diagramManager.LAYOUT_ORGANIC);
+                }
+                diagramManager.openDiagram(diagram[0]);
+              }),
+          listener);
+
+      succeeded = true;
+      return diagram[0];
+
+    } catch (CancellationException e) {
+      log.info(() -> "Import of " + prepared.diagramName() + " cancelled and rolled back");
+      throw e;
     } catch (Exception e) {
       throw new ImportException("Failed to import diagram: " + e.getMessage(), e);
+    } finally {
+      PluginMetrics.getInstance().recordImport(needCount, System.nanoTime() - start, succeeded);
     }
   }
 
-  /** Parse the needs JSON file. */
-  private NeedsFile parseNeedsFile(File jsonFile) throws IOException {
-    return objectMapper.readValue(jsonFile, NeedsFile.class);
+  /**
+   * An import that has been planned but not applied.
+   *
+   * @param diagramName name of the diagram to create
+   * @param plan models to create or reuse, relationships and unresolved links
+   * @param bounds element bounds by need ID
+   * @param restoredShapes number of needs whose bounds were restored from a saved layout
+   */
+  public record PreparedImport(
+      String diagramName,
+      ImportPlan<IModelElement> plan,
+      Map<String, Rectangle> bounds,
+      int restoredShapes) {
+
+    /** Whether bounds were restored from a saved layout, which auto-layout would discard. */
+    public boolean isLayoutRestored() {
+      return restoredShapes > 0;
+    }
+  }
+
+  /**
+   * Parse a needs JSON file without importing it.
+   *
+   * <p>The file is validated against the sphinx-needs schema while it is parsed. Recoverable
+   * problems are logged as warnings; the first fatal one aborts parsing. A file that has not
+   * changed since it was last parsed is loaded from the {@link NeedsFileCache} instead.
+   *
+   * @param jsonFile The JSON file to parse
+   * @return The parsed needs file
+   * @throws NeedsFileReader.NeedsFormatException if the file violates the schema, with the line,
+   *     column and need id of the first fatal violation
+   * @throws IOException if the file cannot be read
+   */
+  public NeedsFile parseNeedsFile(File jsonFile) throws IOException {
+    return parseNeedsFile(
+        jsonFile, bindingFor(EnumSet.allOf(ImportPlan.ElementKind.class), NeedsFilter.ALL));
+  }
+
+  /**
+   * Like {@link #parseNeedsFile(File)}, binding only what {@code binding} selects.
+   *
+   * @param jsonFile The JSON file to parse
+   * @param binding What to bind of each need
+   * @return The parsed needs file
+   * @throws IOException if the file cannot be read or is invalid
+   */
+  public NeedsFile parseNeedsFile(File jsonFile, NeedsFileReader.Binding binding)
+      throws IOException {
+    JsonParseEvent event = new JsonParseEvent();
+    event.begin();
+    long start = System.nanoTime();
+    NeedsFileReader.Result result = cache.read(jsonFile, binding);
+    NeedsFile needsFile = result.needsFile();
+    long nanos = System.nanoTime() - start;
+    // Compressed files are parsed from more bytes than they take on disk
+    long bytes = result.contentLength();
+    PluginMetrics.getInstance().recordParse(bytes, nanos);
+    log.info(
+        () ->
+            String.format(
+                "Parsed %s: %d bytes in %d ms (%.1f MB/s)",
+                jsonFile.getName(),
+                bytes,
+                nanos / 1_000_000,
+                PluginMetrics.megabytesPerSecond(bytes, nanos)));
+    logWarnings(jsonFile, result);
+    if (event.shouldCommit()) {
+      event.path = jsonFile.getAbsolutePath();
+      event.bytesRead = bytes;
+      event.bytesPerSecond = (long) (PluginMetrics.megabytesPerSecond(bytes, nanos) * 1_000_000);
+      NeedsFile.VersionData versionData =
+          needsFile.getVersions() != null
+              ? needsFile.getVersions().get(needsFile.getCurrentVersion())
+              : null;
+      event.needCount =
+          versionData != null && versionData.getNeeds() != null ? versionData.getNeeds().size() : 0;
+      event.commit();
+    }
+    return needsFile;
+  }
+
+  private static void logWarnings(File jsonFile, NeedsFileReader.Result result) {
+    if (result.warnings().isEmpty()) {
+      return;
+    }
+    log.warn("Schema warnings in " + jsonFile.getName() + ":");
+    for (NeedsFileReader.Diagnostic warning : result.warnings()) {
+      log.warn("  - " + warning);
+    }
+    if (result.suppressedWarnings() > 0) {
+      log.warn("  ... " + result.suppressedWarnings() + " more warnings not shown");
+    }
   }
 
   /** Validate the needs file structure. */
@@ -105,7 +515,8 @@ public class NeedsFileImporter {
   private String createDiagramName(String projectName, String fileName) {
     String baseName = projectName != null ? projectName : "Imported Use Cases";
 
-    // Remove .json extension if present
+    // Remove .json (and compression) extension if present
+    fileName = NeedsFileCodec.stripExtension(fileName);
     if (fileName.toLowerCase().endsWith(".json")) {
       fileName = fileName.substring(0, fileName.length() - 5);
     }
@@ -113,58 +524,63 @@ public class NeedsFileImporter {
     return baseName + " (" + fileName + ")";
   }
 
-  /** Import all needs into the diagram. */
-  private void importNeeds(IDiagramUIModel diagram, NeedsFile.VersionData versionData)
-      throws ImportException {
-    Map<String, NeedsFile.Need> needs = versionData.getNeeds();
-
-    System.out.println("=== DEBUG: Importing needs ===");
-    System.out.println("Importing " + needs.size() + " needs into diagram: " + diagram.getName());
-
-    // Debug: List all models currently in the project
-    ModelDebugHelper.listAllModelsInProject();
-
-    // Debug: Print first few needs to verify vp_model_id is being read
-    int count = 0;
-    List<String> vpModelIds = new ArrayList<>();
-    for (Map.Entry<String, NeedsFile.Need> entry : needs.entrySet()) {
-      NeedsFile.Need need = entry.getValue();
-      System.out.println(
-          "DEBUG: Need "
-              + (count + 1)
-              + " - ID: "
-              + need.getId()
-              + ", Title: "
-              + need.getTitle()
-              + ", VP Model ID: "
-              + need.getVpModelId()
-              + ", Type: "
-              + need.getType());
-
-      if (need.getVpModelId() != null && !need.getVpModelId().trim().isEmpty()) {
-        vpModelIds.add(need.getVpModelId());
-      }
+  /** Import all planned needs and relationships into the diagram, one step each. */
+  private void importNeeds(
+      IDiagramUIModel diagram,
+      PreparedImport prepared,
+      ChunkedImportRunner runner,
+      Consumer<ChunkedImportRunner.Progress> listener)
+      throws Exception {
+    ImportPlan<IModelElement> plan = prepared.plan();
+    log.info(
+        () ->
+            "Importing "
+                + plan.getNeeds().size()
+                + " needs into diagram: "
+                + diagram.getName()
+                + " ("
+                + plan.getReuseCount()
+                + " reused)");
 
-      count++;
-      if (count >= 5) break; // Only show first 5 for debugging
+    // Step 1: Create all use case elements
+    List<ChunkedImportRunner.Step> elementSteps = new ArrayList<>(plan.getNeeds().size());
+    for (ImportPlan.NeedPlan<IModelElement> needPlan : plan.getNeeds()) {
+      Rectangle bounds = prepared.bounds().get(needPlan.need().getId());
+      elementSteps.add(() -> diagramBuilder.createElement(diagram, needPlan, bounds));
     }
-
-    // Debug: Search for the specific model IDs we're trying to reuse
-    if (!vpModelIds.isEmpty()) {
-      ModelDebugHelper.searchForSpecificIds(vpModelIds.toArray(new String[0]));
+    runner.runPhase("Creating elements", elementSteps, listener);
+
+    // Step 2: Create relationships between elements
+    ConnectorCreationEvent event = new ConnectorCreationEvent();
+    event.begin();
+    int[] relationshipCount = new int[1];
+    List<ChunkedImportRunner.Step> relationshipSteps =
+        new ArrayList<>(plan.getRelationships().size());
+    for (ImportPlan.Relationship relationship : plan.getRelationships()) {
+      relationshipSteps.add(
+          () -> {
+            if (diagramBuilder.createRelationship(diagram, relationship)) {
+              relationshipCount[0]++;
+            }
+          });
     }
-
-    // Step 1: Create all use case elements
-    try {
-      diagramBuilder.createUseCaseElements(diagram, needs);
-
-      // Step 2: Create relationships between elements
-      diagramBuilder.createRelationships(diagram, needs);
-    } catch (Exception e) {
-      throw new ImportException("Failed to create diagram elements: " + e.getMessage(), e);
+    runner.runPhase("Creating relationships", relationshipSteps, listener);
+
+    if (event.shouldCommit()) {
+      event.diagramName = diagram.getName();
+      event.needCount = plan.getNeeds().size();
+      event.connectorCount = relationshipCount[0];
+      event.unresolvedCount =
+          plan.getUnresolvedLinks().size() + plan.getRelationships().size() - relationshipCount[0];
+      event.commit();
     }
-
-    System.out.println("Successfully imported " + needs.size() + " needs");
+    log.info(
+        () ->
+            "Successfully imported "
+                + plan.getNeeds().size()
+                + " needs with "
+                + relationshipCount[0]
+                + " relationships");
   }
 
   /** Exception for import operations. */
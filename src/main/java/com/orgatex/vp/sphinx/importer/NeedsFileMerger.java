@@ -0,0 +1,170 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Merges the needs of several needs files into one, as sphinx-needs' {@code needimport} does with
+ * its {@code id_prefix} option.
+ *
+ * <p>Every need of a source gets the source's ID prefix, and so do links to needs of the same
+ * source. A link to a need of another source is resolved once all needs are known: a link that
+ * already names a merged ID is kept, and an unprefixed ID that exists in exactly one other source
+ * is rewritten to that need's merged ID. Links that match nothing, or several needs, are kept as
+ * they are and reported when the import is planned.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class NeedsFileMerger {
+
+  /**
+   * One needs file to merge.
+   *
+   * @param name name of the source in messages, usually its path
+   * @param idPrefix prefix added to the IDs of its needs, empty for none
+   * @param needsFile the parsed file
+   */
+  public record Source(String name, String idPrefix, NeedsFile needsFile) {}
+
+  /**
+   * The merged needs.
+   *
+   * @param merged the needs of all sources in the current version of one needs file
+   * @param crossFileLinks number of links resolved to a need of another source
+   * @param problems duplicate IDs and ambiguous links, in source order
+   */
+  public record Result(NeedsFile merged, int crossFileLinks, List<String> problems) {}
+
+  /**
+   * Merge the current versions of the sources.
+   *
+   * <p>If two needs end up with the same ID, the need of the earlier source is kept.
+   *
+   * @param sources the sources in priority order
+   * @param projectName project name of the merged file
+   * @return the merged file and what could not be merged cleanly
+   */
+  public static Result merge(List<Source> sources, String projectName) {
+    List<String> problems = new ArrayList<>();
+    Map<String, Source> ownerById = new HashMap<>();
+    Map<String, List<String>> mergedIdsByOriginalId = new HashMap<>();
+    List<List<NeedsFile.Need>> keptNeeds = new ArrayList<>(sources.size());
+
+    // First pass: assign merged IDs, so that every link can be resolved in the second
+    for (Source source : sources) {
+      List<NeedsFile.Need> kept = new ArrayList<>();
+      for (NeedsFile.Need need : needsOf(source)) {
+        String id = source.idPrefix() + need.getId();
+        Source owner = ownerById.putIfAbsent(id, source);
+        if (owner != null) {
+          problems.add(
+              "Duplicate need ID " + id + " in " + source.name() + ", keeping " + owner.name());
+          continue;
+        }
+        mergedIdsByOriginalId.computeIfAbsent(need.getId(), key -> new ArrayList<>()).add(id);
+        kept.add(need);
+      }
+      keptNeeds.add(kept);
+    }
+
+    NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+    int[] crossFileLinks = new int[1];
+    for (int i = 0; i < sources.size(); i++) {
+      Source source = sources.get(i);
+      Set<String> ownIds = new HashSet<>();
+      for (NeedsFile.Need need : needsOf(source)) {
+        ownIds.add(need.getId());
+      }
+      UnaryOperator<String> resolve =
+          link -> {
+            if (ownIds.contains(link)) {
+              return source.idPrefix() + link;
+            }
+            Source owner = ownerById.get(link);
+            if (owner != null) {
+              if (owner != source) {
+                crossFileLinks[0]++;
+              }
+              return link;
+            }
+            List<String> candidates = mergedIdsByOriginalId.getOrDefault(link, List.of());
+            if (candidates.size() == 1) {
+              crossFileLinks[0]++;
+              return candidates.get(0);
+            }
+            if (candidates.size() > 1) {
+              problems.add(
+                  "Ambiguous link to " + link + " in " + source.name() + ": " + candidates);
+            }
+            return link;
+          };
+      for (NeedsFile.Need need : keptNeeds.get(i)) {
+        versionData.addNeed(copy(need, source.idPrefix() + need.getId(), resolve));
+      }
+    }
+
+    NeedsFile merged = new NeedsFile();
+    merged.setProject(projectName);
+    if (!sources.isEmpty()) {
+      NeedsFile first = sources.get(0).needsFile();
+      merged.setCreated(first.getCreated());
+      NeedsFile.VersionData firstVersion = first.getVersions().get(first.getCurrentVersion());
+      if (firstVersion != null) {
+        versionData.setCreated(firstVersion.getCreated());
+        versionData.setCreator(firstVersion.getCreator());
+      }
+    }
+    merged.addVersion(merged.getCurrentVersion(), versionData);
+    return new Result(merged, crossFileLinks[0], problems);
+  }
+
+  private static List<NeedsFile.Need> needsOf(Source source) {
+    NeedsFile needsFile = source.needsFile();
+    NeedsFile.VersionData versionData =
+        needsFile.getVersions() != null
+            ? needsFile.getVersions().get(needsFile.getCurrentVersion())
+            : null;
+    return versionData != null && versionData.getNeeds() != null
+        ? new ArrayList<>(versionData.getNeeds().values())
+        : List.of();
+  }
+
+  /** Copy a need under a new ID with every link passed through {@code resolve}. */
+  private static NeedsFile.Need copy(
+      NeedsFile.Need need, String id, UnaryOperator<String> resolve) {
+    NeedsFile.Need copy = new NeedsFile.Need(id, need.getTitle(), need.getType());
+    copy.setContent(need.getContent());
+    copy.setStatus(need.getStatus());
+    copy.setTags(need.getTags() != null ? new ArrayList<>(need.getTags()) : new ArrayList<>());
+    copy.setPriority(need.getPriority());
+    copy.setElementType(need.getElementType());
+    copy.setVpModelId(need.getVpModelId());
+    copy.setLinks(resolveAll(need.getLinks(), resolve));
+    copy.setExtendsLinks(resolveAll(need.getExtendsLinks(), resolve));
+    copy.setIncludesLinks(resolveAll(need.getIncludesLinks(), resolve));
+    copy.setAssociatesLinks(resolveAll(need.getAssociatesLinks(), resolve));
+    copy.setDeriveLinks(resolveAll(need.getDeriveLinks(), resolve));
+    copy.setContainsLinks(resolveAll(need.getContainsLinks(), resolve));
+    copy.setRefinesLinks(resolveAll(need.getRefinesLinks(), resolve));
+    return copy;
+  }
+
+  private static List<String> resolveAll(List<String> links, UnaryOperator<String> resolve) {
+    List<String> resolved = new ArrayList<>(links != null ? links.size() : 0);
+    if (links != null) {
+      for (String link : links) {
+        if (link != null && !link.isBlank()) {
+          resolved.add(resolve.apply(link.trim()));
+        }
+      }
+    }
+    return resolved;
+  }
+}
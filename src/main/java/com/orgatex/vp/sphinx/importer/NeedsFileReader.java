@@ -0,0 +1,919 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.orgatex.vp.sphinx.generator.NeedsFileCodec;
+import com.orgatex.vp.sphinx.generator.NeedsFileValidator;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Streaming reader for needs.json files that validates the token stream while it binds it.
+ *
+ * <p>The file is read in a single pass. Each need is buffered token by token while its fields are
+ * checked against the sphinx-needs 5.1.0 schema, and only then bound to a {@link NeedsFile.Need},
+ * so no tree of the whole file is ever built. Problems that make the file unusable (malformed
+ * JSON, containers of the wrong type, a missing {@code current_version}) stop the read at once
+ * with a {@link NeedsFormatException} carrying line, column and need id. Recoverable problems,
+ * such as a null title or an unknown need type, are collected as warnings and the offending value
+ * is dropped.
+ *
+ * <p>Large uncompressed files are memory-mapped and parsed straight from the mapped region, so
+ * their bytes are not copied through stream buffers first. Content in memory that is large enough
+ * is split at need boundaries by a {@link NeedsBoundaryScanner}: the needs are validated and bound
+ * on the common fork-join pool while the rest of the file is parsed as usual, with the same result,
+ * warnings and errors as a sequential read.
+ *
+ * <p>A {@link Binding} limits what is bound: needs of skipped types are passed over as soon as
+ * their type has been read, and content in memory can be left undecoded until a need's content is
+ * first used. Content in memory that comes before the type is only located, and decoded once the
+ * need turns out not to be skipped. Its {@link NeedsFilter} is tested on each need as soon as it is
+ * bound, so needs it does not select are dropped before the next one is read; with link closure
+ * they are only dropped once all needs of the version are known.
+ */
+public class NeedsFileReader {
+
+  /**
+   * Uncompressed files of at least this many bytes are memory-mapped, except on Windows, where they
+   * are read into memory in one piece instead: a mapping keeps its file locked until the mapping
+   * is garbage collected, so renaming an export over the file could fail.
+   */
+  public static final long MAPPED_READ_THRESHOLD = 1024 * 1024;
+
+  private static final boolean MAP_FILES =
+      !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+  /** Content in memory of at least this many bytes is decoded in parallel. */
+  public static final long PARALLEL_READ_THRESHOLD = 4 * 1024 * 1024;
+
+  /** Fewest needs decoded by one fork-join task. */
+  private static final int MIN_NEEDS_PER_TASK = 64;
+
+  /** At most this many warnings are kept; further ones are only counted. */
+  static final int MAX_WARNINGS = 1000;
+
+  private static final Set<String> NEED_TYPES = Set.of("req", "spec", "impl", "test", "uc", "act");
+
+  private static final Set<String> STRING_FIELDS =
+      Set.of(
+          "id", "title", "content", "type", "status", "priority", "element_type", "vp_model_id");
+
+  private static final Set<String> ARRAY_FIELDS =
+      Set.of(
+          "tags", "links", "extends", "includes", "associates", "derive", "contains", "refines");
+
+  /**
+   * A problem found while reading, with its position in the file.
+   *
+   * @param keyword schema keyword or rule that failed: {@code type}, {@code enum}, {@code
+   *     required}, {@code syntax}, {@code id} or {@code needs_amount}
+   * @param message description of the problem
+   * @param path JSONPath of the offending value
+   * @param needId id of the need the problem belongs to, or null for file-level problems
+   * @param line 1-based line number
+   * @param column 1-based column number
+   */
+  public record Diagnostic(
+      String keyword, String message, String path, String needId, int line, int column) {
+    @Override
+    public String toString() {
+      return "line "
+          + line
+          + ", column "
+          + column
+          + (needId != null ? " (need " + needId + ")" : "")
+          + ": "
+          + message
+          + " at "
+          + path;
+    }
+  }
+
+  /**
+   * Outcome of a successful read.
+   *
+   * @param needsFile the bound needs file
+   * @param warnings recoverable problems, at most {@link #MAX_WARNINGS}
+   * @param suppressedWarnings number of further warnings that were not kept
+   * @param contentLength number of uncompressed bytes parsed
+   */
+  public record Result(
+      NeedsFile needsFile, List<Diagnostic> warnings, int suppressedWarnings, long contentLength) {}
+
+  /**
+   * What a read binds of each need.
+   *
+   * @param skippedTypes needs of these types are skipped once their type has been read: the rest
+   *     of them is neither validated nor bound, they are not part of the result and any warnings
+   *     about them are dropped
+   * @param lazyContent leave content undecoded until it is first used, see {@link
+   *     NeedsFile.Need#setContentLazily}; only applies to content read from memory, such as a
+   *     mapped file, which the needs refer to until then. A mapped file must not be rewritten in
+   *     place before its content is bound. Content read from a stream is bound at once.
+   * @param filter needs it does not select are not part of the result and any warnings about them
+   *     are dropped, like needs of skipped types
+   */
+  public record Binding(Set<String> skippedTypes, boolean lazyContent, NeedsFilter filter) {
+
+    /** Bind every need completely. */
+    public static final Binding ALL = new Binding(Set.of(), false);
+
+    public Binding {
+      skippedTypes = Set.copyOf(skippedTypes);
+      Objects.requireNonNull(filter, "filter");
+    }
+
+    public Binding(Set<String> skippedTypes, boolean lazyContent) {
+      this(skippedTypes, lazyContent, NeedsFilter.ALL);
+    }
+
+    /** Whether some needs may be left out of the result. */
+    public boolean isSelective() {
+      return !skippedTypes.isEmpty() || !filter.selectsAll();
+    }
+
+    /** This binding with all content bound at once. */
+    public Binding eagerContent() {
+      return lazyContent ? new Binding(skippedTypes, false, filter) : this;
+    }
+  }
+
+  /** Thrown when a needs file cannot be imported; the message includes line and column. */
+  public static class NeedsFormatException extends IOException {
+    private final transient Diagnostic diagnostic;
+
+    public NeedsFormatException(Diagnostic diagnostic, Throwable cause) {
+      super(diagnostic.toString(), cause);
+      this.diagnostic = diagnostic;
+    }
+
+    public Diagnostic getDiagnostic() {
+      return diagnostic;
+    }
+  }
+
+  private final ObjectMapper objectMapper;
+  private final long parallelThreshold;
+
+  public NeedsFileReader() {
+    this(new ObjectMapper());
+  }
+
+  public NeedsFileReader(ObjectMapper objectMapper) {
+    // Splitting only pays off with more than one core to decode on
+    this(
+        objectMapper,
+        ForkJoinPool.getCommonPoolParallelism() > 1 ? PARALLEL_READ_THRESHOLD : Long.MAX_VALUE);
+  }
+
+  /**
+   * Create a reader with a custom threshold for parallel decoding.
+   *
+   * @param parallelThreshold content size from which needs are decoded in parallel; {@code
+   *     Long.MAX_VALUE} to always read sequentially
+   */
+  NeedsFileReader(ObjectMapper objectMapper, long parallelThreshold) {
+    this.objectMapper = objectMapper;
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * Read and validate a needs file.
+   *
+   * @param file the needs.json file
+   * @return the needs file and any warnings
+   * @throws NeedsFormatException if the file violates the schema in a way that prevents import
+   * @throws IOException if the file cannot be read
+   */
+  public Result read(File file) throws IOException {
+    return read(file, Binding.ALL);
+  }
+
+  /**
+   * Read and validate a needs file, binding only what {@code binding} asks for.
+   *
+   * @param file the needs.json file
+   * @param binding what to bind of each need
+   * @return the needs file and any warnings
+   * @throws NeedsFormatException if the file violates the schema in a way that prevents import
+   * @throws IOException if the file cannot be read
+   */
+  public Result read(File file, Binding binding) throws IOException {
+    Path path = file.toPath();
+    long size = Files.size(path);
+    // A mapping cannot exceed 2 GB; larger and small files are streamed
+    if (size >= MAPPED_READ_THRESHOLD && size <= Integer.MAX_VALUE) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        if (MAP_FILES) {
+          MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+          if (NeedsFileCodec.detect(mapped) == NeedsFileCodec.PLAIN) {
+            return read(mapped, binding);
+          }
+        } else if (isPlain(channel)) {
+          // Lazy content would keep the whole copy of the file in memory until it is all bound
+          return read(readFully(channel, (int) size), binding.eagerContent());
+        }
+      }
+    }
+    try (JsonParser parser = objectMapper.getFactory().createParser(NeedsFileCodec.open(path))) {
+      return read(new Session(parser, null, binding));
+    }
+  }
+
+  /**
+   * Read and validate needs file content held in memory, such as a mapped file, without copying
+   * it. The position of {@code content} is not changed.
+   *
+   * @param content the uncompressed needs.json content
+   * @return the needs file and any warnings
+   * @throws NeedsFormatException if the content violates the schema in a way that prevents import
+   * @throws IOException if the content cannot be parsed
+   */
+  public Result read(ByteBuffer content) throws IOException {
+    return read(content, Binding.ALL);
+  }
+
+  /**
+   * Read and validate needs file content held in memory, binding only what {@code binding} asks
+   * for. The position of {@code content} is not changed; with lazy content, its bytes must not
+   * change while content is still unbound.
+   *
+   * @param content the uncompressed needs.json content
+   * @param binding what to bind of each need
+   * @return the needs file and any warnings
+   * @throws NeedsFormatException if the content violates the schema in a way that prevents import
+   * @throws IOException if the content cannot be parsed
+   */
+  public Result read(ByteBuffer content, Binding binding) throws IOException {
+    if (content.remaining() >= parallelThreshold) {
+      List<NeedsBoundaryScanner.NeedsObject> needsObjects =
+          new NeedsBoundaryScanner(content).scan();
+      // Content that cannot be split is read sequentially, which reports what is wrong with it
+      if (needsObjects != null && !needsObjects.isEmpty()) {
+        try (JsonParser parser = objectMapper.getFactory().createNonBlockingByteBufferParser()) {
+          Split split = new Split(content, parser, needsObjects);
+          split.feedNext();
+          return read(new Session(parser, split, binding));
+        }
+      }
+    }
+    try (JsonParser parser = objectMapper.getFactory().createNonBlockingByteBufferParser()) {
+      // All input is fed at once, so the parser never reports NOT_AVAILABLE
+      ByteBufferFeeder feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+      feeder.feedInput(content.duplicate());
+      feeder.endOfInput();
+      Session session = new Session(parser, null, binding);
+      session.contentSource(content, content.position());
+      return read(session);
+    }
+  }
+
+  /**
+   * Read and validate a needs file from a stream. The stream is not closed.
+   *
+   * @param input the needs.json content
+   * @return the needs file and any warnings
+   * @throws NeedsFormatException if the content violates the schema in a way that prevents import
+   * @throws IOException if the stream cannot be read
+   */
+  public Result read(InputStream input) throws IOException {
+    try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+      parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+      return read(new Session(parser, null, Binding.ALL));
+    }
+  }
+
+  private Result read(Session session) throws IOException {
+    try {
+      NeedsFile needsFile = session.readRoot();
+      return new Result(
+          needsFile,
+          Collections.unmodifiableList(session.warnings),
+          session.suppressedWarnings,
+          session.contentLength());
+    } catch (JsonProcessingException e) {
+      throw session.syntaxError(e);
+    }
+  }
+
+  /** Whether a file starts like uncompressed content. */
+  private static boolean isPlain(FileChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(8);
+    while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+      // Read until the header is full or the file ends
+    }
+    return NeedsFileCodec.detect(header.flip()) == NeedsFileCodec.PLAIN;
+  }
+
+  /** Read a file into memory with as few system calls as possible. */
+  private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+    ByteBuffer content = ByteBuffer.allocate(size);
+    while (content.hasRemaining() && channel.read(content, content.position()) > 0) {
+      // FileChannel.read may return before the buffer is full
+    }
+    return content.flip();
+  }
+
+  /** Decode the JSON string between {@code start} and {@code end} of {@code content}. */
+  private static String decodeString(JsonFactory factory, ByteBuffer content, int start, int end) {
+    try (JsonParser parser = factory.createNonBlockingByteBufferParser()) {
+      ByteBufferFeeder feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+      feeder.feedInput(content.duplicate().limit(end).position(start));
+      feeder.endOfInput();
+      parser.nextToken();
+      return parser.getText();
+    } catch (IOException e) {
+      // Only strings that were parsed successfully are decoded again
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Content split at its {@code needs} objects.
+   *
+   * <p>The parser is fed the content up to and including the opening brace of the next needs
+   * object, then from its closing brace on, so it sees every needs object as empty while its needs
+   * are decoded separately.
+   */
+  private static final class Split {
+    private final ByteBuffer content;
+    private final ByteBufferFeeder feeder;
+    private final Deque<NeedsBoundaryScanner.NeedsObject> needsObjects;
+    private int fed;
+
+    Split(ByteBuffer content, JsonParser parser, List<NeedsBoundaryScanner.NeedsObject> objects) {
+      this.content = content;
+      this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+      this.needsObjects = new ArrayDeque<>(objects);
+      this.fed = content.position();
+    }
+
+    /** Feed the content up to the next needs object, or to the end. */
+    void feedNext() throws IOException {
+      NeedsBoundaryScanner.NeedsObject next = needsObjects.peek();
+      int end = next != null ? next.open().offset() + 1 : content.limit();
+      feeder.feedInput(content.duplicate().limit(end).position(fed));
+      if (next != null) {
+        fed = next.close().offset();
+      } else {
+        feeder.endOfInput();
+      }
+    }
+
+    /** The needs object the parser has stopped in, then feed from its closing brace on. */
+    NeedsBoundaryScanner.NeedsObject skip() throws IOException {
+      NeedsBoundaryScanner.NeedsObject skipped = needsObjects.poll();
+      feedNext();
+      return skipped;
+    }
+  }
+
+  /**
+   * Maps positions of a parser that does not start at the beginning of the file, or that skipped
+   * content, to positions in the file.
+   *
+   * @param parserLine line of the reference point as the parser sees it
+   * @param parserColumn column of the reference point as the parser sees it
+   * @param line line of the reference point in the file
+   * @param column column of the reference point in the file
+   */
+  private record Origin(int parserLine, int parserColumn, int line, int column) {
+
+    int lineOf(JsonLocation location) {
+      return line + location.getLineNr() - parserLine;
+    }
+
+    int columnOf(JsonLocation location) {
+      return location.getLineNr() == parserLine
+          ? column + location.getColumnNr() - parserColumn
+          : location.getColumnNr();
+    }
+  }
+
+  /**
+   * Outcome of decoding one need in parallel: the need and its warnings, or the failure. The need
+   * is null if it is skipped.
+   */
+  private record DecodedNeed(
+      NeedsFile.Need need,
+      List<Diagnostic> warnings,
+      int suppressedWarnings,
+      IOException failure) {}
+
+  /**
+   * The needs of one needs object to decode in parallel.
+   *
+   * @param content the content the needs are in
+   * @param needs the needs to decode
+   * @param needsPath JSONPath of the needs object
+   * @param decoded receives the outcome for each need, by index
+   * @param chunkSize most needs decoded by one task
+   * @param binding what to bind of each need
+   */
+  private record DecodeJob(
+      ByteBuffer content,
+      List<NeedsBoundaryScanner.Member> needs,
+      String needsPath,
+      DecodedNeed[] decoded,
+      int chunkSize,
+      Binding binding) {}
+
+  /** Decodes a range of needs, splitting it in halves until it is small enough. */
+  private final class DecodeNeeds extends RecursiveAction {
+    private final DecodeJob job;
+    private final int from;
+    private final int to;
+
+    DecodeNeeds(DecodeJob job, int from, int to) {
+      this.job = job;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= job.chunkSize()) {
+        for (int i = from; i < to; i++) {
+          job.decoded()[i] = decode(job.needs().get(i));
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new DecodeNeeds(job, from, middle), new DecodeNeeds(job, middle, to));
+    }
+
+    /** Validate and bind one need with a parser of its own over its bytes. */
+    private DecodedNeed decode(NeedsBoundaryScanner.Member member) {
+      NeedsBoundaryScanner.Position start = member.start();
+      try (JsonParser parser = objectMapper.getFactory().createNonBlockingByteBufferParser()) {
+        ByteBufferFeeder feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        feeder.feedInput(job.content().duplicate().limit(member.end()).position(start.offset()));
+        feeder.endOfInput();
+
+        Session session = new Session(parser, null, job.binding());
+        session.contentSource(job.content(), start.offset());
+        session.origin = new Origin(1, 1, start.line(), start.column());
+        session.needId = member.id();
+        session.path = NeedsFileValidator.child(job.needsPath(), member.id());
+        try {
+          parser.nextToken();
+          NeedsFile.Need need = session.readNeed();
+          return new DecodedNeed(need, session.warnings, session.suppressedWarnings, null);
+        } catch (JsonProcessingException e) {
+          return new DecodedNeed(null, null, 0, session.syntaxError(e));
+        }
+      } catch (IOException e) {
+        return new DecodedNeed(null, null, 0, e);
+      }
+    }
+  }
+
+  /** State of one read: position, current need and collected warnings. */
+  private final class Session {
+    private final JsonParser parser;
+    private final Split split;
+    private final Binding binding;
+    private final List<Diagnostic> warnings = new ArrayList<>();
+    private int suppressedWarnings;
+    private int skippedNeeds;
+    private String path = "$";
+    private String needId;
+    private Origin origin;
+    private ByteBuffer content;
+    private int contentOffset;
+
+    Session(JsonParser parser, Split split, Binding binding) {
+      this.parser = parser;
+      this.split = split;
+      this.binding = binding;
+    }
+
+    /**
+     * Set the content the parser reads, so that string values can be located in it.
+     *
+     * @param content the content
+     * @param offset index in {@code content} of the first byte the parser reads
+     */
+    void contentSource(ByteBuffer content, int offset) {
+      this.content = content;
+      this.contentOffset = offset;
+    }
+
+    /** Number of bytes of content the read covers. */
+    long contentLength() {
+      if (split != null) {
+        return split.content.remaining();
+      }
+      if (content != null) {
+        return content.limit() - contentOffset;
+      }
+      // A stream is parsed up to the end of the root object
+      return parser.currentLocation().getByteOffset();
+    }
+
+    NeedsFile readRoot() throws IOException {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw fatal("type", "needs file must be a JSON object");
+      }
+
+      NeedsFile needsFile = new NeedsFile();
+      needsFile.setCurrentVersion(null);
+      boolean hasProject = false;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        path = NeedsFileValidator.child("$", field);
+        switch (field) {
+          case "created" -> needsFile.setCreated(readString());
+          case "current_version" -> needsFile.setCurrentVersion(readString());
+          case "project" -> {
+            hasProject = true;
+            needsFile.setProject(readString());
+          }
+          case "versions" -> readVersions(needsFile);
+          default -> parser.skipChildren();
+        }
+      }
+
+      path = "$";
+      if (needsFile.getCurrentVersion() == null) {
+        throw fatal(
+            "required", "required property 'current_version' is missing or not a string");
+      }
+      if (!hasProject) {
+        warn("required", "required property 'project' is missing");
+      }
+      return needsFile;
+    }
+
+    private void readVersions(NeedsFile needsFile) throws IOException {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        throw fatal("type", found() + ", object expected");
+      }
+      String versionsPath = path;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String version = parser.currentName();
+        parser.nextToken();
+        path = NeedsFileValidator.child(versionsPath, version);
+        needsFile.addVersion(version, readVersion());
+      }
+    }
+
+    private NeedsFile.VersionData readVersion() throws IOException {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        throw fatal("type", found() + ", object expected");
+      }
+
+      NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+      Integer declaredAmount = null;
+      int skippedBefore = skippedNeeds;
+      String versionPath = path;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        path = NeedsFileValidator.child(versionPath, field);
+        switch (field) {
+          case "created" -> versionData.setCreated(readString());
+          case "creator" -> versionData.setCreator(readCreator());
+          case "needs" -> readNeeds(versionData);
+          case "needs_amount" -> {
+            if (parser.currentToken().isNumeric()) {
+              declaredAmount = parser.getIntValue();
+            } else {
+              warn("type", found() + ", number expected");
+              parser.skipChildren();
+            }
+          }
+          default -> parser.skipChildren();
+        }
+      }
+
+      path = versionPath;
+      if (binding.filter().isLinkClosure()) {
+        dropNeeds(binding.filter().apply(versionData.getNeeds()));
+      }
+      int actualAmount = versionData.getNeeds().size();
+      int foundAmount = actualAmount + skippedNeeds - skippedBefore;
+      if (declaredAmount != null && declaredAmount != foundAmount) {
+        warn(
+            "needs_amount",
+            "needs_amount is " + declaredAmount + " but " + foundAmount + " needs were found");
+      }
+      versionData.setNeedsAmount(actualAmount);
+      return versionData;
+    }
+
+    private NeedsFile.Creator readCreator() throws IOException {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        warn("type", found() + ", object expected");
+        parser.skipChildren();
+        return null;
+      }
+      return objectMapper.readValue(parser, NeedsFile.Creator.class);
+    }
+
+    private void readNeeds(NeedsFile.VersionData versionData) throws IOException {
+      if (parser.currentToken() == JsonToken.VALUE_NULL) {
+        return;
+      }
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        throw fatal("type", found() + ", object expected");
+      }
+      String needsPath = path;
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.NOT_AVAILABLE) {
+        // The parser stopped at a needs object of a split read
+        readSkippedNeeds(versionData, needsPath);
+        return;
+      }
+      while (token == JsonToken.FIELD_NAME) {
+        needId = parser.currentName();
+        parser.nextToken();
+        path = NeedsFileValidator.child(needsPath, needId);
+        NeedsFile.Need need = readNeed();
+        if (need != null) {
+          versionData.getNeeds().put(needId, need);
+        }
+        token = parser.nextToken();
+      }
+      needId = null;
+    }
+
+    /** Decode the needs the parser did not see in parallel, in document order. */
+    private void readSkippedNeeds(NeedsFile.VersionData versionData, String needsPath)
+        throws IOException {
+      NeedsBoundaryScanner.NeedsObject needsObject = split.skip();
+      List<NeedsBoundaryScanner.Member> needs = needsObject.needs();
+      DecodedNeed[] decoded = new DecodedNeed[needs.size()];
+      int tasks = ForkJoinPool.getCommonPoolParallelism() * 4;
+      int chunkSize = Math.max(MIN_NEEDS_PER_TASK, needs.size() / tasks);
+      DecodeJob job = new DecodeJob(split.content, needs, needsPath, decoded, chunkSize, binding);
+      ForkJoinPool.commonPool().invoke(new DecodeNeeds(job, 0, needs.size()));
+
+      for (int i = 0; i < decoded.length; i++) {
+        if (decoded[i].failure() != null) {
+          throw decoded[i].failure();
+        }
+        for (Diagnostic warning : decoded[i].warnings()) {
+          if (warnings.size() < MAX_WARNINGS) {
+            warnings.add(warning);
+          } else {
+            suppressedWarnings++;
+          }
+        }
+        suppressedWarnings += decoded[i].suppressedWarnings();
+        if (decoded[i].need() != null) {
+          versionData.getNeeds().put(needs.get(i).id(), decoded[i].need());
+        } else {
+          skippedNeeds++;
+        }
+      }
+
+      // Continue after the needs object, mapping positions past the skipped content
+      if (parser.nextToken() != JsonToken.END_OBJECT) {
+        throw fatal("syntax", "needs object could not be split");
+      }
+      JsonLocation location = parser.currentTokenLocation();
+      NeedsBoundaryScanner.Position close = needsObject.close();
+      origin =
+          new Origin(location.getLineNr(), location.getColumnNr(), close.line(), close.column());
+    }
+
+    /** Read a need, or return null if its type is skipped or the filter does not select it. */
+    private NeedsFile.Need readNeed() throws IOException {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        throw fatal("type", found() + ", object expected");
+      }
+
+      int warningMark = warnings.size();
+      int suppressedMark = suppressedWarnings;
+      TokenBuffer buffer = new TokenBuffer(parser);
+      buffer.copyCurrentEvent(parser);
+      Supplier<String> contentValue = null;
+      boolean typeRead = false;
+      String needPath = path;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        boolean located = "content".equals(field) && content != null;
+        // The parser stops right after the name, the value follows after the colon
+        int nameEnd = located ? contentOffset + (int) parser.currentLocation().getByteOffset() : 0;
+        parser.nextToken();
+        path = NeedsFileValidator.child(needPath, field);
+        if ("type".equals(field)) {
+          if (isSkippedType()) {
+            skipNeed(warningMark, suppressedMark);
+            path = needPath;
+            return null;
+          }
+          typeRead = true;
+        }
+        if (located
+            && parser.currentToken() == JsonToken.VALUE_STRING
+            && (binding.lazyContent() || (!typeRead && !binding.skippedTypes().isEmpty()))) {
+          contentValue = stringValue(nameEnd);
+        } else if (STRING_FIELDS.contains(field)) {
+          if ("content".equals(field)) {
+            contentValue = null;
+          }
+          copyStringField(buffer, field);
+        } else if (ARRAY_FIELDS.contains(field)) {
+          copyArrayField(buffer, field);
+        } else {
+          // additionalProperties: true, any value is allowed
+          buffer.writeFieldName(field);
+          buffer.copyCurrentStructure(parser);
+        }
+      }
+      buffer.copyCurrentEvent(parser);
+      path = needPath;
+
+      NeedsFile.Need need;
+      try (JsonParser needParser = buffer.asParser(parser)) {
+        need = objectMapper.readValue(needParser, NeedsFile.Need.class);
+      }
+      if (contentValue != null && binding.lazyContent()) {
+        need.setContentLazily(contentValue);
+      } else if (contentValue != null) {
+        need.setContent(contentValue.get());
+      }
+      // Without link closure, whether a need is selected does not depend on the others
+      if (!binding.filter().isLinkClosure() && !binding.filter().test(need)) {
+        dropWarnings(warningMark, suppressedMark);
+        skippedNeeds++;
+        return null;
+      }
+      return need;
+    }
+
+    private boolean isSkippedType() throws IOException {
+      return !binding.skippedTypes().isEmpty()
+          && parser.currentToken() == JsonToken.VALUE_STRING
+          && binding.skippedTypes().contains(parser.getText());
+    }
+
+    /** Pass over the rest of a need of a skipped type and drop the warnings found in it. */
+    private void skipNeed(int warningMark, int suppressedMark) throws IOException {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        parser.nextToken();
+        parser.skipChildren();
+      }
+      dropWarnings(warningMark, suppressedMark);
+      skippedNeeds++;
+    }
+
+    private void dropWarnings(int warningMark, int suppressedMark) {
+      warnings.subList(warningMark, warnings.size()).clear();
+      suppressedWarnings = suppressedMark;
+    }
+
+    /** Count needs that were bound but then not selected, and drop the warnings about them. */
+    private void dropNeeds(Set<String> droppedIds) {
+      if (!droppedIds.isEmpty()) {
+        warnings.removeIf(warning -> droppedIds.contains(warning.needId()));
+        skippedNeeds += droppedIds.size();
+      }
+    }
+
+    /**
+     * The current string value, decoded from the content each time it is supplied.
+     *
+     * @param nameEnd index in the content just past the name of the value's field
+     */
+    private Supplier<String> stringValue(int nameEnd) {
+      ByteBuffer source = content;
+      int start = nameEnd;
+      while (source.get(start) != '"') {
+        start++;
+      }
+      int valueStart = start;
+      // The parser stops right after the closing quote
+      int end = contentOffset + (int) parser.currentLocation().getByteOffset();
+      JsonFactory factory = objectMapper.getFactory();
+      return () -> decodeString(factory, source, valueStart, end);
+    }
+
+    private void copyStringField(TokenBuffer buffer, String field) throws IOException {
+      JsonToken token = parser.currentToken();
+      if (token == JsonToken.VALUE_STRING) {
+        String value = parser.getText();
+        if ("type".equals(field) && !NEED_TYPES.contains(value)) {
+          warn("enum", "need type '" + value + "' is not one of " + NEED_TYPES);
+        } else if ("id".equals(field) && !value.equals(needId)) {
+          warn("id", "need id '" + value + "' does not match its key '" + needId + "'");
+        }
+      } else if (token.isScalarValue()) {
+        warn("type", found() + ", string expected");
+        if (token == JsonToken.VALUE_NULL) {
+          return;
+        }
+      } else {
+        warn("type", found() + ", string expected; value ignored");
+        parser.skipChildren();
+        return;
+      }
+      buffer.writeFieldName(field);
+      buffer.copyCurrentEvent(parser);
+    }
+
+    private void copyArrayField(TokenBuffer buffer, String field) throws IOException {
+      JsonToken token = parser.currentToken();
+      if (token != JsonToken.START_ARRAY) {
+        warn("type", found() + ", array expected; value ignored");
+        parser.skipChildren();
+        return;
+      }
+
+      buffer.writeFieldName(field);
+      buffer.writeStartArray();
+      String arrayPath = path;
+      int index = 0;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        path = arrayPath + "[" + index++ + "]";
+        if (token == JsonToken.VALUE_STRING) {
+          buffer.copyCurrentEvent(parser);
+        } else {
+          warn("type", found() + ", string expected; value ignored");
+          parser.skipChildren();
+        }
+      }
+      buffer.writeEndArray();
+      path = arrayPath;
+    }
+
+    private String readString() throws IOException {
+      JsonToken token = parser.currentToken();
+      if (token == JsonToken.VALUE_STRING) {
+        return parser.getText();
+      }
+      warn("type", found() + ", string expected");
+      parser.skipChildren();
+      return null;
+    }
+
+    private String found() {
+      JsonToken token = parser.currentToken();
+      return switch (token) {
+        case START_OBJECT -> "object found";
+        case START_ARRAY -> "array found";
+        case VALUE_STRING -> "string found";
+        case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> "number found";
+        case VALUE_TRUE, VALUE_FALSE -> "boolean found";
+        case VALUE_NULL -> "null found";
+        default -> token + " found";
+      };
+    }
+
+    private void warn(String keyword, String message) {
+      if (warnings.size() >= MAX_WARNINGS) {
+        suppressedWarnings++;
+        return;
+      }
+      warnings.add(diagnostic(keyword, message, parser.currentTokenLocation()));
+    }
+
+    private NeedsFormatException fatal(String keyword, String message) {
+      return new NeedsFormatException(
+          diagnostic(keyword, message, parser.currentTokenLocation()), null);
+    }
+
+    NeedsFormatException syntaxError(JsonProcessingException e) {
+      JsonLocation location = e.getLocation() != null ? e.getLocation() : parser.currentLocation();
+      return new NeedsFormatException(
+          diagnostic("syntax", "Malformed JSON: " + e.getOriginalMessage(), location), e);
+    }
+
+    private Diagnostic diagnostic(String keyword, String message, JsonLocation location) {
+      return origin != null
+          ? new Diagnostic(
+              keyword, message, path, needId, origin.lineOf(location), origin.columnOf(location))
+          : new Diagnostic(
+              keyword, message, path, needId, location.getLineNr(), location.getColumnNr());
+    }
+  }
+}
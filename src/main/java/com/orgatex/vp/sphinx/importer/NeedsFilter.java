@@ -0,0 +1,524 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Selects needs with a filter string like those of sphinx-needs, such as {@code type == 'req' and
+ * 'safety' in tags}.
+ *
+ * <p>The string is compiled once into nested predicates that read need fields directly; comparisons
+ * with literals are specialized, so testing a need does not interpret the expression again. The
+ * supported subset of sphinx-needs' Python syntax is:
+ *
+ * <ul>
+ *   <li>{@code and}, {@code or}, {@code not} and parentheses
+ *   <li>{@code ==}, {@code !=}, {@code in} and {@code not in}; {@code in} tests list membership,
+ *       or a substring if both sides are strings
+ *   <li>string literals in single or double quotes, lists of literals, {@code True}, {@code False}
+ *       and {@code None}
+ *   <li>{@code search(pattern, field)}, true if the regular expression is found in the field
+ *   <li>the need fields {@code id}, {@code title}, {@code content}, {@code type}, {@code status},
+ *       {@code tags}, {@code priority}, {@code element_type}, {@code vp_model_id} and the link
+ *       fields {@code links}, {@code extends}, {@code includes}, {@code associates}, {@code
+ *       derive}, {@code contains} and {@code refines}
+ * </ul>
+ *
+ * <p>A field on its own is true if it is set and not empty. With {@link #withLinkClosure link
+ * closure}, needs that a selected need links to, directly or through other needs, are selected
+ * too.
+ */
+public final class NeedsFilter implements Predicate<NeedsFile.Need> {
+
+  /** Selects every need. */
+  public static final NeedsFilter ALL = new NeedsFilter("", need -> true, false);
+
+  private static final Map<String, Function<NeedsFile.Need, Object>> FIELDS = fields();
+
+  /** The link fields of a need, which link closure follows. */
+  static final List<Function<NeedsFile.Need, List<String>>> LINK_FIELDS =
+      List.of(
+          NeedsFile.Need::getLinks,
+          NeedsFile.Need::getExtendsLinks,
+          NeedsFile.Need::getIncludesLinks,
+          NeedsFile.Need::getAssociatesLinks,
+          NeedsFile.Need::getDeriveLinks,
+          NeedsFile.Need::getContainsLinks,
+          NeedsFile.Need::getRefinesLinks);
+
+  private final String expression;
+  private final Predicate<NeedsFile.Need> predicate;
+  private final boolean linkClosure;
+
+  private NeedsFilter(String expression, Predicate<NeedsFile.Need> predicate, boolean linkClosure) {
+    this.expression = expression;
+    this.predicate = predicate;
+    this.linkClosure = linkClosure;
+  }
+
+  /** Thrown when a filter string cannot be compiled; the message includes the column. */
+  public static class FilterSyntaxException extends Exception {
+    private final int column;
+
+    public FilterSyntaxException(String message, int column) {
+      super("column " + column + ": " + message);
+      this.column = column;
+    }
+
+    public int getColumn() {
+      return column;
+    }
+  }
+
+  /**
+   * Compile a filter string.
+   *
+   * @param expression the filter; null or blank selects every need
+   * @return the filter, without link closure
+   * @throws FilterSyntaxException if the string is not a valid filter
+   */
+  public static NeedsFilter compile(String expression) throws FilterSyntaxException {
+    if (expression == null || expression.isBlank()) {
+      return ALL;
+    }
+    return new NeedsFilter(expression.strip(), new Compiler(expression).compile(), false);
+  }
+
+  /** This filter, also selecting the needs that selected needs link to if {@code linkClosure}. */
+  public NeedsFilter withLinkClosure(boolean linkClosure) {
+    return linkClosure == this.linkClosure || this == ALL
+        ? this
+        : new NeedsFilter(expression, predicate, linkClosure);
+  }
+
+  /** The filter string, empty for {@link #ALL}. */
+  public String getExpression() {
+    return expression;
+  }
+
+  public boolean isLinkClosure() {
+    return linkClosure;
+  }
+
+  /** Whether this filter selects every need. */
+  public boolean selectsAll() {
+    return this == ALL;
+  }
+
+  /** Whether the expression matches a need, ignoring link closure. */
+  @Override
+  public boolean test(NeedsFile.Need need) {
+    return predicate.test(need);
+  }
+
+  /**
+   * Remove the needs that are not selected.
+   *
+   * @param needs needs by ID, changed in place
+   * @return the IDs of the removed needs
+   */
+  public Set<String> apply(Map<String, NeedsFile.Need> needs) {
+    if (selectsAll()) {
+      return Set.of();
+    }
+    Set<String> selected = new HashSet<>();
+    Deque<String> pending = new ArrayDeque<>();
+    for (Map.Entry<String, NeedsFile.Need> entry : needs.entrySet()) {
+      if (predicate.test(entry.getValue())) {
+        selected.add(entry.getKey());
+        pending.push(entry.getKey());
+      }
+    }
+    while (linkClosure && !pending.isEmpty()) {
+      NeedsFile.Need need = needs.get(pending.pop());
+      for (Function<NeedsFile.Need, List<String>> linkField : LINK_FIELDS) {
+        List<String> links = linkField.apply(need);
+        if (links == null) {
+          continue;
+        }
+        for (String link : links) {
+          String target = link != null ? link.trim() : null;
+          if (target != null && needs.containsKey(target) && selected.add(target)) {
+            pending.push(target);
+          }
+        }
+      }
+    }
+    Set<String> removed = new HashSet<>();
+    Iterator<String> ids = needs.keySet().iterator();
+    while (ids.hasNext()) {
+      String id = ids.next();
+      if (!selected.contains(id)) {
+        removed.add(id);
+        ids.remove();
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Remove the needs of the current version that are not selected.
+   *
+   * @param needsFile the needs file, changed in place
+   * @return the needs file
+   */
+  public NeedsFile apply(NeedsFile needsFile) {
+    NeedsFile.VersionData versionData = needsFile.getVersions().get(needsFile.getCurrentVersion());
+    if (versionData != null && versionData.getNeeds() != null) {
+      apply(versionData.getNeeds());
+      versionData.setNeedsAmount(versionData.getNeeds().size());
+    }
+    return needsFile;
+  }
+
+  @Override
+  public String toString() {
+    return linkClosure ? expression + " (with linked needs)" : expression;
+  }
+
+  private static Map<String, Function<NeedsFile.Need, Object>> fields() {
+    Map<String, Function<NeedsFile.Need, Object>> fields = new LinkedHashMap<>();
+    fields.put("id", NeedsFile.Need::getId);
+    fields.put("title", NeedsFile.Need::getTitle);
+    fields.put("content", NeedsFile.Need::getContent);
+    fields.put("type", NeedsFile.Need::getType);
+    fields.put("status", NeedsFile.Need::getStatus);
+    fields.put("tags", NeedsFile.Need::getTags);
+    fields.put("priority", NeedsFile.Need::getPriority);
+    fields.put("element_type", NeedsFile.Need::getElementType);
+    fields.put("vp_model_id", NeedsFile.Need::getVpModelId);
+    fields.put("links", NeedsFile.Need::getLinks);
+    fields.put("extends", NeedsFile.Need::getExtendsLinks);
+    fields.put("includes", NeedsFile.Need::getIncludesLinks);
+    fields.put("associates", NeedsFile.Need::getAssociatesLinks);
+    fields.put("derive", NeedsFile.Need::getDeriveLinks);
+    fields.put("contains", NeedsFile.Need::getContainsLinks);
+    fields.put("refines", NeedsFile.Need::getRefinesLinks);
+    return fields;
+  }
+
+  /** Python truthiness of a field value. */
+  private static boolean truthy(Object value) {
+    if (value instanceof Boolean b) {
+      return b;
+    }
+    if (value instanceof String s) {
+      return !s.isEmpty();
+    }
+    if (value instanceof Collection<?> c) {
+      return !c.isEmpty();
+    }
+    return value != null;
+  }
+
+  /** Python {@code element in container}, false where Python would fail. */
+  private static boolean contains(Object container, Object element) {
+    if (container instanceof Collection<?> c) {
+      return c.contains(element);
+    }
+    return container instanceof String s && element instanceof String e && s.contains(e);
+  }
+
+  /**
+   * An operand: a constant, or a value read from the need.
+   *
+   * @param constant the value if {@code value} is null
+   * @param value reads the value from a need, or null for a constant
+   */
+  private record Operand(Object constant, Function<NeedsFile.Need, Object> value) {
+    static Operand of(Object constant) {
+      return new Operand(constant, null);
+    }
+
+    boolean isConstant() {
+      return value == null;
+    }
+  }
+
+  /** Recursive descent compiler, producing predicates while it parses. */
+  private static final class Compiler {
+    private final String source;
+    private int pos;
+
+    Compiler(String source) {
+      this.source = source;
+    }
+
+    Predicate<NeedsFile.Need> compile() throws FilterSyntaxException {
+      Predicate<NeedsFile.Need> predicate = or();
+      skipWhitespace();
+      if (pos < source.length()) {
+        throw error("unexpected '" + source.substring(pos).strip() + "'");
+      }
+      return predicate;
+    }
+
+    private Predicate<NeedsFile.Need> or() throws FilterSyntaxException {
+      Predicate<NeedsFile.Need> predicate = and();
+      while (keyword("or")) {
+        Predicate<NeedsFile.Need> left = predicate;
+        Predicate<NeedsFile.Need> right = and();
+        predicate = need -> left.test(need) || right.test(need);
+      }
+      return predicate;
+    }
+
+    private Predicate<NeedsFile.Need> and() throws FilterSyntaxException {
+      Predicate<NeedsFile.Need> predicate = not();
+      while (keyword("and")) {
+        Predicate<NeedsFile.Need> left = predicate;
+        Predicate<NeedsFile.Need> right = not();
+        predicate = need -> left.test(need) && right.test(need);
+      }
+      return predicate;
+    }
+
+    private Predicate<NeedsFile.Need> not() throws FilterSyntaxException {
+      if (keyword("not")) {
+        return not().negate();
+      }
+      return comparison();
+    }
+
+    private Predicate<NeedsFile.Need> comparison() throws FilterSyntaxException {
+      if (symbol("(")) {
+        Predicate<NeedsFile.Need> group = or();
+        expect(")");
+        return group;
+      }
+      Operand left = operand();
+      if (symbol("==")) {
+        return equal(left, operand());
+      }
+      if (symbol("!=")) {
+        return equal(left, operand()).negate();
+      }
+      if (keyword("in")) {
+        return in(left, operand());
+      }
+      int mark = pos;
+      if (keyword("not")) {
+        if (keyword("in")) {
+          return in(left, operand()).negate();
+        }
+        pos = mark;
+      }
+      if (left.isConstant()) {
+        boolean result = truthy(left.constant());
+        return need -> result;
+      }
+      Function<NeedsFile.Need, Object> value = left.value();
+      return need -> truthy(value.apply(need));
+    }
+
+    private static Predicate<NeedsFile.Need> equal(Operand left, Operand right) {
+      if (left.isConstant() && right.isConstant()) {
+        boolean result = Objects.equals(left.constant(), right.constant());
+        return need -> result;
+      }
+      if (left.isConstant() || right.isConstant()) {
+        Object constant = left.isConstant() ? left.constant() : right.constant();
+        Function<NeedsFile.Need, Object> value = left.isConstant() ? right.value() : left.value();
+        return need -> Objects.equals(value.apply(need), constant);
+      }
+      Function<NeedsFile.Need, Object> leftValue = left.value();
+      Function<NeedsFile.Need, Object> rightValue = right.value();
+      return need -> Objects.equals(leftValue.apply(need), rightValue.apply(need));
+    }
+
+    private static Predicate<NeedsFile.Need> in(Operand element, Operand container) {
+      if (element.isConstant() && container.isConstant()) {
+        boolean result = contains(container.constant(), element.constant());
+        return need -> result;
+      }
+      if (container.isConstant() && container.constant() instanceof Collection<?> c) {
+        Set<Object> members = new HashSet<>(c);
+        Function<NeedsFile.Need, Object> value = element.value();
+        return need -> members.contains(value.apply(need));
+      }
+      if (container.isConstant()) {
+        Object constant = container.constant();
+        Function<NeedsFile.Need, Object> value = element.value();
+        return need -> contains(constant, value.apply(need));
+      }
+      Function<NeedsFile.Need, Object> containerValue = container.value();
+      if (element.isConstant()) {
+        Object constant = element.constant();
+        return need -> contains(containerValue.apply(need), constant);
+      }
+      Function<NeedsFile.Need, Object> value = element.value();
+      return need -> contains(containerValue.apply(need), value.apply(need));
+    }
+
+    private Operand operand() throws FilterSyntaxException {
+      skipWhitespace();
+      if (pos >= source.length()) {
+        throw error("value expected at end of filter");
+      }
+      char c = source.charAt(pos);
+      if (c == '\'' || c == '"') {
+        return Operand.of(string());
+      }
+      if (c == '[') {
+        return Operand.of(list());
+      }
+      if (!Character.isJavaIdentifierStart(c)) {
+        throw error("value expected, found '" + c + "'");
+      }
+      int start = pos;
+      String name = identifier();
+      return switch (name) {
+        case "True" -> Operand.of(Boolean.TRUE);
+        case "False" -> Operand.of(Boolean.FALSE);
+        case "None" -> Operand.of(null);
+        case "search" -> search();
+        default -> field(name, start);
+      };
+    }
+
+    private Operand field(String name, int start) throws FilterSyntaxException {
+      Function<NeedsFile.Need, Object> field = FIELDS.get(name);
+      if (field == null) {
+        pos = start;
+        throw error(
+            "unknown field '" + name + "', expected one of " + String.join(", ", FIELDS.keySet()));
+      }
+      return new Operand(null, field);
+    }
+
+    /** {@code search(pattern, field)}, with the pattern compiled now. */
+    private Operand search() throws FilterSyntaxException {
+      expect("(");
+      skipWhitespace();
+      int patternStart = pos;
+      Operand pattern = operand();
+      if (!pattern.isConstant() || !(pattern.constant() instanceof String regex)) {
+        pos = patternStart;
+        throw error("search() expects a string pattern");
+      }
+      Pattern compiled;
+      try {
+        compiled = Pattern.compile(regex);
+      } catch (PatternSyntaxException e) {
+        pos = patternStart;
+        throw error("invalid pattern: " + e.getDescription());
+      }
+      expect(",");
+      Operand subject = operand();
+      expect(")");
+      if (subject.isConstant()) {
+        Object constant = subject.constant();
+        return Operand.of(constant instanceof String s && compiled.matcher(s).find());
+      }
+      Function<NeedsFile.Need, Object> value = subject.value();
+      return new Operand(
+          null, need -> value.apply(need) instanceof String s && compiled.matcher(s).find());
+    }
+
+    private List<Object> list() throws FilterSyntaxException {
+      expect("[");
+      List<Object> values = new ArrayList<>();
+      if (symbol("]")) {
+        return values;
+      }
+      do {
+        skipWhitespace();
+        int start = pos;
+        Operand value = operand();
+        if (!value.isConstant()) {
+          pos = start;
+          throw error("lists may only contain literals");
+        }
+        values.add(value.constant());
+      } while (symbol(","));
+      expect("]");
+      return values;
+    }
+
+    /** A string literal with Python's escapes; unknown escapes keep their backslash. */
+    private String string() throws FilterSyntaxException {
+      int start = pos;
+      char quote = source.charAt(pos++);
+      StringBuilder value = new StringBuilder();
+      while (pos < source.length()) {
+        char c = source.charAt(pos++);
+        if (c == quote) {
+          return value.toString();
+        }
+        if (c == '\\' && pos < source.length()) {
+          char escaped = source.charAt(pos++);
+          switch (escaped) {
+            case 'n' -> value.append('\n');
+            case 't' -> value.append('\t');
+            case '\\', '\'', '"' -> value.append(escaped);
+            default -> value.append('\\').append(escaped);
+          }
+        } else {
+          value.append(c);
+        }
+      }
+      pos = start;
+      throw error("unterminated string");
+    }
+
+    private String identifier() {
+      int start = pos;
+      while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+        pos++;
+      }
+      return source.substring(start, pos);
+    }
+
+    /** Consume a keyword if it comes next as a whole word. */
+    private boolean keyword(String keyword) {
+      skipWhitespace();
+      int end = pos + keyword.length();
+      if (source.startsWith(keyword, pos)
+          && (end == source.length() || !Character.isJavaIdentifierPart(source.charAt(end)))) {
+        pos = end;
+        return true;
+      }
+      return false;
+    }
+
+    /** Consume a symbol if it comes next. */
+    private boolean symbol(String symbol) {
+      skipWhitespace();
+      if (source.startsWith(symbol, pos)) {
+        pos += symbol.length();
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(String symbol) throws FilterSyntaxException {
+      if (!symbol(symbol)) {
+        throw error("'" + symbol + "' expected");
+      }
+    }
+
+    private void skipWhitespace() {
+      while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    private FilterSyntaxException error(String message) {
+      return new FilterSyntaxException(message, pos + 1);
+    }
+  }
+}
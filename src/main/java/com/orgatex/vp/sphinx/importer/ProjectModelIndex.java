@@ -0,0 +1,98 @@
+package com.orgatex.vp.sphinx.importer;
+
+import com.orgatex.vp.sphinx.logging.PluginLogger;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
+import com.vp.plugin.ApplicationManager;
+import com.vp.plugin.diagram.IDiagramElement;
+import com.vp.plugin.diagram.IDiagramUIModel;
+import com.vp.plugin.model.IActor;
+import com.vp.plugin.model.IModelElement;
+import com.vp.plugin.model.IProject;
+import com.vp.plugin.model.IUseCase;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Snapshot of the project's model elements indexed by Visual Paradigm ID.
+ *
+ * <p>{@link ModelLookup} scans the project for every need; this index scans it once, the same way,
+ * and then answers lookups from a hash map. Models created after the snapshot are not included.
+ */
+public final class ProjectModelIndex {
+
+  private static final PluginLogger log = PluginLogger.getLogger(ProjectModelIndex.class);
+
+  private final Map<String, IModelElement> modelsById;
+
+  ProjectModelIndex(Map<String, IModelElement> modelsById) {
+    this.modelsById = modelsById;
+  }
+
+  /** Index the models of the current project, or return an empty index if there is none. */
+  public static ProjectModelIndex snapshot() {
+    ApplicationManager appManager = ApplicationManager.instance();
+    IProject project =
+        appManager != null && appManager.getProjectManager() != null
+            ? appManager.getProjectManager().getProject()
+            : null;
+    return project != null ? of(project) : new ProjectModelIndex(Map.of());
+  }
+
+  /** Index the models of a project and the models shown on its diagrams. */
+  public static ProjectModelIndex of(IProject project) {
+    long start = System.nanoTime();
+    Map<String, IModelElement> modelsById = new HashMap<>();
+
+    Iterator<IModelElement> models = project.allLevelModelElementIterator();
+    while (models.hasNext()) {
+      IModelElement model = models.next();
+      modelsById.putIfAbsent(model.getId(), model);
+    }
+
+    // Models that are only reachable through a diagram, as ModelLookup's second pass
+    Iterator<IDiagramUIModel> diagrams = project.diagramIterator();
+    while (diagrams != null && diagrams.hasNext()) {
+      Iterator<IDiagramElement> elements = diagrams.next().diagramElementIterator();
+      while (elements.hasNext()) {
+        IModelElement model = elements.next().getModelElement();
+        if (model != null) {
+          modelsById.putIfAbsent(model.getId(), model);
+        }
+      }
+    }
+
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    log.info(() -> "Indexed " + modelsById.size() + " project models in " + millis + " ms");
+    return new ProjectModelIndex(modelsById);
+  }
+
+  /** The model with the given ID, or null. */
+  public IModelElement find(String modelId) {
+    return modelId != null ? modelsById.get(modelId) : null;
+  }
+
+  /**
+   * The existing model a need can reuse: the model with its VP model ID, if it has the type the
+   * need is imported as.
+   *
+   * @return the model, or null if there is none of the right type
+   */
+  public IModelElement findFor(NeedsFile.Need need) {
+    long start = System.nanoTime();
+    IModelElement model = find(need.getVpModelId());
+    ImportPlan.ElementKind kind = ImportPlan.ElementKind.of(need);
+    if (model != null
+        && (kind == ImportPlan.ElementKind.USE_CASE && !(model instanceof IUseCase)
+            || kind == ImportPlan.ElementKind.ACTOR && !(model instanceof IActor))) {
+      model = null;
+    }
+    PluginMetrics.getInstance().recordLookup(model != null, System.nanoTime() - start);
+    return model;
+  }
+
+  public int size() {
+    return modelsById.size();
+  }
+}
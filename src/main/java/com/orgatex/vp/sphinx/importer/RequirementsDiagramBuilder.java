@@ -1,5 +1,6 @@
 package com.orgatex.vp.sphinx.importer;
 
+import com.orgatex.vp.sphinx.logging.PluginLogger;
 import com.orgatex.vp.sphinx.model.NeedsFile;
 import com.vp.plugin.ApplicationManager;
 import com.vp.plugin.DiagramManager;
@@ -12,8 +13,12 @@ import java.util.*;
 /** Builder for creating requirements diagrams from sphinx-needs data. */
 public class RequirementsDiagramBuilder {
 
+  private static final PluginLogger log = PluginLogger.getLogger(RequirementsDiagramBuilder.class);
+
   private final ModelLookup modelLookup;
   private final ElementLayoutEngine layoutEngine;
+  // Models created by this builder, for rollback
+  private final List<IModelElement> newModels = new ArrayList<>();
 
   public RequirementsDiagramBuilder() {
     this.modelLookup = new ModelLookup();
@@ -39,7 +44,7 @@ public class RequirementsDiagramBuilder {
         diagram = diagramManager.createDiagram((String) reqDiagramType);
       } catch (Exception e) {
         // Fallback to use case diagram
-        System.err.println("Requirements diagram type not available, using use case diagram");
+        log.warn("Requirements diagram type not available, using use case diagram");
         diagram = diagramManager.createDiagram(IDiagramTypeConstants.DIAGRAM_TYPE_USE_CASE_DIAGRAM);
       }
 
@@ -58,47 +63,69 @@ public class RequirementsDiagramBuilder {
   public void createRequirementElements(IDiagramUIModel diagram, Map<String, NeedsFile.Need> needs)
       throws ImportException {
     try {
-      System.out.println("Creating requirement elements in diagram: " + diagram.getName());
+      log.info(() -> "Creating requirement elements in diagram: " + diagram.getName());
 
       // Create all requirement and use case elements
       Map<String, Object> createdElements = new HashMap<>();
 
       for (Map.Entry<String, NeedsFile.Need> entry : needs.entrySet()) {
         NeedsFile.Need need = entry.getValue();
-
-        if ("req".equals(need.getType())) {
-          Object requirement = createRequirement(need, diagram);
-          if (requirement != null) {
-            createdElements.put(need.getId(), requirement);
-          }
-        } else if ("uc".equals(need.getType())) {
-          Object useCase = createUseCase(need, diagram);
-          if (useCase != null) {
-            createdElements.put(need.getId(), useCase);
-          }
+        Object element = createElement(diagram, need);
+        if (element != null) {
+          createdElements.put(need.getId(), element);
         }
       }
 
       // Layout elements (placeholder - VP-specific implementation needed)
       // layoutEngine.layoutElements(diagram, createdElements.values());
 
-      System.out.println("Successfully created " + createdElements.size() + " elements");
+      log.info(() -> "Successfully created " + createdElements.size() + " elements");
     } catch (Exception e) {
       throw new ImportException("Failed to create requirement elements: " + e.getMessage(), e);
     }
   }
 
+  /**
+   * Create the model and diagram element for one requirement or use case need.
+   *
+   * @return the created model element, or null if the need has another type or creation failed
+   */
+  public Object createElement(IDiagramUIModel diagram, NeedsFile.Need need) {
+    Object element = null;
+    if ("req".equals(need.getType())) {
+      element = createRequirement(need, diagram);
+    } else if ("uc".equals(need.getType())) {
+      element = createUseCase(need, diagram);
+    }
+    if (element instanceof IModelElement model) {
+      newModels.add(model);
+    }
+    return element;
+  }
+
+  /** Delete the model elements this builder created, newest first, to roll back an import. */
+  public void deleteCreatedModels() {
+    for (int i = newModels.size() - 1; i >= 0; i--) {
+      try {
+        newModels.get(i).delete();
+      } catch (Exception e) {
+        log.warn("Could not delete imported model " + newModels.get(i).getId() + ": " + e);
+      }
+    }
+    newModels.clear();
+  }
+
   /** Create relationships between elements. */
   public void createRequirementRelationships(
       IDiagramUIModel diagram, Map<String, NeedsFile.Need> needs) throws ImportException {
     try {
-      System.out.println("Creating requirement relationships in diagram: " + diagram.getName());
+      log.info(() -> "Creating requirement relationships in diagram: " + diagram.getName());
 
       createDeriveRelationships(diagram, needs);
       createContainsRelationships(diagram, needs);
       createRefinementRelationships(diagram, needs);
 
-      System.out.println("Successfully created requirement relationships");
+      log.info("Successfully created requirement relationships");
     } catch (Exception e) {
       throw new ImportException("Failed to create requirement relationships: " + e.getMessage(), e);
     }
@@ -121,7 +148,7 @@ public class RequirementsDiagramBuilder {
 
       Object requirement = factory.createRequirement();
       if (requirement == null) {
-        System.err.println("Failed to create requirement for: " + need.getTitle());
+        log.warn("Failed to create requirement for: " + need.getTitle());
         return null;
       }
 
@@ -139,16 +166,16 @@ public class RequirementsDiagramBuilder {
         addElementMethod.invoke(project, requirement);
       } catch (Exception e) {
         // Alternative approach if addChild not available
-        System.err.println("Could not add requirement to project: " + e.getMessage());
+        log.warn("Could not add requirement to project: " + e.getMessage());
       }
 
       // Add to diagram display
       addRequirementToDisplay(diagram, requirement);
 
-      System.out.println("Created requirement: " + need.getId() + " - " + need.getTitle());
+      log.debug(() -> "Created requirement: " + need.getId() + " - " + need.getTitle());
       return requirement;
     } catch (Exception e) {
-      System.err.println("Error creating requirement " + need.getTitle() + ": " + e.getMessage());
+      log.warn("Error creating requirement " + need.getTitle() + ": " + e.getMessage());
       return null;
     }
   }
@@ -170,7 +197,7 @@ public class RequirementsDiagramBuilder {
 
       Object useCase = factory.createUseCase();
       if (useCase == null) {
-        System.err.println("Failed to create use case for: " + need.getTitle());
+        log.warn("Failed to create use case for: " + need.getTitle());
         return null;
       }
 
@@ -186,16 +213,16 @@ public class RequirementsDiagramBuilder {
         addElementMethod.invoke(project, useCase);
       } catch (Exception e) {
         // Alternative approach if addChild not available
-        System.err.println("Could not add use case to project: " + e.getMessage());
+        log.warn("Could not add use case to project: " + e.getMessage());
       }
 
       // Add to diagram display
       addUseCaseToDisplay(diagram, useCase);
 
-      System.out.println("Created use case: " + need.getId() + " - " + need.getTitle());
+      log.debug(() -> "Created use case: " + need.getId() + " - " + need.getTitle());
       return useCase;
     } catch (Exception e) {
-      System.err.println("Error creating use case " + need.getTitle() + ": " + e.getMessage());
+      log.warn("Error creating use case " + need.getTitle() + ": " + e.getMessage());
       return null;
     }
   }
@@ -263,12 +290,12 @@ public class RequirementsDiagramBuilder {
         Object relationship =
             createRelationshipConnector(diagram, fromElement, toElement, "derive");
         if (relationship != null) {
-          System.out.println(
-              "Created derive relationship: " + fromNeed.getId() + " -> " + toNeed.getId());
+          log.debug(
+              () -> "Created derive relationship: " + fromNeed.getId() + " -> " + toNeed.getId());
         }
       }
     } catch (Exception e) {
-      System.err.println("Error creating derive relationship: " + e.getMessage());
+      log.warn("Error creating derive relationship: " + e.getMessage());
     }
   }
 
@@ -284,12 +311,12 @@ public class RequirementsDiagramBuilder {
         Object relationship =
             createRelationshipConnector(diagram, fromElement, toElement, "contains");
         if (relationship != null) {
-          System.out.println(
-              "Created contains relationship: " + fromNeed.getId() + " -> " + toNeed.getId());
+          log.debug(
+              () -> "Created contains relationship: " + fromNeed.getId() + " -> " + toNeed.getId());
         }
       }
     } catch (Exception e) {
-      System.err.println("Error creating contains relationship: " + e.getMessage());
+      log.warn("Error creating contains relationship: " + e.getMessage());
     }
   }
 
@@ -305,12 +332,16 @@ public class RequirementsDiagramBuilder {
         Object relationship =
             createRelationshipConnector(diagram, fromElement, toElement, "refines");
         if (relationship != null) {
-          System.out.println(
-              "Created refinement relationship: " + fromNeed.getId() + " -> " + toNeed.getId());
+          log.debug(
+              () ->
+                  "Created refinement relationship: "
+                      + fromNeed.getId()
+                      + " -> "
+                      + toNeed.getId());
         }
       }
     } catch (Exception e) {
-      System.err.println("Error creating refinement relationship: " + e.getMessage());
+      log.warn("Error creating refinement relationship: " + e.getMessage());
     }
   }
 
@@ -326,10 +357,10 @@ public class RequirementsDiagramBuilder {
                 .getMethod("createShapeUIModel", IDiagramUIModel.class, Object.class);
         createShapeMethod.invoke(diagramManager, diagram, requirement);
       } catch (Exception e) {
-        System.err.println("Could not add requirement to diagram display: " + e.getMessage());
+        log.warn("Could not add requirement to diagram display: " + e.getMessage());
       }
     } catch (Exception e) {
-      System.err.println("Error adding requirement to display: " + e.getMessage());
+      log.warn("Error adding requirement to display: " + e.getMessage());
     }
   }
 
@@ -345,10 +376,10 @@ public class RequirementsDiagramBuilder {
                 .getMethod("createShapeUIModel", IDiagramUIModel.class, Object.class);
         createShapeMethod.invoke(diagramManager, diagram, useCase);
       } catch (Exception e) {
-        System.err.println("Could not add use case to diagram display: " + e.getMessage());
+        log.warn("Could not add use case to diagram display: " + e.getMessage());
       }
     } catch (Exception e) {
-      System.err.println("Error adding use case to display: " + e.getMessage());
+      log.warn("Error adding use case to display: " + e.getMessage());
     }
   }
 
@@ -360,7 +391,7 @@ public class RequirementsDiagramBuilder {
       // For now, return null - this will be enhanced when we have exact VP API details
       return null;
     } catch (Exception e) {
-      System.err.println("Error finding element in diagram: " + e.getMessage());
+      log.warn("Error finding element in diagram: " + e.getMessage());
       return null;
     }
   }
@@ -387,7 +418,7 @@ public class RequirementsDiagramBuilder {
 
       return null; // Placeholder
     } catch (Exception e) {
-      System.err.println("Error creating relationship connector: " + e.getMessage());
+      log.warn("Error creating relationship connector: " + e.getMessage());
       return null;
     }
   }
@@ -399,7 +430,7 @@ public class RequirementsDiagramBuilder {
           element.getClass().getMethod("setName", String.class);
       setNameMethod.invoke(element, name);
     } catch (Exception e) {
-      System.err.println("Error setting element name: " + e.getMessage());
+      log.warn("Error setting element name: " + e.getMessage());
     }
   }
 
@@ -410,7 +441,7 @@ public class RequirementsDiagramBuilder {
           element.getClass().getMethod("setDescription", String.class);
       setDescriptionMethod.invoke(element, description != null ? description : "");
     } catch (Exception e) {
-      System.err.println("Error setting element description: " + e.getMessage());
+      log.warn("Error setting element description: " + e.getMessage());
     }
   }
 
@@ -426,7 +457,7 @@ public class RequirementsDiagramBuilder {
             element.getClass().getMethod("setUserId", String.class);
         setUserIdMethod.invoke(element, userId);
       } catch (Exception e2) {
-        System.err.println("Error setting element User ID: " + e2.getMessage());
+        log.warn("Error setting element User ID: " + e2.getMessage());
       }
     }
   }
@@ -449,7 +480,7 @@ public class RequirementsDiagramBuilder {
         int priorityValue = convertPriorityToVPConstant(priority);
         setReqPriorityMethod.invoke(requirement, priorityValue);
       } catch (Exception e2) {
-        System.err.println("Error setting requirement priority: " + e2.getMessage());
+        log.warn("Error setting requirement priority: " + e2.getMessage());
       }
     }
   }
@@ -463,7 +494,7 @@ public class RequirementsDiagramBuilder {
           requirement.getClass().getMethod("setStatus", String.class);
       setStatusMethod.invoke(requirement, status);
     } catch (Exception e) {
-      System.err.println("Error setting requirement status: " + e.getMessage());
+      log.warn("Error setting requirement status: " + e.getMessage());
     }
   }
 
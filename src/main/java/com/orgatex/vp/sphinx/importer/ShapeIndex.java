@@ -0,0 +1,79 @@
+package com.orgatex.vp.sphinx.importer;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index of shape bounds on a uniform grid.
+ *
+ * <p>Each shape is filed under the grid cells it covers, so testing a rectangle for overlap only
+ * looks at the shapes in the few cells the rectangle covers instead of at every shape in the
+ * diagram. With cells about the size of a shape, adding and testing take constant time.
+ */
+final class ShapeIndex {
+
+  private final int cellSize;
+  private final Map<Long, List<Rectangle>> cells = new HashMap<>();
+  private Rectangle extent;
+
+  /**
+   * Create an empty index.
+   *
+   * @param cellSize width and height of the grid cells
+   */
+  ShapeIndex(int cellSize) {
+    if (cellSize < 1) {
+      throw new IllegalArgumentException("Cell size must be at least 1");
+    }
+    this.cellSize = cellSize;
+  }
+
+  /** Add the bounds of a shape. */
+  void add(Rectangle bounds) {
+    Rectangle shape = new Rectangle(bounds);
+    for (int column = column(shape.x); column <= column(shape.x + shape.width); column++) {
+      for (int row = row(shape.y); row <= row(shape.y + shape.height); row++) {
+        cells.computeIfAbsent(key(column, row), cell -> new ArrayList<>()).add(shape);
+      }
+    }
+    extent = extent != null ? extent.union(shape) : shape;
+  }
+
+  /** Whether a rectangle overlaps any shape in the index. */
+  boolean intersects(Rectangle bounds) {
+    for (int column = column(bounds.x); column <= column(bounds.x + bounds.width); column++) {
+      for (int row = row(bounds.y); row <= row(bounds.y + bounds.height); row++) {
+        List<Rectangle> shapes = cells.get(key(column, row));
+        if (shapes == null) {
+          continue;
+        }
+        for (Rectangle shape : shapes) {
+          if (shape.intersects(bounds)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /** Smallest rectangle containing all shapes, or null if the index is empty. */
+  Rectangle getExtent() {
+    return extent != null ? new Rectangle(extent) : null;
+  }
+
+  private int column(int x) {
+    return Math.floorDiv(x, cellSize);
+  }
+
+  private int row(int y) {
+    return Math.floorDiv(y, cellSize);
+  }
+
+  private static long key(int column, int row) {
+    return ((long) column << 32) | (row & 0xffffffffL);
+  }
+}
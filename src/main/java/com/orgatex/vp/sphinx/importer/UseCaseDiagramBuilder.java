@@ -1,6 +1,9 @@
 package com.orgatex.vp.sphinx.importer;
 
+import com.orgatex.vp.sphinx.generator.NeedsLayout;
+import com.orgatex.vp.sphinx.logging.PluginLogger;
 import com.orgatex.vp.sphinx.model.NeedsFile;
+import com.orgatex.vp.sphinx.monitoring.ConnectorCreationEvent;
 import com.vp.plugin.ApplicationManager;
 import com.vp.plugin.DiagramManager;
 import com.vp.plugin.diagram.IDiagramElement;
@@ -13,30 +16,31 @@ import com.vp.plugin.model.IInclude;
 import com.vp.plugin.model.IModelElement;
 import com.vp.plugin.model.IUseCase;
 import com.vp.plugin.model.factory.IModelElementFactory;
-import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /** Builder class for creating Visual Paradigm use case diagrams from needs data. */
 public class UseCaseDiagramBuilder {
 
+  private static final PluginLogger log = PluginLogger.getLogger(UseCaseDiagramBuilder.class);
+
   private final DiagramManager diagramManager;
   private final IModelElementFactory modelFactory;
   private final ElementLayoutEngine layoutEngine;
-  private final ModelLookup modelLookup;
 
   // Track created elements for relationship creation
   private final Map<String, IDiagramElement> createdElements = new HashMap<>();
   private final Map<String, IModelElement> createdModels = new HashMap<>();
+  // Models created (not reused) by this builder, for rollback
+  private final List<IModelElement> newModels = new ArrayList<>();
 
   public UseCaseDiagramBuilder() {
     this.diagramManager = ApplicationManager.instance().getDiagramManager();
     this.modelFactory = IModelElementFactory.instance();
     this.layoutEngine = new ElementLayoutEngine();
-    this.modelLookup = new ModelLookup();
   }
 
   /**
@@ -54,32 +58,53 @@ public class UseCaseDiagramBuilder {
   }
 
   /**
-   * Create all use case elements in the diagram.
+   * Calculate element bounds. Does not touch the model, so it may run on any thread.
+   *
+   * @param needs Map of needs to place
+   * @param saved Layout saved by an earlier export whose bounds are restored, or null
+   * @return bounds by need ID
+   */
+  public Map<String, Rectangle> planLayout(Map<String, NeedsFile.Need> needs, NeedsLayout saved) {
+    return layoutEngine.calculateBounds(needs, saved);
+  }
+
+  /**
+   * Create the diagram element for one planned need, reusing the model the plan found instead of
+   * looking it up again.
    *
    * @param diagram The target diagram
-   * @param needs Map of needs to create
+   * @param plan The plan of the need
+   * @param bounds The element bounds, or null
    * @throws Exception if element creation fails
    */
-  public void createUseCaseElements(IDiagramUIModel diagram, Map<String, NeedsFile.Need> needs)
+  public void createElement(
+      IDiagramUIModel diagram, ImportPlan.NeedPlan<IModelElement> plan, Rectangle bounds)
       throws Exception {
-    // Calculate layout positions
-    Map<String, Point> positions = layoutEngine.calculateLayout(needs);
-
-    // Create elements for each need
-    for (Map.Entry<String, NeedsFile.Need> entry : needs.entrySet()) {
-      String needId = entry.getKey();
-      NeedsFile.Need need = entry.getValue();
-
-      if (isUseCaseNeed(need)) {
-        createUseCaseElement(diagram, need, positions.get(needId));
-      } else if (isActorNeed(need)) {
-        createActorElement(diagram, need, positions.get(needId));
-      } else if (isRequirementNeed(need)) {
-        createRequirementElement(diagram, need, positions.get(needId));
-      }
+    IModelElement existing = plan.existingModel();
+    switch (plan.kind()) {
+      case USE_CASE -> createUseCaseElement(diagram, plan.need(), bounds, (IUseCase) existing);
+      case ACTOR -> createActorElement(diagram, plan.need(), bounds, (IActor) existing);
+      case REQUIREMENT -> createRequirementElement(diagram, plan.need(), bounds, existing);
     }
+  }
 
-    System.out.println("Created " + createdElements.size() + " diagram elements");
+  /**
+   * Create one planned relationship. Both ends must already have been created.
+   *
+   * @param diagram The target diagram
+   * @param relationship The planned relationship
+   * @return true if the relationship was created
+   * @throws Exception if relationship creation fails
+   */
+  public boolean createRelationship(IDiagramUIModel diagram, ImportPlan.Relationship relationship)
+      throws Exception {
+    String sourceId = relationship.sourceId();
+    String targetId = relationship.targetId();
+    return switch (relationship.kind()) {
+      case INCLUDE -> createIncludeRelationship(diagram, sourceId, targetId);
+      case EXTEND -> createExtendRelationship(diagram, sourceId, targetId);
+      case ASSOCIATION -> createAssociationRelationship(diagram, sourceId, targetId);
+    };
   }
 
   /**
@@ -91,61 +116,88 @@ public class UseCaseDiagramBuilder {
    */
   public void createRelationships(IDiagramUIModel diagram, Map<String, NeedsFile.Need> needs)
       throws Exception {
+    ConnectorCreationEvent event = new ConnectorCreationEvent();
+    event.begin();
     int relationshipCount = 0;
+    int linkCount = 0;
 
     for (Map.Entry<String, NeedsFile.Need> entry : needs.entrySet()) {
-      String sourceId = entry.getKey();
-      NeedsFile.Need need = entry.getValue();
-
-      // Create include relationships
-      relationshipCount += createIncludeRelationships(diagram, sourceId, need.getIncludesLinks());
+      linkCount += countLinks(entry.getValue());
+      relationshipCount += createRelationships(diagram, entry.getKey(), entry.getValue());
+    }
 
-      // Create extend relationships
-      relationshipCount += createExtendRelationships(diagram, sourceId, need.getExtendsLinks());
+    int created = relationshipCount;
+    log.info(() -> "Created " + created + " relationships");
 
-      // Create association relationships
-      relationshipCount +=
-          createAssociationRelationships(diagram, sourceId, need.getAssociatesLinks());
+    if (event.shouldCommit()) {
+      event.diagramName = diagram.getName();
+      event.needCount = needs.size();
+      event.connectorCount = relationshipCount;
+      event.unresolvedCount = linkCount - relationshipCount;
+      event.commit();
     }
-
-    System.out.println("Created " + relationshipCount + " relationships");
   }
 
-  /** Create a use case element in the diagram. */
-  private void createUseCaseElement(IDiagramUIModel diagram, NeedsFile.Need need, Point position)
+  /**
+   * Create the outgoing relationships of one need. Its targets must already have been created.
+   *
+   * @param diagram The target diagram
+   * @param sourceId ID of the source need
+   * @param need The source need
+   * @return the number of relationships created
+   * @throws Exception if relationship creation fails
+   */
+  public int createRelationships(IDiagramUIModel diagram, String sourceId, NeedsFile.Need need)
       throws Exception {
-    System.out.println("=== DEBUG: Creating use case element ===");
-    System.out.println("Need ID: " + need.getId());
-    System.out.println("Need Title: " + need.getTitle());
-    System.out.println("Need VP Model ID: " + need.getVpModelId());
-
-    IUseCase useCaseModel = null;
-    boolean isReusedModel = false;
-
-    // Check if model already exists using Visual Paradigm model ID
-    if (need.getVpModelId() != null && !need.getVpModelId().trim().isEmpty()) {
-      System.out.println("DEBUG: Looking for existing model with VP ID: " + need.getVpModelId());
-      useCaseModel = modelLookup.findModelById(need.getVpModelId(), IUseCase.class);
-      if (useCaseModel != null) {
-        isReusedModel = true;
-        System.out.println(
-            "DEBUG: ✓ Found existing model! Name: "
-                + useCaseModel.getName()
-                + ", ID: "
-                + useCaseModel.getId());
-        System.out.println(
-            "Reusing existing use case model: " + need.getId() + " - " + need.getTitle());
-      } else {
-        System.out.println("DEBUG: ✗ No existing model found with VP ID: " + need.getVpModelId());
+    // Create include, extend and association relationships
+    return createIncludeRelationships(diagram, sourceId, need.getIncludesLinks())
+        + createExtendRelationships(diagram, sourceId, need.getExtendsLinks())
+        + createAssociationRelationships(diagram, sourceId, need.getAssociatesLinks());
+  }
+
+  /** Number of outgoing relationship links of a need. */
+  public static int countLinks(NeedsFile.Need need) {
+    return sizeOf(need.getIncludesLinks())
+        + sizeOf(need.getExtendsLinks())
+        + sizeOf(need.getAssociatesLinks());
+  }
+
+  /**
+   * Delete the model elements this builder created, newest first. Reused models are kept.
+   *
+   * <p>Used to roll back a cancelled or failed import.
+   */
+  public void deleteCreatedModels() {
+    for (int i = newModels.size() - 1; i >= 0; i--) {
+      try {
+        newModels.get(i).delete();
+      } catch (Exception e) {
+        log.warn("Could not delete imported model " + newModels.get(i).getId() + ": " + e);
       }
-    } else {
-      System.out.println("DEBUG: No VP Model ID provided, will create new model");
     }
+    newModels.clear();
+  }
+
+  /** Create a use case element in the diagram. */
+  private void createUseCaseElement(
+      IDiagramUIModel diagram, NeedsFile.Need need, Rectangle bounds, IUseCase existing)
+      throws Exception {
+    log.debug(
+        () ->
+            "Creating use case element - ID: "
+                + need.getId()
+                + ", Title: "
+                + need.getTitle()
+                + ", VP Model ID: "
+                + need.getVpModelId());
+
+    IUseCase useCaseModel = existing;
+    boolean isReusedModel = existing != null;
 
     // Create new model if not found
     if (useCaseModel == null) {
-      System.out.println("DEBUG: Creating new use case model...");
       useCaseModel = modelFactory.createUseCase();
+      newModels.add(useCaseModel);
       useCaseModel.setName(need.getTitle());
       useCaseModel.setUserID(need.getId());
       // Set description from content field
@@ -154,124 +206,75 @@ public class UseCaseDiagramBuilder {
       setUseCaseStatus(useCaseModel, need.getStatus());
       // Set priority if available and valid
       setUseCasePriority(useCaseModel, need.getPriority());
-      System.out.println("DEBUG: Created new model with VP ID: " + useCaseModel.getId());
-      System.out.println("Created new use case model: " + need.getId() + " - " + need.getTitle());
     }
 
     // Create the diagram element (auxiliary view for reused models)
     IDiagramElement useCaseElement = diagramManager.createDiagramElement(diagram, useCaseModel);
 
     // Set position and size
-    int width = 120;
-    int height = 60;
-    if (position != null) {
-      useCaseElement.setBounds(position.x, position.y, width, height);
+    if (bounds != null) {
+      useCaseElement.setBounds(bounds.x, bounds.y, bounds.width, bounds.height);
     }
 
     // Store for relationship creation
     createdElements.put(need.getId(), useCaseElement);
     createdModels.put(need.getId(), useCaseModel);
 
-    if (isReusedModel) {
-      System.out.println(
-          "Added auxiliary view for use case: " + need.getId() + " - " + need.getTitle());
-    } else {
-      System.out.println("Created use case: " + need.getId() + " - " + need.getTitle());
-    }
+    logCreated("use case", need, isReusedModel);
   }
 
   /** Create an actor element in the diagram. */
-  private void createActorElement(IDiagramUIModel diagram, NeedsFile.Need need, Point position)
+  private void createActorElement(
+      IDiagramUIModel diagram, NeedsFile.Need need, Rectangle bounds, IActor existing)
       throws Exception {
-    System.out.println("=== DEBUG: Creating actor element ===");
-    System.out.println("Need ID: " + need.getId());
-    System.out.println("Need Title: " + need.getTitle());
-    System.out.println("Need VP Model ID: " + need.getVpModelId());
-
-    IActor actorModel = null;
-    boolean isReusedModel = false;
-
-    // Check if model already exists using Visual Paradigm model ID
-    if (need.getVpModelId() != null && !need.getVpModelId().trim().isEmpty()) {
-      System.out.println("DEBUG: Looking for existing actor with VP ID: " + need.getVpModelId());
-      actorModel = modelLookup.findModelById(need.getVpModelId(), IActor.class);
-      if (actorModel != null) {
-        isReusedModel = true;
-        System.out.println(
-            "DEBUG: ✓ Found existing actor! Name: "
-                + actorModel.getName()
-                + ", ID: "
-                + actorModel.getId());
-        System.out.println(
-            "Reusing existing actor model: " + need.getId() + " - " + need.getTitle());
-      } else {
-        System.out.println("DEBUG: ✗ No existing actor found with VP ID: " + need.getVpModelId());
-      }
-    } else {
-      System.out.println("DEBUG: No VP Model ID provided, will create new actor");
-    }
+    log.debug(
+        () ->
+            "Creating actor element - ID: "
+                + need.getId()
+                + ", Title: "
+                + need.getTitle()
+                + ", VP Model ID: "
+                + need.getVpModelId());
+
+    IActor actorModel = existing;
+    boolean isReusedModel = existing != null;
 
     // Create new model if not found
     if (actorModel == null) {
-      System.out.println("DEBUG: Creating new actor model...");
       actorModel = modelFactory.createActor();
+      newModels.add(actorModel);
       actorModel.setName(need.getTitle());
       actorModel.setUserID(need.getId());
       // Set description from content field
       setElementDescription(actorModel, need.getContent());
-      System.out.println("DEBUG: Created new actor with VP ID: " + actorModel.getId());
-      System.out.println("Created new actor model: " + need.getId() + " - " + need.getTitle());
     }
 
     // Create the diagram element (auxiliary view for reused models)
     IDiagramElement actorElement = diagramManager.createDiagramElement(diagram, actorModel);
 
     // Set position and size
-    int width = 60;
-    int height = 80;
-    if (position != null) {
-      actorElement.setBounds(position.x, position.y, width, height);
+    if (bounds != null) {
+      actorElement.setBounds(bounds.x, bounds.y, bounds.width, bounds.height);
     }
 
     // Store for relationship creation
     createdElements.put(need.getId(), actorElement);
     createdModels.put(need.getId(), actorModel);
 
-    if (isReusedModel) {
-      System.out.println(
-          "Added auxiliary view for actor: " + need.getId() + " - " + need.getTitle());
-    } else {
-      System.out.println("Created actor: " + need.getId() + " - " + need.getTitle());
-    }
+    logCreated("actor", need, isReusedModel);
   }
 
   /** Create requirement element and add to diagram. */
   private void createRequirementElement(
-      IDiagramUIModel diagram, NeedsFile.Need need, Point position) throws Exception {
-    IModelElement requirementModel = null;
-    boolean isReusedModel = false;
-
-    // Check if we should reuse existing model
-    if (need.getVpModelId() != null && !need.getVpModelId().trim().isEmpty()) {
-      System.out.println(
-          "DEBUG: Looking for existing requirement with VP ID: " + need.getVpModelId());
-      requirementModel = modelLookup.findModelById(need.getVpModelId());
-      if (requirementModel != null) {
-        isReusedModel = true;
-        System.out.println(
-            "Reusing existing requirement model: " + need.getId() + " - " + need.getTitle());
-      } else {
-        System.out.println(
-            "DEBUG: ✗ No existing requirement found with VP ID: " + need.getVpModelId());
-      }
-    } else {
-      System.out.println("DEBUG: No VP Model ID provided, will create new requirement");
-    }
+      IDiagramUIModel diagram, NeedsFile.Need need, Rectangle bounds, IModelElement existing)
+      throws Exception {
+    IModelElement requirementModel = existing;
+    boolean isReusedModel = existing != null;
 
     // Create new model if not found
     if (requirementModel == null) {
-      System.out.println("DEBUG: Creating new requirement model...");
       requirementModel = modelFactory.createRequirement();
+      newModels.add(requirementModel);
 
       // Set basic properties using reflection
       setElementProperty(requirementModel, "setName", need.getTitle());
@@ -280,9 +283,6 @@ public class UseCaseDiagramBuilder {
 
       // Set requirement-specific properties
       setRequirementProperties(requirementModel, need);
-
-      System.out.println(
-          "Created new requirement model: " + need.getId() + " - " + need.getTitle());
     }
 
     // Create the diagram element
@@ -290,22 +290,27 @@ public class UseCaseDiagramBuilder {
         diagramManager.createDiagramElement(diagram, requirementModel);
 
     // Set position and size
-    int width = 120;
-    int height = 60;
-    if (position != null) {
-      requirementElement.setBounds(position.x, position.y, width, height);
+    if (bounds != null) {
+      requirementElement.setBounds(bounds.x, bounds.y, bounds.width, bounds.height);
     }
 
     // Store for relationship creation
     createdElements.put(need.getId(), requirementElement);
     createdModels.put(need.getId(), requirementModel);
 
-    if (isReusedModel) {
-      System.out.println(
-          "Added auxiliary view for requirement: " + need.getId() + " - " + need.getTitle());
-    } else {
-      System.out.println("Created requirement: " + need.getId() + " - " + need.getTitle());
-    }
+    logCreated("requirement", need, isReusedModel);
+  }
+
+  /** Log the creation of an element, distinguishing new models from auxiliary views. */
+  private void logCreated(String kind, NeedsFile.Need need, boolean reused) {
+    log.debug(
+        () ->
+            (reused ? "Added auxiliary view for " : "Created ")
+                + kind
+                + ": "
+                + need.getId()
+                + " - "
+                + need.getTitle());
   }
 
   /** Create include relationships. */
@@ -380,8 +385,8 @@ public class UseCaseDiagramBuilder {
         || targetElement == null
         || sourceModel == null
         || targetModel == null) {
-      System.err.println(
-          "Warning: Cannot create include relationship from "
+      log.warn(
+          "Cannot create include relationship from "
               + sourceId
               + " to "
               + targetId
@@ -391,6 +396,7 @@ public class UseCaseDiagramBuilder {
 
     // Create include model
     IInclude includeModel = modelFactory.createInclude();
+    newModels.add(includeModel);
     includeModel.setFrom(sourceModel);
     includeModel.setTo(targetModel);
 
@@ -412,8 +418,8 @@ public class UseCaseDiagramBuilder {
         || targetElement == null
         || sourceModel == null
         || targetModel == null) {
-      System.err.println(
-          "Warning: Cannot create extend relationship from "
+      log.warn(
+          "Cannot create extend relationship from "
               + sourceId
               + " to "
               + targetId
@@ -423,6 +429,7 @@ public class UseCaseDiagramBuilder {
 
     // Create extend model
     IExtend extendModel = modelFactory.createExtend();
+    newModels.add(extendModel);
     extendModel.setFrom(sourceModel);
     extendModel.setTo(targetModel);
 
@@ -444,8 +451,8 @@ public class UseCaseDiagramBuilder {
         || targetElement == null
         || sourceModel == null
         || targetModel == null) {
-      System.err.println(
-          "Warning: Cannot create association relationship from "
+      log.warn(
+          "Cannot create association relationship from "
               + sourceId
               + " to "
               + targetId
@@ -455,6 +462,7 @@ public class UseCaseDiagramBuilder {
 
     // Create association model
     IAssociation associationModel = modelFactory.createAssociation();
+    newModels.add(associationModel);
     associationModel.setFrom(sourceModel);
     associationModel.setTo(targetModel);
 
@@ -464,34 +472,9 @@ public class UseCaseDiagramBuilder {
     return true;
   }
 
-  /** Parse relationship target IDs from comma-separated string. */
-  private Set<String> parseRelationshipTargets(String relationshipString) {
-    Set<String> targets = new HashSet<>();
-    if (relationshipString != null && !relationshipString.trim().isEmpty()) {
-      String[] parts = relationshipString.split(",");
-      for (String part : parts) {
-        String trimmed = part.trim();
-        if (!trimmed.isEmpty()) {
-          targets.add(trimmed);
-        }
-      }
-    }
-    return targets;
-  }
-
-  /** Check if a need represents a use case. */
-  private boolean isUseCaseNeed(NeedsFile.Need need) {
-    return "uc".equals(need.getType()) || "UseCase".equals(need.getElementType());
-  }
-
-  /** Check if a need represents an actor. */
-  private boolean isActorNeed(NeedsFile.Need need) {
-    return "act".equals(need.getType()) || "Actor".equals(need.getElementType());
-  }
-
-  /** Check if a need represents a requirement. */
-  private boolean isRequirementNeed(NeedsFile.Need need) {
-    return "req".equals(need.getType()) || "Requirement".equals(need.getElementType());
+  /** Size of a possibly null link list. */
+  private static int sizeOf(List<String> links) {
+    return links != null ? links.size() : 0;
   }
 
   /** Set use case status if valid. */
@@ -507,8 +490,7 @@ public class UseCaseDiagramBuilder {
         useCaseModel.setStatus(vpStatus);
       }
     } catch (Exception e) {
-      System.err.println(
-          "Warning: Could not set status '" + status + "' for use case: " + e.getMessage());
+      log.warn("Could not set status '" + status + "' for use case: " + e.getMessage());
     }
   }
 
@@ -528,8 +510,7 @@ public class UseCaseDiagramBuilder {
         setUcRankMethod.invoke(useCaseModel, vpRank);
       }
     } catch (Exception e) {
-      System.err.println(
-          "Warning: Could not set priority '" + priority + "' for use case: " + e.getMessage());
+      log.warn("Could not set priority '" + priority + "' for use case: " + e.getMessage());
     }
   }
 
@@ -576,7 +557,7 @@ public class UseCaseDiagramBuilder {
           element.getClass().getMethod("setDescription", String.class);
       setDescriptionMethod.invoke(element, description != null ? description : "");
     } catch (Exception e) {
-      System.err.println("Error setting element description: " + e.getMessage());
+      log.warn("Error setting element description: " + e.getMessage());
     }
   }
 
@@ -586,7 +567,7 @@ public class UseCaseDiagramBuilder {
       java.lang.reflect.Method method = element.getClass().getMethod(methodName, String.class);
       method.invoke(element, value != null ? value : "");
     } catch (Exception e) {
-      System.err.println("Error setting element property " + methodName + ": " + e.getMessage());
+      log.warn("Error setting element property " + methodName + ": " + e.getMessage());
     }
   }
 
@@ -621,7 +602,7 @@ public class UseCaseDiagramBuilder {
         setReqPriorityMethod.invoke(requirement, priorityValue);
       }
     } catch (Exception e) {
-      System.err.println("Error setting requirement priority: " + e.getMessage());
+      log.warn("Error setting requirement priority: " + e.getMessage());
     }
   }
 
@@ -632,7 +613,7 @@ public class UseCaseDiagramBuilder {
           requirement.getClass().getMethod("setStatus", String.class);
       setStatusMethod.invoke(requirement, status);
     } catch (Exception e) {
-      System.err.println("Error setting requirement status: " + e.getMessage());
+      log.warn("Error setting requirement status: " + e.getMessage());
     }
   }
 
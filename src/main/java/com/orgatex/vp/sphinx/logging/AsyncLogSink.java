@@ -0,0 +1,157 @@
+package com.orgatex.vp.sphinx.logging;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Bounded ring buffer that decouples log producers from console I/O.
+ *
+ * <p>Producers only copy a reference into the ring under a short lock and never wait for the
+ * console. A single daemon thread drains the ring and writes to {@code System.out} (TRACE to INFO)
+ * or {@code System.err} (WARN and ERROR). When the ring is full new events are dropped and counted,
+ * and the drop count is reported once space is available again.
+ */
+final class AsyncLogSink {
+
+  static final int DEFAULT_CAPACITY = 8192;
+
+  private static final DateTimeFormatter TIME_FORMAT =
+      DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+  private final LogEvent[] ring;
+  private final Object lock = new Object();
+  private int head;
+  private int size;
+  private long dropped;
+  private boolean running = true;
+  private final Thread drainThread;
+
+  AsyncLogSink(int capacity) {
+    this.ring = new LogEvent[capacity];
+    this.drainThread = new Thread(this::drainLoop, "sphinx-needs-log-sink");
+    this.drainThread.setDaemon(true);
+    this.drainThread.start();
+  }
+
+  /**
+   * Enqueue an event without blocking on I/O.
+   *
+   * @param event the event to publish
+   * @return false if the ring was full and the event was dropped
+   */
+  boolean publish(LogEvent event) {
+    synchronized (lock) {
+      if (!running || size == ring.length) {
+        dropped++;
+        return false;
+      }
+      ring[(head + size) % ring.length] = event;
+      size++;
+      if (size == 1) {
+        lock.notifyAll();
+      }
+      return true;
+    }
+  }
+
+  /** Number of events waiting to be written. */
+  int pending() {
+    synchronized (lock) {
+      return size;
+    }
+  }
+
+  /**
+   * Wait until every event published so far has been written.
+   *
+   * @param timeoutMillis maximum time to wait
+   */
+  void flush(long timeoutMillis) {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    synchronized (lock) {
+      while (size > 0) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return;
+        }
+        try {
+          lock.wait(remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /** Drain remaining events and stop the sink thread. */
+  void shutdown() {
+    flush(2000);
+    synchronized (lock) {
+      running = false;
+      lock.notifyAll();
+    }
+  }
+
+  private void drainLoop() {
+    LogEvent[] batch = new LogEvent[256];
+    while (true) {
+      int count;
+      long droppedSinceLastBatch;
+      synchronized (lock) {
+        while (size == 0 && running) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+        if (size == 0) {
+          return;
+        }
+        count = Math.min(size, batch.length);
+        for (int i = 0; i < count; i++) {
+          batch[i] = ring[head];
+          ring[head] = null;
+          head = (head + 1) % ring.length;
+        }
+        size -= count;
+        droppedSinceLastBatch = dropped;
+        dropped = 0;
+        lock.notifyAll();
+      }
+
+      if (droppedSinceLastBatch > 0) {
+        System.err.println(
+            "WARN  [sphinx-needs-log-sink] "
+                + droppedSinceLastBatch
+                + " log events dropped because the log buffer was full");
+      }
+      for (int i = 0; i < count; i++) {
+        write(batch[i]);
+        batch[i] = null;
+      }
+    }
+  }
+
+  private static void write(LogEvent event) {
+    PrintStream out = event.level.compareTo(LogLevel.WARN) >= 0 ? System.err : System.out;
+    StringBuilder line = new StringBuilder(64 + event.message.length());
+    line.append(TIME_FORMAT.format(Instant.ofEpochMilli(event.timestampMillis)))
+        .append(' ')
+        .append(String.format("%-5s", event.level))
+        .append(" [")
+        .append(event.threadName)
+        .append("] ")
+        .append(event.loggerName)
+        .append(" - ")
+        .append(event.message);
+    out.println(line);
+    if (event.thrown != null) {
+      event.thrown.printStackTrace(out);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.orgatex.vp.sphinx.logging;
+
+/**
+ * Immutable log record captured on the calling thread and rendered later by {@link AsyncLogSink}.
+ *
+ * <p>The message is already materialized when the event is created, because suppliers usually
+ * read Visual Paradigm model state that must not be touched from the sink thread.
+ */
+final class LogEvent {
+
+  final long timestampMillis;
+  final LogLevel level;
+  final String loggerName;
+  final String threadName;
+  final String message;
+  final Throwable thrown;
+
+  LogEvent(LogLevel level, String loggerName, String message, Throwable thrown) {
+    this.timestampMillis = System.currentTimeMillis();
+    this.level = level;
+    this.loggerName = loggerName;
+    this.threadName = Thread.currentThread().getName();
+    this.message = message;
+    this.thrown = thrown;
+  }
+}
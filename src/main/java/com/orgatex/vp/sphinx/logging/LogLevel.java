@@ -0,0 +1,29 @@
+package com.orgatex.vp.sphinx.logging;
+
+/** Severity levels understood by {@link PluginLogger}, ordered from most to least verbose. */
+public enum LogLevel {
+  TRACE,
+  DEBUG,
+  INFO,
+  WARN,
+  ERROR,
+  OFF;
+
+  /**
+   * Parse a level name, falling back to the given default for null or unknown values.
+   *
+   * @param name level name, case-insensitive
+   * @param defaultLevel level to use when the name cannot be parsed
+   * @return the parsed level
+   */
+  public static LogLevel parse(String name, LogLevel defaultLevel) {
+    if (name == null || name.trim().isEmpty()) {
+      return defaultLevel;
+    }
+    try {
+      return LogLevel.valueOf(name.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return defaultLevel;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.orgatex.vp.sphinx.logging;
+
+import java.util.function.Supplier;
+
+/**
+ * Plugin-wide logging facade with level gating and lazily built messages.
+ *
+ * <p>Debug messages are passed as {@link Supplier}s so that the string concatenation is never
+ * performed when the level is disabled; the check itself is a single volatile read. Enabled events
+ * are handed to an {@link AsyncLogSink} so that callers on the Visual Paradigm model thread never
+ * wait for console output.
+ *
+ * <p>The threshold defaults to {@code INFO} and can be changed with the system property {@code
+ * vp.sphinx.log.level} or at runtime via {@link #setLevel(LogLevel)}.
+ */
+public final class PluginLogger {
+
+  /** System property used to configure the initial log level. */
+  public static final String LEVEL_PROPERTY = "vp.sphinx.log.level";
+
+  private static volatile int threshold =
+      LogLevel.parse(System.getProperty(LEVEL_PROPERTY), LogLevel.INFO).ordinal();
+
+  private static final AsyncLogSink SINK = new AsyncLogSink(AsyncLogSink.DEFAULT_CAPACITY);
+
+  private final String name;
+
+  private PluginLogger(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Get a logger named after the given class.
+   *
+   * @param type the owning class
+   * @return a logger instance
+   */
+  public static PluginLogger getLogger(Class<?> type) {
+    return new PluginLogger(type.getSimpleName());
+  }
+
+  /**
+   * Change the global log level.
+   *
+   * @param level the new threshold
+   */
+  public static void setLevel(LogLevel level) {
+    threshold = (level != null ? level : LogLevel.INFO).ordinal();
+  }
+
+  /**
+   * Get the global log level.
+   *
+   * @return the current threshold
+   */
+  public static LogLevel getLevel() {
+    return LogLevel.values()[threshold];
+  }
+
+  /**
+   * Wait for queued log events to be written, e.g. before the plugin is unloaded.
+   *
+   * @param timeoutMillis maximum time to wait
+   */
+  public static void flush(long timeoutMillis) {
+    SINK.flush(timeoutMillis);
+  }
+
+  /** Number of log events queued but not yet written to the console. */
+  public static int getPendingEventCount() {
+    return SINK.pending();
+  }
+
+  /** Flush queued events and stop the background sink. */
+  public static void shutdown() {
+    SINK.shutdown();
+  }
+
+  public boolean isEnabled(LogLevel level) {
+    return level.ordinal() >= threshold && level != LogLevel.OFF;
+  }
+
+  public boolean isDebugEnabled() {
+    return isEnabled(LogLevel.DEBUG);
+  }
+
+  public boolean isTraceEnabled() {
+    return isEnabled(LogLevel.TRACE);
+  }
+
+  public void trace(Supplier<String> message) {
+    if (isEnabled(LogLevel.TRACE)) {
+      publish(LogLevel.TRACE, message.get(), null);
+    }
+  }
+
+  public void debug(Supplier<String> message) {
+    if (isEnabled(LogLevel.DEBUG)) {
+      publish(LogLevel.DEBUG, message.get(), null);
+    }
+  }
+
+  public void debug(String message) {
+    if (isEnabled(LogLevel.DEBUG)) {
+      publish(LogLevel.DEBUG, message, null);
+    }
+  }
+
+  public void info(Supplier<String> message) {
+    if (isEnabled(LogLevel.INFO)) {
+      publish(LogLevel.INFO, message.get(), null);
+    }
+  }
+
+  public void info(String message) {
+    if (isEnabled(LogLevel.INFO)) {
+      publish(LogLevel.INFO, message, null);
+    }
+  }
+
+  public void warn(String message) {
+    if (isEnabled(LogLevel.WARN)) {
+      publish(LogLevel.WARN, message, null);
+    }
+  }
+
+  public void warn(String message, Throwable thrown) {
+    if (isEnabled(LogLevel.WARN)) {
+      publish(LogLevel.WARN, message, thrown);
+    }
+  }
+
+  public void error(String message) {
+    if (isEnabled(LogLevel.ERROR)) {
+      publish(LogLevel.ERROR, message, null);
+    }
+  }
+
+  public void error(String message, Throwable thrown) {
+    if (isEnabled(LogLevel.ERROR)) {
+      publish(LogLevel.ERROR, message, thrown);
+    }
+  }
+
+  private void publish(LogLevel level, String message, Throwable thrown) {
+    SINK.publish(new LogEvent(level, name, message != null ? message : "null", thrown));
+  }
+}
@@ -1,30 +1,40 @@
 package com.orgatex.vp.sphinx.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /** Root object for sphinx-needs JSON file format. */
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class NeedsFile {
 
+  /** Version used when an export does not specify one. */
+  public static final String DEFAULT_VERSION = "1.0";
+
   @JsonProperty("created")
   private String created;
 
   @JsonProperty("current_version")
-  private String currentVersion = "1.0";
+  private String currentVersion = DEFAULT_VERSION;
 
   @JsonProperty("project")
   private String project;
 
   @JsonProperty("versions")
-  private Map<String, VersionData> versions = new HashMap<>();
+  private Map<String, VersionData> versions = new TreeMap<>();
 
   public void addVersion(String version, VersionData versionData) {
     versions.put(version, versionData);
@@ -40,7 +50,7 @@ public class NeedsFile {
     private Creator creator;
 
     @JsonProperty("needs")
-    private Map<String, Need> needs = new HashMap<>();
+    private Map<String, Need> needs = new TreeMap<>();
 
     @JsonProperty("needs_amount")
     private int needsAmount;
@@ -129,6 +139,14 @@ public class NeedsFile {
     @JsonProperty("vp_model_id")
     private String vpModelId;
 
+    /** Supplies the content on first access; null once it is bound. */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Supplier<String> contentSource;
+
     public Need(String id, String title, String type) {
       this.id = id;
       this.title = title;
@@ -136,5 +154,32 @@ public class NeedsFile {
     }
 
     public Need() {}
+
+    /** The content, bound now if it was bound lazily. */
+    public String getContent() {
+      Supplier<String> source = contentSource;
+      if (source != null) {
+        content = source.get();
+        contentSource = null;
+      }
+      return content;
+    }
+
+    public void setContent(String content) {
+      this.content = content;
+      this.contentSource = null;
+    }
+
+    /**
+     * Bind the content only when it is first read, such as from the bytes of a needs file that
+     * were validated but not decoded. Like the rest of the model, not thread-safe.
+     *
+     * @param contentSource supplies the content once
+     */
+    @JsonIgnore
+    public void setContentLazily(Supplier<String> contentSource) {
+      this.content = null;
+      this.contentSource = contentSource;
+    }
   }
 }
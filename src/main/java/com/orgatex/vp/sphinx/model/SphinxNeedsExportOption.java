@@ -11,11 +11,32 @@ import com.vp.plugin.diagram.IDiagramUIModel;
  */
 public final class SphinxNeedsExportOption {
 
+  /** How the exported needs are split across files. */
+  public enum ShardMode {
+    /** A single needs file. */
+    NONE,
+    /** One file per need type, e.g. {@code uc}, {@code actor}, {@code req}. */
+    BY_TYPE,
+    /** One file per Visual Paradigm package. */
+    BY_PACKAGE,
+    /** Files of at most {@link #getMaxNeedsPerShard()} needs each. */
+    BY_SIZE
+  }
+
+  /** Default maximum number of needs per file for {@link ShardMode#BY_SIZE}. */
+  public static final int DEFAULT_MAX_NEEDS_PER_SHARD = 1000;
+
   private final IDiagramUIModel[] selectedDiagrams;
   private boolean includeMetadata = true;
   private boolean includeConnections = true;
   private boolean includeActors = true;
   private boolean includeUseCases = true;
+  private boolean validateInBackground = false;
+  private boolean appendToExisting = false;
+  private boolean captureLayout = false;
+  private String version = NeedsFile.DEFAULT_VERSION;
+  private ShardMode shardMode = ShardMode.NONE;
+  private int maxNeedsPerShard = DEFAULT_MAX_NEEDS_PER_SHARD;
   private String outputFormat = "json";
 
   private SphinxNeedsExportOption(IDiagramUIModel[] diagrams) {
@@ -129,6 +150,121 @@ public final class SphinxNeedsExportOption {
     this.includeUseCases = includeUseCases;
   }
 
+  /**
+   * Check if schema validation should run in the background after the file is written.
+   *
+   * @return true if validation should not delay the write
+   */
+  public boolean isValidateInBackground() {
+    return validateInBackground;
+  }
+
+  /**
+   * Set whether schema validation should run in the background after the file is written.
+   *
+   * @param validateInBackground true to write first and validate asynchronously
+   */
+  public void setValidateInBackground(boolean validateInBackground) {
+    this.validateInBackground = validateInBackground;
+  }
+
+  /**
+   * Check if the export should be added as a new version to an existing output file.
+   *
+   * @return true to append instead of overwriting
+   */
+  public boolean isAppendToExisting() {
+    return appendToExisting;
+  }
+
+  /**
+   * Set whether the export should be added as a new version to an existing output file. Earlier
+   * versions in the file are kept; a version with the same name is replaced.
+   *
+   * @param appendToExisting true to append instead of overwriting
+   */
+  public void setAppendToExisting(boolean appendToExisting) {
+    this.appendToExisting = appendToExisting;
+  }
+
+  /**
+   * Check if the shape bounds of the exported needs should be saved next to the output file.
+   *
+   * @return true to write a layout file
+   */
+  public boolean isCaptureLayout() {
+    return captureLayout;
+  }
+
+  /**
+   * Set whether the shape bounds of the exported needs should be saved next to the output file, so
+   * that an import of the file restores the diagram layout instead of computing a new one.
+   *
+   * @param captureLayout true to write a layout file
+   */
+  public void setCaptureLayout(boolean captureLayout) {
+    this.captureLayout = captureLayout;
+  }
+
+  /**
+   * Get the version under which the needs are exported.
+   *
+   * @return the version, "1.0" by default
+   */
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * Set the version under which the needs are exported; it becomes the file's current version.
+   *
+   * @param version the version, e.g. a release number
+   */
+  public void setVersion(String version) {
+    this.version =
+        version != null && !version.isBlank() ? version.trim() : NeedsFile.DEFAULT_VERSION;
+  }
+
+  /**
+   * Get how the exported needs are split across files.
+   *
+   * @return the shard mode, {@link ShardMode#NONE} by default
+   */
+  public ShardMode getShardMode() {
+    return shardMode;
+  }
+
+  /**
+   * Set how the exported needs are split across files. With any mode other than {@link
+   * ShardMode#NONE} the output file becomes an index listing the shard files.
+   *
+   * @param shardMode the shard mode
+   */
+  public void setShardMode(ShardMode shardMode) {
+    this.shardMode = shardMode != null ? shardMode : ShardMode.NONE;
+  }
+
+  /**
+   * Get the maximum number of needs per file for {@link ShardMode#BY_SIZE}.
+   *
+   * @return the maximum number of needs per shard
+   */
+  public int getMaxNeedsPerShard() {
+    return maxNeedsPerShard;
+  }
+
+  /**
+   * Set the maximum number of needs per file for {@link ShardMode#BY_SIZE}.
+   *
+   * @param maxNeedsPerShard the maximum number of needs per shard, at least 1
+   */
+  public void setMaxNeedsPerShard(int maxNeedsPerShard) {
+    if (maxNeedsPerShard < 1) {
+      throw new IllegalArgumentException("Shard size must be at least 1");
+    }
+    this.maxNeedsPerShard = maxNeedsPerShard;
+  }
+
   /**
    * Get the output format.
    *
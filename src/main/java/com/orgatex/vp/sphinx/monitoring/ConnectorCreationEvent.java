@@ -0,0 +1,29 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Creation of relationship models and connectors for imported needs. */
+@Name("com.orgatex.vp.sphinx.ConnectorCreation")
+@Label("Connector Creation")
+@Category({"Visual Paradigm", "Sphinx-Needs", "Import"})
+@Description("Creation of relationship models and connectors for imported needs.")
+@StackTrace(false)
+public class ConnectorCreationEvent extends Event {
+
+  @Label("Diagram Name")
+  public String diagramName;
+
+  @Label("Need Count")
+  public int needCount;
+
+  @Label("Connector Count")
+  public int connectorCount;
+
+  @Label("Unresolved Link Count")
+  public int unresolvedCount;
+}
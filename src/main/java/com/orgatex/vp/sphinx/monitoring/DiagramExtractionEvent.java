@@ -0,0 +1,26 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Extraction of needs from the project for a single exported diagram. */
+@Name("com.orgatex.vp.sphinx.DiagramExtraction")
+@Label("Diagram Extraction")
+@Category({"Visual Paradigm", "Sphinx-Needs", "Export"})
+@Description("Extraction of needs from the project for a single exported diagram.")
+@StackTrace(false)
+public class DiagramExtractionEvent extends Event {
+
+  @Label("Diagram Name")
+  public String diagramName;
+
+  @Label("Need Count")
+  public int needCount;
+
+  @Label("Link Count")
+  public int linkCount;
+}
@@ -0,0 +1,32 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Complete export of one or more diagrams to a needs.json file. */
+@Name("com.orgatex.vp.sphinx.ExportJob")
+@Label("Export Job")
+@Category({"Visual Paradigm", "Sphinx-Needs", "Export"})
+@Description("Complete export of one or more diagrams to a needs.json file.")
+public class ExportJobEvent extends Event {
+
+  @Label("Output File")
+  public String outputFile;
+
+  @Label("Diagram Count")
+  public int diagramCount;
+
+  @Label("Need Count")
+  public int needCount;
+
+  @Label("Bytes Written")
+  @DataAmount(DataAmount.BYTES)
+  public long bytesWritten;
+
+  @Label("Succeeded")
+  public boolean succeeded;
+}
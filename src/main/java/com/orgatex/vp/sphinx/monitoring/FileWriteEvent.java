@@ -0,0 +1,28 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Serialization of a needs file to disk. */
+@Name("com.orgatex.vp.sphinx.FileWrite")
+@Label("File Write")
+@Category({"Visual Paradigm", "Sphinx-Needs", "IO"})
+@Description("Serialization of a needs file to disk.")
+@StackTrace(false)
+public class FileWriteEvent extends Event {
+
+  @Label("Path")
+  public String path;
+
+  @Label("Need Count")
+  public int needCount;
+
+  @Label("Bytes Written")
+  @DataAmount(DataAmount.BYTES)
+  public long bytesWritten;
+}
@@ -0,0 +1,34 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Parsing of a needs.json file during import. */
+@Name("com.orgatex.vp.sphinx.JsonParse")
+@Label("JSON Parse")
+@Category({"Visual Paradigm", "Sphinx-Needs", "Import"})
+@Description("Parsing of a needs.json file during import.")
+@StackTrace(false)
+public class JsonParseEvent extends Event {
+
+  @Label("Path")
+  public String path;
+
+  @Label("Need Count")
+  public int needCount;
+
+  @Label("Bytes Read")
+  @DataAmount(DataAmount.BYTES)
+  public long bytesRead;
+
+  @Label("Throughput")
+  @DataAmount(DataAmount.BYTES)
+  @Frequency
+  public long bytesPerSecond;
+}
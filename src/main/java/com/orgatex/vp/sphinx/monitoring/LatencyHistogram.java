@@ -0,0 +1,74 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ *
+ * <p>Bucket {@code i} counts samples below {@code 2^i} microseconds, so percentiles are reported
+ * with at most a factor-two error, which is enough to spot latency drift over a long session.
+ */
+final class LatencyHistogram {
+
+  private static final int BUCKETS = 40;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  void record(long nanos) {
+    long micros = Math.max(0, nanos / 1000);
+    int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    buckets.incrementAndGet(bucket);
+    totalNanos.addAndGet(nanos);
+    maxNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    totalNanos.set(0);
+    maxNanos.set(0);
+  }
+
+  long getTotalNanos() {
+    return totalNanos.get();
+  }
+
+  LatencySnapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long samples = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = buckets.get(i);
+      samples += copy[i];
+    }
+    long total = totalNanos.get();
+    double max = maxNanos.get() / 1_000_000.0;
+    // Bucket bounds overshoot by up to 2x; never report a percentile above the observed maximum
+    return new LatencySnapshot(
+        samples,
+        samples > 0 ? total / 1_000_000.0 / samples : 0,
+        Math.min(max, percentile(copy, samples, 0.50)),
+        Math.min(max, percentile(copy, samples, 0.95)),
+        Math.min(max, percentile(copy, samples, 0.99)),
+        max);
+  }
+
+  /** Upper bound of the bucket holding the given percentile, in milliseconds. */
+  private static double percentile(long[] copy, long samples, double fraction) {
+    if (samples == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(samples * fraction);
+    long seen = 0;
+    for (int i = 0; i < copy.length; i++) {
+      seen += copy[i];
+      if (seen >= rank) {
+        return (1L << i) / 1000.0;
+      }
+    }
+    return (1L << (copy.length - 1)) / 1000.0;
+  }
+}
@@ -0,0 +1,26 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Search for an existing Visual Paradigm model by its model ID. */
+@Name("com.orgatex.vp.sphinx.ModelLookup")
+@Label("Model Lookup")
+@Category({"Visual Paradigm", "Sphinx-Needs", "Import"})
+@Description("Search for an existing Visual Paradigm model by its model ID.")
+@StackTrace(false)
+public class ModelLookupEvent extends Event {
+
+  @Label("Model ID")
+  public String modelId;
+
+  @Label("Elements Scanned")
+  public int elementsScanned;
+
+  @Label("Found")
+  public boolean found;
+}
@@ -0,0 +1,304 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide performance counters for the plugin, exposed over JMX.
+ *
+ * <p>Call sites record into the shared {@link #getInstance() instance}; recording is lock-free and
+ * cheap enough for per-lookup use. The MXBean is registered from {@code VPSphinxPlugin.loaded} and
+ * removed again when the plugin is unloaded.
+ */
+public final class PluginMetrics implements PluginMetricsMXBean {
+
+  /** JMX object name under which the metrics are registered. */
+  public static final String OBJECT_NAME = "com.orgatex.vp.sphinx:type=PluginMetrics";
+
+  private static final PluginMetrics INSTANCE = new PluginMetrics();
+
+  private final AtomicLong statisticsSince = new AtomicLong(System.currentTimeMillis());
+
+  private final LongAdder exportCount = new LongAdder();
+  private final LongAdder exportFailureCount = new LongAdder();
+  private final LongAdder importCount = new LongAdder();
+  private final LongAdder importFailureCount = new LongAdder();
+  private final LongAdder needsExported = new LongAdder();
+  private final LongAdder needsImported = new LongAdder();
+  private final LongAdder bytesWritten = new LongAdder();
+  private final LongAdder bytesRead = new LongAdder();
+  private final LongAdder unchangedWrites = new LongAdder();
+  private final LongAdder validationCacheHits = new LongAdder();
+  private final LongAdder parseCacheHits = new LongAdder();
+  private final LongAdder lookupHits = new LongAdder();
+  private final LongAdder lookupMisses = new LongAdder();
+
+  private final LatencyHistogram exportLatency = new LatencyHistogram();
+  private final LatencyHistogram importLatency = new LatencyHistogram();
+  private final LatencyHistogram parseLatency = new LatencyHistogram();
+  private final LatencyHistogram validationLatency = new LatencyHistogram();
+  private final LatencyHistogram lookupLatency = new LatencyHistogram();
+
+  private final Map<String, LongSupplier> caches = new ConcurrentHashMap<>();
+
+  private PluginMetrics() {}
+
+  public static PluginMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Register the metrics MXBean with the platform MBean server. Registering twice is harmless.
+   *
+   * @throws Exception if JMX registration fails
+   */
+  public static void register() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (!server.isRegistered(name)) {
+      server.registerMBean(INSTANCE, name);
+    }
+  }
+
+  /**
+   * Remove the metrics MXBean from the platform MBean server if it is registered.
+   *
+   * @throws Exception if JMX unregistration fails
+   */
+  public static void unregister() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+  }
+
+  /**
+   * Expose the live size of a cache or buffer under the given name.
+   *
+   * @param name display name of the cache
+   * @param size supplier of the current entry count
+   */
+  public void registerCache(String name, LongSupplier size) {
+    caches.put(name, size);
+  }
+
+  public void recordExport(int needs, long nanos, boolean succeeded) {
+    exportCount.increment();
+    if (succeeded) {
+      needsExported.add(needs);
+    } else {
+      exportFailureCount.increment();
+    }
+    exportLatency.record(nanos);
+  }
+
+  public void recordImport(int needs, long nanos, boolean succeeded) {
+    importCount.increment();
+    if (succeeded) {
+      needsImported.add(needs);
+    } else {
+      importFailureCount.increment();
+    }
+    importLatency.record(nanos);
+  }
+
+  public void recordParse(long bytes, long nanos) {
+    bytesRead.add(bytes);
+    parseLatency.record(nanos);
+  }
+
+  /**
+   * Throughput of reading {@code bytes} in {@code nanos}.
+   *
+   * @return megabytes (10<sup>6</sup> bytes) per second, 0 if no time was measured
+   */
+  public static double megabytesPerSecond(long bytes, long nanos) {
+    return nanos > 0 ? bytes * 1000.0 / nanos : 0;
+  }
+
+  public void recordWrite(long bytes) {
+    bytesWritten.add(bytes);
+  }
+
+  /** Record an export whose output matched the existing file, so it was not rewritten. */
+  public void recordUnchangedWrite() {
+    unchangedWrites.increment();
+  }
+
+  public void recordValidation(long nanos) {
+    validationLatency.record(nanos);
+  }
+
+  public void recordValidationCacheHit() {
+    validationCacheHits.increment();
+  }
+
+  /** Record a needs file that was loaded from the cache instead of being parsed. */
+  public void recordParseCacheHit() {
+    parseCacheHits.increment();
+  }
+
+  public void recordLookup(boolean hit, long nanos) {
+    if (hit) {
+      lookupHits.increment();
+    } else {
+      lookupMisses.increment();
+    }
+    lookupLatency.record(nanos);
+  }
+
+  @Override
+  public long getStatisticsSince() {
+    return statisticsSince.get();
+  }
+
+  @Override
+  public long getExportCount() {
+    return exportCount.sum();
+  }
+
+  @Override
+  public long getExportFailureCount() {
+    return exportFailureCount.sum();
+  }
+
+  @Override
+  public long getImportCount() {
+    return importCount.sum();
+  }
+
+  @Override
+  public long getImportFailureCount() {
+    return importFailureCount.sum();
+  }
+
+  @Override
+  public long getNeedsExported() {
+    return needsExported.sum();
+  }
+
+  @Override
+  public long getNeedsImported() {
+    return needsImported.sum();
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return bytesWritten.sum();
+  }
+
+  @Override
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  @Override
+  public long getUnchangedWriteCount() {
+    return unchangedWrites.sum();
+  }
+
+  @Override
+  public LatencySnapshot getExportLatency() {
+    return exportLatency.snapshot();
+  }
+
+  @Override
+  public LatencySnapshot getImportLatency() {
+    return importLatency.snapshot();
+  }
+
+  @Override
+  public LatencySnapshot getParseLatency() {
+    return parseLatency.snapshot();
+  }
+
+  @Override
+  public double getParseThroughput() {
+    return megabytesPerSecond(bytesRead.sum(), parseLatency.getTotalNanos());
+  }
+
+  @Override
+  public long getValidationCount() {
+    return validationLatency.snapshot().getCount();
+  }
+
+  @Override
+  public long getValidationTimeMillis() {
+    return validationLatency.getTotalNanos() / 1_000_000;
+  }
+
+  @Override
+  public LatencySnapshot getValidationLatency() {
+    return validationLatency.snapshot();
+  }
+
+  @Override
+  public long getValidationCacheHitCount() {
+    return validationCacheHits.sum();
+  }
+
+  @Override
+  public long getParseCacheHitCount() {
+    return parseCacheHits.sum();
+  }
+
+  @Override
+  public long getLookupHitCount() {
+    return lookupHits.sum();
+  }
+
+  @Override
+  public long getLookupMissCount() {
+    return lookupMisses.sum();
+  }
+
+  @Override
+  public double getLookupHitRate() {
+    long hits = lookupHits.sum();
+    long total = hits + lookupMisses.sum();
+    return total > 0 ? (double) hits / total : 0;
+  }
+
+  @Override
+  public LatencySnapshot getLookupLatency() {
+    return lookupLatency.snapshot();
+  }
+
+  @Override
+  public Map<String, Long> getCacheSizes() {
+    Map<String, Long> sizes = new TreeMap<>();
+    caches.forEach((name, size) -> sizes.put(name, size.getAsLong()));
+    return sizes;
+  }
+
+  @Override
+  public void resetStatistics() {
+    exportCount.reset();
+    exportFailureCount.reset();
+    importCount.reset();
+    importFailureCount.reset();
+    needsExported.reset();
+    needsImported.reset();
+    bytesWritten.reset();
+    bytesRead.reset();
+    unchangedWrites.reset();
+    validationCacheHits.reset();
+    parseCacheHits.reset();
+    lookupHits.reset();
+    lookupMisses.reset();
+    exportLatency.reset();
+    importLatency.reset();
+    parseLatency.reset();
+    validationLatency.reset();
+    lookupLatency.reset();
+    statisticsSince.set(System.currentTimeMillis());
+  }
+}
@@ -0,0 +1,70 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import java.util.Map;
+
+/**
+ * JMX view of the plugin's runtime statistics, registered as {@value PluginMetrics#OBJECT_NAME}.
+ *
+ * <p>All counters accumulate from the moment the plugin is loaded until {@link #resetStatistics()}
+ * is invoked.
+ */
+public interface PluginMetricsMXBean {
+
+  /** Time the counters were started or last reset, in epoch milliseconds. */
+  long getStatisticsSince();
+
+  long getExportCount();
+
+  long getExportFailureCount();
+
+  long getImportCount();
+
+  long getImportFailureCount();
+
+  long getNeedsExported();
+
+  long getNeedsImported();
+
+  long getBytesWritten();
+
+  long getBytesRead();
+
+  /** Exports skipped because the existing file already had the same content. */
+  long getUnchangedWriteCount();
+
+  LatencySnapshot getExportLatency();
+
+  LatencySnapshot getImportLatency();
+
+  LatencySnapshot getParseLatency();
+
+  /** Average throughput of parsing needs files in MB/s, over all bytes read. */
+  double getParseThroughput();
+
+  long getValidationCount();
+
+  long getValidationTimeMillis();
+
+  LatencySnapshot getValidationLatency();
+
+  /** Number of exports whose content was already validated and skipped validation. */
+  long getValidationCacheHitCount();
+
+  /** Number of needs files loaded from the cache without parsing. */
+  long getParseCacheHitCount();
+
+  long getLookupHitCount();
+
+  long getLookupMissCount();
+
+  /** Fraction of model lookups that found an existing model, between 0 and 1. */
+  double getLookupHitRate();
+
+  LatencySnapshot getLookupLatency();
+
+  /** Current number of entries in each registered cache or buffer, keyed by cache name. */
+  Map<String, Long> getCacheSizes();
+
+  /** Reset all counters and histograms; cache sizes are live values and are not affected. */
+  void resetStatistics();
+}
@@ -0,0 +1,26 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Scan of all project diagrams for relationships between needs. */
+@Name("com.orgatex.vp.sphinx.RelationshipExtraction")
+@Label("Relationship Extraction")
+@Category({"Visual Paradigm", "Sphinx-Needs", "Export"})
+@Description("Scan of all project diagrams for relationships between needs.")
+@StackTrace(false)
+public class RelationshipExtractionEvent extends Event {
+
+  @Label("Diagram Count")
+  public int diagramCount;
+
+  @Label("Elements Scanned")
+  public int elementsScanned;
+
+  @Label("Relationship Count")
+  public int relationshipCount;
+}
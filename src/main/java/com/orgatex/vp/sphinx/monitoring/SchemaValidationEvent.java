@@ -0,0 +1,31 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Validation of a needs file against the bundled sphinx-needs schema. */
+@Name("com.orgatex.vp.sphinx.SchemaValidation")
+@Label("Schema Validation")
+@Category({"Visual Paradigm", "Sphinx-Needs", "Validation"})
+@Description("Validation of a needs file against the bundled sphinx-needs schema.")
+@StackTrace(false)
+public class SchemaValidationEvent extends Event {
+
+  @Label("Validator")
+  public String validator;
+
+  @Label("Need Count")
+  public int needCount;
+
+  @Label("Violation Count")
+  public int violationCount;
+
+  @Label("Input Size")
+  @DataAmount(DataAmount.BYTES)
+  public long inputBytes;
+}
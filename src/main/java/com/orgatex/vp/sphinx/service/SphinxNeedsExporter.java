@@ -1,15 +1,31 @@
 package com.orgatex.vp.sphinx.service;
 
+import com.orgatex.vp.sphinx.extractor.LayoutExtractor;
 import com.orgatex.vp.sphinx.extractor.NeedsFileBuilder;
+import com.orgatex.vp.sphinx.extractor.VpModelProcessor;
 import com.orgatex.vp.sphinx.generator.JsonExporter;
+import com.orgatex.vp.sphinx.generator.LayoutSidecar;
+import com.orgatex.vp.sphinx.generator.NeedsFileSharder;
+import com.orgatex.vp.sphinx.generator.ValidationResult;
 import com.orgatex.vp.sphinx.model.NeedsFile;
 import com.orgatex.vp.sphinx.model.SphinxNeedsExportOption;
+import com.orgatex.vp.sphinx.monitoring.DiagramExtractionEvent;
+import com.orgatex.vp.sphinx.monitoring.ExportJobEvent;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
 import com.vp.plugin.ApplicationManager;
 import com.vp.plugin.ViewManager;
 import com.vp.plugin.diagram.IDiagramUIModel;
+import com.vp.plugin.model.IModelElement;
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.SwingUtilities;
 
 /**
  * Service class for exporting diagrams to Sphinx-Needs JSON format.
@@ -20,6 +36,7 @@ import java.util.Map;
 public class SphinxNeedsExporter {
 
   private static final String STATUS_MESSAGE_ID = "sphinx_needs_export";
+  private static final String VALIDATION_MESSAGE_ID = "sphinx_needs_validation";
 
   private final ViewManager viewManager;
 
@@ -30,12 +47,24 @@ public class SphinxNeedsExporter {
   /**
    * Export diagrams according to the provided export option.
    *
+   * <p>Schema violations never fail the export. They are reported in the Visual Paradigm message
+   * pane, one message per violation prefixed with the id of the need it belongs to. With {@link
+   * SphinxNeedsExportOption#isValidateInBackground()} the file is written first and the returned
+   * future completes once background validation has finished. With {@link
+   * SphinxNeedsExportOption#isAppendToExisting()} the needs are added as a new version to the
+   * output file instead of replacing it. With a {@link SphinxNeedsExportOption#getShardMode() shard
+   * mode} the needs are written to several files and the output file becomes their index. With
+   * {@link SphinxNeedsExportOption#isCaptureLayout()} the shape bounds of the exported needs are
+   * saved in a {@link LayoutSidecar layout file} next to the output file.
+   *
    * @param option the export configuration
    * @param outputFile the target output file
+   * @return future completed with the schema validation result of the written file
    * @throws IOException if file operations fail
    * @throws IllegalArgumentException if invalid parameters are provided
    */
-  public void export(SphinxNeedsExportOption option, File outputFile) throws IOException {
+  public CompletableFuture<ValidationResult> export(SphinxNeedsExportOption option, File outputFile)
+      throws IOException {
     if (option == null) {
       throw new IllegalArgumentException("Export option cannot be null");
     }
@@ -48,6 +77,12 @@ public class SphinxNeedsExporter {
       throw new IllegalArgumentException("No diagrams selected for export");
     }
 
+    ExportJobEvent jobEvent = new ExportJobEvent();
+    jobEvent.begin();
+    jobEvent.outputFile = outputFile.getAbsolutePath();
+    jobEvent.diagramCount = diagrams.length;
+    long start = System.nanoTime();
+
     try {
       showStatus("Starting Sphinx-Needs export...");
 
@@ -70,23 +105,166 @@ public class SphinxNeedsExporter {
       }
 
       showStatus("Writing output file...");
-      JsonExporter.exportToFile(aggregatedNeeds, outputFile);
+      CompletableFuture<ValidationResult> validation;
+      if (option.getShardMode() != SphinxNeedsExportOption.ShardMode.NONE) {
+        if (option.isAppendToExisting()) {
+          throw new IllegalArgumentException("Sharded exports cannot be appended to a file");
+        }
+        validation =
+            CompletableFuture.completedFuture(
+                JsonExporter.exportSharded(shard(aggregatedNeeds, option), outputFile));
+      } else if (option.isAppendToExisting()) {
+        validation =
+            CompletableFuture.completedFuture(
+                JsonExporter.appendToFile(aggregatedNeeds, outputFile));
+      } else if (option.isValidateInBackground()) {
+        validation = JsonExporter.exportToFileAsync(aggregatedNeeds, outputFile);
+      } else {
+        validation =
+            CompletableFuture.completedFuture(
+                JsonExporter.exportToFile(aggregatedNeeds, outputFile));
+      }
+      validation.thenAccept(
+          result -> SwingUtilities.invokeLater(() -> reportValidation(result, outputFile)));
+      if (option.isCaptureLayout()) {
+        showStatus("Saving diagram layout...");
+        LayoutSidecar.write(
+            LayoutExtractor.capture(diagrams, aggregatedNeeds), outputFile.toPath());
+      }
 
+      jobEvent.needCount = countNeeds(aggregatedNeeds);
+      jobEvent.bytesWritten = outputFile.length();
+      jobEvent.succeeded = true;
       showStatus("Export completed successfully: " + outputFile.getName());
+      return validation;
+
+    } catch (Exception e) {
+      showStatus("Export failed: " + e.getMessage());
+      throw e;
+    } finally {
+      jobEvent.commit();
+      PluginMetrics.getInstance()
+          .recordExport(jobEvent.needCount, System.nanoTime() - start, jobEvent.succeeded);
+      clearStatus();
+    }
+  }
+
+  /**
+   * Export each selected diagram to its own needs file in one pass over the project.
+   *
+   * <p>The project is walked once for all diagrams; each need is written to the files of the
+   * diagrams that show its model element, with links between needs of the same file. Files are
+   * named after their diagram, e.g. {@code login_needs.json}, and written in parallel; with {@link
+   * SphinxNeedsExportOption#isCaptureLayout()} each gets the layout file of its diagram. Shard mode
+   * and append are not supported in this mode.
+   *
+   * @param option the export configuration
+   * @param outputDirectory the directory to write the files to
+   * @return the combined schema validation result; violations are prefixed with the file name
+   * @throws IOException if file operations fail
+   * @throws IllegalArgumentException if invalid parameters are provided
+   */
+  public ValidationResult exportEach(
+      SphinxNeedsExportOption option, File outputDirectory) throws IOException {
+    if (option == null) {
+      throw new IllegalArgumentException("Export option cannot be null");
+    }
+    if (outputDirectory == null || !outputDirectory.isDirectory()) {
+      throw new IllegalArgumentException("Output directory does not exist: " + outputDirectory);
+    }
+    if (option.isAppendToExisting()
+        || option.getShardMode() != SphinxNeedsExportOption.ShardMode.NONE) {
+      throw new IllegalArgumentException(
+          "Per-diagram exports cannot be appended to a file or sharded");
+    }
+
+    IDiagramUIModel[] diagrams = option.getSelectedDiagrams();
+    if (diagrams.length == 0) {
+      throw new IllegalArgumentException("No diagrams selected for export");
+    }
+
+    ExportJobEvent jobEvent = new ExportJobEvent();
+    jobEvent.begin();
+    jobEvent.outputFile = outputDirectory.getAbsolutePath();
+    jobEvent.diagramCount = diagrams.length;
+    long start = System.nanoTime();
+
+    try {
+      showStatus("Extracting " + diagrams.length + " diagram(s) in one pass...");
+      Map<File, NeedsFile> needsFiles = new LinkedHashMap<>();
+      Map<File, IDiagramUIModel> diagramsByFile = new LinkedHashMap<>();
+      Set<String> usedNames = new HashSet<>();
+      for (Map.Entry<IDiagramUIModel, NeedsFile> entry :
+          NeedsFileBuilder.buildPerDiagram(diagrams, option.getVersion()).entrySet()) {
+        NeedsFile needsFile = entry.getValue();
+        applyFilters(needsFile, option);
+        File outputFile = new File(outputDirectory, fileNameFor(entry.getKey(), usedNames));
+        needsFiles.put(outputFile, needsFile);
+        diagramsByFile.put(outputFile, entry.getKey());
+        jobEvent.needCount += countNeeds(needsFile);
+      }
+
+      showStatus("Writing " + needsFiles.size() + " file(s)...");
+      ValidationResult validation = JsonExporter.exportAll(needsFiles);
+      SwingUtilities.invokeLater(() -> reportValidation(validation, outputDirectory));
+      if (option.isCaptureLayout()) {
+        showStatus("Saving diagram layouts...");
+        for (Map.Entry<File, NeedsFile> entry : needsFiles.entrySet()) {
+          IDiagramUIModel[] diagram = {diagramsByFile.get(entry.getKey())};
+          LayoutSidecar.write(
+              LayoutExtractor.capture(diagram, entry.getValue()), entry.getKey().toPath());
+        }
+      }
+
+      for (File outputFile : needsFiles.keySet()) {
+        jobEvent.bytesWritten += outputFile.length();
+      }
+      jobEvent.succeeded = true;
+      showStatus("Export completed successfully: " + needsFiles.size() + " file(s)");
+      return validation;
 
     } catch (Exception e) {
       showStatus("Export failed: " + e.getMessage());
       throw e;
     } finally {
+      jobEvent.commit();
+      PluginMetrics.getInstance()
+          .recordExport(jobEvent.needCount, System.nanoTime() - start, jobEvent.succeeded);
       clearStatus();
     }
   }
 
+  /** File name for a diagram's needs file, unique among {@code usedNames}. */
+  private static String fileNameFor(IDiagramUIModel diagram, Set<String> usedNames) {
+    String name = diagram.getName() != null ? diagram.getName() : "diagram";
+    String base = name.replaceAll("[^a-zA-Z0-9_-]", "_").toLowerCase(Locale.ROOT);
+    String fileName = base + "_needs.json";
+    for (int i = 2; !usedNames.add(fileName); i++) {
+      fileName = base + "_" + i + "_needs.json";
+    }
+    return fileName;
+  }
+
   /** Extract content from a single diagram according to export options. */
   private NeedsFile extractDiagramContent(IDiagramUIModel diagram, SphinxNeedsExportOption option) {
-    NeedsFile needsFile = NeedsFileBuilder.buildFromProject(diagram.getName());
+    DiagramExtractionEvent extractionEvent = new DiagramExtractionEvent();
+    extractionEvent.begin();
+
+    NeedsFile needsFile =
+        NeedsFileBuilder.buildFromProject(diagram.getName(), option.getVersion());
+    applyFilters(needsFile, option);
+
+    if (extractionEvent.shouldCommit()) {
+      extractionEvent.diagramName = diagram.getName();
+      extractionEvent.needCount = countNeeds(needsFile);
+      extractionEvent.linkCount = countLinks(needsFile);
+      extractionEvent.commit();
+    }
+    return needsFile;
+  }
 
-    // Apply export filters based on options
+  /** Apply the export filters of the option to the current version of a needs file. */
+  private static void applyFilters(NeedsFile needsFile, SphinxNeedsExportOption option) {
     // Get the current version's needs
     String currentVersion = needsFile.getCurrentVersion();
     NeedsFile.VersionData versionData = needsFile.getVersions().get(currentVersion);
@@ -128,8 +306,59 @@ public class SphinxNeedsExporter {
       // Update the needs amount
       versionData.setNeedsAmount(needs.size());
     }
+  }
 
-    return needsFile;
+  /** Split the exported needs according to the shard mode of the export option. */
+  private static SortedMap<String, NeedsFile> shard(
+      NeedsFile needsFile, SphinxNeedsExportOption option) {
+    return switch (option.getShardMode()) {
+      case BY_TYPE -> NeedsFileSharder.byKey(needsFile, NeedsFile.Need::getType);
+      case BY_PACKAGE -> NeedsFileSharder.byKey(needsFile, SphinxNeedsExporter::packageOf);
+      case BY_SIZE -> NeedsFileSharder.bySize(needsFile, option.getMaxNeedsPerShard());
+      case NONE -> throw new IllegalArgumentException("Export is not sharded");
+    };
+  }
+
+  /** Name of the package containing the model element of a need, or null. */
+  private static String packageOf(NeedsFile.Need need) {
+    if (need.getVpModelId() == null) {
+      return null;
+    }
+    IModelElement element =
+        ApplicationManager.instance()
+            .getProjectManager()
+            .getProject()
+            .getModelElementById(need.getVpModelId());
+    return element != null ? VpModelProcessor.getPackageName(element) : null;
+  }
+
+  /** Count the needs in the current version of a needs file. */
+  private static int countNeeds(NeedsFile needsFile) {
+    NeedsFile.VersionData versionData = needsFile.getVersions().get(needsFile.getCurrentVersion());
+    if (versionData == null || versionData.getNeeds() == null) {
+      return 0;
+    }
+    return versionData.getNeeds().size();
+  }
+
+  /** Count the outgoing links of all needs in the current version of a needs file. */
+  private static int countLinks(NeedsFile needsFile) {
+    NeedsFile.VersionData versionData = needsFile.getVersions().get(needsFile.getCurrentVersion());
+    if (versionData == null || versionData.getNeeds() == null) {
+      return 0;
+    }
+    int links = 0;
+    for (NeedsFile.Need need : versionData.getNeeds().values()) {
+      links +=
+          need.getLinks().size()
+              + need.getExtendsLinks().size()
+              + need.getIncludesLinks().size()
+              + need.getAssociatesLinks().size()
+              + need.getDeriveLinks().size()
+              + need.getContainsLinks().size()
+              + need.getRefinesLinks().size();
+    }
+    return links;
   }
 
   /** Merge content from multiple diagrams into a single NeedsFile. */
@@ -175,6 +404,25 @@ public class SphinxNeedsExporter {
     }
   }
 
+  /** Show schema violations of an exported file in the message pane, keyed by need id. */
+  private void reportValidation(ValidationResult result, File outputFile) {
+    viewManager.clearMessages(VALIDATION_MESSAGE_ID);
+    if (result.isValid()) {
+      return;
+    }
+
+    viewManager.showMessage(
+        result.getViolations().size()
+            + " schema violation(s) in "
+            + outputFile.getName()
+            + ":",
+        VALIDATION_MESSAGE_ID);
+    for (ValidationResult.Violation violation : result.getViolations()) {
+      String owner = violation.needId() != null ? "Need " + violation.needId() : "File";
+      viewManager.showMessage(owner + ": " + violation, VALIDATION_MESSAGE_ID);
+    }
+  }
+
   /** Show status message to user. */
   private void showStatus(String message) {
     viewManager.showMessage(message, STATUS_MESSAGE_ID);
@@ -0,0 +1,118 @@
+package com.orgatex.vp.sphinx.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for the command line needs validator. */
+public class ValidateNeedsCliTest {
+
+  @TempDir Path tempDir;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+  private static final String VALID =
+      "{\"current_version\": \"1.0\", \"project\": \"P\", \"versions\": {\"1.0\": {"
+          + "\"needs\": {"
+          + "\"UC_1\": {\"id\": \"UC_1\", \"title\": \"Login\", \"type\": \"uc\","
+          + " \"associates\": [\"ACT_1\"]},"
+          + "\"ACT_1\": {\"id\": \"ACT_1\", \"title\": \"User\", \"type\": \"act\"}"
+          + "}, \"needs_amount\": 2}}}";
+
+  private static final String DANGLING_LINK =
+      "{\"current_version\": \"1.0\", \"project\": \"P\", \"versions\": {\"1.0\": {"
+          + "\"needs\": {\"UC_1\": {\"id\": \"UC_1\", \"type\": \"uc\", \"links\": [\"UC_9\"]}}"
+          + "}}}";
+
+  private int run(String... args) {
+    return ValidateNeedsCli.run(
+        args,
+        new PrintStream(out, true, StandardCharsets.UTF_8),
+        new PrintStream(err, true, StandardCharsets.UTF_8));
+  }
+
+  private Path write(String name, String content) throws Exception {
+    Path file = tempDir.resolve(name);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+    return file;
+  }
+
+  @Test
+  public void testValidFilePasses() throws Exception {
+    Path file = write("needs.json", VALID);
+
+    assertEquals(0, run(file.toString()));
+    assertTrue(out.toString(StandardCharsets.UTF_8).contains("1 of 1 file(s) passed"));
+  }
+
+  @Test
+  public void testDanglingLinkFails() throws Exception {
+    Path file = write("needs.json", DANGLING_LINK);
+
+    assertEquals(1, run(file.toString()));
+    assertTrue(out.toString(StandardCharsets.UTF_8).contains("non-existent need 'UC_9'"));
+  }
+
+  @Test
+  public void testDirectoryIsSearchedAndReportedAsJUnit() throws Exception {
+    write("docs/_build/html/needs.json", VALID);
+    write("other/export_needs.json", DANGLING_LINK);
+    write("other/broken_needs.json", "{\"current_version\": ");
+    write("other/unrelated.json", "not json at all");
+
+    assertEquals(1, run("--format", "junit", "--threads", "2", tempDir.toString()));
+
+    String xml = out.toString(StandardCharsets.UTF_8);
+    assertTrue(xml.contains("tests=\"3\""), xml);
+    assertTrue(xml.contains("failures=\"1\""), xml);
+    assertTrue(xml.contains("errors=\"1\""), xml);
+  }
+
+  @Test
+  public void testJsonReportIsWrittenToFile() throws Exception {
+    Path file = write("needs.json", VALID);
+    Path report = tempDir.resolve("report.json");
+
+    assertEquals(0, run("--format", "json", "--output", report.toString(), file.toString()));
+
+    JsonNode json = new ObjectMapper().readTree(report.toFile());
+    assertEquals(1, json.get("summary").get("passed").asInt());
+    assertEquals(2, json.get("files").get(0).get("needCount").asInt());
+  }
+
+  @Test
+  public void testFailOnWarnings() throws Exception {
+    Path file = write("needs.json", VALID.replace("\"needs_amount\": 2", "\"needs_amount\": 5"));
+
+    assertEquals(0, run(file.toString()));
+    assertEquals(1, run("--fail-on-warnings", file.toString()));
+  }
+
+  @Test
+  public void testStrictModeReportsSchemaViolations() throws Exception {
+    Path file = write("needs.json", VALID.replace("\"type\": \"act\"", "\"type\": \"actor\""));
+
+    assertEquals(1, run("--strict", "--format", "json", file.toString()));
+
+    JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+    JsonNode errors = json.get("files").get(0).get("errors");
+    assertEquals(2, errors.size());
+  }
+
+  @Test
+  public void testUsageErrors() {
+    assertEquals(2, run());
+    assertEquals(2, run("--format", "xml", "needs.json"));
+    assertEquals(0, run("--help"));
+  }
+}
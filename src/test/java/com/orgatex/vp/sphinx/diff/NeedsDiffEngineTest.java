@@ -0,0 +1,150 @@
+package com.orgatex.vp.sphinx.diff;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for the structural diff of needs files. */
+public class NeedsDiffEngineTest {
+
+  @TempDir Path tempDir;
+
+  private final NeedsDiffEngine engine = new NeedsDiffEngine();
+
+  private static NeedsFile.Need need(String id, String title, List<String> links) {
+    NeedsFile.Need need = new NeedsFile.Need(id, title, "req");
+    need.setLinks(links);
+    return need;
+  }
+
+  private Path write(String name, NeedsFile.Need... needs) throws IOException {
+    NeedsFile needsFile = new NeedsFile();
+    needsFile.setProject("Diff Test");
+    NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+    for (NeedsFile.Need need : needs) {
+      versionData.addNeed(need);
+    }
+    needsFile.addVersion("1.0", versionData);
+    Path file = tempDir.resolve(name);
+    new ObjectMapper().writeValue(file.toFile(), needsFile);
+    return file;
+  }
+
+  @Test
+  public void testIdenticalFilesHaveNoChanges() throws Exception {
+    Path left =
+        write("left.json", need("REQ_001", "A", List.of("REQ_002")), need("REQ_002", "B", null));
+    Path right =
+        write("right.json", need("REQ_001", "A", List.of("REQ_002")), need("REQ_002", "B", null));
+
+    NeedsDiff diff = engine.diff(left, right);
+
+    assertTrue(diff.isEmpty());
+    assertEquals(2, diff.getLeftCount());
+    assertEquals(2, diff.getRightCount());
+  }
+
+  @Test
+  public void testAddedRemovedAndModifiedNeeds() throws Exception {
+    Path left =
+        write(
+            "left.json",
+            need("REQ_001", "Login", List.of("REQ_002", "REQ_003")),
+            need("REQ_002", "Logout", List.of()),
+            need("REQ_003", "Audit", List.of()));
+    Path right =
+        write(
+            "right.json",
+            need("REQ_001", "Log in", List.of("REQ_003", "REQ_004")),
+            need("REQ_003", "Audit", List.of()),
+            need("REQ_004", "Register", List.of()));
+
+    NeedsDiff diff = engine.diff(left, right);
+
+    List<NeedsDiff.NeedChange> changes = diff.getChanges();
+    assertEquals(3, changes.size());
+    assertEquals("REQ_001", changes.get(0).needId());
+    assertEquals(NeedsDiff.Kind.MODIFIED, changes.get(0).kind());
+    assertEquals("REQ_002", changes.get(1).needId());
+    assertEquals(NeedsDiff.Kind.REMOVED, changes.get(1).kind());
+    assertEquals("Logout", changes.get(1).left().get("title"));
+    assertNull(changes.get(1).right());
+    assertEquals("REQ_004", changes.get(2).needId());
+    assertEquals(NeedsDiff.Kind.ADDED, changes.get(2).kind());
+
+    List<NeedsDiff.FieldChange> fields = changes.get(0).fieldChanges();
+    assertEquals(2, fields.size());
+    assertEquals("links", fields.get(0).field());
+    assertEquals(List.of("REQ_004"), fields.get(0).added());
+    assertEquals(List.of("REQ_002"), fields.get(0).removed());
+    assertEquals("title", fields.get(1).field());
+    assertEquals("Login", fields.get(1).oldValue());
+    assertEquals("Log in", fields.get(1).newValue());
+  }
+
+  @Test
+  public void testReorderedLinksAndKeysAreNotChanges() throws Exception {
+    Path left = tempDir.resolve("left.json");
+    Files.writeString(
+        left,
+        "{\"current_version\":\"1.0\",\"versions\":{\"1.0\":{\"needs\":{"
+            + "\"REQ_001\":{\"id\":\"REQ_001\",\"title\":\"A\",\"links\":[\"X\",\"Y\"]}}}}}");
+    Path right = tempDir.resolve("right.json");
+    Files.writeString(
+        right,
+        "{\"versions\":{\"1.0\":{\"needs\":{"
+            + "\"REQ_001\":{\"links\":[\"Y\",\"X\"],\"title\":\"A\",\"id\":\"REQ_001\"}}}},"
+            + "\"current_version\":\"1.0\"}");
+
+    assertTrue(engine.diff(left, right).isEmpty());
+  }
+
+  @Test
+  public void testDiffVersionsWithinOneFile() throws Exception {
+    Path file = tempDir.resolve("needs.json");
+    Files.writeString(
+        file,
+        "{\"current_version\":\"2.0\",\"versions\":{"
+            + "\"1.0\":{\"needs\":{\"REQ_001\":{\"id\":\"REQ_001\",\"status\":\"open\"}}},"
+            + "\"2.0\":{\"needs\":{\"REQ_001\":{\"id\":\"REQ_001\",\"status\":\"closed\"}}}}}");
+
+    NeedsDiff diff = engine.diffVersions(file, "1.0", "2.0");
+
+    assertEquals(1, diff.getModified().size());
+    NeedsDiff.FieldChange change = diff.getModified().get(0).fieldChanges().get(0);
+    assertEquals("status", change.field());
+    assertEquals("open", change.oldValue());
+    assertEquals("closed", change.newValue());
+    assertTrue(engine.diff(file, "2.0", file, null).isEmpty());
+  }
+
+  @Test
+  public void testIgnoredFields() throws Exception {
+    NeedsFile.Need before = need("REQ_001", "A", List.of());
+    before.setVpModelId("model-1");
+    NeedsFile.Need after = need("REQ_001", "A", List.of());
+    after.setVpModelId("model-2");
+    Path left = write("left.json", before);
+    Path right = write("right.json", after);
+
+    assertEquals(1, engine.diff(left, right).getModified().size());
+    assertTrue(new NeedsDiffEngine(Set.of("vp_model_id")).diff(left, right).isEmpty());
+  }
+
+  @Test
+  public void testMissingVersionFails() throws Exception {
+    Path file = write("needs.json", need("REQ_001", "A", List.of()));
+
+    IOException error =
+        assertThrows(IOException.class, () -> engine.diffVersions(file, "1.0", "9.9"));
+    assertTrue(error.getMessage().contains("9.9"));
+  }
+}
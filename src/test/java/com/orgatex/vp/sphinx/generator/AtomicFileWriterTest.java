@@ -0,0 +1,92 @@
+package com.orgatex.vp.sphinx.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for atomic replacement of exported files. */
+public class AtomicFileWriterTest {
+
+  @TempDir Path tempDir;
+
+  private long fileCount() throws Exception {
+    try (Stream<Path> files = Files.list(tempDir)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void testWriteReplacesTarget() throws Exception {
+    Path target = tempDir.resolve("needs.json");
+    Files.writeString(target, "old");
+
+    AtomicFileWriter.write(target, "new".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("new", Files.readString(target));
+    assertEquals(1, fileCount());
+  }
+
+  @Test
+  public void testStreamIsOnlyVisibleAfterCommit() throws Exception {
+    Path target = tempDir.resolve("nested/needs.json");
+
+    try (AtomicFileWriter writer = AtomicFileWriter.open(target, true)) {
+      OutputStream stream = writer.stream();
+      stream.write("{\"a\":".getBytes(StandardCharsets.UTF_8));
+      assertFalse(Files.exists(target));
+      stream.write("1}".getBytes(StandardCharsets.UTF_8));
+      assertEquals(7, Files.size(writer.getTemporaryFile()));
+      writer.commit();
+    }
+
+    assertEquals("{\"a\":1}", Files.readString(target));
+  }
+
+  @Test
+  public void testCloseWithoutCommitKeepsTarget() throws Exception {
+    Path target = tempDir.resolve("needs.json");
+    Files.writeString(target, "complete");
+
+    try (AtomicFileWriter writer = AtomicFileWriter.open(target)) {
+      writer.stream().write("trunc".getBytes(StandardCharsets.UTF_8));
+      // Serialization fails before commit
+    }
+
+    assertEquals("complete", Files.readString(target));
+    assertEquals(1, fileCount(), "temporary file must be removed");
+  }
+
+  @Test
+  public void testReplacedFileKeepsPermissions() throws Exception {
+    Assumptions.assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    Path target = tempDir.resolve("needs.json");
+    Files.writeString(target, "old");
+    Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-r--r--");
+    Files.setPosixFilePermissions(target, shared);
+
+    AtomicFileWriter.write(target, "new".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(shared, Files.getPosixFilePermissions(target));
+  }
+
+  @Test
+  public void testNewFileIsNotOwnerOnly() throws Exception {
+    Assumptions.assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    Path target = tempDir.resolve("needs.json");
+    Path reference = Files.createFile(tempDir.resolve("reference"));
+
+    AtomicFileWriter.write(target, "new".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(Files.getPosixFilePermissions(reference), Files.getPosixFilePermissions(target));
+  }
+}
@@ -0,0 +1,201 @@
+package com.orgatex.vp.sphinx.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for synchronous and background-validated JSON export. */
+public class JsonExporterTest {
+
+  @TempDir Path tempDir;
+
+  /** Each file gets a unique project name so results are never served from the cache. */
+  private static NeedsFile createNeedsFile(String needType) {
+    return createNeedsFile(needType, NeedsFile.DEFAULT_VERSION);
+  }
+
+  private static NeedsFile createNeedsFile(String needType, String version) {
+    NeedsFile needsFile = new NeedsFile();
+    needsFile.setCurrentVersion(version);
+    needsFile.setCreated("2025-01-01T00:00:00");
+    needsFile.setProject("Export " + UUID.randomUUID());
+
+    NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+    versionData.setCreated("2025-01-01T00:00:00");
+    versionData.setCreator(new NeedsFile.Creator());
+
+    NeedsFile.Need need = new NeedsFile.Need("UC_001", "Login", needType);
+    need.setContent("User logs in");
+    need.setElementType("UseCase");
+    need.setVpModelId("model-1");
+    versionData.addNeed(need);
+
+    needsFile.addVersion(version, versionData);
+    return needsFile;
+  }
+
+  @Test
+  public void testExportToFileReturnsValidationResult() throws Exception {
+    File outputFile = tempDir.resolve("needs.json").toFile();
+
+    ValidationResult result = JsonExporter.exportToFile(createNeedsFile("uc"), outputFile);
+
+    assertTrue(outputFile.length() > 0);
+    assertTrue(result.isValid());
+  }
+
+  @Test
+  public void testAsyncExportWritesBeforeValidationCompletes() throws Exception {
+    File outputFile = tempDir.resolve("nested/needs.json").toFile();
+
+    CompletableFuture<ValidationResult> validation =
+        JsonExporter.exportToFileAsync(createNeedsFile("actor"), outputFile);
+
+    assertTrue(outputFile.length() > 0, "file must be written when the method returns");
+    ValidationResult result = validation.get(10, TimeUnit.SECONDS);
+    assertFalse(result.isValid());
+    assertEquals("UC_001", result.getViolations().get(0).needId());
+  }
+
+  @Test
+  public void testUnchangedContentIsServedFromCache() throws Exception {
+    NeedsFile needsFile = createNeedsFile("uc");
+    JsonExporter.exportToFile(needsFile, tempDir.resolve("first.json").toFile());
+
+    CompletableFuture<ValidationResult> validation =
+        JsonExporter.exportToFileAsync(needsFile, tempDir.resolve("second.json").toFile());
+
+    assertTrue(validation.isDone(), "cached result must not be validated again");
+    assertTrue(validation.get().isValid());
+  }
+
+  @Test
+  public void testReexportOfUnchangedModelSkipsValidation() throws Exception {
+    File outputFile = tempDir.resolve("needs.json").toFile();
+    NeedsFile needsFile = createNeedsFile("uc");
+    JsonExporter.exportToFile(needsFile, outputFile);
+    long cacheHits = PluginMetrics.getInstance().getValidationCacheHitCount();
+
+    // A new export of the same model only gets new timestamps
+    needsFile.setCreated("2025-06-01T12:00:00");
+    needsFile.getVersions().get("1.0").setCreated("2025-06-01T12:00:00");
+    CompletableFuture<ValidationResult> validation =
+        JsonExporter.exportToFileAsync(needsFile, outputFile);
+
+    assertTrue(validation.isDone(), "unchanged model must not be validated again");
+    assertTrue(validation.get().isValid());
+    assertEquals(cacheHits + 1, PluginMetrics.getInstance().getValidationCacheHitCount());
+  }
+
+  @Test
+  public void testAppendKeepsEarlierVersions() throws Exception {
+    File outputFile = tempDir.resolve("needs.json").toFile();
+    JsonExporter.exportToFile(createNeedsFile("uc", "1.0"), outputFile);
+
+    NeedsFile release = createNeedsFile("uc", "2.0");
+    NeedsFile.Need logout = new NeedsFile.Need("UC_002", "Logout", "uc");
+    logout.setContent("User logs out");
+    logout.setElementType("UseCase");
+    logout.setVpModelId("model-2");
+    release.getVersions().get("2.0").addNeed(logout);
+    ValidationResult result = JsonExporter.appendToFile(release, outputFile);
+
+    assertTrue(result.isValid());
+    NeedsFile written = new ObjectMapper().readValue(outputFile, NeedsFile.class);
+    assertEquals("2.0", written.getCurrentVersion());
+    assertEquals(1, written.getVersions().get("1.0").getNeedsAmount());
+    assertEquals(2, written.getVersions().get("2.0").getNeedsAmount());
+    assertTrue(written.getVersions().get("2.0").getNeeds().containsKey("UC_002"));
+  }
+
+  @Test
+  public void testAppendCopiesUnknownFieldsAndReplacesSameVersion() throws Exception {
+    Path outputFile = tempDir.resolve("needs.json");
+    Files.writeString(
+        outputFile,
+        "{\"project\":\"Old\",\"versions\":{"
+            + "\"0.9\":{\"needs\":{},\"filters\":{\"custom\":[1,2]}},"
+            + "\"1.0\":{\"needs\":{\"OLD\":{\"id\":\"OLD\"}}}},"
+            + "\"current_version\":\"1.0\",\"needs_schema\":{\"x\":true}}");
+
+    JsonExporter.appendToFile(createNeedsFile("uc", "1.0"), outputFile.toFile());
+
+    JsonNode root = new ObjectMapper().readTree(outputFile.toFile());
+    assertEquals("1.0", root.get("current_version").asText());
+    assertEquals("Old", root.get("project").asText());
+    assertTrue(root.get("needs_schema").get("x").asBoolean());
+    assertEquals(2, root.at("/versions/0.9/filters/custom").size());
+    assertTrue(root.at("/versions/1.0/needs/OLD").isMissingNode());
+    assertEquals("Login", root.at("/versions/1.0/needs/UC_001/title").asText());
+  }
+
+  @Test
+  public void testAppendGivesTheSameFileAsAFullExport() throws Exception {
+    File outputFile = tempDir.resolve("needs.json").toFile();
+    NeedsFile all = createNeedsFile("uc", "1.0");
+    all.addVersion("3.0", createNeedsFile("uc", "3.0").getVersions().get("3.0"));
+    JsonExporter.exportToFile(all, outputFile);
+
+    NeedsFile release = createNeedsFile("uc", "2.0");
+    release.setProject(all.getProject());
+    JsonExporter.appendToFile(release, outputFile);
+
+    all.addVersion("2.0", release.getVersions().get("2.0"));
+    all.setCurrentVersion("2.0");
+    assertEquals(JsonExporter.exportToString(all), Files.readString(outputFile.toPath()));
+  }
+
+  @Test
+  public void testAppendCreatesMissingFile() throws Exception {
+    File outputFile = tempDir.resolve("new/needs.json").toFile();
+
+    JsonExporter.appendToFile(createNeedsFile("uc", "3.0"), outputFile);
+
+    NeedsFile written = new ObjectMapper().readValue(outputFile, NeedsFile.class);
+    assertEquals("3.0", written.getCurrentVersion());
+    assertEquals(1, written.getVersions().size());
+  }
+
+  @Test
+  public void testOutputIsIndependentOfInsertionOrder() throws Exception {
+    NeedsFile first = createNeedsFile("uc");
+    NeedsFile second = createNeedsFile("uc");
+    second.setProject(first.getProject());
+    first.getVersions().get("1.0").addNeed(new NeedsFile.Need("UC_002", "B", "uc"));
+    first.getVersions().get("1.0").addNeed(new NeedsFile.Need("UC_003", "C", "uc"));
+    second.getVersions().get("1.0").addNeed(new NeedsFile.Need("UC_003", "C", "uc"));
+    second.getVersions().get("1.0").addNeed(new NeedsFile.Need("UC_002", "B", "uc"));
+
+    assertEquals(JsonExporter.exportToString(first), JsonExporter.exportToString(second));
+  }
+
+  @Test
+  public void testUnchangedContentIsNotRewritten() throws Exception {
+    File outputFile = tempDir.resolve("needs.json").toFile();
+    NeedsFile needsFile = createNeedsFile("uc");
+    JsonExporter.exportToFile(needsFile, outputFile);
+    assertTrue(outputFile.setLastModified(1_000_000L));
+
+    // Only the timestamps differ
+    needsFile.setCreated("2025-06-01T12:00:00");
+    needsFile.getVersions().get("1.0").setCreated("2025-06-01T12:00:00");
+    JsonExporter.exportToFile(needsFile, outputFile);
+    assertEquals(1_000_000L, outputFile.lastModified());
+
+    needsFile.getVersions().get("1.0").getNeeds().get("UC_001").setTitle("Sign in");
+    JsonExporter.exportToFile(needsFile, outputFile);
+    assertNotEquals(1_000_000L, outputFile.lastModified());
+    assertTrue(Files.readString(outputFile.toPath()).contains("Sign in"));
+  }
+}
@@ -0,0 +1,49 @@
+package com.orgatex.vp.sphinx.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for the layout file written next to exported needs files. */
+public class LayoutSidecarTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  public void testPathIsNextToNeedsFile() {
+    Path expected = tempDir.resolve("login_needs.layout.json");
+
+    assertEquals(expected, LayoutSidecar.pathFor(tempDir.resolve("login_needs.json")));
+    assertEquals(expected, LayoutSidecar.pathFor(tempDir.resolve("login_needs.json.gz")));
+  }
+
+  @Test
+  public void testLayoutRoundTrips() throws Exception {
+    Path needsFile = tempDir.resolve("needs.json");
+    NeedsLayout layout =
+        new NeedsLayout(
+            NeedsLayout.FORMAT,
+            "Login",
+            Map.of(
+                "UC_001", new NeedsLayout.Bounds(250, 150, 120, 60),
+                "ACT_001", new NeedsLayout.Bounds(-40, 10, 60, 80)));
+
+    LayoutSidecar.write(layout, needsFile);
+
+    assertEquals(layout, LayoutSidecar.read(needsFile));
+    assertFalse(Files.exists(needsFile));
+  }
+
+  @Test
+  public void testMissingOrOtherFormatIsIgnored() throws Exception {
+    Path needsFile = tempDir.resolve("needs.json");
+    assertNull(LayoutSidecar.read(needsFile));
+
+    Files.writeString(LayoutSidecar.pathFor(needsFile), "{\"format\": 99, \"shapes\": {}}");
+    assertNull(LayoutSidecar.read(needsFile));
+  }
+}
@@ -0,0 +1,97 @@
+package com.orgatex.vp.sphinx.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.orgatex.vp.sphinx.importer.NeedsFileReader;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for compressed export and import of needs files. */
+public class NeedsFileCodecTest {
+
+  @TempDir Path tempDir;
+
+  private static NeedsFile createNeedsFile(int needCount) {
+    NeedsFile needsFile = new NeedsFile();
+    needsFile.setProject("Codec Test");
+    NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+    versionData.setCreator(new NeedsFile.Creator());
+    for (int i = 0; i < needCount; i++) {
+      NeedsFile.Need need = new NeedsFile.Need(String.format("UC_%04d", i), "Use case " + i, "uc");
+      need.setContent("Repetitive content of use case " + i);
+      need.setElementType("UseCase");
+      need.setVpModelId("model-" + i);
+      versionData.addNeed(need);
+    }
+    needsFile.addVersion("1.0", versionData);
+    return needsFile;
+  }
+
+  @Test
+  public void testCodecFromFileName() {
+    assertEquals(NeedsFileCodec.GZIP, NeedsFileCodec.forFileName("needs.json.gz"));
+    assertEquals(NeedsFileCodec.ZSTD, NeedsFileCodec.forFileName("NEEDS.JSON.ZST"));
+    assertEquals(NeedsFileCodec.PLAIN, NeedsFileCodec.forFileName("needs.json"));
+    assertEquals("needs.json", NeedsFileCodec.stripExtension("needs.json.gz"));
+    assertTrue(NeedsFileCodec.hasSuffix("build_needs.json.zst", "needs.json"));
+  }
+
+  @Test
+  public void testGzipAndZstdRoundTrip() throws Exception {
+    NeedsFile needsFile = createNeedsFile(200);
+    File plain = tempDir.resolve("needs.json").toFile();
+    JsonExporter.exportToFile(needsFile, plain);
+
+    for (String name : new String[] {"needs.json.gz", "needs.json.zst"}) {
+      File compressed = tempDir.resolve(name).toFile();
+      JsonExporter.exportToFile(needsFile, compressed);
+
+      assertTrue(compressed.length() < plain.length() / 4, name + " should be much smaller");
+      NeedsFileReader.Result result = new NeedsFileReader().read(compressed);
+      assertEquals(needsFile, result.needsFile());
+    }
+  }
+
+  @Test
+  public void testImportDetectsCompressionFromMagicBytes() throws Exception {
+    NeedsFile needsFile = createNeedsFile(3);
+    Path compressed = tempDir.resolve("export.json.zst");
+    JsonExporter.exportToFile(needsFile, compressed.toFile());
+
+    // Misleading name: detection must not rely on the extension
+    Path renamed = Files.move(compressed, tempDir.resolve("export.json"));
+    try (InputStream in = Files.newInputStream(renamed)) {
+      assertEquals(NeedsFileCodec.ZSTD, NeedsFileCodec.detect(in.readNBytes(4)));
+    }
+    assertEquals(needsFile, new NeedsFileReader().read(renamed.toFile()).needsFile());
+  }
+
+  @Test
+  public void testPlainContentIsNotMistakenForCompressed() throws Exception {
+    byte[] json = "{}".getBytes(StandardCharsets.UTF_8);
+    assertEquals(NeedsFileCodec.PLAIN, NeedsFileCodec.detect(json));
+    assertEquals(NeedsFileCodec.PLAIN, NeedsFileCodec.detect(new byte[0]));
+  }
+
+  @Test
+  public void testAppendToCompressedFile() throws Exception {
+    File outputFile = tempDir.resolve("history.json.gz").toFile();
+    JsonExporter.exportToFile(createNeedsFile(2), outputFile);
+
+    NeedsFile release = createNeedsFile(3);
+    release.setCurrentVersion("2.0");
+    release.addVersion("2.0", release.getVersions().remove("1.0"));
+    JsonExporter.appendToFile(release, outputFile);
+
+    NeedsFile written = new NeedsFileReader().read(outputFile).needsFile();
+    assertEquals("2.0", written.getCurrentVersion());
+    assertEquals(2, written.getVersions().get("1.0").getNeedsAmount());
+    assertEquals(3, written.getVersions().get("2.0").getNeedsAmount());
+  }
+}
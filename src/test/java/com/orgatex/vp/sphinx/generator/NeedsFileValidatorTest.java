@@ -0,0 +1,139 @@
+package com.orgatex.vp.sphinx.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests that the fast-path validator agrees with the generic JSON schema validator. */
+public class NeedsFileValidatorTest {
+
+  @AfterEach
+  public void resetMode() {
+    JsonExporter.setStrictValidation(false);
+  }
+
+  private static NeedsFile createValidFile() {
+    NeedsFile needsFile = new NeedsFile();
+    needsFile.setCreated("2025-01-01T00:00:00");
+    needsFile.setProject("Validation Project");
+
+    NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+    versionData.setCreated("2025-01-01T00:00:00");
+    versionData.setCreator(new NeedsFile.Creator());
+
+    NeedsFile.Need useCase = new NeedsFile.Need("UC_001", "Login", "uc");
+    useCase.setContent("User logs in");
+    useCase.setElementType("UseCase");
+    useCase.setVpModelId("model-1");
+    useCase.setTags(new ArrayList<>(List.of("security")));
+    useCase.setLinks(new ArrayList<>(List.of("ACT-001")));
+    versionData.addNeed(useCase);
+
+    NeedsFile.Need actor = new NeedsFile.Need("ACT-001", "User", "act");
+    actor.setContent("");
+    actor.setElementType("Actor");
+    actor.setVpModelId("model-2");
+    versionData.addNeed(actor);
+
+    needsFile.addVersion("1.0", versionData);
+    return needsFile;
+  }
+
+  private static NeedsFile.Need firstNeed(NeedsFile needsFile) {
+    return needsFile.getVersions().get("1.0").getNeeds().get("UC_001");
+  }
+
+  private static void assertValidatorsAgree(Consumer<NeedsFile> mutation) {
+    NeedsFile needsFile = createValidFile();
+    mutation.accept(needsFile);
+
+    ValidationResult fast = NeedsFileValidator.validate(needsFile);
+    ValidationResult strict = JsonExporter.validateStrict(needsFile);
+
+    assertEquals(strict.isValid(), fast.isValid(), "validity differs: " + strict.getViolations());
+    assertEquals(keywords(strict), keywords(fast), "violations differ: " + strict.getViolations());
+  }
+
+  private static List<String> keywords(ValidationResult result) {
+    List<String> keywords = new ArrayList<>();
+    for (ValidationResult.Violation violation : result.getViolations()) {
+      keywords.add(violation.keyword());
+    }
+    Collections.sort(keywords);
+    return keywords;
+  }
+
+  @Test
+  public void testValidFileAgrees() {
+    assertValidatorsAgree(needsFile -> {});
+    assertTrue(NeedsFileValidator.validate(createValidFile()).isValid());
+  }
+
+  @Test
+  public void testEmptyNeedsAgrees() {
+    assertValidatorsAgree(needsFile -> needsFile.getVersions().get("1.0").getNeeds().clear());
+  }
+
+  @Test
+  public void testMissingRootFieldsAgree() {
+    assertValidatorsAgree(needsFile -> needsFile.setProject(null));
+    assertValidatorsAgree(needsFile -> needsFile.setCreated(null));
+    assertValidatorsAgree(needsFile -> needsFile.setCurrentVersion(null));
+  }
+
+  @Test
+  public void testInvalidVersionDataAgrees() {
+    assertValidatorsAgree(needsFile -> needsFile.getVersions().get("1.0").setCreator(null));
+    assertValidatorsAgree(needsFile -> needsFile.getVersions().get("1.0").setCreated(null));
+    assertValidatorsAgree(needsFile -> needsFile.getVersions().get("1.0").setNeeds(null));
+    assertValidatorsAgree(needsFile -> needsFile.getVersions().put("2.0", null));
+  }
+
+  @Test
+  public void testInvalidNeedFieldsAgree() {
+    assertValidatorsAgree(needsFile -> firstNeed(needsFile).setType("actor"));
+    assertValidatorsAgree(needsFile -> firstNeed(needsFile).setType(null));
+    assertValidatorsAgree(needsFile -> firstNeed(needsFile).setTitle(null));
+    assertValidatorsAgree(needsFile -> firstNeed(needsFile).setContent(null));
+    assertValidatorsAgree(needsFile -> firstNeed(needsFile).setVpModelId(null));
+    assertValidatorsAgree(needsFile -> firstNeed(needsFile).setStatus(null));
+    assertValidatorsAgree(needsFile -> firstNeed(needsFile).setTags(null));
+    assertValidatorsAgree(
+        needsFile -> firstNeed(needsFile).setLinks(Arrays.asList("ACT-001", null, null)));
+    assertValidatorsAgree(
+        needsFile -> needsFile.getVersions().get("1.0").getNeeds().put("UC_002", null));
+  }
+
+  @Test
+  public void testFastPathReportsPathAndNeedId() {
+    NeedsFile needsFile = createValidFile();
+    NeedsFile.Need actor = needsFile.getVersions().get("1.0").getNeeds().get("ACT-001");
+    actor.setType("actor");
+
+    ValidationResult result = NeedsFileValidator.validate(needsFile);
+
+    assertFalse(result.isValid());
+    assertEquals(1, result.getViolations().size());
+    ValidationResult.Violation violation = result.getViolations().get(0);
+    assertEquals("enum", violation.keyword());
+    assertEquals("ACT-001", violation.needId());
+    assertEquals("$.versions['1.0'].needs['ACT-001'].type", violation.path());
+  }
+
+  @Test
+  public void testStrictModeIsOptIn() {
+    NeedsFile needsFile = createValidFile();
+
+    assertEquals(NeedsFileValidator.NAME, JsonExporter.validate(needsFile).getValidator());
+
+    JsonExporter.setStrictValidation(true);
+    assertEquals("networknt", JsonExporter.validate(needsFile).getValidator());
+  }
+}
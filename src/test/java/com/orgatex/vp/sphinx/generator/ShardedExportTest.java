@@ -0,0 +1,169 @@
+package com.orgatex.vp.sphinx.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.importer.NeedsFileReader;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for splitting exports into shard files with an index. */
+public class ShardedExportTest {
+
+  @TempDir Path tempDir;
+
+  private static NeedsFile createNeedsFile() {
+    NeedsFile needsFile = new NeedsFile();
+    needsFile.setCreated("2025-01-01T00:00:00");
+    needsFile.setProject("Shard Test");
+    NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+    versionData.setCreator(new NeedsFile.Creator());
+    addNeed(versionData, "UC_001", "uc");
+    addNeed(versionData, "UC_002", "uc");
+    addNeed(versionData, "ACT_001", "actor");
+    addNeed(versionData, "REQ_001", "req");
+    addNeed(versionData, "REQ_002", "req");
+    needsFile.addVersion("1.0", versionData);
+    return needsFile;
+  }
+
+  private static void addNeed(NeedsFile.VersionData versionData, String id, String type) {
+    NeedsFile.Need need = new NeedsFile.Need(id, "Need " + id, type);
+    need.setContent("");
+    need.setElementType(type);
+    need.setVpModelId("vp-" + id);
+    versionData.addNeed(need);
+  }
+
+  private static SortedMap<String, NeedsFile> byType(NeedsFile needsFile) {
+    return NeedsFileSharder.byKey(needsFile, NeedsFile.Need::getType);
+  }
+
+  @Test
+  public void testShardByTypeAndSize() {
+    NeedsFile needsFile = createNeedsFile();
+
+    SortedMap<String, NeedsFile> shards = byType(needsFile);
+    assertEquals(3, shards.size());
+    assertEquals(2, shards.get("uc").getVersions().get("1.0").getNeedsAmount());
+    assertEquals("Shard Test", shards.get("actor").getProject());
+
+    SortedMap<String, NeedsFile> bySize = NeedsFileSharder.bySize(needsFile, 2);
+    assertEquals(3, bySize.size());
+    assertEquals(1, bySize.get("part-003").getVersions().get("1.0").getNeedsAmount());
+    assertTrue(bySize.get("part-001").getVersions().get("1.0").getNeeds().containsKey("ACT_001"));
+  }
+
+  @Test
+  public void testSanitizeKey() {
+    assertEquals("use_cases", NeedsFileSharder.sanitizeKey("Use Cases"));
+    assertEquals(NeedsFileSharder.DEFAULT_SHARD, NeedsFileSharder.sanitizeKey(null));
+    assertEquals(NeedsFileSharder.DEFAULT_SHARD, NeedsFileSharder.sanitizeKey("../"));
+  }
+
+  @Test
+  public void testExportWritesShardsAndIndex() throws Exception {
+    File indexFile = tempDir.resolve("project_needs.json").toFile();
+    NeedsFile needsFile = createNeedsFile();
+
+    JsonExporter.exportSharded(byType(needsFile), indexFile);
+
+    ShardIndex index = new ObjectMapper().readValue(indexFile, ShardIndex.class);
+    assertEquals(3, index.shards().size());
+    assertEquals("project_needs.actor.json", index.shards().get(0).file());
+    assertEquals(2, index.shards().get(2).needs());
+    NeedsFile ucShard =
+        new NeedsFileReader().read(tempDir.resolve("project_needs.uc.json").toFile()).needsFile();
+    assertEquals(2, ucShard.getVersions().get("1.0").getNeeds().size());
+  }
+
+  @Test
+  public void testOnlyChangedShardsAreRewritten() throws Exception {
+    File indexFile = tempDir.resolve("needs.json.gz").toFile();
+    NeedsFile needsFile = createNeedsFile();
+    JsonExporter.exportSharded(byType(needsFile), indexFile);
+    File ucShard = tempDir.resolve("needs.uc.json.gz").toFile();
+    File reqShard = tempDir.resolve("needs.req.json.gz").toFile();
+    assertTrue(ucShard.setLastModified(1_000_000L));
+    assertTrue(reqShard.setLastModified(1_000_000L));
+
+    needsFile.getVersions().get("1.0").getNeeds().get("REQ_001").setTitle("Changed");
+    needsFile.setCreated("2025-02-01T00:00:00");
+    JsonExporter.exportSharded(byType(needsFile), indexFile);
+
+    assertEquals(1_000_000L, ucShard.lastModified());
+    assertNotEquals(1_000_000L, reqShard.lastModified());
+  }
+
+  @Test
+  public void testStaleShardsAreDeleted() throws Exception {
+    File indexFile = tempDir.resolve("needs.json").toFile();
+    NeedsFile needsFile = createNeedsFile();
+    JsonExporter.exportSharded(byType(needsFile), indexFile);
+    assertTrue(Files.exists(tempDir.resolve("needs.actor.json")));
+
+    needsFile.getVersions().get("1.0").getNeeds().remove("ACT_001");
+    JsonExporter.exportSharded(byType(needsFile), indexFile);
+
+    assertFalse(Files.exists(tempDir.resolve("needs.actor.json")));
+    assertTrue(Files.exists(tempDir.resolve("needs.uc.json")));
+  }
+
+  @Test
+  public void testRouteToOverlappingOutputs() {
+    NeedsFile needsFile = createNeedsFile();
+    NeedsFile.Need useCase = needsFile.getVersions().get("1.0").getNeeds().get("UC_001");
+    useCase.setIncludesLinks(new ArrayList<>(List.of("UC_002")));
+    useCase.setAssociatesLinks(new ArrayList<>(List.of("ACT_001")));
+
+    Map<String, Set<String>> members = new LinkedHashMap<>();
+    members.put("login", Set.of("vp-UC_001", "vp-UC_002"));
+    members.put("actors", Set.of("vp-UC_001", "vp-ACT_001"));
+    Map<String, NeedsFile> outputs = NeedsFileSharder.route(needsFile, members);
+
+    assertEquals(List.of("login", "actors"), new ArrayList<>(outputs.keySet()));
+    NeedsFile.Need inLogin = outputs.get("login").getVersions().get("1.0").getNeeds().get("UC_001");
+    assertEquals(List.of("UC_002"), inLogin.getIncludesLinks());
+    assertTrue(inLogin.getAssociatesLinks().isEmpty());
+    NeedsFile.Need inActors =
+        outputs.get("actors").getVersions().get("1.0").getNeeds().get("UC_001");
+    assertEquals(List.of("ACT_001"), inActors.getAssociatesLinks());
+    assertTrue(inActors.getIncludesLinks().isEmpty());
+    assertEquals(2, outputs.get("actors").getVersions().get("1.0").getNeedsAmount());
+
+    // The project needs are left untouched
+    assertEquals(List.of("UC_002"), useCase.getIncludesLinks());
+    assertEquals(List.of("ACT_001"), useCase.getAssociatesLinks());
+  }
+
+  @Test
+  public void testExportAllWritesEveryFile() throws Exception {
+    NeedsFile needsFile = createNeedsFile();
+    needsFile.getVersions().get("1.0").setCreated("2025-01-01T00:00:00");
+    Map<String, Set<String>> members = new LinkedHashMap<>();
+    members.put("uc", Set.of("vp-UC_001", "vp-UC_002"));
+    members.put("req", Set.of("vp-REQ_001", "vp-REQ_002"));
+    Map<File, NeedsFile> files = new LinkedHashMap<>();
+    NeedsFileSharder.route(needsFile, members)
+        .forEach((key, routed) -> files.put(tempDir.resolve(key + "_needs.json").toFile(), routed));
+
+    ValidationResult result = JsonExporter.exportAll(files);
+
+    assertTrue(result.isValid());
+    NeedsFile reqFile =
+        new NeedsFileReader().read(tempDir.resolve("req_needs.json").toFile()).needsFile();
+    assertEquals(
+        Set.of("REQ_001", "REQ_002"), reqFile.getVersions().get("1.0").getNeeds().keySet());
+    assertTrue(Files.isRegularFile(tempDir.resolve("uc_needs.json")));
+  }
+}
@@ -0,0 +1,120 @@
+package com.orgatex.vp.sphinx.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for the content-hash keyed validation cache. */
+public class ValidationCacheTest {
+
+  @TempDir Path tempDir;
+
+  private static final ValidationResult VALID = new ValidationResult("fast", List.of());
+  private static final ValidationResult INVALID =
+      new ValidationResult(
+          "fast",
+          List.of(new ValidationResult.Violation("$.project", "type", "null found", null)));
+
+  private static final ObjectMapper mapper =
+      new ObjectMapper()
+          .enable(SerializationFeature.INDENT_OUTPUT)
+          .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+  private static HashedContent content(String project, String created, String versionCreated)
+      throws Exception {
+    Map<String, Object> version = new HashMap<>();
+    version.put("created", versionCreated);
+    version.put("needs", Map.of("REQ_1", Map.of("id", "REQ_1", "created", "kept")));
+    Map<String, Object> needsFile = new HashMap<>();
+    needsFile.put("created", created);
+    needsFile.put("project", project);
+    needsFile.put("versions", Map.of("1.0", version));
+    return HashedContent.serialize(mapper, needsFile);
+  }
+
+  @Test
+  public void testKeyDependsOnContentAndSchema() throws Exception {
+    String key = ValidationCache.key(content("A", "t", "t"), "schema-1");
+
+    assertEquals(key, ValidationCache.key(content("A", "t", "t"), "schema-1"));
+    assertNotEquals(key, ValidationCache.key(content("B", "t", "t"), "schema-1"));
+    assertNotEquals(key, ValidationCache.key(content("A", "t", "t"), "schema-2"));
+  }
+
+  @Test
+  public void testKeyIgnoresCreatedTimestamps() throws Exception {
+    String key = ValidationCache.key(content("A", "2025-01-01", "a"), "schema");
+
+    assertEquals(key, ValidationCache.key(content("A", "2026-10-18T12:00:00", "b"), "schema"));
+    assertNotEquals(key, ValidationCache.key(content("A", null, "b"), "schema"));
+    assertNotEquals(key, ValidationCache.key(content("A", "2025-01-01", null), "schema"));
+  }
+
+  @Test
+  public void testHashedContentHasTheBytesOfAPlainSerialization() throws Exception {
+    Map<String, Object> needsFile = new HashMap<>();
+    needsFile.put("project", "A");
+    needsFile.put("created", "2025-01-01");
+    needsFile.put("versions", Map.of("1.0", Map.of("created", "a", "needs", Map.of())));
+
+    assertArrayEquals(
+        mapper.writeValueAsBytes(needsFile), HashedContent.serialize(mapper, needsFile).bytes());
+  }
+
+  @Test
+  public void testCachedResultIsReturned() throws Exception {
+    ValidationCache cache = new ValidationCache(tempDir.resolve("cache.txt"), 10);
+    String key = ValidationCache.key(content("A", "t", "t"), "schema");
+
+    assertNull(cache.get(key));
+    cache.put(key, INVALID);
+    assertSame(INVALID, cache.get(key));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEntryIsEvicted() {
+    ValidationCache cache = new ValidationCache(tempDir.resolve("cache.txt"), 2);
+    cache.put("a", VALID);
+    cache.put("b", VALID);
+    cache.get("a");
+    cache.put("c", VALID);
+
+    assertEquals(2, cache.size());
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+  }
+
+  @Test
+  public void testOnlyPassingResultsArePersisted() throws Exception {
+    Path file = tempDir.resolve("cache.txt");
+    ValidationCache cache = new ValidationCache(file, 10);
+    cache.put("valid-key", VALID);
+    cache.put("invalid-key", INVALID);
+
+    assertEquals(List.of("valid-key"), Files.readAllLines(file));
+
+    ValidationCache reloaded = new ValidationCache(file, 10);
+    assertTrue(reloaded.get("valid-key").isValid());
+    assertNull(reloaded.get("invalid-key"));
+  }
+
+  @Test
+  public void testOversizedFileIsCompactedOnLoad() throws Exception {
+    Path file = tempDir.resolve("cache.txt");
+    Files.write(file, List.of("k1", "k2", "k3", "k4"));
+
+    ValidationCache cache = new ValidationCache(file, 2);
+
+    assertEquals(2, cache.size());
+    assertEquals(List.of("k3", "k4"), Files.readAllLines(file));
+  }
+}
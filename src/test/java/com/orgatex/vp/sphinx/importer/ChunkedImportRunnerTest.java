@@ -0,0 +1,125 @@
+package com.orgatex.vp.sphinx.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+/** Tests for running import mutations in cancellable chunks. */
+public class ChunkedImportRunnerTest {
+
+  private static List<ChunkedImportRunner.Step> steps(int count, List<Integer> applied) {
+    List<ChunkedImportRunner.Step> steps = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      int index = i;
+      steps.add(() -> applied.add(index));
+    }
+    return steps;
+  }
+
+  @Test
+  public void testRunsStepsInChunksWithProgress() throws Exception {
+    List<Integer> applied = new ArrayList<>();
+    List<ChunkedImportRunner.Progress> progress = new ArrayList<>();
+    ChunkedImportRunner runner = new ChunkedImportRunner(Runnable::run, 4, 10_000);
+    runner.expectSteps(10);
+
+    runner.runPhase("Creating elements", steps(10, applied), progress::add);
+
+    assertEquals(10, applied.size());
+    assertEquals(3, progress.size());
+    assertEquals(4, progress.get(0).phaseCompleted());
+    ChunkedImportRunner.Progress last = progress.get(2);
+    assertEquals(10, last.completed());
+    assertEquals(100, last.percent());
+    assertEquals(0, last.etaMillis());
+  }
+
+  @Test
+  public void testCancelRollsBackInReverseOrder() {
+    List<String> undone = new ArrayList<>();
+    ChunkedImportRunner runner = new ChunkedImportRunner(Runnable::run, 2, 10_000);
+    List<ChunkedImportRunner.Step> steps = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      String name = "step" + i;
+      steps.add(() -> runner.onRollback(() -> undone.add(name)));
+    }
+
+    assertThrows(
+        CancellationException.class,
+        () ->
+            runner.runPhase(
+                "Creating elements",
+                steps,
+                progress -> {
+                  if (progress.completed() == 2) {
+                    runner.cancel();
+                  }
+                }));
+
+    assertEquals(List.of("step1", "step0"), undone);
+  }
+
+  @Test
+  public void testFailedStepRollsBackAndRethrows() {
+    List<String> undone = new ArrayList<>();
+    ChunkedImportRunner runner = new ChunkedImportRunner(Runnable::run);
+    runner.onRollback(() -> undone.add("diagram"));
+    List<ChunkedImportRunner.Step> steps =
+        List.of(
+            () -> runner.onRollback(() -> undone.add("element")),
+            () -> {
+              throw new IllegalStateException("broken need");
+            });
+
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class,
+            () -> runner.runPhase("Creating elements", steps, progress -> {}));
+
+    assertEquals("broken need", e.getMessage());
+    assertEquals(List.of("element", "diagram"), undone);
+  }
+
+  @Test
+  public void testStepsRunOnUiExecutor() throws Exception {
+    ExecutorService ui = Executors.newSingleThreadExecutor(r -> new Thread(r, "ui"));
+    try {
+      List<String> threads = new ArrayList<>();
+      ChunkedImportRunner runner = new ChunkedImportRunner(ui);
+      runner.runPhase(
+          "Creating elements",
+          List.of(() -> threads.add(Thread.currentThread().getName())),
+          progress -> {});
+      assertEquals(List.of("ui"), threads);
+    } finally {
+      ui.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCallOnUiThreadReturnsResultAndRethrows() throws Exception {
+    ExecutorService ui = Executors.newSingleThreadExecutor(r -> new Thread(r, "ui"));
+    try {
+      ChunkedImportRunner runner = new ChunkedImportRunner(ui);
+      assertEquals("ui", runner.callOnUiThread(() -> Thread.currentThread().getName()));
+
+      IOException e =
+          assertThrows(
+              IOException.class,
+              () ->
+                  runner.callOnUiThread(
+                      () -> {
+                        throw new IOException("project closed");
+                      }));
+      assertEquals("project closed", e.getMessage());
+    } finally {
+      ui.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.orgatex.vp.sphinx.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.orgatex.vp.sphinx.generator.NeedsLayout;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Tests for placing needs in a use case diagram. */
+public class ElementLayoutEngineTest {
+
+  private final ElementLayoutEngine layoutEngine = new ElementLayoutEngine();
+
+  private static Map<String, NeedsFile.Need> needs(String... ids) {
+    Map<String, NeedsFile.Need> needs = new LinkedHashMap<>();
+    for (String id : ids) {
+      needs.put(id, new NeedsFile.Need(id, "Need " + id, id.startsWith("ACT") ? "act" : "uc"));
+    }
+    return needs;
+  }
+
+  @Test
+  public void testWithoutSavedLayoutAllNeedsArePlaced() {
+    Map<String, Rectangle> bounds = layoutEngine.calculateBounds(needs("UC_001", "ACT_001"), null);
+
+    assertEquals(2, bounds.size());
+    assertEquals(new Rectangle(250, 150, 120, 60), bounds.get("UC_001"));
+    assertEquals(60, bounds.get("ACT_001").width);
+    assertEquals(80, bounds.get("ACT_001").height);
+  }
+
+  @Test
+  public void testSavedBoundsAreRestoredAndNewNeedsPlacedBelow() {
+    NeedsLayout saved =
+        new NeedsLayout(
+            NeedsLayout.FORMAT,
+            "Login",
+            Map.of(
+                "UC_001", new NeedsLayout.Bounds(400, 300, 150, 70),
+                "ACT_001", new NeedsLayout.Bounds(100, 500, 60, 80),
+                "UC_GONE", new NeedsLayout.Bounds(0, 0, 120, 60)));
+
+    Map<String, Rectangle> bounds =
+        layoutEngine.calculateBounds(needs("UC_001", "ACT_001", "UC_002", "UC_003"), saved);
+
+    assertEquals(4, bounds.size());
+    assertEquals(new Rectangle(400, 300, 150, 70), bounds.get("UC_001"));
+    assertEquals(new Rectangle(100, 500, 60, 80), bounds.get("ACT_001"));
+    Rectangle restoredArea = bounds.get("UC_001").union(bounds.get("ACT_001"));
+    for (String id : new String[] {"UC_002", "UC_003"}) {
+      assertTrue(bounds.get(id).y >= restoredArea.y + restoredArea.height);
+      assertEquals(120, bounds.get(id).width);
+    }
+    assertFalse(bounds.get("UC_002").intersects(bounds.get("UC_003")));
+  }
+
+  @Test
+  public void testNewNeedsArePlacedNearLinkedShapesWithoutOverlap() {
+    // A grid of 400 existing shapes with a few new needs linked into its middle
+    Map<String, NeedsFile.Need> needs = new LinkedHashMap<>();
+    Map<String, Rectangle> bounds = new HashMap<>();
+    for (int i = 0; i < 400; i++) {
+      String id = "UC_" + i;
+      needs.put(id, new NeedsFile.Need(id, "Existing " + i, "uc"));
+      bounds.put(id, new Rectangle((i % 20) * 300, (i / 20) * 200, 120, 60));
+    }
+    NeedsFile.Need chained = new NeedsFile.Need("UC_NEW_2", "Chained", "uc");
+    chained.getIncludesLinks().add("UC_NEW_1");
+    needs.put("UC_NEW_2", chained);
+    needs.put("UC_NEW_1", new NeedsFile.Need("UC_NEW_1", "New", "uc"));
+    NeedsFile.Need actor = new NeedsFile.Need("ACT_NEW", "Actor", "act");
+    actor.getAssociatesLinks().add(" UC_210 ");
+    needs.put("ACT_NEW", actor);
+    needs.get("UC_210").getLinks().add("UC_NEW_1");
+
+    layoutEngine.placeIncrementally(needs, bounds);
+
+    assertEquals(needs.size(), bounds.size());
+    assertEquals(new Rectangle(3000, 2000, 120, 60), bounds.get("UC_210"));
+    List<Rectangle> shapes = new ArrayList<>(bounds.values());
+    for (int i = 0; i < shapes.size(); i++) {
+      for (int j = i + 1; j < shapes.size(); j++) {
+        assertFalse(shapes.get(i).intersects(shapes.get(j)), shapes.get(i) + " " + shapes.get(j));
+      }
+    }
+    assertTrue(distance(bounds.get("UC_NEW_1"), bounds.get("UC_210")) < 300);
+    assertTrue(distance(bounds.get("ACT_NEW"), bounds.get("UC_210")) < 300);
+    assertTrue(distance(bounds.get("UC_NEW_2"), bounds.get("UC_NEW_1")) < 300);
+    assertEquals(60, bounds.get("ACT_NEW").width);
+    assertEquals(80, bounds.get("ACT_NEW").height);
+  }
+
+  @Test
+  public void testNewNeedsOfShapeAtMarginStayInsideMargin() {
+    Map<String, NeedsFile.Need> needs = needs("UC_001", "UC_002", "ACT_001");
+    needs.get("UC_002").getIncludesLinks().add("UC_001");
+    needs.get("ACT_001").getAssociatesLinks().add("UC_001");
+    Map<String, Rectangle> bounds = new HashMap<>();
+    bounds.put("UC_001", new Rectangle(50, 50, 120, 60));
+
+    layoutEngine.placeIncrementally(needs, bounds);
+
+    assertEquals(new Rectangle(50, 50, 120, 60), bounds.get("UC_001"));
+    for (String id : new String[] {"UC_002", "ACT_001"}) {
+      assertTrue(bounds.get(id).x >= 50 && bounds.get(id).y >= 50, bounds.get(id).toString());
+      assertTrue(distance(bounds.get(id), bounds.get("UC_001")) < 300);
+    }
+    assertFalse(bounds.get("UC_002").intersects(bounds.get("ACT_001")));
+  }
+
+  private static double distance(Rectangle a, Rectangle b) {
+    return Math.hypot(a.getCenterX() - b.getCenterX(), a.getCenterY() - b.getCenterY());
+  }
+}
@@ -0,0 +1,119 @@
+package com.orgatex.vp.sphinx.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/** Tests for planning an import before the project is changed. */
+public class ImportPlannerTest {
+
+  private static NeedsFile.Need need(String id, String type, String vpModelId) {
+    NeedsFile.Need need = new NeedsFile.Need(id, "Need " + id, type);
+    need.setVpModelId(vpModelId);
+    return need;
+  }
+
+  private static Map<String, NeedsFile.Need> needs(NeedsFile.Need... needs) {
+    Map<String, NeedsFile.Need> map = new LinkedHashMap<>();
+    for (NeedsFile.Need need : needs) {
+      map.put(need.getId(), need);
+    }
+    return map;
+  }
+
+  @Test
+  public void testPlanCreatesAndReusesModels() {
+    Map<String, NeedsFile.Need> needs =
+        needs(
+            need("UC_001", "uc", "vp-1"),
+            need("UC_002", "uc", "vp-missing"),
+            need("ACT_001", "act", null),
+            need("SPEC_001", "spec", null));
+    List<String> lookedUp = new ArrayList<>();
+
+    ImportPlan<String> plan =
+        ImportPlanner.plan(
+            needs,
+            need -> {
+              lookedUp.add(need.getId());
+              return "vp-1".equals(need.getVpModelId()) ? "existing use case" : null;
+            });
+
+    assertEquals(List.of("UC_001", "UC_002"), lookedUp);
+    assertEquals(1, plan.getReuseCount());
+    assertEquals(2, plan.getCreateCount());
+    ImportPlan.NeedPlan<String> reused = plan.getNeeds().get(0);
+    assertEquals(ImportPlan.Action.REUSE, reused.action());
+    assertEquals("existing use case", reused.existingModel());
+    assertEquals(ImportPlan.ElementKind.ACTOR, plan.getNeeds().get(2).kind());
+    assertEquals("SPEC_001", plan.getSkippedNeeds().get(0).getId());
+  }
+
+  @Test
+  public void testPlanResolvesLinks() {
+    NeedsFile.Need login = need("UC_001", "uc", null);
+    login.setIncludesLinks(List.of("UC_002", " UC_404 "));
+    login.setAssociatesLinks(List.of("ACT_001", "SPEC_001", ""));
+    Map<String, NeedsFile.Need> needs =
+        needs(
+            login,
+            need("UC_002", "uc", null),
+            need("ACT_001", "act", null),
+            need("SPEC_001", "spec", null));
+
+    ImportPlan<String> plan = ImportPlanner.plan(needs, need -> null);
+
+    assertEquals(
+        List.of(
+            new ImportPlan.Relationship("UC_001", "UC_002", ImportPlan.RelationshipKind.INCLUDE),
+            new ImportPlan.Relationship(
+                "UC_001", "ACT_001", ImportPlan.RelationshipKind.ASSOCIATION)),
+        plan.getRelationships());
+    List<ImportPlan.UnresolvedLink> unresolved = plan.getUnresolvedLinks();
+    assertEquals(2, unresolved.size());
+    assertEquals("UC_404", unresolved.get(0).targetId());
+    assertEquals("not in file", unresolved.get(0).reason());
+    assertEquals("not an importable type", unresolved.get(1).reason());
+
+    String summary = plan.summary(1);
+    assertTrue(summary.startsWith("3 new model(s), 0 reused model(s)\n2 relationship(s)"));
+    assertTrue(summary.contains("- UC_001 includes UC_404 (not in file)"));
+    assertTrue(summary.endsWith("... and 1 more"));
+  }
+
+  @Test
+  public void testPlanSkipsUnselectedKinds() {
+    NeedsFile.Need login = need("UC_001", "uc", null);
+    login.setAssociatesLinks(List.of("ACT_001", "ACT_404"));
+    Map<String, NeedsFile.Need> needs = needs(login, need("ACT_001", "act", "vp-1"));
+    List<String> lookedUp = new ArrayList<>();
+
+    ImportPlan<String> plan =
+        ImportPlanner.plan(
+            needs,
+            Set.of(ImportPlan.ElementKind.USE_CASE, ImportPlan.ElementKind.REQUIREMENT),
+            need -> {
+              lookedUp.add(need.getId());
+              return null;
+            });
+
+    assertEquals(1, plan.getCreateCount());
+    assertEquals("ACT_001", plan.getSkippedNeeds().get(0).getId());
+    assertTrue(lookedUp.isEmpty());
+    assertTrue(plan.getRelationships().isEmpty());
+    assertEquals("type not selected", plan.getUnresolvedLinks().get(0).reason());
+    assertEquals("not in file or type not selected", plan.getUnresolvedLinks().get(1).reason());
+
+    ImportPlan<String> filtered =
+        ImportPlanner.plan(needs, EnumSet.allOf(ImportPlan.ElementKind.class), true, need -> null);
+    assertEquals(
+        "not in file or not selected by filter", filtered.getUnresolvedLinks().get(0).reason());
+  }
+}
@@ -0,0 +1,190 @@
+package com.orgatex.vp.sphinx.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for the binary cache of read needs files. */
+public class NeedsFileCacheTest {
+
+  @TempDir Path tempDir;
+
+  private final AtomicInteger parses = new AtomicInteger();
+  private final AtomicReference<NeedsFileReader.Binding> parsedBinding = new AtomicReference<>();
+
+  private final NeedsFileReader countingReader =
+      new NeedsFileReader() {
+        @Override
+        public Result read(File file, Binding binding) throws IOException {
+          parses.incrementAndGet();
+          parsedBinding.set(binding);
+          return super.read(file, binding);
+        }
+      };
+
+  private static String needsFile(String title) {
+    return "{\"current_version\": \"1.0\", \"project\": \"Cache Test\", \"versions\": {\"1.0\": {"
+        + "\"needs\": {"
+        + "\"REQ_001\": {\"id\": \"REQ_001\", \"title\": "
+        + title
+        + ", \"type\": \"req\", \"status\": \"\", \"links\": [\"REQ_002\"]},"
+        + "\"REQ_002\": {\"id\": \"REQ_002\", \"title\": \"Other\", \"type\": \"unknown\"}"
+        + "}}}}";
+  }
+
+  private static Map<String, NeedsFile.Need> needsOf(NeedsFileReader.Result result) {
+    return result.needsFile().getVersions().get("1.0").getNeeds();
+  }
+
+  private NeedsFileCache cache() {
+    return new NeedsFileCache(tempDir.resolve("cache"), countingReader);
+  }
+
+  private static void assertSameResult(
+      NeedsFileReader.Result expected, NeedsFileReader.Result actual) {
+    assertEquals(expected.needsFile(), actual.needsFile());
+    assertEquals(expected.warnings(), actual.warnings());
+    assertEquals(expected.suppressedWarnings(), actual.suppressedWarnings());
+    assertEquals(expected.contentLength(), actual.contentLength());
+  }
+
+  @Test
+  public void testUnchangedFileIsLoadedWithoutParsing() throws Exception {
+    Path file = tempDir.resolve("needs.json");
+    Files.writeString(file, needsFile("null"));
+
+    NeedsFileReader.Result parsed = cache().read(file.toFile());
+    NeedsFileReader.Result cached = cache().read(file.toFile());
+
+    assertEquals(1, parses.get());
+    assertSameResult(parsed, cached);
+    // Values that exports leave out survive, as do the warnings of the first read
+    NeedsFile.Need need = cached.needsFile().getVersions().get("1.0").getNeeds().get("REQ_001");
+    assertEquals("", need.getStatus());
+    assertEquals(2, cached.warnings().size());
+    assertThrows(UnsupportedOperationException.class, () -> cached.warnings().clear());
+  }
+
+  @Test
+  public void testChangedFileIsParsedAgain() throws Exception {
+    Path file = tempDir.resolve("needs.json");
+    Files.writeString(file, needsFile("\"First\""));
+    cache().read(file.toFile());
+
+    Files.writeString(file, needsFile("\"Second\""));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000));
+    NeedsFileReader.Result result = cache().read(file.toFile());
+
+    assertEquals(2, parses.get());
+    assertEquals(
+        "Second",
+        result.needsFile().getVersions().get("1.0").getNeeds().get("REQ_001").getTitle());
+  }
+
+  @Test
+  public void testRewrittenFileWithSameContentIsLoadedByHash() throws Exception {
+    Path file = tempDir.resolve("needs.json");
+    Files.writeString(file, needsFile("\"Title\""));
+    NeedsFileReader.Result parsed = cache().read(file.toFile());
+
+    Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000));
+    NeedsFileReader.Result cached = cache().read(file.toFile());
+    NeedsFileReader.Result again = cache().read(file.toFile());
+
+    assertEquals(1, parses.get());
+    assertSameResult(parsed, cached);
+    assertSameResult(parsed, again);
+  }
+
+  @Test
+  public void testCorruptEntryIsReplaced() throws Exception {
+    Path file = tempDir.resolve("needs.json");
+    Files.writeString(file, needsFile("\"Title\""));
+    NeedsFileCache cache = cache();
+    Path entry = cache.entryPath(file.toAbsolutePath().normalize());
+    Files.createDirectories(entry.getParent());
+    Files.writeString(entry, "not an entry");
+
+    NeedsFileReader.Result parsed = cache.read(file.toFile());
+    NeedsFileReader.Result cached = cache.read(file.toFile());
+
+    assertEquals(1, parses.get());
+    assertSameResult(parsed, cached);
+  }
+
+  @Test
+  public void testInvalidFileIsNotCached() throws Exception {
+    Path file = tempDir.resolve("needs.json");
+    Files.writeString(file, "{\"versions\": []}");
+    NeedsFileCache cache = cache();
+
+    assertThrows(NeedsFileReader.NeedsFormatException.class, () -> cache.read(file.toFile()));
+    assertFalse(Files.exists(cache.entryPath(file.toAbsolutePath().normalize())));
+  }
+
+  @Test
+  public void testEntryServesReadsThatSkipTypes() throws Exception {
+    Path file = tempDir.resolve("needs.json");
+    Files.writeString(file, needsFile("\"Title\""));
+    NeedsFileReader.Binding skipReq = new NeedsFileReader.Binding(Set.of("req"), true);
+
+    NeedsFileReader.Result parsed = cache().read(file.toFile(), skipReq);
+    cache().read(file.toFile());
+    NeedsFileReader.Result cached = cache().read(file.toFile(), skipReq);
+
+    // The selective read is not stored, the complete one is and serves the selective one
+    assertEquals(2, parses.get());
+    assertSameResult(parsed, cached);
+    assertEquals(List.of("REQ_002"), List.copyOf(needsOf(cached).keySet()));
+    assertEquals(1, cached.warnings().size());
+  }
+
+  @Test
+  public void testStoredReadBindsContentAtOnce() throws Exception {
+    Path file = tempDir.resolve("needs.json");
+    Files.writeString(file, needsFile("\"Title\""));
+    NeedsFileReader.Binding lazy = new NeedsFileReader.Binding(Set.of(), true);
+    NeedsFileReader.Binding skipReq = new NeedsFileReader.Binding(Set.of("req"), true);
+
+    cache().read(file.toFile(), lazy);
+    assertFalse(parsedBinding.get().lazyContent());
+    Files.delete(cache().entryPath(file.toAbsolutePath().normalize()));
+    cache().read(file.toFile(), skipReq);
+    assertTrue(parsedBinding.get().lazyContent());
+  }
+
+  @Test
+  public void testEntryServesFilteredReads() throws Exception {
+    Path file = tempDir.resolve("needs.json");
+    Files.writeString(file, needsFile("\"Title\""));
+    NeedsFilter filter = NeedsFilter.compile("type == 'req'");
+    NeedsFileReader.Binding filtered = new NeedsFileReader.Binding(Set.of(), true, filter);
+
+    NeedsFileReader.Result parsed = cache().read(file.toFile(), filtered);
+    cache().read(file.toFile());
+    NeedsFileReader.Result cached = cache().read(file.toFile(), filtered);
+    NeedsFileReader.Result closure =
+        cache()
+            .read(
+                file.toFile(),
+                new NeedsFileReader.Binding(Set.of(), true, filter.withLinkClosure(true)));
+
+    assertEquals(2, parses.get());
+    assertSameResult(parsed, cached);
+    assertEquals(List.of("REQ_001"), List.copyOf(needsOf(cached).keySet()));
+    assertEquals(List.of(), cached.warnings());
+    assertEquals(List.of("REQ_001", "REQ_002"), List.copyOf(needsOf(closure).keySet()));
+  }
+}
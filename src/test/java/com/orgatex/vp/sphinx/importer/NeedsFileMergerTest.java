@@ -0,0 +1,121 @@
+package com.orgatex.vp.sphinx.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for merging several needs files with ID prefixes. */
+public class NeedsFileMergerTest {
+
+  @TempDir Path tempDir;
+
+  private static NeedsFile needsFile(String project, NeedsFile.Need... needs) {
+    NeedsFile needsFile = new NeedsFile();
+    needsFile.setCreated("2025-01-01T00:00:00");
+    needsFile.setProject(project);
+    NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+    versionData.setCreated("2025-01-01T00:00:00");
+    versionData.setCreator(new NeedsFile.Creator());
+    for (NeedsFile.Need need : needs) {
+      versionData.addNeed(need);
+    }
+    needsFile.addVersion(NeedsFile.DEFAULT_VERSION, versionData);
+    return needsFile;
+  }
+
+  private static NeedsFile.Need need(String id, String... includes) {
+    NeedsFile.Need need = new NeedsFile.Need(id, "Need " + id, "uc");
+    need.setContent("");
+    need.setIncludesLinks(List.of(includes));
+    return need;
+  }
+
+  private static Map<String, NeedsFile.Need> needsOf(NeedsFile needsFile) {
+    return needsFile.getVersions().get(needsFile.getCurrentVersion()).getNeeds();
+  }
+
+  @Test
+  public void testPrefixesIdsAndResolvesCrossFileLinks() {
+    NeedsFile api = needsFile("api", need("UC_LOGIN", "UC_AUDIT"), need("UC_AUDIT"));
+    NeedsFile web = needsFile("web", need("UC_SHOP", "UC_LOGIN", "API_UC_AUDIT", "UC_NONE"));
+
+    NeedsFileMerger.Result result =
+        NeedsFileMerger.merge(
+            List.of(
+                new NeedsFileMerger.Source("api/needs.json", "API_", api),
+                new NeedsFileMerger.Source("web/needs.json", "WEB_", web)),
+            "docs");
+
+    Map<String, NeedsFile.Need> merged = needsOf(result.merged());
+    assertEquals(
+        List.of("API_UC_AUDIT", "API_UC_LOGIN", "WEB_UC_SHOP"), List.copyOf(merged.keySet()));
+    assertEquals(3, result.merged().getVersions().get("1.0").getNeedsAmount());
+    assertEquals("docs", result.merged().getProject());
+    // Own link gets the prefix, unprefixed and qualified cross-file links resolve, unknown is kept
+    assertEquals(List.of("API_UC_AUDIT"), merged.get("API_UC_LOGIN").getIncludesLinks());
+    assertEquals(
+        List.of("API_UC_LOGIN", "API_UC_AUDIT", "UC_NONE"),
+        merged.get("WEB_UC_SHOP").getIncludesLinks());
+    assertEquals(2, result.crossFileLinks());
+    assertTrue(result.problems().isEmpty());
+    // Sources are not modified
+    assertEquals(List.of("UC_AUDIT"), needsOf(api).get("UC_LOGIN").getIncludesLinks());
+  }
+
+  @Test
+  public void testDuplicateAndAmbiguousIdsAreReported() {
+    NeedsFile first = needsFile("a", need("UC_1"));
+    NeedsFile second = needsFile("b", need("UC_1"), need("UC_2", "UC_X"));
+    NeedsFile third = needsFile("c", need("UC_X"));
+    NeedsFile fourth = needsFile("d", need("UC_X"));
+
+    NeedsFileMerger.Result result =
+        NeedsFileMerger.merge(
+            List.of(
+                new NeedsFileMerger.Source("a", "", first),
+                new NeedsFileMerger.Source("b", "", second),
+                new NeedsFileMerger.Source("c", "C_", third),
+                new NeedsFileMerger.Source("d", "D_", fourth)),
+            "docs");
+
+    Map<String, NeedsFile.Need> merged = needsOf(result.merged());
+    assertEquals(List.of("C_UC_X", "D_UC_X", "UC_1", "UC_2"), List.copyOf(merged.keySet()));
+    assertEquals("Need UC_1", merged.get("UC_1").getTitle());
+    assertEquals(List.of("UC_X"), merged.get("UC_2").getIncludesLinks());
+    assertEquals(2, result.problems().size());
+    assertTrue(result.problems().get(0).startsWith("Duplicate need ID UC_1 in b"));
+    assertTrue(result.problems().get(1).startsWith("Ambiguous link to UC_X in b"));
+  }
+
+  @Test
+  public void testReadDirectoryWithPrefixTemplate() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper();
+    Files.createDirectories(tempDir.resolve("api/_build"));
+    Files.createDirectories(tempDir.resolve("web/_build"));
+    objectMapper.writeValue(
+        tempDir.resolve("api/_build/needs.json").toFile(), needsFile("Api Docs", need("UC_1")));
+    objectMapper.writeValue(
+        tempDir.resolve("web/_build/needs.json").toFile(), needsFile("web", need("UC_2", "UC_1")));
+    Files.writeString(tempDir.resolve("web/_build/other.json"), "{}");
+
+    NeedsFileMerger.Result result = new NeedsDirectoryReader().read(tempDir, "{project}_");
+
+    Map<String, NeedsFile.Need> merged = needsOf(result.merged());
+    assertEquals(List.of("Api_Docs_UC_1", "web_UC_2"), List.copyOf(merged.keySet()));
+    assertEquals(List.of("Api_Docs_UC_1"), merged.get("web_UC_2").getIncludesLinks());
+    assertEquals(tempDir.getFileName().toString(), result.merged().getProject());
+  }
+
+  @Test
+  public void testReadEmptyDirectoryFails() {
+    assertThrows(IOException.class, () -> new NeedsDirectoryReader().read(tempDir, ""));
+  }
+}
@@ -0,0 +1,88 @@
+package com.orgatex.vp.sphinx.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.monitoring.PluginMetrics;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares sequential and parallel decoding of a large needs file.
+ *
+ * <p>Not run by default since its result depends on the machine; run it with {@code mvn test
+ * -Dtest=NeedsFileReaderBenchmark}.
+ */
+public class NeedsFileReaderBenchmark {
+
+  private static final int NEEDS = 100_000;
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int ROUNDS = 5;
+
+  private static byte[] generate() {
+    StringBuilder json =
+        new StringBuilder("{\"current_version\": \"1.0\", \"project\": \"bench\",\n")
+            .append("  \"versions\": {\"1.0\": {\"needs_amount\": ")
+            .append(NEEDS)
+            .append(", \"needs\": {\n");
+    for (int i = 0; i < NEEDS; i++) {
+      if (i > 0) {
+        json.append(",\n");
+      }
+      String id = String.format("UC_%06d", i);
+      json.append("    \"")
+          .append(id)
+          .append("\": {\"id\": \"")
+          .append(id)
+          .append("\", \"type\": \"uc\", \"title\": \"Use case ")
+          .append(i)
+          .append("\", \"status\": \"open\", \"tags\": [\"bench\", \"generated\"],")
+          .append(" \"content\": \"The system shall do thing ")
+          .append(i)
+          .append(".\", \"includes\": [\"UC_")
+          .append(String.format("%06d", (i + 1) % NEEDS))
+          .append("\"], \"extends\": []}");
+    }
+    return json.append("\n  }}}}\n").toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static long time(NeedsFileReader reader, byte[] content) throws Exception {
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+      long start = System.nanoTime();
+      reader.read(ByteBuffer.wrap(content));
+      long nanos = System.nanoTime() - start;
+      if (round >= WARMUP_ROUNDS) {
+        best = Math.min(best, nanos);
+      }
+    }
+    return best;
+  }
+
+  @Test
+  public void benchmarkParallelRead() throws Exception {
+    byte[] content = generate();
+    NeedsFileReader sequential = new NeedsFileReader(new ObjectMapper(), Long.MAX_VALUE);
+    NeedsFileReader parallel = new NeedsFileReader(new ObjectMapper(), 0);
+
+    NeedsFileReader.Result expected = sequential.read(ByteBuffer.wrap(content));
+    NeedsFileReader.Result actual = parallel.read(ByteBuffer.wrap(content));
+    assertEquals(
+        expected.needsFile().getVersions().get("1.0").getNeeds(),
+        actual.needsFile().getVersions().get("1.0").getNeeds());
+
+    long sequentialNanos = time(sequential, content);
+    long parallelNanos = time(parallel, content);
+    System.out.printf(
+        "%d needs, %.1f MB, %d worker(s): sequential %.1f MB/s, parallel %.1f MB/s,"
+            + " speedup %.2fx%n",
+        NEEDS,
+        content.length / 1_000_000.0,
+        ForkJoinPool.getCommonPoolParallelism(),
+        PluginMetrics.megabytesPerSecond(content.length, sequentialNanos),
+        PluginMetrics.megabytesPerSecond(content.length, parallelNanos),
+        (double) sequentialNanos / parallelNanos);
+  }
+}
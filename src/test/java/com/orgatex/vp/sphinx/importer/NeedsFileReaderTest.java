@@ -0,0 +1,406 @@
+package com.orgatex.vp.sphinx.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for streaming validation of needs files during import. */
+public class NeedsFileReaderTest {
+
+  private final NeedsFileReader reader = new NeedsFileReader();
+
+  @TempDir Path tempDir;
+
+  private NeedsFileReader.Result read(String json) throws Exception {
+    return reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private NeedsFileReader.NeedsFormatException readInvalid(String json) {
+    return assertThrows(NeedsFileReader.NeedsFormatException.class, () -> read(json));
+  }
+
+  private static String fileWithNeeds(String needs) {
+    return "{\n"
+        + "  \"current_version\": \"1.0\",\n"
+        + "  \"project\": \"Reader Test\",\n"
+        + "  \"versions\": {\n"
+        + "    \"1.0\": {\n"
+        + "      \"creator\": {\"name\": \"test\"},\n"
+        + "      \"needs\": {\n"
+        + needs
+        + "\n      }\n"
+        + "    }\n"
+        + "  }\n"
+        + "}";
+  }
+
+  @Test
+  public void testReadMatchesDataBinding() throws Exception {
+    NeedsFile original = new NeedsFile();
+    original.setProject("Round Trip");
+    NeedsFile.VersionData versionData = new NeedsFile.VersionData();
+    versionData.setCreator(new NeedsFile.Creator());
+    NeedsFile.Need need = new NeedsFile.Need("REQ_001", "Requirement", "req");
+    need.setContent("Content");
+    need.setTags(List.of("a", "b"));
+    need.setLinks(List.of("REQ_002"));
+    versionData.addNeed(need);
+    versionData.addNeed(new NeedsFile.Need("REQ_002", "Other", "req"));
+    original.addVersion("1.0", versionData);
+
+    String json = new ObjectMapper().writeValueAsString(original);
+    NeedsFileReader.Result result = read(json);
+
+    assertEquals(new ObjectMapper().readValue(json, NeedsFile.class), result.needsFile());
+    assertEquals(2, result.needsFile().getVersions().get("1.0").getNeedsAmount());
+  }
+
+  @Test
+  public void testMalformedJsonReportsLineAndColumn() {
+    NeedsFileReader.NeedsFormatException e =
+        readInvalid(fileWithNeeds("        \"REQ_001\": {\"id\": \"REQ_001\",, }"));
+
+    assertEquals(8, e.getDiagnostic().line());
+    assertEquals("REQ_001", e.getDiagnostic().needId());
+    assertTrue(e.getMessage().contains("line 8"));
+  }
+
+  @Test
+  public void testMappedReadMatchesStreamRead() throws Exception {
+    StringBuilder needs = new StringBuilder();
+    String content = "x".repeat(1000);
+    for (int i = 0; i < 1500; i++) {
+      needs.append(i > 0 ? ",\n" : "");
+      needs.append(
+          String.format(
+              "        \"REQ_%04d\": {\"id\": \"REQ_%04d\", \"title\": null, \"content\": \"%s\"}",
+              i, i, content));
+    }
+    byte[] json = fileWithNeeds(needs.toString()).getBytes(StandardCharsets.UTF_8);
+    assertTrue(json.length >= NeedsFileReader.MAPPED_READ_THRESHOLD);
+    Path file = Files.write(tempDir.resolve("needs.json"), json);
+
+    NeedsFileReader.Result mapped = reader.read(file.toFile());
+    NeedsFileReader.Result streamed = reader.read(new ByteArrayInputStream(json));
+
+    assertEquals(streamed.needsFile(), mapped.needsFile());
+    assertEquals(1500, mapped.needsFile().getVersions().get("1.0").getNeedsAmount());
+    assertEquals(streamed.warnings(), mapped.warnings());
+    assertEquals(json.length, mapped.contentLength());
+    assertEquals(json.length, streamed.contentLength());
+  }
+
+  @Test
+  public void testContentLengthOfCompressedFileIsUncompressedSize() throws Exception {
+    String need = "        \"REQ_001\": {\"content\": \"" + "x".repeat(10_000) + "\"}";
+    byte[] json = fileWithNeeds(need).getBytes(StandardCharsets.UTF_8);
+    Path file = tempDir.resolve("needs.json.gz");
+    try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+      output.write(json);
+    }
+
+    NeedsFileReader.Result result = reader.read(file.toFile());
+
+    assertTrue(Files.size(file) < json.length);
+    assertEquals(json.length, result.contentLength());
+  }
+
+  @Test
+  public void testBufferReadReportsLineAndColumn() {
+    byte[] json =
+        fileWithNeeds("        \"REQ_001\": {\"id\": \"REQ_001\",, }")
+            .getBytes(StandardCharsets.UTF_8);
+
+    NeedsFileReader.NeedsFormatException e =
+        assertThrows(
+            NeedsFileReader.NeedsFormatException.class, () -> reader.read(ByteBuffer.wrap(json)));
+
+    assertEquals(8, e.getDiagnostic().line());
+    assertEquals("REQ_001", e.getDiagnostic().needId());
+  }
+
+  @Test
+  public void testNeedThatIsNotAnObjectIsFatal() {
+    NeedsFileReader.NeedsFormatException e =
+        readInvalid(
+            fileWithNeeds(
+                "        \"REQ_001\": {\"id\": \"REQ_001\", \"type\": \"req\"},\n"
+                    + "        \"REQ_002\": [1, 2]"));
+
+    NeedsFileReader.Diagnostic diagnostic = e.getDiagnostic();
+    assertEquals("REQ_002", diagnostic.needId());
+    assertEquals(9, diagnostic.line());
+    assertEquals(20, diagnostic.column());
+    assertEquals("$.versions['1.0'].needs.REQ_002", diagnostic.path());
+  }
+
+  @Test
+  public void testMissingCurrentVersionIsFatal() {
+    NeedsFileReader.NeedsFormatException e = readInvalid("{\"project\": \"P\", \"versions\": {}}");
+
+    assertTrue(e.getMessage().contains("current_version"));
+  }
+
+  @Test
+  public void testRecoverableProblemsAreWarnings() throws Exception {
+    NeedsFileReader.Result result =
+        read(
+            fileWithNeeds(
+                "        \"UC_001\": {\"id\": \"UC_001\", \"title\": null, \"type\": \"actor\","
+                    + " \"tags\": [\"ok\", 5], \"content\": {\"nested\": true}}"));
+
+    NeedsFile.Need need = result.needsFile().getVersions().get("1.0").getNeeds().get("UC_001");
+    assertNull(need.getTitle());
+    assertNull(need.getContent());
+    assertEquals("actor", need.getType());
+    assertEquals(List.of("ok"), need.getTags());
+
+    assertEquals(4, result.warnings().size());
+    for (NeedsFileReader.Diagnostic warning : result.warnings()) {
+      assertEquals("UC_001", warning.needId());
+      assertEquals(8, warning.line());
+    }
+  }
+
+  @Test
+  public void testNeedsAmountMismatchIsWarning() throws Exception {
+    String json =
+        "{\"current_version\": \"1.0\", \"project\": \"P\", \"versions\": {\"1.0\": {"
+            + "\"needs_amount\": 3, \"needs\": {\"R\": {\"id\": \"R\", \"type\": \"req\"}}}}}";
+
+    NeedsFileReader.Result result = read(json);
+
+    assertEquals(1, result.warnings().size());
+    assertTrue(result.warnings().get(0).message().contains("needs_amount"));
+    assertEquals(1, result.needsFile().getVersions().get("1.0").getNeedsAmount());
+  }
+
+  private static NeedsFileReader.Result assertSameParallelRead(String json) throws Exception {
+    return assertSameParallelRead(json, NeedsFileReader.Binding.ALL);
+  }
+
+  /** Read content sequentially and split at need boundaries, and check that both agree. */
+  private static NeedsFileReader.Result assertSameParallelRead(
+      String json, NeedsFileReader.Binding binding) throws Exception {
+    ByteBuffer content = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+    NeedsFileReader sequential = new NeedsFileReader(new ObjectMapper(), Long.MAX_VALUE);
+    NeedsFileReader parallel = new NeedsFileReader(new ObjectMapper(), 0);
+
+    NeedsFileReader.Result expected;
+    try {
+      expected = sequential.read(content, binding);
+    } catch (NeedsFileReader.NeedsFormatException e) {
+      NeedsFileReader.NeedsFormatException actual =
+          assertThrows(
+              NeedsFileReader.NeedsFormatException.class, () -> parallel.read(content, binding));
+      assertEquals(e.getDiagnostic(), actual.getDiagnostic());
+      return null;
+    }
+    NeedsFileReader.Result actual = parallel.read(content, binding);
+    assertEquals(expected.needsFile(), actual.needsFile());
+    assertEquals(expected.warnings(), actual.warnings());
+    assertEquals(expected.suppressedWarnings(), actual.suppressedWarnings());
+    assertEquals(0, content.position());
+    return actual;
+  }
+
+  @Test
+  public void testParallelReadMatchesSequentialRead() throws Exception {
+    StringBuilder needs = new StringBuilder();
+    // CRLF, brackets and escaped quotes in strings, multi-byte characters and warnings
+    String content = "\"content\": \"[{\\\"ä\\\"}]\"";
+    for (int i = 0; i < 300; i++) {
+      needs.append(
+          String.format(
+              "        \"UC_%03d\": {\"id\": \"UC_%03d\", \"type\": \"%s\", \"title\": %s,\r\n"
+                  + "          \"links\": [\"UC_000\", %d], %s},\n",
+              i, i, i % 7 == 0 ? "actor" : "uc", i % 5 == 0 ? "null" : "\"T\"", i, content));
+    }
+    needs.append("        \"UC_\\u0058\": {\"id\": \"UC_Y\"}");
+    String json =
+        "{\n"
+            + "  \"versions\": {\n"
+            + "    \"0.9\": {\"needs\": {\"OLD\": {\"id\": \"OLD\", \"type\": 1}}},\n"
+            + "    \"1.0\": {\n"
+            + "      \"needs\": {\n"
+            + needs
+            + "\n      }, \"needs_amount\": 2, \"creator\": {\"name\": \"test\"}\n"
+            + "    }\n"
+            + "  },\n"
+            + "  \"current_version\": \"1.0\", \"project\": 7\n"
+            + "}";
+
+    List<NeedsBoundaryScanner.NeedsObject> needsObjects =
+        new NeedsBoundaryScanner(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8))).scan();
+    assertEquals(2, needsObjects.size());
+    assertEquals(301, needsObjects.get(1).needs().size());
+    assertEquals("UC_X", needsObjects.get(1).needs().get(300).id());
+
+    NeedsFileReader.Result result = assertSameParallelRead(json);
+
+    NeedsFile.VersionData versionData = result.needsFile().getVersions().get("1.0");
+    assertEquals(301, versionData.getNeedsAmount());
+    assertEquals("UC_Y", versionData.getNeeds().get("UC_X").getId());
+    assertTrue(result.warnings().size() > 300);
+  }
+
+  @Test
+  public void testParallelReadReportsSameErrors() throws Exception {
+    assertSameParallelRead(fileWithNeeds("        \"REQ_001\": {\"id\": \"REQ_001\",, }"));
+    assertSameParallelRead(
+        fileWithNeeds(
+            "        \"REQ_001\": {\"id\": \"REQ_001\", \"type\": \"req\"},\n"
+                + "        \"REQ_002\": [1, 2]"));
+    // Not splittable: missing comma between needs, truncated content
+    String need = "        \"REQ_001\": {\"id\": \"REQ_001\"}";
+    assertSameParallelRead(fileWithNeeds(need + " \"REQ_2\": {}"));
+    assertSameParallelRead(fileWithNeeds(need).substring(50));
+    assertSameParallelRead("{\"current_version\": \"1.0\", \"versions\": {\"1.0\": {\"needs\": {}");
+  }
+
+  @Test
+  public void testSkippedTypesAreNotBound() throws Exception {
+    String json =
+        fileWithNeeds(
+            "        \"ACT_001\": {\"content\": \"Actor\", \"title\": null,\n"
+                + "          \"type\": \"act\", \"links\": [1], \"tags\": {}},\n"
+                + "        \"REQ_001\": {\"id\": \"REQ_001\", \"type\": \"req\",\n"
+                + "          \"status\": 5},\n"
+                + "        \"UC_001\": {\"id\": \"UC_001\", \"type\": \"uc\"}")
+            .replace("\"needs\": {", "\"needs_amount\": 3, \"needs\": {");
+    NeedsFileReader.Binding binding = new NeedsFileReader.Binding(Set.of("act"), false);
+
+    NeedsFileReader.Result result = assertSameParallelRead(json, binding);
+
+    NeedsFile.VersionData versionData = result.needsFile().getVersions().get("1.0");
+    assertEquals(List.of("REQ_001", "UC_001"), List.copyOf(versionData.getNeeds().keySet()));
+    assertEquals(2, versionData.getNeedsAmount());
+    // Warnings about the skipped need are dropped, and it still counts towards needs_amount
+    assertEquals(1, result.warnings().size());
+    assertEquals("REQ_001", result.warnings().get(0).needId());
+  }
+
+  @Test
+  public void testContentBeforeTypeIsBoundOnceTypeIsKnown() throws Exception {
+    String json =
+        fileWithNeeds(
+            "        \"ACT_001\": {\"content\": \"Actor\", \"type\": \"act\"},\n"
+                + "        \"REQ_001\": {\"content\" :\n"
+                + "          \"C:\\\\\\\"\\u00e4\\\\\", \"type\": \"req\"},\n"
+                + "        \"REQ_002\": {\"type\": \"req\", \"content\": \"After\"},\n"
+                + "        \"REQ_003\": {\"content\": \"First\", \"content\": null}");
+    NeedsFileReader.Binding binding = new NeedsFileReader.Binding(Set.of("act"), false);
+
+    NeedsFileReader.Result result = assertSameParallelRead(json, binding);
+
+    Map<String, NeedsFile.Need> needs = result.needsFile().getVersions().get("1.0").getNeeds();
+    assertEquals(List.of("REQ_001", "REQ_002", "REQ_003"), List.copyOf(needs.keySet()));
+    assertEquals("C:\\\"\u00e4\\", needs.get("REQ_001").getContent());
+    assertEquals("After", needs.get("REQ_002").getContent());
+    assertNull(needs.get("REQ_003").getContent());
+  }
+
+  @Test
+  public void testLazyContentOfMappedFileIsDecodedOnFirstUse() throws Exception {
+    StringBuilder needs = new StringBuilder();
+    for (int i = 0; i < 1500; i++) {
+      needs.append(i > 0 ? ",\n" : "");
+      needs.append(
+          String.format(
+              "        \"REQ_%04d\": {\"id\": \"REQ_%04d\", \"content\": \"%s \\\"%d\\\"\"}",
+              i, i, "x".repeat(1000), i));
+    }
+    byte[] json = fileWithNeeds(needs.toString()).getBytes(StandardCharsets.UTF_8);
+    Path file = Files.write(tempDir.resolve("needs.json"), json);
+
+    NeedsFileReader.Result lazy =
+        reader.read(file.toFile(), new NeedsFileReader.Binding(Set.of(), true));
+
+    assertEquals(reader.read(new ByteArrayInputStream(json)).needsFile(), lazy.needsFile());
+    NeedsFile.Need need = lazy.needsFile().getVersions().get("1.0").getNeeds().get("REQ_0042");
+    assertEquals("x".repeat(1000) + " \"42\"", need.getContent());
+  }
+
+  @Test
+  public void testFilterIsAppliedWhileReading() throws Exception {
+    String json =
+        fileWithNeeds(
+            "        \"REQ_001\": {\"id\": \"REQ_001\", \"type\": \"req\",\n"
+                + "          \"tags\": [\"safety\"], \"links\": [\"SPEC_001\"]},\n"
+                + "        \"REQ_002\": {\"id\": \"REQ_002\", \"type\": \"req\",\n"
+                + "          \"status\": 5},\n"
+                + "        \"SPEC_001\": {\"id\": \"SPEC_001\", \"type\": \"spec\",\n"
+                + "          \"links\": [\"SPEC_002\"]},\n"
+                + "        \"SPEC_002\": {\"id\": \"SPEC_002\", \"type\": \"spec\"}")
+            .replace("\"needs\": {", "\"needs_amount\": 4, \"needs\": {");
+    NeedsFilter filter = NeedsFilter.compile("type == 'req' and 'safety' in tags");
+
+    NeedsFileReader.Result result =
+        assertSameParallelRead(json, new NeedsFileReader.Binding(Set.of(), false, filter));
+
+    NeedsFile.VersionData versionData = result.needsFile().getVersions().get("1.0");
+    assertEquals(List.of("REQ_001"), List.copyOf(versionData.getNeeds().keySet()));
+    assertEquals(1, versionData.getNeedsAmount());
+    // The warning about REQ_002 is dropped, and it still counts towards needs_amount
+    assertEquals(List.of(), result.warnings());
+
+    NeedsFileReader.Result closure =
+        assertSameParallelRead(
+            json, new NeedsFileReader.Binding(Set.of(), true, filter.withLinkClosure(true)));
+
+    assertEquals(
+        List.of("REQ_001", "SPEC_001", "SPEC_002"),
+        List.copyOf(closure.needsFile().getVersions().get("1.0").getNeeds().keySet()));
+    assertEquals(List.of(), closure.warnings());
+  }
+
+  @Test
+  public void testLazyContentIsDecodedOnFirstUse() throws Exception {
+    String content = "Line\\nw\\u00e4ter \\\"quoted\\\" \u00fc";
+    StringBuilder needs = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      needs.append(
+          String.format(
+              "        \"REQ_%03d\": {\"content\": \"%s %d\", \"id\": \"REQ_%03d\"},%n",
+              i, content, i, i));
+    }
+    needs.append("        \"REQ_E\": {\"content\": \"\", \"id\": \"REQ_E\"},\n");
+    needs.append("        \"REQ_B\": {\"content\": \"C:\\\\\\\"\\\\\", \"id\": \"REQ_B\"},\n");
+    needs.append("        \"REQ_X\": {\"content\": \"AAAA\", \"id\": \"REQ_X\"}");
+    String json = fileWithNeeds(needs.toString());
+    NeedsFileReader.Binding lazy = new NeedsFileReader.Binding(Set.of(), true);
+
+    NeedsFileReader.Result result = assertSameParallelRead(json, lazy);
+
+    assertEquals(read(json).needsFile(), result.needsFile());
+    NeedsFile.Need need = result.needsFile().getVersions().get("1.0").getNeeds().get("REQ_007");
+    assertEquals("Line\nw\u00e4ter \"quoted\" \u00fc 7", need.getContent());
+    NeedsFile.Need empty = result.needsFile().getVersions().get("1.0").getNeeds().get("REQ_E");
+    assertEquals("", empty.getContent());
+    NeedsFile.Need slashes = result.needsFile().getVersions().get("1.0").getNeeds().get("REQ_B");
+    assertEquals("C:\\\"\\", slashes.getContent());
+
+    // Content is decoded from the read bytes when it is first used, not while reading
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    NeedsFileReader.Result unused =
+        new NeedsFileReader(new ObjectMapper(), Long.MAX_VALUE).read(ByteBuffer.wrap(bytes), lazy);
+    int at = new String(bytes, StandardCharsets.ISO_8859_1).indexOf("AAAA");
+    Arrays.fill(bytes, at, at + 4, (byte) 'B');
+    NeedsFile.Need last = unused.needsFile().getVersions().get("1.0").getNeeds().get("REQ_X");
+    assertEquals("BBBB", last.getContent());
+  }
+}
@@ -0,0 +1,98 @@
+package com.orgatex.vp.sphinx.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.orgatex.vp.sphinx.model.NeedsFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/** Tests for compiling and applying sphinx-needs filter strings. */
+public class NeedsFilterTest {
+
+  private static NeedsFile.Need need(String id, String type, List<String> tags, String... links) {
+    NeedsFile.Need need = new NeedsFile.Need(id, "Need " + id, type);
+    need.setTags(new ArrayList<>(tags));
+    need.setLinks(new ArrayList<>(List.of(links)));
+    return need;
+  }
+
+  private static boolean matches(String expression, NeedsFile.Need need) throws Exception {
+    return NeedsFilter.compile(expression).test(need);
+  }
+
+  @Test
+  public void testExpressionsMatchLikeSphinxNeeds() throws Exception {
+    NeedsFile.Need need = need("REQ_001", "req", List.of("safety", "brakes"));
+    need.setStatus("open");
+
+    assertTrue(matches("type == 'req' and 'safety' in tags", need));
+    assertFalse(matches("type == 'req' and 'comfort' in tags", need));
+    assertTrue(matches("type == \"spec\" or not 'comfort' in tags", need));
+    assertTrue(matches("'comfort' not in tags and status != 'closed'", need));
+    assertTrue(matches("type in ['req', 'spec'] and (status == 'open' or False)", need));
+    assertTrue(matches("'Need' in title and search('^REQ_\\d+$', id)", need));
+    assertFalse(matches("search('^SPEC', id)", need));
+    assertTrue(matches("tags and not links and priority == None", need));
+    assertTrue(matches("not not True", need));
+  }
+
+  @Test
+  public void testMissingValuesDoNotMatch() throws Exception {
+    NeedsFile.Need need = new NeedsFile.Need("REQ_001", null, "req");
+    need.setTags(null);
+
+    assertFalse(matches("'x' in title", need));
+    assertFalse(matches("'x' in tags", need));
+    assertFalse(matches("search('x', content)", need));
+    assertTrue(matches("title == None", need));
+  }
+
+  @Test
+  public void testInvalidFiltersReportColumn() {
+    NeedsFilter.FilterSyntaxException unknownField =
+        assertThrows(
+            NeedsFilter.FilterSyntaxException.class,
+            () -> NeedsFilter.compile("type == 'req' and colour == 'red'"));
+    assertEquals(19, unknownField.getColumn());
+    assertTrue(unknownField.getMessage().contains("unknown field 'colour'"));
+
+    NeedsFilter.FilterSyntaxException missingValue =
+        assertThrows(
+            NeedsFilter.FilterSyntaxException.class, () -> NeedsFilter.compile("type == "));
+    assertEquals(9, missingValue.getColumn());
+    assertThrows(NeedsFilter.FilterSyntaxException.class, () -> NeedsFilter.compile("(type"));
+    assertThrows(NeedsFilter.FilterSyntaxException.class, () -> NeedsFilter.compile("'open"));
+    assertThrows(
+        NeedsFilter.FilterSyntaxException.class, () -> NeedsFilter.compile("search('(', id)"));
+    assertThrows(NeedsFilter.FilterSyntaxException.class, () -> NeedsFilter.compile("type = 1"));
+  }
+
+  @Test
+  public void testBlankFilterSelectsAll() throws Exception {
+    assertSame(NeedsFilter.ALL, NeedsFilter.compile("  "));
+    assertSame(NeedsFilter.ALL, NeedsFilter.compile(null).withLinkClosure(true));
+    assertEquals(Set.of(), NeedsFilter.ALL.apply(new LinkedHashMap<>()));
+  }
+
+  @Test
+  public void testApplyKeepsLinkClosure() throws Exception {
+    Map<String, NeedsFile.Need> needs = new LinkedHashMap<>();
+    needs.put("REQ_001", need("REQ_001", "req", List.of("safety"), "SPEC_001", "MISSING"));
+    needs.put("SPEC_001", need("SPEC_001", "spec", List.of(), " IMPL_001 "));
+    needs.put("IMPL_001", need("IMPL_001", "impl", List.of(), "REQ_001"));
+    needs.put("REQ_002", need("REQ_002", "req", List.of(), "SPEC_001"));
+    NeedsFilter filter = NeedsFilter.compile("'safety' in tags");
+
+    Map<String, NeedsFile.Need> direct = new LinkedHashMap<>(needs);
+    assertEquals(Set.of("SPEC_001", "IMPL_001", "REQ_002"), filter.apply(direct));
+    assertEquals(List.of("REQ_001"), List.copyOf(direct.keySet()));
+
+    Map<String, NeedsFile.Need> closure = new LinkedHashMap<>(needs);
+    assertEquals(Set.of("REQ_002"), filter.withLinkClosure(true).apply(closure));
+    assertEquals(List.of("REQ_001", "SPEC_001", "IMPL_001"), List.copyOf(closure.keySet()));
+  }
+}
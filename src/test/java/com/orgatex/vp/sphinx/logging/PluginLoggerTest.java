@@ -0,0 +1,83 @@
+package com.orgatex.vp.sphinx.logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for level gating and lazy message evaluation in PluginLogger. */
+public class PluginLoggerTest {
+
+  private final LogLevel originalLevel = PluginLogger.getLevel();
+
+  @AfterEach
+  public void restoreLevel() {
+    PluginLogger.setLevel(originalLevel);
+  }
+
+  @Test
+  public void testDisabledDebugDoesNotEvaluateSupplier() {
+    PluginLogger.setLevel(LogLevel.INFO);
+    PluginLogger log = PluginLogger.getLogger(PluginLoggerTest.class);
+    AtomicInteger evaluations = new AtomicInteger();
+
+    log.debug(
+        () -> {
+          evaluations.incrementAndGet();
+          return "expensive message";
+        });
+
+    assertFalse(log.isDebugEnabled());
+    assertEquals(0, evaluations.get());
+  }
+
+  @Test
+  public void testEnabledDebugEvaluatesSupplierOnce() {
+    PluginLogger.setLevel(LogLevel.DEBUG);
+    PluginLogger log = PluginLogger.getLogger(PluginLoggerTest.class);
+    AtomicInteger evaluations = new AtomicInteger();
+
+    log.debug(
+        () -> {
+          evaluations.incrementAndGet();
+          return "expensive message";
+        });
+    PluginLogger.flush(1000);
+
+    assertTrue(log.isDebugEnabled());
+    assertEquals(1, evaluations.get());
+  }
+
+  @Test
+  public void testOffDisablesAllLevels() {
+    PluginLogger.setLevel(LogLevel.OFF);
+    PluginLogger log = PluginLogger.getLogger(PluginLoggerTest.class);
+
+    assertFalse(log.isEnabled(LogLevel.ERROR));
+    assertFalse(log.isEnabled(LogLevel.OFF));
+  }
+
+  @Test
+  public void testParseLevel() {
+    assertEquals(LogLevel.DEBUG, LogLevel.parse("debug", LogLevel.INFO));
+    assertEquals(LogLevel.INFO, LogLevel.parse("verbose", LogLevel.INFO));
+    assertEquals(LogLevel.WARN, LogLevel.parse(null, LogLevel.WARN));
+  }
+
+  @Test
+  public void testFullSinkDropsInsteadOfBlocking() {
+    AsyncLogSink sink = new AsyncLogSink(1);
+    try {
+      int accepted = 0;
+      for (int i = 0; i < 1000; i++) {
+        if (sink.publish(new LogEvent(LogLevel.DEBUG, "test", "message " + i, null))) {
+          accepted++;
+        }
+      }
+      assertTrue(accepted >= 1);
+    } finally {
+      sink.shutdown();
+    }
+  }
+}
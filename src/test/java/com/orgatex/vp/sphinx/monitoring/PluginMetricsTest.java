@@ -0,0 +1,111 @@
+package com.orgatex.vp.sphinx.monitoring;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the JMX plugin metrics. */
+public class PluginMetricsTest {
+
+  private final PluginMetrics metrics = PluginMetrics.getInstance();
+
+  @BeforeEach
+  public void setUp() {
+    metrics.resetStatistics();
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    PluginMetrics.unregister();
+    metrics.resetStatistics();
+  }
+
+  @Test
+  public void testCountersAccumulate() {
+    metrics.recordExport(10, 5_000_000, true);
+    metrics.recordExport(0, 1_000_000, false);
+    metrics.recordImport(7, 2_000_000, true);
+    metrics.recordWrite(1024);
+
+    assertEquals(2, metrics.getExportCount());
+    assertEquals(1, metrics.getExportFailureCount());
+    assertEquals(10, metrics.getNeedsExported());
+    assertEquals(1, metrics.getImportCount());
+    assertEquals(7, metrics.getNeedsImported());
+    assertEquals(1024, metrics.getBytesWritten());
+    assertEquals(2, metrics.getExportLatency().getCount());
+  }
+
+  @Test
+  public void testLookupHitRate() {
+    metrics.recordLookup(true, 1000);
+    metrics.recordLookup(true, 1000);
+    metrics.recordLookup(true, 1000);
+    metrics.recordLookup(false, 1000);
+
+    assertEquals(3, metrics.getLookupHitCount());
+    assertEquals(1, metrics.getLookupMissCount());
+    assertEquals(0.75, metrics.getLookupHitRate(), 1e-9);
+  }
+
+  @Test
+  public void testParseThroughput() {
+    assertEquals(0, metrics.getParseThroughput(), 1e-9);
+
+    metrics.recordParse(30_000_000, 200_000_000);
+    metrics.recordParse(10_000_000, 200_000_000);
+
+    assertEquals(40_000_000, metrics.getBytesRead());
+    assertEquals(100, metrics.getParseThroughput(), 1e-9);
+  }
+
+  @Test
+  public void testLatencyPercentilesAreOrdered() {
+    for (int i = 1; i <= 100; i++) {
+      metrics.recordValidation(i * 1_000_000L);
+    }
+
+    LatencySnapshot latency = metrics.getValidationLatency();
+    assertEquals(100, latency.getCount());
+    assertEquals(50.5, latency.getMeanMillis(), 0.01);
+    assertEquals(100.0, latency.getMaxMillis(), 0.01);
+    assertTrue(latency.getP50Millis() >= 50);
+    assertTrue(latency.getP50Millis() <= latency.getP95Millis());
+    assertTrue(latency.getP95Millis() <= latency.getP99Millis());
+    assertEquals(5050, metrics.getValidationTimeMillis());
+  }
+
+  @Test
+  public void testCacheSizesAreLive() {
+    long[] size = {3};
+    metrics.registerCache("testCache", () -> size[0]);
+    assertEquals(3L, metrics.getCacheSizes().get("testCache"));
+
+    size[0] = 5;
+    assertEquals(5L, metrics.getCacheSizes().get("testCache"));
+  }
+
+  @Test
+  public void testRegisteredAsMXBean() throws Exception {
+    PluginMetrics.register();
+    PluginMetrics.register();
+    metrics.recordLookup(true, 1000);
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(PluginMetrics.OBJECT_NAME);
+    assertTrue(server.isRegistered(name));
+    assertEquals(1L, server.getAttribute(name, "LookupHitCount"));
+
+    CompositeData latency = (CompositeData) server.getAttribute(name, "LookupLatency");
+    assertEquals(1L, latency.get("count"));
+
+    PluginMetrics.unregister();
+    assertFalse(server.isRegistered(name));
+  }
+}